@@ -136,9 +136,15 @@ public final class Constants {
     public static final String CACHE_USER_EQUITY = "equity:summary:";
     public static final String CACHE_PUBLIC_ACTIVITY = "activity:public:";
     public static final String CACHE_MERCHANT_DASHBOARD = "merchant:dashboard:";
+    public static final String CACHE_MEMBER_PHONE_FILTER = "member:phone-filter:";
+    public static final String CACHE_MEMBER_PHONE_FILTER_BUILT = "member:phone-filter-built:";
+    public static final String CACHE_AI_SYSTEM_PROMPT = "ai:prompt:";
+    public static final String CACHE_AI_CONTEXT = "ai:context:";
     public static final String LOCK_MEMBER_SYNC = "lock:member:sync";
+    public static final String LOCK_MEMBER_FILTER_REBUILD = "lock:member:filter";
     public static final String LOCK_ONBOARDING_EXPIRE = "lock:onboarding:expire";
     public static final String LOCK_EQUITY_SCAN = "lock:equity:scan";
+    public static final String LOCK_AI_USAGE_FLUSH = "lock:ai:usage:flush";
 
     // ========== 管理员状态 ==========
     /** 正常 */
@@ -0,0 +1,107 @@
+package com.wsh.common.core.util;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 布隆过滤器（字符串成员）
+ * 1. 元素经 MurmurHash3 128 位哈希后以双重哈希生成 k 个位下标，不保存原始值
+ * 2. 判断为不存在时一定不存在；判断为存在时有一定误判率
+ * 3. 位数组按字段序列化，可直接存入 Redis
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    /** 位数组 */
+    private long[] bits;
+
+    /** 哈希函数个数 */
+    private int hashCount;
+
+    /** 已写入元素个数 */
+    private int insertions;
+
+    private BloomFilter() {
+    }
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bits = new long[(int) ((bitCount + 63) / 64)];
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * 按预期元素个数与目标误判率创建
+     *
+     * @param expectedInsertions 预期元素个数
+     * @param fpp                目标误判率（0~1）
+     */
+    public static BloomFilter create(int expectedInsertions, double fpp) {
+        int n = Math.max(expectedInsertions, 1);
+        long bitCount = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (LN2 * LN2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * LN2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    public void put(String value) {
+        long[] hash = hash(value);
+        long bitCount = bitCount();
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        insertions++;
+    }
+
+    public boolean mightContain(String value) {
+        long[] hash = hash(value);
+        long bitCount = bitCount();
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return (long) bits.length * 64;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    public int insertions() {
+        return insertions;
+    }
+
+    /**
+     * 位数组占用内存（字节）
+     */
+    public long memoryBytes() {
+        return (long) bits.length * 8;
+    }
+
+    /**
+     * 按当前元素个数估算的误判率：(1 - e^(-kn/m))^k
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount()), hashCount);
+    }
+
+    private static long[] hash(String value) {
+        return MurmurHash.hash128(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long index(long[] hash, int i, long bitCount) {
+        long combined = hash[0] + i * hash[1];
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+}
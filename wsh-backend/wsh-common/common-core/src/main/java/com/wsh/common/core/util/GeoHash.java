@@ -0,0 +1,201 @@
+package com.wsh.common.core.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GeoHash 编码与距离工具
+ */
+public final class GeoHash {
+
+    private static final String BASE32_INDEX = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private static final char[] BASE32 = BASE32_INDEX.toCharArray();
+
+    /** 地球平均半径（米） */
+    public static final double EARTH_RADIUS_METERS = 6371000d;
+
+    /** 每纬度对应的米数 */
+    private static final double METERS_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_METERS / 180d;
+
+    private GeoHash() {
+    }
+
+    /**
+     * 计算指定精度的 GeoHash
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * GeoHash 单元格对应的经纬度范围
+     */
+    public static BoundingBox bounds(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32_INDEX.indexOf(hash.charAt(i));
+            if (ch < 0) {
+                throw new IllegalArgumentException("无效的 GeoHash: " + hash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((ch >> bit) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new BoundingBox(minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * 指定精度下单元格的纬度跨度（度）
+     */
+    public static double cellHeight(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180d / (1L << latBits);
+    }
+
+    /**
+     * 指定精度下单元格的经度跨度（度）
+     */
+    public static double cellWidth(int precision) {
+        int lngBits = (precision * 5 + 1) / 2;
+        return 360d / (1L << lngBits);
+    }
+
+    /**
+     * 覆盖矩形范围的全部 GeoHash 单元格
+     */
+    public static List<String> coverBoundingBox(BoundingBox box, int precision) {
+        return coverBoundingBox(box, precision, precision, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 覆盖矩形范围的 GeoHash 单元格，单元格数超过 maxCells 时逐级降低精度（不低于 minPrecision）
+     * 返回的单元格可能短于 precision，调用方按前缀匹配；降到 minPrecision 后不再限制数量
+     */
+    public static List<String> coverBoundingBox(BoundingBox box, int precision, int minPrecision, int maxCells) {
+        while (precision > minPrecision && cellCount(box, precision) > maxCells) {
+            precision--;
+        }
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        List<String> cells = new ArrayList<>();
+        // 以单元格下边界/左边界对齐，逐格枚举
+        double startLat = alignedStart(box.getMinLat() + 90, height) - 90;
+        double startLng = alignedStart(box.getMinLng() + 180, width) - 180;
+        for (double lat = startLat; lat <= box.getMaxLat(); lat += height) {
+            for (double lng = startLng; lng <= box.getMaxLng(); lng += width) {
+                cells.add(encode(Math.min(lat + height / 2, 90), Math.min(lng + width / 2, 180), precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * 指定精度下覆盖矩形范围所需的单元格数
+     */
+    public static long cellCount(BoundingBox box, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        long rows = (long) Math.floor((box.getMaxLat() + 90 - alignedStart(box.getMinLat() + 90, height)) / height) + 1;
+        long cols = (long) Math.floor((box.getMaxLng() + 180 - alignedStart(box.getMinLng() + 180, width)) / width) + 1;
+        return rows * cols;
+    }
+
+    private static double alignedStart(double offset, double span) {
+        return Math.floor(offset / span) * span;
+    }
+
+    /**
+     * 以中心点和半径计算外接矩形
+     */
+    public static BoundingBox boundingBox(double latitude, double longitude, double radiusMeters) {
+        double dLat = radiusMeters / METERS_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        double dLng = Math.min(radiusMeters / (METERS_PER_DEGREE_LAT * cosLat), 180d);
+        return new BoundingBox(Math.max(latitude - dLat, -90), Math.min(latitude + dLat, 90),
+                longitude - dLng, longitude + dLng);
+    }
+
+    /**
+     * Haversine 球面距离（米）
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * 经纬度矩形范围
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class BoundingBox {
+
+        private final double minLat;
+        private final double maxLat;
+        private final double minLng;
+        private final double maxLng;
+
+        public boolean contains(double latitude, double longitude) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLng && longitude <= maxLng;
+        }
+    }
+}
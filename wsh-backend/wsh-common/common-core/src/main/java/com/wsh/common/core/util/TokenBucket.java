@@ -0,0 +1,61 @@
+package com.wsh.common.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器（单节点，线程安全）
+ * 1. 令牌按固定速率连续补充，桶满后不再累积，允许不超过桶容量的突发
+ * 2. {@link #acquire()} 令牌不足时阻塞等待到下一个令牌可用
+ */
+public class TokenBucket {
+
+    /** 每个令牌的补充间隔（纳秒） */
+    private final double nanosPerToken;
+
+    /** 桶容量 */
+    private final double capacity;
+
+    /** 当前令牌数 */
+    private double tokens;
+
+    /** 上次补充时间（System.nanoTime） */
+    private long lastRefillNanos;
+
+    /**
+     * @param tokensPerSecond 每秒补充的令牌数
+     * @param capacity        桶容量（最大突发量）
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        if (tokensPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("tokensPerSecond and capacity must be positive");
+        }
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，不足时阻塞等待
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) * nanosPerToken);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,75 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 支持多行批量插入的 Mapper
+ *
+ * @param <T> 实体类型
+ */
+public interface BatchInsertMapper<T> extends BaseMapper<T> {
+
+    /** 默认每批行数（控制单条 SQL 的参数个数与包大小） */
+    int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * 单条 SQL 批量插入（由 {@link InsertBatch} 注入）
+     *
+     * @param list 实体列表，不能为空
+     * @return 插入行数
+     */
+    int insertBatch(@Param("list") List<T> list);
+
+    /**
+     * 按默认批大小分批插入
+     */
+    default int insertAll(List<T> list) {
+        return insertAll(list, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 分批插入，每批一条 SQL
+     */
+    default int insertAll(List<T> list, int chunkSize) {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        int affected = 0;
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            affected += insertBatch(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+        return affected;
+    }
+
+    /**
+     * 单条 SQL 批量插入，唯一键冲突的行跳过（由 {@link InsertIgnoreBatch} 注入）
+     *
+     * @param list 实体列表，不能为空
+     * @return 实际插入行数（被跳过的行不计）
+     */
+    int insertIgnoreBatch(@Param("list") List<T> list);
+
+    /**
+     * 按默认批大小分批插入，唯一键冲突的行跳过
+     */
+    default int insertIgnoreAll(List<T> list) {
+        return insertIgnoreAll(list, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 分批插入，唯一键冲突的行跳过，每批一条 SQL
+     */
+    default int insertIgnoreAll(List<T> list, int chunkSize) {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        int affected = 0;
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            affected += insertIgnoreBatch(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+        return affected;
+    }
+}
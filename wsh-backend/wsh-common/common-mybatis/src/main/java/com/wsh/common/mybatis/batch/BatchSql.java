@@ -0,0 +1,40 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入 SQL 片段
+ */
+final class BatchSql {
+
+    private BatchSql() {
+    }
+
+    /**
+     * 多行 INSERT：INSERT [IGNORE] INTO t (全部列) VALUES (...), (...)
+     * 插入全部列，值为 null 的列写入 NULL（不使用数据库默认值）
+     *
+     * @param ignoreDuplicates 是否使用 INSERT IGNORE（唯一键冲突的行跳过）
+     */
+    static String multiRowInsert(TableInfo tableInfo, boolean ignoreDuplicates) {
+        List<String> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        if (tableInfo.havePK()) {
+            columns.add(tableInfo.getKeyColumn());
+            values.add("#{et." + tableInfo.getKeyProperty() + "}");
+        }
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            columns.add(field.getColumn());
+            values.add("#{et." + field.getEl() + "}");
+        }
+        return (ignoreDuplicates ? "INSERT IGNORE INTO " : "INSERT INTO ") + tableInfo.getTableName()
+                + " (" + String.join(", ", columns) + ") VALUES "
+                + "<foreach collection=\"list\" item=\"et\" separator=\",\">("
+                + String.join(", ", values)
+                + ")</foreach>";
+    }
+}
@@ -0,0 +1,27 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.injector.DefaultSqlInjector;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+
+import java.util.List;
+
+/**
+ * SQL 注入器：在默认方法之外，
+ * 为继承 {@link BatchInsertMapper} 的 Mapper 注入批量插入（含忽略重复）方法，为继承 {@link BatchUpsertMapper} 的 Mapper 再注入批量插入或更新方法
+ */
+public class BatchSqlInjector extends DefaultSqlInjector {
+
+    @Override
+    public List<AbstractMethod> getMethodList(Class<?> mapperClass, TableInfo tableInfo) {
+        List<AbstractMethod> methods = super.getMethodList(mapperClass, tableInfo);
+        if (BatchInsertMapper.class.isAssignableFrom(mapperClass)) {
+            methods.add(new InsertBatch());
+            methods.add(new InsertIgnoreBatch());
+        }
+        if (BatchUpsertMapper.class.isAssignableFrom(mapperClass)) {
+            methods.add(new UpsertBatch());
+        }
+        return methods;
+    }
+}
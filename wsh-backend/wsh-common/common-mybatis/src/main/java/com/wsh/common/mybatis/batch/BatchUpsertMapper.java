@@ -0,0 +1,43 @@
+package com.wsh.common.mybatis.batch;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 支持批量插入或更新的 Mapper
+ * 依赖表上的唯一键实现幂等：重复写入同一业务记录时更新而不是新增
+ *
+ * @param <T> 实体类型
+ */
+public interface BatchUpsertMapper<T> extends BatchInsertMapper<T> {
+
+    /**
+     * 单条 SQL 批量插入或更新（由 {@link UpsertBatch} 注入）
+     *
+     * @param list 实体列表，不能为空
+     * @return 影响行数（MySQL：新增计 1，更新计 2，未变化计 0）
+     */
+    int upsertBatch(@Param("list") List<T> list);
+
+    /**
+     * 按默认批大小分批插入或更新
+     */
+    default int upsertAll(List<T> list) {
+        return upsertAll(list, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 分批插入或更新，每批一条 SQL
+     */
+    default int upsertAll(List<T> list, int chunkSize) {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        int affected = 0;
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            affected += upsertBatch(list.subList(from, Math.min(from + chunkSize, list.size())));
+        }
+        return affected;
+    }
+}
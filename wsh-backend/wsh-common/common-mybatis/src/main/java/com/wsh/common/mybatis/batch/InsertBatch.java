@@ -0,0 +1,28 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+/**
+ * 批量插入（INSERT ... VALUES (...), (...)）
+ * 主键（ASSIGN_ID）与自动填充字段由 MyBatis-Plus 参数处理器按元素逐个填充
+ */
+public class InsertBatch extends AbstractMethod {
+
+    public static final String METHOD_NAME = "insertBatch";
+
+    public InsertBatch() {
+        super(METHOD_NAME);
+    }
+
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        String sql = "<script>" + BatchSql.multiRowInsert(tableInfo, false) + "</script>";
+        SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+        return addInsertMappedStatement(mapperClass, modelClass, METHOD_NAME, sqlSource,
+                NoKeyGenerator.INSTANCE, null, null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+/**
+ * 批量插入并跳过重复（MySQL：INSERT IGNORE ... VALUES (...), (...)）
+ * 依赖表上的唯一键去重：已存在的记录保持不变，不报错
+ * 主键（ASSIGN_ID）与自动填充字段由 MyBatis-Plus 参数处理器按元素逐个填充
+ */
+public class InsertIgnoreBatch extends AbstractMethod {
+
+    public static final String METHOD_NAME = "insertIgnoreBatch";
+
+    public InsertIgnoreBatch() {
+        super(METHOD_NAME);
+    }
+
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        String sql = "<script>" + BatchSql.multiRowInsert(tableInfo, true) + "</script>";
+        SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+        return addInsertMappedStatement(mapperClass, modelClass, METHOD_NAME, sqlSource,
+                NoKeyGenerator.INSTANCE, null, null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.wsh.common.mybatis.batch;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量插入或更新（MySQL：INSERT ... VALUES (...), (...) ON DUPLICATE KEY UPDATE）
+ * 1. 插入全部列（值为 null 的列写入 NULL，不使用数据库默认值）
+ * 2. 唯一键冲突时更新除主键与仅插入时填充（如 created_at）以外的所有列
+ * 3. 主键（ASSIGN_ID）与自动填充字段由 MyBatis-Plus 参数处理器按元素逐个填充
+ */
+public class UpsertBatch extends AbstractMethod {
+
+    public static final String METHOD_NAME = "upsertBatch";
+
+    public UpsertBatch() {
+        super(METHOD_NAME);
+    }
+
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        List<String> updates = new ArrayList<>();
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
+            if (field.getFieldFill() != FieldFill.INSERT) {
+                updates.add(field.getColumn() + " = VALUES(" + field.getColumn() + ")");
+            }
+        }
+
+        String sql = "<script>" + BatchSql.multiRowInsert(tableInfo, false)
+                + " ON DUPLICATE KEY UPDATE " + String.join(", ", updates)
+                + "</script>";
+        SqlSource sqlSource = languageDriver.createSqlSource(configuration, sql, modelClass);
+        return addInsertMappedStatement(mapperClass, modelClass, METHOD_NAME, sqlSource,
+                NoKeyGenerator.INSTANCE, null, null);
+    }
+}
@@ -3,6 +3,7 @@ package com.wsh.common.mybatis.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.wsh.common.mybatis.batch.BatchSqlInjector;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -21,4 +22,12 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(pagination);
         return interceptor;
     }
+
+    /**
+     * SQL 注入器（批量插入、批量插入忽略重复、批量插入或更新）
+     */
+    @Bean
+    public BatchSqlInjector batchSqlInjector() {
+        return new BatchSqlInjector();
+    }
 }
@@ -0,0 +1,156 @@
+package com.wsh.common.mybatis.sweep;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分批过期清扫器
+ * 按主键升序分批扫描过期记录，每批独立事务提交：
+ * 1. fetchBatch：查询主键大于游标的一批过期记录（只读，不加锁）
+ * 2. expireBatch：事务内批量条件更新（WHERE status = 待处理状态），返回实际变更的记录
+ * 3. afterCommit：事务提交后处理非数据库副作用（释放库存、退款等）
+ * 单批失败只影响该批，游标照常前移，下次运行重新扫描
+ *
+ * @param <T> 记录类型
+ */
+@Slf4j
+public abstract class ExpirySweeper<T> {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile SweepResult lastResult;
+
+    protected ExpirySweeper(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 清扫器名称（用于日志与统计）
+     */
+    protected abstract String name();
+
+    /**
+     * 查询一批过期记录，按主键升序
+     *
+     * @param now     本次运行的基准时间
+     * @param afterId 上一批最后一条记录的主键，首批为 null
+     * @param limit   批大小
+     */
+    protected abstract List<T> fetchBatch(LocalDateTime now, Long afterId, int limit);
+
+    /**
+     * 记录主键
+     */
+    protected abstract Long idOf(T record);
+
+    /**
+     * 事务内批量过期，返回本次实际变更状态的记录
+     */
+    protected abstract List<T> expireBatch(List<T> batch, LocalDateTime now);
+
+    /**
+     * 事务提交后的处理，默认无操作
+     */
+    protected void afterCommit(List<T> expired) {
+    }
+
+    /**
+     * 批大小
+     */
+    protected int batchSize() {
+        return 200;
+    }
+
+    /**
+     * 单次运行最多处理的批数，防止积压时单次任务运行过久
+     */
+    protected int maxBatches() {
+        return 50;
+    }
+
+    /**
+     * 执行一次清扫
+     */
+    public SweepResult sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long startMillis = System.currentTimeMillis();
+        int batchSize = batchSize();
+        int batches = 0;
+        int scanned = 0;
+        int expired = 0;
+        int failedBatches = 0;
+        Long afterId = null;
+
+        while (batches < maxBatches()) {
+            List<T> batch = fetchBatch(now, afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            batches++;
+            scanned += batch.size();
+            afterId = idOf(batch.get(batch.size() - 1));
+
+            int changed = expireInTransaction(batch, now);
+            if (changed < 0) {
+                failedBatches++;
+            } else {
+                expired += changed;
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        SweepResult result = new SweepResult(name(), batches, scanned, expired, failedBatches,
+                System.currentTimeMillis() - startMillis, batches >= maxBatches());
+        this.lastResult = result;
+        return result;
+    }
+
+    /**
+     * 立即过期指定记录（供延时队列到期回调使用，调用方负责确认记录已到期）
+     *
+     * @return 实际过期数量，失败返回 -1
+     */
+    public int expireNow(List<T> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        return expireInTransaction(records, LocalDateTime.now());
+    }
+
+    /**
+     * 单批独立事务过期，提交后执行 afterCommit
+     *
+     * @return 实际过期数量，事务失败返回 -1
+     */
+    private int expireInTransaction(List<T> batch, LocalDateTime now) {
+        List<T> changed;
+        try {
+            changed = transactionTemplate.execute(status -> expireBatch(batch, now));
+        } catch (Exception e) {
+            log.error("[{}] 批次过期失败: firstId={}, size={}", name(), idOf(batch.get(0)), batch.size(), e);
+            return -1;
+        }
+        if (changed == null || changed.isEmpty()) {
+            return 0;
+        }
+        try {
+            afterCommit(changed);
+        } catch (Exception e) {
+            log.error("[{}] 批次提交后处理失败: firstId={}", name(), idOf(batch.get(0)), e);
+        }
+        return changed.size();
+    }
+
+    /**
+     * 最近一次运行结果
+     */
+    public SweepResult getLastResult() {
+        return lastResult;
+    }
+}
@@ -0,0 +1,47 @@
+package com.wsh.common.mybatis.sweep;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单次清扫运行统计
+ */
+@Getter
+@AllArgsConstructor
+public class SweepResult {
+
+    /** 清扫器名称 */
+    private final String name;
+
+    /** 处理批数 */
+    private final int batches;
+
+    /** 扫描记录数 */
+    private final int scanned;
+
+    /** 实际过期记录数（条件更新命中） */
+    private final int expired;
+
+    /** 失败批数 */
+    private final int failedBatches;
+
+    /** 耗时（毫秒） */
+    private final long elapsedMillis;
+
+    /** 是否达到单次批数上限（仍有积压） */
+    private final boolean truncated;
+
+    /**
+     * 扫描到但未变更的记录数（已被并发支付/取消等处理）
+     */
+    public int getSkipped() {
+        return scanned - expired;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: batches=%d, scanned=%d, expired=%d, skipped=%d, failedBatches=%d, elapsed=%dms%s",
+                name, batches, scanned, expired, getSkipped(), failedBatches, elapsedMillis,
+                truncated ? ", truncated" : "");
+    }
+}
@@ -0,0 +1,27 @@
+package com.wsh.common.redis.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存条目：业务值 + 软过期时间
+ * 超过软过期时间后仍可返回（旧值），同时在后台刷新；Redis Key 的 TTL 为硬过期
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEntry {
+
+    /** 只在此处记录业务值的类型，嵌套对象按字段声明类型反序列化 */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+    private Object value;
+
+    /** 软过期时间戳（毫秒） */
+    private long softExpireAt;
+
+    public boolean staleAt(long nowMillis) {
+        return nowMillis >= softExpireAt;
+    }
+}
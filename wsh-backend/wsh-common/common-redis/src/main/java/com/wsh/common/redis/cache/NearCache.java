@@ -0,0 +1,301 @@
+package com.wsh.common.redis.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.wsh.common.redis.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存：进程内 Caffeine（L1）+ Redis（L2）
+ * 1. 读取顺序 L1 -> L2 -> loader，写入/失效时通过 Redis 发布订阅通知其他节点清除 L1
+ * 2. 未命中时单飞加载：同一 Key 本节点只有一个线程执行 loader，其余线程等待其结果；
+ *    跨节点通过 Redis 短租约保证只有一个节点重建，其他节点短暂等待后读取
+ * 3. 配置了软过期时间时，条目软过期后仍返回旧值，并在后台异步刷新（stale-while-revalidate），
+ *    软过期时间带随机抖动，避免同批写入的 Key 同时刷新
+ * Redis 中的条目为 {@link CacheEntry}，Redis Key 为缓存 Key 加版本前缀 {@link #KEY_VERSION}：
+ * 升级前的节点仍按原 Key 读写业务值并直接强转，共用原 Key 会在滚动发布期间抛出 ClassCastException
+ */
+@Slf4j
+public class NearCache {
+
+    /** Redis Key 版本前缀，条目结构变化时递增 */
+    static final String KEY_VERSION = "v2:";
+
+    /** 重建租约 Key 前缀 */
+    private static final String LEASE_PREFIX = "lease:";
+
+    /** 重建租约有效期（秒），应大于 loader 的正常耗时 */
+    private static final long LEASE_SECONDS = 10;
+
+    /** 未抢到租约时等待其他节点写入的轮询次数与间隔 */
+    private static final int LEASE_WAIT_ROUNDS = 10;
+    private static final long LEASE_WAIT_MILLIS = 50;
+
+    /** 等待本节点同 Key 加载结果的最长时间（毫秒），超时后自行加载 */
+    private static final long AWAIT_LOAD_MILLIS = TimeUnit.SECONDS.toMillis(LEASE_SECONDS);
+
+    /** 软过期时间的最大随机缩短比例 */
+    private static final double SOFT_TTL_JITTER = 0.2;
+
+    private final NearCacheSpec spec;
+    private final RedisUtil redisUtil;
+    private final NearCacheManager manager;
+    private final Cache<String, CacheEntry> local;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    NearCache(NearCacheSpec spec, RedisUtil redisUtil, NearCacheManager manager) {
+        this.spec = spec;
+        this.redisUtil = redisUtil;
+        this.manager = manager;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return spec.getName();
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 加载并写入两级缓存（loader 返回 null 时不缓存）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        CacheEntry entry = local.getIfPresent(key);
+        if (entry == null) {
+            entry = readRemote(key);
+            if (entry != null) {
+                local.put(key, entry);
+            }
+        }
+        if (entry != null) {
+            if (entry.staleAt(System.currentTimeMillis())) {
+                refreshAsync(key, loader);
+            }
+            return (T) entry.getValue();
+        }
+        return (T) loadSingleFlight(key, loader);
+    }
+
+    /**
+     * 写入两级缓存，并通知其他节点清除旧的本地副本
+     */
+    public void put(String key, Object value) {
+        write(key, value);
+    }
+
+    /**
+     * 清除两级缓存（含升级前的原 Key），并通知其他节点
+     */
+    public void evict(String key) {
+        redisUtil.delete(List.of(redisKey(key), key));
+        local.invalidate(key);
+        manager.publishEviction(spec.getName(), key);
+    }
+
+    /**
+     * 仅清除本节点 L1（收到失效消息时调用）
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    /**
+     * L1 命中统计
+     */
+    public CacheStats stats() {
+        return local.stats();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private String redisKey(String key) {
+        return KEY_VERSION + key;
+    }
+
+    private CacheEntry readRemote(String key) {
+        Object raw = redisUtil.get(redisKey(key));
+        return raw instanceof CacheEntry ? (CacheEntry) raw : null;
+    }
+
+    /**
+     * 单飞加载：本节点同一 Key 只有一个线程执行 loader
+     */
+    private Object loadSingleFlight(String key, Supplier<?> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            Object value = await(existing);
+            if (value != null) {
+                return value;
+            }
+            // 进行中的是未抢到租约的后台刷新，或等待超时，自行加载
+            return loadWithLease(key, loader, true);
+        }
+        try {
+            Object value = loadWithLease(key, loader, true);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // 含 Error：等待中的线程必须被唤醒
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 后台刷新软过期条目，已有刷新在进行或线程池已满时跳过
+     */
+    private void refreshAsync(String key, Supplier<?> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            manager.refreshExecutor().execute(() -> {
+                try {
+                    future.complete(loadWithLease(key, loader, false));
+                } catch (Throwable e) {
+                    log.warn("[{}] 缓存后台刷新失败: key={}, error={}", spec.getName(), key, e.toString());
+                    future.complete(null);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, future);
+            future.complete(null);
+        }
+    }
+
+    /**
+     * 抢占 Redis 重建租约后执行 loader
+     *
+     * @param waitForPeer 未抢到租约时是否等待其他节点的结果（后台刷新不等待，直接返回 null）
+     */
+    private Object loadWithLease(String key, Supplier<?> loader, boolean waitForPeer) {
+        String leaseKey = LEASE_PREFIX + redisKey(key);
+        String token = UUID.randomUUID().toString();
+        boolean leased = tryLease(leaseKey, token);
+        if (!leased) {
+            if (!waitForPeer) {
+                return null;
+            }
+            CacheEntry entry = waitForPeer(key);
+            if (entry != null) {
+                local.put(key, entry);
+                return entry.getValue();
+            }
+            // 等待超时（持有租约的节点可能已宕机），降级为自行加载
+        }
+        try {
+            Object value = loader.get();
+            if (value != null) {
+                write(key, value);
+            }
+            return value;
+        } finally {
+            if (leased) {
+                releaseLease(leaseKey, token);
+            }
+        }
+    }
+
+    private CacheEntry waitForPeer(String key) {
+        for (int i = 0; i < LEASE_WAIT_ROUNDS; i++) {
+            try {
+                Thread.sleep(LEASE_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CacheEntry entry = readRemote(key);
+            if (entry != null && !entry.staleAt(System.currentTimeMillis())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryLease(String leaseKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisUtil.tryLock(leaseKey, token, LEASE_SECONDS, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            // Redis 不可用时不阻塞加载
+            log.warn("[{}] 缓存重建租约获取失败: key={}, error={}", spec.getName(), leaseKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void releaseLease(String leaseKey, String token) {
+        try {
+            redisUtil.releaseLock(leaseKey, token);
+        } catch (Exception e) {
+            log.warn("[{}] 缓存重建租约释放失败: key={}, error={}", spec.getName(), leaseKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 写入新版本 Key，同时删除原 Key，让升级前的节点重新加载而不是读到旧值
+     */
+    private void write(String key, Object value) {
+        CacheEntry entry = new CacheEntry(value, System.currentTimeMillis() + softTtlMillis());
+        redisUtil.set(redisKey(key), entry, spec.getRemoteTtl().getSeconds(), TimeUnit.SECONDS);
+        redisUtil.delete(key);
+        local.put(key, entry);
+        manager.publishEviction(spec.getName(), key);
+    }
+
+    /**
+     * 带随机抖动的软过期时长，未配置时永不软过期（只依赖 Redis 硬过期）
+     */
+    private long softTtlMillis() {
+        if (spec.getSoftTtl() == null) {
+            return Long.MAX_VALUE / 2;
+        }
+        double jitter = 1 - ThreadLocalRandom.current().nextDouble(SOFT_TTL_JITTER);
+        return (long) (spec.getSoftTtl().toMillis() * jitter);
+    }
+
+    /**
+     * 等待同 Key 进行中的加载，超时或被中断时返回 null（由调用方自行加载）
+     */
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(AWAIT_LOAD_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("[{}] 等待缓存加载超时，自行加载", spec.getName());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.wsh.common.redis.cache;
+
+import com.wsh.common.redis.util.RedisUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器
+ * 按名称注册 {@link NearCache}，负责跨节点 L1 失效消息的发布与处理，并提供软过期条目的后台刷新线程池
+ * 失效消息格式：节点ID|缓存名称|缓存Key
+ * 消息为尽力投递，丢失时由 L1 有效期兜底
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NearCacheManager {
+
+    /** 跨节点失效频道 */
+    public static final String INVALIDATION_CHANNEL = "wsh:cache:invalidate";
+
+    /** 本节点标识，忽略自己发出的失效消息 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RedisUtil redisUtil;
+
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    /** 后台刷新线程池，队列满时拒绝，调用方继续返回旧值 */
+    private final ExecutorService refreshExecutor = newRefreshExecutor();
+
+    /**
+     * 获取或创建指定配置的缓存（同名缓存只创建一次）
+     */
+    public NearCache getCache(NearCacheSpec spec) {
+        return caches.computeIfAbsent(spec.getName(), name -> new NearCache(spec, redisUtil, this));
+    }
+
+    /**
+     * 按名称获取已注册的缓存
+     */
+    public NearCache getCache(String name) {
+        return caches.get(name);
+    }
+
+    ExecutorService refreshExecutor() {
+        return refreshExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("near-cache-refresh-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1000), threadFactory);
+    }
+
+    /**
+     * 发布失效消息，发布失败只记录日志
+     */
+    void publishEviction(String name, String key) {
+        try {
+            redisUtil.publish(INVALIDATION_CHANNEL, nodeId + "|" + name + "|" + key);
+        } catch (Exception e) {
+            log.warn("缓存失效消息发布失败: cache={}, key={}, error={}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 处理失效消息（由 Redis 订阅回调）
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        NearCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        cache.evictLocal(parts[2]);
+        log.debug("收到缓存失效消息: cache={}, key={}", parts[1], parts[2]);
+    }
+}
@@ -0,0 +1,33 @@
+package com.wsh.common.redis.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 二级缓存配置
+ */
+@Getter
+@Builder
+public class NearCacheSpec {
+
+    /** 缓存名称（用于跨节点失效与日志） */
+    private final String name;
+
+    /** 本地缓存（L1）有效期，同时是跨节点失效消息丢失时的最大不一致时间 */
+    private final Duration localTtl;
+
+    /** Redis 缓存（L2）有效期，即硬过期时间 */
+    private final Duration remoteTtl;
+
+    /**
+     * 软过期时间（应小于 remoteTtl），超过后返回旧值并后台刷新
+     * 为空时不启用，条目在硬过期前一直视为新鲜
+     */
+    private final Duration softTtl;
+
+    /** 本地缓存最大条目数 */
+    @Builder.Default
+    private final long maxSize = 1000;
+}
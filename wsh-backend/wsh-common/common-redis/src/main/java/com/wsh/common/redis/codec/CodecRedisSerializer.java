@@ -0,0 +1,63 @@
+package com.wsh.common.redis.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 支持多编解码器的值序列化器
+ * 写入：{@link CodecValue} 按指定编解码器编码并加三字节头部，其余值交给默认 JSON 序列化器
+ * 读取：首字节为魔数时按头部解码，否则按默认 JSON 解码（兼容历史数据）
+ * 魔数 0xB7 是 UTF-8 续字节，不会出现在合法 JSON 的首字节
+ */
+@Slf4j
+public class CodecRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xB7;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private final RedisSerializer<Object> defaultSerializer;
+
+    private final RedisCodecRegistry registry;
+
+    public CodecRedisSerializer(RedisSerializer<Object> defaultSerializer, RedisCodecRegistry registry) {
+        this.defaultSerializer = defaultSerializer;
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof CodecValue codecValue)) {
+            return defaultSerializer.serialize(value);
+        }
+        RedisValueCodec codec = codecValue.getCodec();
+        byte[] body = codec.encode(codecValue.getValue());
+        byte[] data = new byte[HEADER_LENGTH + body.length];
+        data[0] = MAGIC;
+        data[1] = codec.id();
+        data[2] = codec.version();
+        System.arraycopy(body, 0, data, HEADER_LENGTH, body.length);
+        return data;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return defaultSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("缓存数据头部不完整");
+        }
+        RedisValueCodec codec = registry.codecById(bytes[1]);
+        if (codec == null || bytes[2] > codec.version()) {
+            // 新版本节点写入的数据，本节点无法识别，按未命中处理
+            log.debug("跳过无法识别的缓存数据: codecId={}, version={}", bytes[1], bytes[2]);
+            return null;
+        }
+        return codec.decode(bytes, HEADER_LENGTH, bytes[2]);
+    }
+}
@@ -0,0 +1,16 @@
+package com.wsh.common.redis.codec;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 指定编解码器的待写入值（由 RedisUtil 按 Key 前缀包装，序列化器识别后编码）
+ */
+@Getter
+@AllArgsConstructor
+public final class CodecValue {
+
+    private final RedisValueCodec codec;
+
+    private final Object value;
+}
@@ -0,0 +1,67 @@
+package com.wsh.common.redis.codec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册表
+ * 1. 按 Key 前缀选择写入时使用的编解码器（最长前缀优先），未匹配的 Key 使用默认 JSON
+ * 2. 按头部中的ID查找读取时使用的编解码器（所有内置编解码器始终可读）
+ */
+public class RedisCodecRegistry {
+
+    private final Map<Byte, RedisValueCodec> codecsById = new ConcurrentHashMap<>();
+
+    private final Map<String, RedisValueCodec> codecsByPrefix = new ConcurrentHashMap<>();
+
+    public RedisCodecRegistry() {
+        addCodec(new SmileValueCodec());
+    }
+
+    /**
+     * 注册可读取的编解码器
+     */
+    public void addCodec(RedisValueCodec codec) {
+        RedisValueCodec existing = codecsById.putIfAbsent(codec.id(), codec);
+        if (existing != null && existing.getClass() != codec.getClass()) {
+            throw new IllegalStateException("编解码器ID冲突: " + codec.id());
+        }
+    }
+
+    /**
+     * 指定 Key 前缀写入时使用的编解码器
+     */
+    public void register(String keyPrefix, byte codecId) {
+        RedisValueCodec codec = codecsById.get(codecId);
+        if (codec == null) {
+            throw new IllegalArgumentException("未知的编解码器ID: " + codecId);
+        }
+        codecsByPrefix.put(keyPrefix, codec);
+    }
+
+    /**
+     * 写入 Key 使用的编解码器，返回 null 表示使用默认 JSON
+     */
+    public RedisValueCodec codecFor(String key) {
+        if (codecsByPrefix.isEmpty()) {
+            return null;
+        }
+        RedisValueCodec matched = null;
+        int matchedLength = -1;
+        for (Map.Entry<String, RedisValueCodec> entry : codecsByPrefix.entrySet()) {
+            String prefix = entry.getKey();
+            if (prefix.length() > matchedLength && key.startsWith(prefix)) {
+                matched = entry.getValue();
+                matchedLength = prefix.length();
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 按ID查找编解码器
+     */
+    public RedisValueCodec codecById(byte id) {
+        return codecsById.get(id);
+    }
+}
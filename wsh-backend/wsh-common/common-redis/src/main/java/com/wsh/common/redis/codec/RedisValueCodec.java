@@ -0,0 +1,33 @@
+package com.wsh.common.redis.codec;
+
+/**
+ * Redis 值编解码器
+ * 编码结果由 {@link CodecRedisSerializer} 加上 [魔数][编解码器ID][格式版本] 三字节头部后写入 Redis，
+ * 读取时按头部选择编解码器，与 Key 前缀配置无关，保证滚动发布期间新旧格式可同时读取
+ */
+public interface RedisValueCodec {
+
+    /**
+     * 编解码器ID（写入头部，全局唯一，不可复用）
+     */
+    byte id();
+
+    /**
+     * 当前格式版本（写入头部）；格式不兼容变更时递增，读到高于自身版本的数据视为未命中
+     */
+    byte version();
+
+    /**
+     * 编码（不含头部）
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码
+     *
+     * @param data    完整数据
+     * @param offset  跳过头部后的起始位置
+     * @param version 数据写入时的格式版本
+     */
+    Object decode(byte[] data, int offset, byte version);
+}
@@ -0,0 +1,73 @@
+package com.wsh.common.redis.codec;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Smile（二进制 JSON）编解码器
+ * 与默认 JSON 序列化器不同，不开启全局默认类型：只在开头记录一次根对象类名，
+ * 嵌套对象按字段声明类型反序列化，字段名由 Smile 共享引用压缩
+ * 数据格式：[类名长度 2字节][类名 UTF-8][Smile 正文]
+ */
+public class SmileValueCodec implements RedisValueCodec {
+
+    public static final byte ID = 1;
+
+    private static final byte VERSION = 1;
+
+    private final ObjectMapper mapper;
+
+    public SmileValueCodec() {
+        this.mapper = new ObjectMapper(new SmileFactory());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new JavaTimeModule());
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte version() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            byte[] className = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+            byte[] body = mapper.writeValueAsBytes(value);
+            return ByteBuffer.allocate(2 + className.length + body.length)
+                    .putShort((short) className.length)
+                    .put(className)
+                    .put(body)
+                    .array();
+        } catch (IOException e) {
+            throw new SerializationException("Smile 编码失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, byte version) {
+        try {
+            int classNameLength = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+            String className = new String(data, offset + 2, classNameLength, StandardCharsets.UTF_8);
+            int bodyOffset = offset + 2 + classNameLength;
+            Class<?> type = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+            return mapper.readValue(data, bodyOffset, data.length - bodyOffset, type);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SerializationException("Smile 解码失败", e);
+        }
+    }
+}
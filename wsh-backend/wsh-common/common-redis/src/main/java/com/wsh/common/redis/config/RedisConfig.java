@@ -6,6 +6,11 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wsh.common.redis.cache.NearCacheManager;
+import com.wsh.common.redis.codec.CodecRedisSerializer;
+import com.wsh.common.redis.codec.RedisCodecRegistry;
+import com.wsh.common.redis.codec.SmileValueCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -13,6 +18,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -21,33 +29,74 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @ConditionalOnProperty(name = "wsh.redis.mock", havingValue = "false", matchIfMissing = true)
 public class RedisConfig {
 
+    /**
+     * 使用 Smile 二进制编码的 Key 前缀（逗号分隔）
+     * 所有节点均可读取两种格式，滚动发布时需全部节点升级后再开启
+     */
+    @Value("${wsh.redis.codec.smile-prefixes:}")
+    private String[] smilePrefixes;
+
+    @Bean
+    public RedisCodecRegistry redisCodecRegistry() {
+        RedisCodecRegistry registry = new RedisCodecRegistry();
+        for (String prefix : smilePrefixes) {
+            if (!prefix.isBlank()) {
+                registry.register(prefix.trim(), SmileValueCodec.ID);
+            }
+        }
+        return registry;
+    }
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory,
+                                                       RedisCodecRegistry redisCodecRegistry) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        mapper.activateDefaultTyping(
-                LaissezFaireSubTypeValidator.instance,
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                JsonTypeInfo.As.PROPERTY);
-        mapper.registerModule(new JavaTimeModule());
-
-        GenericJackson2JsonRedisSerializer jsonSerializer =
-                new GenericJackson2JsonRedisSerializer(mapper);
+        GenericJackson2JsonRedisSerializer jsonSerializer = jsonSerializer();
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
 
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
-        template.setValueSerializer(jsonSerializer);
+        template.setValueSerializer(new CodecRedisSerializer(jsonSerializer, redisCodecRegistry));
         template.setHashValueSerializer(jsonSerializer);
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * 默认 JSON 序列化器（全局默认类型，未配置编解码器的 Key 使用）
+     */
+    public static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance,
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        mapper.registerModule(new JavaTimeModule());
+        return new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
     @Bean
     public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory factory) {
         return new StringRedisTemplate(factory);
     }
+
+    /**
+     * 订阅二级缓存失效消息
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory,
+                                                                       RedisTemplate<String, Object> redisTemplate,
+                                                                       NearCacheManager nearCacheManager) {
+        MessageListenerAdapter adapter = new MessageListenerAdapter(nearCacheManager, "onInvalidation");
+        adapter.setSerializer(redisTemplate.getValueSerializer());
+        adapter.afterPropertiesSet();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(adapter, new ChannelTopic(NearCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
 }
@@ -0,0 +1,55 @@
+package com.wsh.common.redis.script;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 启动时通过 SCRIPT LOAD 预加载全部 Lua 脚本，使首次调用即可命中 EVALSHA
+ * Redis 重启或脚本缓存被清空后，执行时会自动回退 EVAL 并重新缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "wsh.redis.mock", havingValue = "false", matchIfMissing = true)
+public class RedisScriptPreloader implements SmartInitializingSingleton {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            int loaded = preload();
+            log.info("Lua 脚本预加载完成: {}个", loaded);
+        } catch (Exception e) {
+            // 预加载失败不影响启动，执行时回退 EVAL
+            log.warn("Lua 脚本预加载失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 预加载全部脚本
+     *
+     * @return 加载的脚本数量
+     */
+    public int preload() {
+        int loaded = 0;
+        for (RedisScript<?> script : RedisScriptRegistry.all()) {
+            byte[] body = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            String sha = redisTemplate.execute(
+                    (RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(body));
+            if (!script.getSha1().equals(sha)) {
+                log.warn("Lua 脚本 SHA 不一致: expected={}, actual={}", script.getSha1(), sha);
+            }
+            loaded++;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,230 @@
+package com.wsh.common.redis.script;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Lua 脚本注册表
+ * 所有脚本只构建一次（SHA1 随之缓存），由 RedisTemplate 以 EVALSHA 执行，
+ * 服务端返回 NOSCRIPT 时自动回退为 EVAL；启动时由 {@link RedisScriptPreloader} 预加载
+ */
+public final class RedisScriptRegistry {
+
+    private RedisScriptRegistry() {
+    }
+
+    /**
+     * 库存扣减
+     * KEYS[1] 库存 Key；ARGV[1] 扣减数量
+     * 返回剩余库存，-1 表示库存不足
+     */
+    public static final RedisScript<Long> STOCK_DECREMENT = new DefaultRedisScript<>(
+            "local stock = tonumber(redis.call('get', KEYS[1])) " +
+            "if stock == nil then return -1 end " +
+            "if stock >= tonumber(ARGV[1]) then " +
+            "  return redis.call('decrby', KEYS[1], ARGV[1]) " +
+            "else " +
+            "  return -1 " +
+            "end", Long.class);
+
+    /**
+     * 库存预占
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[1] 令牌，ARGV[2] 数量，ARGV[3] 初始库存
+     * 库存 Key 不存在时以 初始库存 - 未结预占总量 初始化（失效重建后仍在途的预占不重复计入）
+     * 返回剩余库存，-1 表示库存不足
+     */
+    public static final RedisScript<Long> STOCK_RESERVE = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[2], ARGV[1]) == 1 then " +
+            "  return tonumber(redis.call('get', KEYS[1]) or 0) " +
+            "end " +
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "  local pending = 0 " +
+            "  for _, n in ipairs(redis.call('hvals', KEYS[2])) do pending = pending + tonumber(n) end " +
+            "  redis.call('set', KEYS[1], math.max(tonumber(ARGV[3]) - pending, 0)) " +
+            "end " +
+            "local stock = tonumber(redis.call('get', KEYS[1])) " +
+            "if stock < tonumber(ARGV[2]) then return -1 end " +
+            "redis.call('hset', KEYS[2], ARGV[1], ARGV[2]) " +
+            "return redis.call('decrby', KEYS[1], ARGV[2])", Long.class);
+
+    /**
+     * 确认预占
+     * KEYS[1] 预占令牌 Hash；ARGV[1] 令牌
+     */
+    public static final RedisScript<Long> STOCK_CONFIRM = new DefaultRedisScript<>(
+            "return redis.call('hdel', KEYS[1], ARGV[1])", Long.class);
+
+    /**
+     * 释放预占
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[1] 令牌
+     * 返回归还数量，0 表示令牌不存在
+     */
+    public static final RedisScript<Long> STOCK_RELEASE = new DefaultRedisScript<>(
+            "local n = redis.call('hget', KEYS[2], ARGV[1]) " +
+            "if not n then return 0 end " +
+            "redis.call('hdel', KEYS[2], ARGV[1]) " +
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+            "  redis.call('incrby', KEYS[1], n) " +
+            "end " +
+            "return tonumber(n)", Long.class);
+
+    /**
+     * 批量释放预占（同一活动的多个令牌）
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[i] 令牌
+     * 返回归还总数量
+     */
+    public static final RedisScript<Long> STOCK_RELEASE_BATCH = new DefaultRedisScript<>(
+            "local total = 0 " +
+            "for i = 1, #ARGV do " +
+            "  local n = redis.call('hget', KEYS[2], ARGV[i]) " +
+            "  if n then " +
+            "    redis.call('hdel', KEYS[2], ARGV[i]) " +
+            "    total = total + tonumber(n) " +
+            "  end " +
+            "end " +
+            "if total > 0 and redis.call('exists', KEYS[1]) == 1 then " +
+            "  redis.call('incrby', KEYS[1], total) " +
+            "end " +
+            "return total", Long.class);
+
+    /**
+     * 批量领取库存（系统批量发放，领取即售出，不记录预占）
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[1] 领取数量上限，ARGV[2] 初始库存
+     * 库存 Key 不存在时的初始化同 {@link #STOCK_RESERVE}
+     * 返回实际租借数量
+     */
+    public static final RedisScript<Long> STOCK_LEASE = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "  local pending = 0 " +
+            "  for _, n in ipairs(redis.call('hvals', KEYS[2])) do pending = pending + tonumber(n) end " +
+            "  redis.call('set', KEYS[1], math.max(tonumber(ARGV[2]) - pending, 0)) " +
+            "end " +
+            "local stock = tonumber(redis.call('get', KEYS[1])) " +
+            "if stock <= 0 then return 0 end " +
+            "local n = math.min(stock, tonumber(ARGV[1])) " +
+            "redis.call('decrby', KEYS[1], n) " +
+            "return n", Long.class);
+
+    /**
+     * 节点租借库存，并把租借量记入预占 Hash 的节点租约字段
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[1] 租借数量上限，ARGV[2] 初始库存，
+     * ARGV[3] 节点租约字段，ARGV[4] Hash 过期时间戳（毫秒，0 表示不设置）
+     * 租约字段与令牌一并计入未结预占，库存 Key 重建时扣除全部节点未用完的租约
+     * 返回实际租借数量
+     */
+    public static final RedisScript<Long> STOCK_LEASE_GRANT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "  local pending = 0 " +
+            "  for _, n in ipairs(redis.call('hvals', KEYS[2])) do pending = pending + tonumber(n) end " +
+            "  redis.call('set', KEYS[1], math.max(tonumber(ARGV[2]) - pending, 0)) " +
+            "end " +
+            "local stock = tonumber(redis.call('get', KEYS[1])) " +
+            "if stock <= 0 then return 0 end " +
+            "local n = math.min(stock, tonumber(ARGV[1])) " +
+            "redis.call('decrby', KEYS[1], n) " +
+            "redis.call('hincrby', KEYS[2], ARGV[3], n) " +
+            "if tonumber(ARGV[4]) > 0 then redis.call('pexpireat', KEYS[2], ARGV[4]) end " +
+            "return n", Long.class);
+
+    /**
+     * 批量登记租约预占令牌：数量从节点租约字段转入各令牌，已存在的令牌跳过
+     * KEYS[1] 预占令牌 Hash；ARGV[1] 节点租约字段，ARGV[2] Hash 过期时间戳（毫秒，0 表示不设置），
+     * ARGV[3..] 令牌与数量交替
+     * 返回实际登记的总数量（跳过的部分仍留在节点租约中）
+     */
+    public static final RedisScript<Long> STOCK_LEASE_COMMIT = new DefaultRedisScript<>(
+            "local moved = 0 " +
+            "for i = 3, #ARGV, 2 do " +
+            "  if redis.call('hsetnx', KEYS[1], ARGV[i], ARGV[i + 1]) == 1 then " +
+            "    moved = moved + tonumber(ARGV[i + 1]) " +
+            "  end " +
+            "end " +
+            "if moved > 0 and redis.call('hincrby', KEYS[1], ARGV[1], -moved) <= 0 then " +
+            "  redis.call('hdel', KEYS[1], ARGV[1]) " +
+            "end " +
+            "if tonumber(ARGV[2]) > 0 then redis.call('pexpireat', KEYS[1], ARGV[2]) end " +
+            "return moved", Long.class);
+
+    /**
+     * 归还节点租约：从节点租约字段扣除，库存 Key 存在时加回（不存在时由下次重建按 Hash 计算）
+     * KEYS[1] 库存 Key，KEYS[2] 预占令牌 Hash；ARGV[1] 节点租约字段，ARGV[2] 归还数量
+     * 返回实际归还数量（不超过租约字段的余量）
+     */
+    public static final RedisScript<Long> STOCK_LEASE_RETURN = new DefaultRedisScript<>(
+            "local n = math.min(tonumber(redis.call('hget', KEYS[2], ARGV[1]) or 0), tonumber(ARGV[2])) " +
+            "if n <= 0 then return 0 end " +
+            "if redis.call('hincrby', KEYS[2], ARGV[1], -n) <= 0 then " +
+            "  redis.call('hdel', KEYS[2], ARGV[1]) " +
+            "end " +
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+            "  redis.call('incrby', KEYS[1], n) " +
+            "end " +
+            "return n", Long.class);
+
+    /**
+     * 调整库存（Key 不存在时不操作）
+     * KEYS[1] 库存 Key；ARGV[1] 增量
+     */
+    public static final RedisScript<Long> STOCK_ADJUST = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+            "  return redis.call('incrby', KEYS[1], ARGV[1]) " +
+            "end " +
+            "return nil", Long.class);
+
+    /**
+     * 延时队列出队：原子取出并删除分值不超过上限的成员
+     * KEYS[1] 有序集合 Key；ARGV[1] 分值上限，ARGV[2] 最大数量
+     * 返回取出的成员列表
+     */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> ZSET_POP_BY_SCORE = new DefaultRedisScript<>(
+            "local items = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #items > 0 then " +
+            "  redis.call('zrem', KEYS[1], unpack(items)) " +
+            "end " +
+            "return items", List.class);
+
+    /**
+     * 释放锁
+     * KEYS[1] 锁 Key；ARGV[1] 锁值
+     */
+    public static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('del', KEYS[1]) " +
+            "else " +
+            "  return 0 " +
+            "end", Long.class);
+
+    /**
+     * 续期锁（仅锁持有者可续期）
+     * KEYS[1] 锁 Key；ARGV[1] 锁值，ARGV[2] 新的有效期（毫秒）
+     */
+    public static final RedisScript<Long> RENEW_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "else " +
+            "  return 0 " +
+            "end", Long.class);
+
+    /**
+     * 固定窗口计数（首次计数时设置窗口有效期）
+     * KEYS[1] 窗口 Key；ARGV[1] 窗口长度（毫秒）
+     * 返回窗口内计数
+     */
+    public static final RedisScript<Long> WINDOW_INCREMENT = new DefaultRedisScript<>(
+            "local n = redis.call('incr', KEYS[1]) " +
+            "if n == 1 then redis.call('pexpire', KEYS[1], ARGV[1]) end " +
+            "return n", Long.class);
+
+    /**
+     * 全部已注册脚本
+     */
+    public static List<RedisScript<?>> all() {
+        return List.of(STOCK_DECREMENT, STOCK_RESERVE, STOCK_CONFIRM,
+                STOCK_RELEASE, STOCK_RELEASE_BATCH, STOCK_LEASE, STOCK_LEASE_GRANT, STOCK_LEASE_COMMIT,
+                STOCK_LEASE_RETURN, STOCK_ADJUST,
+                ZSET_POP_BY_SCORE, RELEASE_LOCK, RENEW_LOCK, WINDOW_INCREMENT);
+    }
+}
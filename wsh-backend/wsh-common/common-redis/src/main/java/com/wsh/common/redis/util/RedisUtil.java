@@ -1,13 +1,19 @@
 package com.wsh.common.redis.util;
 
+import com.wsh.common.redis.codec.CodecValue;
+import com.wsh.common.redis.codec.RedisCodecRegistry;
+import com.wsh.common.redis.codec.RedisValueCodec;
+import com.wsh.common.redis.script.RedisScriptRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -20,15 +26,24 @@ import java.util.concurrent.TimeUnit;
 public class RedisUtil {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisCodecRegistry codecRegistry;
 
     // ========== String ==========
 
     public void set(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value);
+        redisTemplate.opsForValue().set(key, encodeValue(key, value));
     }
 
     public void set(String key, Object value, long timeout, TimeUnit unit) {
-        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        redisTemplate.opsForValue().set(key, encodeValue(key, value), timeout, unit);
+    }
+
+    /**
+     * 按 Key 前缀选择编解码器，未配置的 Key 保持默认 JSON
+     */
+    private Object encodeValue(String key, Object value) {
+        RedisValueCodec codec = codecRegistry.codecFor(key);
+        return codec != null ? new CodecValue(codec, value) : value;
     }
 
     @SuppressWarnings("unchecked")
@@ -44,6 +59,17 @@ public class RedisUtil {
         return redisTemplate.delete(keys);
     }
 
+    /**
+     * 仅当当前值等于 expected 时删除（Lua 脚本保证原子性，expected 按写入时的编码比较）
+     *
+     * @return 值一致并已删除返回 true
+     */
+    public Boolean compareAndDelete(String key, Object expected) {
+        Long result = redisTemplate.execute(RedisScriptRegistry.RELEASE_LOCK,
+                Collections.singletonList(key), encodeValue(key, expected));
+        return result != null && result > 0;
+    }
+
     public Boolean hasKey(String key) {
         return redisTemplate.hasKey(key);
     }
@@ -56,6 +82,18 @@ public class RedisUtil {
         return redisTemplate.getExpire(key);
     }
 
+    /**
+     * 目标 Key 不存在时重命名
+     *
+     * @return 源 Key 不存在或目标 Key 已存在返回 false
+     */
+    public Boolean renameIfAbsent(String oldKey, String newKey) {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(oldKey))) {
+            return false;
+        }
+        return redisTemplate.renameIfAbsent(oldKey, newKey);
+    }
+
     // ========== Atomic ==========
 
     public Long increment(String key) {
@@ -72,19 +110,140 @@ public class RedisUtil {
      * @return 剩余库存，-1 表示库存不足
      */
     public Long stockDecrement(String key, int count) {
-        String script =
-                "local stock = tonumber(redis.call('get', KEYS[1])) " +
-                "if stock == nil then return -1 end " +
-                "if stock >= tonumber(ARGV[1]) then " +
-                "  return redis.call('decrby', KEYS[1], ARGV[1]) " +
-                "else " +
-                "  return -1 " +
-                "end";
-        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-        return redisTemplate.execute(redisScript,
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_DECREMENT,
                 Collections.singletonList(key), count);
     }
 
+    /**
+     * 库存预占（Lua 脚本，按令牌记录预占数量，同一令牌重复预占不会重复扣减）
+     * 库存 Key 不存在时以 initStock 扣除未结预占后原子初始化（不设过期）
+     *
+     * @return 剩余库存，-1 表示库存不足
+     */
+    public Long stockReserve(String stockKey, String reserveKey, String token, int count, long initStock) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_RESERVE,
+                Arrays.asList(stockKey, reserveKey), token, count, initStock);
+    }
+
+    /**
+     * 确认预占（支付成功后调用，仅删除令牌，库存保持扣减）
+     *
+     * @return 令牌存在并被确认返回 true
+     */
+    public Boolean stockConfirm(String reserveKey, String token) {
+        Long result = redisTemplate.execute(RedisScriptRegistry.STOCK_CONFIRM,
+                Collections.singletonList(reserveKey), token);
+        return result != null && result > 0;
+    }
+
+    /**
+     * 释放预占（Lua 脚本，令牌只会被归还一次，重复释放无副作用）
+     *
+     * @return 实际归还的库存数量，0 表示令牌不存在
+     */
+    public Long stockRelease(String stockKey, String reserveKey, String token) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_RELEASE,
+                Arrays.asList(stockKey, reserveKey), token);
+    }
+
+    /**
+     * 批量释放同一活动的多个预占令牌（Lua 脚本，一次往返）
+     *
+     * @return 实际归还的库存总数量
+     */
+    public Long stockReleaseBatch(String stockKey, String reserveKey, List<String> tokens) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_RELEASE_BATCH,
+                Arrays.asList(stockKey, reserveKey), tokens.toArray());
+    }
+
+    /**
+     * 批量领取库存（Lua 脚本，从全局库存中一次性取出最多 blockSize 件，领取即售出）
+     * 库存 Key 不存在时以 initStock 扣除未结预占后原子初始化（不设过期）
+     *
+     * @return 实际领取到的数量，0 表示已售罄
+     */
+    public Long stockLease(String stockKey, String reserveKey, int blockSize, long initStock) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_LEASE,
+                Arrays.asList(stockKey, reserveKey), blockSize, initStock);
+    }
+
+    /**
+     * 节点租借库存（Lua 脚本，取出最多 blockSize 件供节点本地扣减，租借量记入预占 Hash 的节点租约字段）
+     * 库存 Key 不存在时以 initStock 扣除未结预占（含全部节点租约）后原子初始化
+     *
+     * @param expireAtMillis 预占 Hash 的过期时间戳（毫秒），0 表示不设置
+     * @return 实际租借到的数量，0 表示已售罄
+     */
+    public Long stockLeaseGrant(String stockKey, String reserveKey, String leaseField, int blockSize,
+                                long initStock, long expireAtMillis) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_LEASE_GRANT,
+                Arrays.asList(stockKey, reserveKey), blockSize, initStock, leaseField, expireAtMillis);
+    }
+
+    /**
+     * 批量登记租约预占令牌（Lua 脚本，一次往返，数量从节点租约字段转入各令牌，已存在的令牌跳过）
+     *
+     * @param tokens         令牌 -> 数量
+     * @param expireAtMillis 预占 Hash 的过期时间戳（毫秒），0 表示不设置
+     * @return 实际登记的总数量
+     */
+    public Long stockLeaseCommit(String reserveKey, String leaseField, Map<String, Integer> tokens,
+                                 long expireAtMillis) {
+        List<Object> args = new ArrayList<>(tokens.size() * 2 + 2);
+        args.add(leaseField);
+        args.add(expireAtMillis);
+        tokens.forEach((token, count) -> {
+            args.add(token);
+            args.add(count);
+        });
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_LEASE_COMMIT,
+                Collections.singletonList(reserveKey), args.toArray());
+    }
+
+    /**
+     * 归还节点租约（Lua 脚本，扣减节点租约字段，库存 Key 存在时加回）
+     *
+     * @return 实际归还的数量
+     */
+    public Long stockLeaseReturn(String stockKey, String reserveKey, String leaseField, long count) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_LEASE_RETURN,
+                Arrays.asList(stockKey, reserveKey), leaseField, count);
+    }
+
+    /**
+     * 调整库存（仅在库存 Key 已存在时生效，用于活动总库存变更）
+     *
+     * @return 调整后的库存，null 表示 Key 不存在
+     */
+    public Long stockAdjust(String stockKey, long delta) {
+        return redisTemplate.execute(RedisScriptRegistry.STOCK_ADJUST,
+                Collections.singletonList(stockKey), delta);
+    }
+
+    /**
+     * 固定窗口计数（Lua 脚本，首次计数时设置窗口有效期，用于限流）
+     *
+     * @return 窗口内计数
+     */
+    public Long windowIncrement(String key, long windowMillis) {
+        return redisTemplate.execute(RedisScriptRegistry.WINDOW_INCREMENT,
+                Collections.singletonList(key), windowMillis);
+    }
+
+    // ========== Hash ==========
+
+    public Long hashIncrement(String key, String field, long delta) {
+        return redisTemplate.opsForHash().increment(key, field, delta);
+    }
+
+    public Map<Object, Object> hashEntries(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    public Long hashDelete(String key, Object... fields) {
+        return redisTemplate.opsForHash().delete(key, fields);
+    }
+
     // ========== Set ==========
 
     public Long setAdd(String key, Object... values) {
@@ -99,6 +258,32 @@ public class RedisUtil {
         return redisTemplate.opsForSet().isMember(key, value);
     }
 
+    // ========== ZSet ==========
+
+    public Boolean zAdd(String key, Object value, double score) {
+        return redisTemplate.opsForZSet().add(key, value, score);
+    }
+
+    public Long zRemove(String key, Object... values) {
+        return redisTemplate.opsForZSet().remove(key, values);
+    }
+
+    /**
+     * 原子取出并删除分值不超过 maxScore 的成员（Lua 脚本，多节点并发出队不重复）
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> zPopByScore(String key, long maxScore, int limit) {
+        List<Object> items = redisTemplate.execute(RedisScriptRegistry.ZSET_POP_BY_SCORE,
+                Collections.singletonList(key), maxScore, limit);
+        return items != null ? items : Collections.emptyList();
+    }
+
+    // ========== Pub/Sub ==========
+
+    public void publish(String channel, Object message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
     // ========== 分布式锁（简易版，复杂场景用 Redisson） ==========
 
     /**
@@ -112,15 +297,19 @@ public class RedisUtil {
      * 释放锁（Lua 脚本保证原子性）
      */
     public Boolean releaseLock(String key, String value) {
-        String script =
-                "if redis.call('get', KEYS[1]) == ARGV[1] then " +
-                "  return redis.call('del', KEYS[1]) " +
-                "else " +
-                "  return 0 " +
-                "end";
-        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-        Long result = redisTemplate.execute(redisScript,
+        Long result = redisTemplate.execute(RedisScriptRegistry.RELEASE_LOCK,
                 Collections.singletonList(key), value);
         return result != null && result > 0;
     }
+
+    /**
+     * 续期锁（Lua 脚本，仅锁持有者可续期）
+     *
+     * @return 锁仍由调用方持有且已续期返回 true
+     */
+    public Boolean renewLock(String key, String value, long timeout, TimeUnit unit) {
+        Long result = redisTemplate.execute(RedisScriptRegistry.RENEW_LOCK,
+                Collections.singletonList(key), value, unit.toMillis(timeout));
+        return result != null && result > 0;
+    }
 }
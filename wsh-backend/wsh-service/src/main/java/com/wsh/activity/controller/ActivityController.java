@@ -2,6 +2,7 @@ package com.wsh.activity.controller;
 
 import com.wsh.activity.dto.*;
 import com.wsh.activity.service.ActivityDisplayService;
+import com.wsh.activity.service.MerchantGeoIndex;
 import com.wsh.activity.service.PublicActivityService;
 import com.wsh.common.core.result.R;
 import com.wsh.common.security.util.SecurityUtil;
@@ -25,6 +26,9 @@ public class ActivityController {
     private final ActivityDisplayService activityDisplayService;
     private final PublicActivityService publicActivityService;
 
+    /** 附近活动的最大搜索范围（公里），与空间索引单次查询半径上限一致 */
+    private static final int MAX_NEARBY_DISTANCE_KM = MerchantGeoIndex.MAX_RADIUS_METERS / 1000;
+
     // ========== 需要登录的接口 ==========
 
     @Operation(summary = "活动列表", description = "查询活动列表，支持多种筛选条件")
@@ -68,10 +72,11 @@ public class ActivityController {
     public R<NearbyActivityResponse> getNearbyActivities(
             @Parameter(description = "经度", required = true) @RequestParam BigDecimal longitude,
             @Parameter(description = "纬度", required = true) @RequestParam BigDecimal latitude,
-            @Parameter(description = "搜索范围（公里），默认5公里") @RequestParam(defaultValue = "5") Integer distanceKm) {
+            @Parameter(description = "搜索范围（公里），默认5公里，最大50公里") @RequestParam(defaultValue = "5") Integer distanceKm) {
         
         Long userId = SecurityUtil.getUserId();
-        return R.ok(activityDisplayService.getNearbyActivities(longitude, latitude, distanceKm, userId));
+        int searchDistance = Math.max(1, Math.min(distanceKm, MAX_NEARBY_DISTANCE_KM));
+        return R.ok(activityDisplayService.getNearbyActivities(longitude, latitude, searchDistance, userId));
     }
 
     @Operation(summary = "我的专属活动", description = "根据用户会员状态筛选展示对应的专属活动")
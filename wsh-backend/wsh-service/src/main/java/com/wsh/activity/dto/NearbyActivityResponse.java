@@ -28,16 +28,22 @@ public class NearbyActivityResponse {
         
         private ActivityDetailResponse activity;
         
-        /** 商户距离（米） */
+        /** 距最近门店的距离（米） */
         private Integer distanceMeters;
         
-        /** 商户地址 */
+        /** 最近门店ID（商户本身位置最近时为空） */
+        private Long branchId;
+        
+        /** 最近门店名称 */
+        private String branchName;
+        
+        /** 最近门店地址 */
         private String merchantAddress;
         
-        /** 商户经度 */
+        /** 最近门店经度 */
         private BigDecimal longitude;
         
-        /** 商户纬度 */
+        /** 最近门店纬度 */
         private BigDecimal latitude;
     }
 }
@@ -1,7 +1,9 @@
 package com.wsh.activity.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 import java.util.Map;
@@ -11,6 +13,8 @@ import java.util.Map;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PublicActivityResponse {
 
     /** 城市 */
@@ -36,6 +40,8 @@ public class PublicActivityResponse {
     
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class ActivityTypeCount {
         private Integer voucher;
         private Integer deposit;
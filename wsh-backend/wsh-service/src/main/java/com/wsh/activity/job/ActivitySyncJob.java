@@ -5,6 +5,7 @@ import com.wsh.common.core.constant.Constants;
 import com.wsh.common.redis.util.RedisUtil;
 import com.wsh.domain.entity.Merchant;
 import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.activity.service.PublicActivityService;
 import com.wsh.matching.service.ActivityMatchingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +30,7 @@ public class ActivitySyncJob {
     private final ActivityMatchingService activityMatchingService;
     private final MerchantMapper merchantMapper;
     private final RedisUtil redisUtil;
+    private final PublicActivityService publicActivityService;
 
     private static final String LOCK_KEY = "lock:activity:sync";
     private static final int LOCK_EXPIRE_SECONDS = 30 * 60; // 30分钟
@@ -119,10 +121,7 @@ public class ActivitySyncJob {
         }
 
         // 清除城市活动缓存
-        for (String city : cities) {
-            String cacheKey = Constants.CACHE_PUBLIC_ACTIVITY + city;
-            redisUtil.delete(cacheKey);
-        }
+        cities.forEach(publicActivityService::clearCityCache);
 
         log.info("活动同步完成: 成功{}个商户, 失败{}个商户, 共同步{}个活动",
                 successCount, failCount, totalSynced);
@@ -131,8 +130,7 @@ public class ActivitySyncJob {
     private void clearMerchantActivityCache(Long merchantId) {
         Merchant merchant = merchantMapper.selectById(merchantId);
         if (merchant != null && merchant.getCity() != null) {
-            String cacheKey = Constants.CACHE_PUBLIC_ACTIVITY + merchant.getCity();
-            redisUtil.delete(cacheKey);
+            publicActivityService.clearCityCache(merchant.getCity());
         }
     }
 }
@@ -0,0 +1,32 @@
+package com.wsh.activity.job;
+
+import com.wsh.activity.service.StockLeaseManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存租约令牌登记定时任务
+ * 每 100 毫秒把本节点暂存的预占令牌批量登记到 Redis（各节点独立执行，无需分布式锁），
+ * 间隔需远小于支付回调、取消等跨节点结算的最短耗时
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLeaseFlushJob {
+
+    private final StockLeaseManager stockLeaseManager;
+
+    @Scheduled(fixedDelay = 100)
+    public void flushPendingTokens() {
+        try {
+            int flushed = stockLeaseManager.flushAll();
+            if (flushed > 0) {
+                log.debug("已登记库存租约令牌: {}个", flushed);
+            }
+        } catch (Exception e) {
+            log.error("登记库存租约令牌失败", e);
+        }
+    }
+}
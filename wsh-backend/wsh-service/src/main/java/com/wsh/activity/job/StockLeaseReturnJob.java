@@ -0,0 +1,31 @@
+package com.wsh.activity.job;
+
+import com.wsh.activity.service.StockLeaseManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存租约归还定时任务
+ * 每分钟归还本节点已结束活动的未用租约（各节点独立执行，无需分布式锁）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLeaseReturnJob {
+
+    private final StockLeaseManager stockLeaseManager;
+
+    @Scheduled(cron = "30 * * * * ?")
+    public void returnEndedLeases() {
+        try {
+            int returned = stockLeaseManager.returnEndedLeases();
+            if (returned > 0) {
+                log.info("已归还结束活动的库存租约: {}个", returned);
+            }
+        } catch (Exception e) {
+            log.error("归还库存租约失败", e);
+        }
+    }
+}
@@ -29,6 +29,7 @@ public class ActivityDisplayService {
     private final ActivityMapper activityMapper;
     private final MerchantMapper merchantMapper;
     private final MerchantMemberSnapshotMapper snapshotMapper;
+    private final MerchantGeoIndex merchantGeoIndex;
 
     /**
      * 获取活动详情
@@ -187,14 +188,15 @@ public class ActivityDisplayService {
 
     /**
      * 获取附近商户的活动
+     * 候选位置由空间索引给出（商户及门店坐标），连锁商户按距离最近的门店展示
      */
     public NearbyActivityResponse getNearbyActivities(BigDecimal longitude, BigDecimal latitude, 
                                                        Integer distanceKm, Long userId) {
         int searchDistance = distanceKm != null ? distanceKm : 5;
         
-        // 查询附近的商户
-        List<Merchant> nearbyMerchants = findNearbyMerchants(longitude, latitude, searchDistance);
-        if (nearbyMerchants.isEmpty()) {
+        // 查询附近的商户（每个商户取最近的门店）
+        Map<Long, MerchantGeoIndex.GeoHit> nearbyHits = findNearbyMerchants(longitude, latitude, searchDistance);
+        if (nearbyHits.isEmpty()) {
             return NearbyActivityResponse.builder()
                     .activities(Collections.emptyList())
                     .total(0)
@@ -203,38 +205,38 @@ public class ActivityDisplayService {
         }
 
         // 获取这些商户的活动
-        List<Long> merchantIds = nearbyMerchants.stream()
-                .map(Merchant::getMerchantId)
-                .collect(Collectors.toList());
+        List<Long> merchantIds = new ArrayList<>(nearbyHits.keySet());
         List<Activity> activities = activityMapper.selectActiveByMerchantIds(merchantIds);
 
         // 加载用户会员快照
         Map<Long, MerchantMemberSnapshot> snapshotMap = userId != null ?
                 loadSnapshotMap(userId, activities) : Collections.emptyMap();
 
-        // 转换为响应，附带距离信息
-        Map<Long, Merchant> merchantMap = nearbyMerchants.stream()
-                .collect(Collectors.toMap(Merchant::getMerchantId, m -> m));
+        // 转换为响应，附带最近门店信息；同一活动只返回一条
+        Map<Long, Merchant> merchantMap = loadMerchantMap(activities);
 
-        List<NearbyActivityResponse.NearbyActivityItem> items = new ArrayList<>();
+        Map<Long, NearbyActivityResponse.NearbyActivityItem> itemMap = new LinkedHashMap<>();
         for (Activity activity : activities) {
             Merchant merchant = merchantMap.get(activity.getMerchantId());
-            if (merchant == null) continue;
+            if (merchant == null || itemMap.containsKey(activity.getActivityId())) continue;
 
-            int distance = calculateDistance(longitude, latitude, 
-                    merchant.getLongitude(), merchant.getLatitude());
+            MerchantGeoIndex.GeoHit hit = nearbyHits.get(activity.getMerchantId());
+            MerchantGeoIndex.GeoPoint point = hit.getPoint();
 
             ActivityDetailResponse detail = convertToResponse(activity, merchant,
                     snapshotMap.get(activity.getMerchantId()));
 
-            items.add(NearbyActivityResponse.NearbyActivityItem.builder()
+            itemMap.put(activity.getActivityId(), NearbyActivityResponse.NearbyActivityItem.builder()
                     .activity(detail)
-                    .distanceMeters(distance)
-                    .merchantAddress(merchant.getAddress())
-                    .longitude(merchant.getLongitude())
-                    .latitude(merchant.getLatitude())
+                    .distanceMeters(hit.getDistanceMeters())
+                    .branchId(point.getBranchId())
+                    .branchName(point.getName())
+                    .merchantAddress(point.getAddress())
+                    .longitude(BigDecimal.valueOf(point.getLongitude()))
+                    .latitude(BigDecimal.valueOf(point.getLatitude()))
                     .build());
         }
+        List<NearbyActivityResponse.NearbyActivityItem> items = new ArrayList<>(itemMap.values());
 
         // 按距离排序
         items.sort(Comparator.comparingInt(NearbyActivityResponse.NearbyActivityItem::getDistanceMeters));
@@ -280,43 +282,24 @@ public class ActivityDisplayService {
     }
 
     /**
-     * 查找附近商户
-     */
-    private List<Merchant> findNearbyMerchants(BigDecimal longitude, BigDecimal latitude, int distanceKm) {
-        // 简化实现：查询所有正常状态的商户，然后在内存中筛选距离
-        List<Merchant> allMerchants = merchantMapper.selectList(
-                new LambdaQueryWrapper<Merchant>()
-                        .eq(Merchant::getStatus, Constants.MERCHANT_STATUS_ACTIVE)
-                        .isNotNull(Merchant::getLongitude)
-                        .isNotNull(Merchant::getLatitude));
-
-        int maxDistanceMeters = distanceKm * 1000;
-        return allMerchants.stream()
-                .filter(m -> {
-                    int distance = calculateDistance(longitude, latitude, m.getLongitude(), m.getLatitude());
-                    return distance <= maxDistanceMeters;
-                })
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * 计算两点之间的距离（米）
-     * 使用Haversine公式
+     * 查找附近商户：空间索引按外接矩形取候选网格，再计算精确距离
+     *
+     * @return 商户ID -> 该商户最近的位置点（按距离升序）
      */
-    private int calculateDistance(BigDecimal lng1, BigDecimal lat1, BigDecimal lng2, BigDecimal lat2) {
-        if (lng1 == null || lat1 == null || lng2 == null || lat2 == null) {
-            return Integer.MAX_VALUE;
+    private Map<Long, MerchantGeoIndex.GeoHit> findNearbyMerchants(BigDecimal longitude, BigDecimal latitude,
+                                                                    int distanceKm) {
+        if (longitude == null || latitude == null) {
+            return Collections.emptyMap();
         }
-
-        double earthRadius = 6371000; // 地球半径（米）
-        double dLat = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
-        double dLng = Math.toRadians(lng2.doubleValue() - lng1.doubleValue());
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1.doubleValue()))
-                * Math.cos(Math.toRadians(lat2.doubleValue()))
-                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return (int) (earthRadius * c);
+        // 先按公里截断再换算米，避免大数值溢出
+        int radiusMeters = Math.min(distanceKm, MerchantGeoIndex.MAX_RADIUS_METERS / 1000) * 1000;
+        List<MerchantGeoIndex.GeoHit> hits = MerchantGeoIndex.nearestPerMerchant(
+                merchantGeoIndex.withinRadius(latitude.doubleValue(), longitude.doubleValue(), radiusMeters));
+        Map<Long, MerchantGeoIndex.GeoHit> result = new LinkedHashMap<>();
+        for (MerchantGeoIndex.GeoHit hit : hits) {
+            result.put(hit.getPoint().getMerchantId(), hit);
+        }
+        return result;
     }
 
     private Map<Long, Merchant> loadMerchantMap(List<Activity> activities) {
@@ -0,0 +1,283 @@
+package com.wsh.activity.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.common.core.util.GeoHash;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.entity.MerchantBranch;
+import com.wsh.domain.mapper.MerchantBranchMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商户位置空间索引（进程内 GeoHash 网格）
+ * 1. 按3位 GeoHash 划分区域分片（约156km，覆盖一个城市），分片在首次查询时
+ *    通过 tb_merchant / tb_merchant_branch 的 idx_location 做经纬度范围查询加载
+ * 2. 分片内按5位 GeoHash 网格存放商户及门店位置点，查询时先按外接矩形取覆盖网格，再计算精确距离
+ * 3. 商户审核/冻结时失效相关分片，另每5分钟重新加载仍在使用的分片，兜底其他节点的变更
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantGeoIndex {
+
+    /** 区域分片精度：3位 GeoHash 约 156km x 156km */
+    private static final int REGION_PRECISION = 3;
+
+    /** 网格精度：5位 GeoHash 约 4.9km x 4.9km */
+    private static final int CELL_PRECISION = 5;
+
+    /** 单次查询的最大半径（米），超出按此半径查询 */
+    public static final int MAX_RADIUS_METERS = 50000;
+
+    /** 单次查询最多枚举的网格数，超出时按更粗精度覆盖、在分片内按前缀匹配网格 */
+    private static final int MAX_COVER_CELLS = 1024;
+
+    /** 最近邻查询的初始搜索半径（米） */
+    private static final int KNN_INITIAL_RADIUS = 1000;
+
+    private final MerchantMapper merchantMapper;
+    private final MerchantBranchMapper branchMapper;
+
+    /** 区域 GeoHash -> 已加载分片 */
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     * 半径查询，按距离升序返回范围内的全部位置点（半径不超过 {@link #MAX_RADIUS_METERS}）
+     */
+    public List<GeoHit> withinRadius(double latitude, double longitude, int radiusMeters) {
+        radiusMeters = Math.min(radiusMeters, MAX_RADIUS_METERS);
+        GeoHash.BoundingBox box = GeoHash.boundingBox(latitude, longitude, radiusMeters);
+        List<GeoHit> hits = new ArrayList<>();
+        for (String cell : GeoHash.coverBoundingBox(box, CELL_PRECISION, REGION_PRECISION, MAX_COVER_CELLS)) {
+            for (GeoPoint point : pointsIn(cell)) {
+                if (!box.contains(point.getLatitude(), point.getLongitude())) {
+                    continue;
+                }
+                double distance = GeoHash.distanceMeters(latitude, longitude, point.getLatitude(), point.getLongitude());
+                if (distance <= radiusMeters) {
+                    hits.add(new GeoHit(point, (int) distance));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingInt(GeoHit::getDistanceMeters));
+        return hits;
+    }
+
+    /**
+     * 最近邻查询：由小到大倍增搜索半径，直到找到 k 个商户或达到最大半径
+     * 同一商户只返回最近的一个位置点
+     */
+    public List<GeoHit> nearestMerchants(double latitude, double longitude, int k, int maxRadiusMeters) {
+        int radius = Math.min(KNN_INITIAL_RADIUS, maxRadiusMeters);
+        while (true) {
+            List<GeoHit> nearest = nearestPerMerchant(withinRadius(latitude, longitude, radius));
+            if (nearest.size() >= k || radius >= maxRadiusMeters) {
+                return nearest.size() > k ? nearest.subList(0, k) : nearest;
+            }
+            radius = Math.min(radius * 2, maxRadiusMeters);
+        }
+    }
+
+    /**
+     * 按商户去重，保留每个商户距离最近的位置点（保持距离升序）
+     */
+    public static List<GeoHit> nearestPerMerchant(List<GeoHit> sortedHits) {
+        Set<Long> seen = new HashSet<>();
+        List<GeoHit> result = new ArrayList<>();
+        for (GeoHit hit : sortedHits) {
+            if (seen.add(hit.getPoint().getMerchantId())) {
+                result.add(hit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 商户状态或门店变更后调用：失效该商户新旧位置所在的分片，下次查询时重新加载
+     */
+    public void refreshMerchant(Long merchantId) {
+        Set<String> stale = new HashSet<>();
+        regions.forEach((key, region) -> {
+            if (region.getMerchantIds().contains(merchantId)) {
+                stale.add(key);
+            }
+        });
+        Merchant merchant = merchantMapper.selectById(merchantId);
+        if (merchant != null && merchant.getLatitude() != null && merchant.getLongitude() != null) {
+            stale.add(regionOf(merchant.getLatitude(), merchant.getLongitude()));
+        }
+        branchMapper.selectList(new LambdaQueryWrapper<MerchantBranch>()
+                        .eq(MerchantBranch::getMerchantId, merchantId)
+                        .isNotNull(MerchantBranch::getLatitude)
+                        .isNotNull(MerchantBranch::getLongitude))
+                .forEach(b -> stale.add(regionOf(b.getLatitude(), b.getLongitude())));
+        stale.forEach(regions::remove);
+        log.debug("商户空间索引已失效: merchantId={}, regions={}", merchantId, stale);
+    }
+
+    /**
+     * 重新加载近期被查询过的分片（逐个替换，查询不受影响），长期未访问的分片直接丢弃
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int reloaded = 0;
+        int dropped = 0;
+        for (Map.Entry<String, Region> entry : new ArrayList<>(regions.entrySet())) {
+            String key = entry.getKey();
+            if (!entry.getValue().isAccessed()) {
+                regions.remove(key, entry.getValue());
+                dropped++;
+                continue;
+            }
+            try {
+                regions.put(key, loadRegion(key));
+                reloaded++;
+            } catch (Exception e) {
+                log.error("商户空间索引分片加载失败: region={}", key, e);
+            }
+        }
+        log.info("商户空间索引刷新完成: reloaded={}, dropped={}, 耗时{}ms",
+                reloaded, dropped, System.currentTimeMillis() - start);
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 覆盖单元格内的位置点：网格精度直接取网格，更粗的单元格取分片内以其为前缀的全部网格
+     */
+    private List<GeoPoint> pointsIn(String cell) {
+        Map<String, List<GeoPoint>> cells = region(cell.substring(0, REGION_PRECISION)).getCells();
+        if (cell.length() == CELL_PRECISION) {
+            return cells.getOrDefault(cell, Collections.emptyList());
+        }
+        List<GeoPoint> points = new ArrayList<>();
+        cells.forEach((key, list) -> {
+            if (key.startsWith(cell)) {
+                points.addAll(list);
+            }
+        });
+        return points;
+    }
+
+    private Region region(String key) {
+        Region region = regions.get(key);
+        if (region == null) {
+            // 并发首次加载可能重复查询一次，不在 computeIfAbsent 中做数据库 IO
+            Region loaded = loadRegion(key);
+            region = regions.putIfAbsent(key, loaded);
+            if (region == null) {
+                region = loaded;
+            }
+        }
+        region.markAccessed();
+        return region;
+    }
+
+    /**
+     * 按分片经纬度范围加载商户与门店位置点
+     */
+    private Region loadRegion(String key) {
+        GeoHash.BoundingBox box = GeoHash.bounds(key);
+        BigDecimal minLat = BigDecimal.valueOf(box.getMinLat()).setScale(6, RoundingMode.FLOOR);
+        BigDecimal maxLat = BigDecimal.valueOf(box.getMaxLat()).setScale(6, RoundingMode.CEILING);
+        BigDecimal minLng = BigDecimal.valueOf(box.getMinLng()).setScale(6, RoundingMode.FLOOR);
+        BigDecimal maxLng = BigDecimal.valueOf(box.getMaxLng()).setScale(6, RoundingMode.CEILING);
+
+        List<GeoPoint> points = new ArrayList<>();
+        for (Merchant merchant : merchantMapper.selectActiveInBox(minLat, maxLat, minLng, maxLng)) {
+            points.add(new GeoPoint(merchant.getMerchantId(), null, merchant.getMerchantName(), merchant.getAddress(),
+                    merchant.getLatitude().doubleValue(), merchant.getLongitude().doubleValue()));
+        }
+        for (MerchantBranch branch : branchMapper.selectActiveInBox(minLat, maxLat, minLng, maxLng)) {
+            points.add(new GeoPoint(branch.getMerchantId(), branch.getBranchId(), branch.getBranchName(),
+                    branch.getAddress(), branch.getLatitude().doubleValue(), branch.getLongitude().doubleValue()));
+        }
+
+        Map<String, List<GeoPoint>> cells = new HashMap<>();
+        Set<Long> merchantIds = new HashSet<>();
+        for (GeoPoint point : points) {
+            // 范围查询含边界，边界上的点只归属编码所在的分片
+            if (!point.getCell().startsWith(key)) {
+                continue;
+            }
+            cells.computeIfAbsent(point.getCell(), c -> new ArrayList<>()).add(point);
+            merchantIds.add(point.getMerchantId());
+        }
+        cells.replaceAll((c, list) -> Collections.unmodifiableList(list));
+        log.debug("商户空间索引分片已加载: region={}, merchants={}, cells={}", key, merchantIds.size(), cells.size());
+        return new Region(Collections.unmodifiableMap(cells), Collections.unmodifiableSet(merchantIds));
+    }
+
+    private static String regionOf(BigDecimal latitude, BigDecimal longitude) {
+        return GeoHash.encode(latitude.doubleValue(), longitude.doubleValue(), REGION_PRECISION);
+    }
+
+    /**
+     * 区域分片（加载后不可变，整体替换）
+     */
+    @Getter
+    private static class Region {
+        private final Map<String, List<GeoPoint>> cells;
+        private final Set<Long> merchantIds;
+        /** 自上次刷新以来是否被查询过 */
+        private volatile boolean accessed;
+
+        Region(Map<String, List<GeoPoint>> cells, Set<Long> merchantIds) {
+            this.cells = cells;
+            this.merchantIds = merchantIds;
+        }
+
+        void markAccessed() {
+            if (!accessed) {
+                accessed = true;
+            }
+        }
+    }
+
+    /**
+     * 位置点（商户本身或门店）
+     */
+    @Getter
+    public static class GeoPoint {
+        private final Long merchantId;
+        /** 门店ID，商户本身坐标为 null */
+        private final Long branchId;
+        /** 门店名称（商户本身为商户名称） */
+        private final String name;
+        private final String address;
+        private final double latitude;
+        private final double longitude;
+        private final String cell;
+
+        GeoPoint(Long merchantId, Long branchId, String name, String address, double latitude, double longitude) {
+            this.merchantId = merchantId;
+            this.branchId = branchId;
+            this.name = name;
+            this.address = address;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = GeoHash.encode(latitude, longitude, CELL_PRECISION);
+        }
+    }
+
+    /**
+     * 查询命中
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class GeoHit {
+        private final GeoPoint point;
+        private final int distanceMeters;
+    }
+}
@@ -4,7 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.wsh.activity.dto.ActivityDetailResponse;
 import com.wsh.activity.dto.PublicActivityResponse;
 import com.wsh.common.core.constant.Constants;
-import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.common.redis.cache.NearCache;
+import com.wsh.common.redis.cache.NearCacheManager;
+import com.wsh.common.redis.cache.NearCacheSpec;
 import com.wsh.domain.entity.Activity;
 import com.wsh.domain.entity.Merchant;
 import com.wsh.domain.mapper.ActivityMapper;
@@ -13,8 +15,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -28,23 +30,35 @@ public class PublicActivityService {
 
     private final ActivityMapper activityMapper;
     private final MerchantMapper merchantMapper;
-    private final RedisUtil redisUtil;
+    private final NearCacheManager nearCacheManager;
 
     private static final int CACHE_EXPIRE_MINUTES = 5;
 
+    /**
+     * 同城活动广场：匿名高频访问，本地缓存1分钟
+     * 5分钟软过期后返回旧值并后台刷新，Redis 保留30分钟，避免 Key 过期时集中回源
+     */
+    private static final NearCacheSpec CITY_ACTIVITY_CACHE = NearCacheSpec.builder()
+            .name("public-activity")
+            .localTtl(Duration.ofMinutes(1))
+            .softTtl(Duration.ofMinutes(CACHE_EXPIRE_MINUTES))
+            .remoteTtl(Duration.ofMinutes(30))
+            .maxSize(500)
+            .build();
+
     /**
      * 获取同城公开活动（按类型分组）
      * 此接口无需登录
      */
     public PublicActivityResponse getPublicActivitiesByCity(String city) {
-        // 尝试从缓存获取
-        String cacheKey = Constants.CACHE_PUBLIC_ACTIVITY + city;
-        PublicActivityResponse cached = (PublicActivityResponse) redisUtil.get(cacheKey);
-        if (cached != null) {
-            log.debug("从缓存获取公开活动: city={}", city);
-            return cached;
-        }
+        return cityActivityCache().get(Constants.CACHE_PUBLIC_ACTIVITY + city,
+                () -> loadPublicActivitiesByCity(city));
+    }
 
+    /**
+     * 查询同城公开活动（缓存未命中时调用）
+     */
+    private PublicActivityResponse loadPublicActivitiesByCity(String city) {
         // 查询该城市的公开活动
         List<Activity> activities = activityMapper.selectPublicActivitiesByCity(city);
 
@@ -87,8 +101,6 @@ public class PublicActivityService {
                 .typeCount(typeCount)
                 .build();
 
-        // 写入缓存
-        redisUtil.set(cacheKey, response, CACHE_EXPIRE_MINUTES * 60L, TimeUnit.SECONDS);
         log.debug("公开活动查询完成: city={}, total={}", city, activities.size());
 
         return response;
@@ -153,14 +165,17 @@ public class PublicActivityService {
     }
 
     /**
-     * 清除城市活动缓存
+     * 清除城市活动缓存（所有节点）
      */
     public void clearCityCache(String city) {
-        String cacheKey = Constants.CACHE_PUBLIC_ACTIVITY + city;
-        redisUtil.delete(cacheKey);
+        cityActivityCache().evict(Constants.CACHE_PUBLIC_ACTIVITY + city);
         log.info("已清除城市活动缓存: {}", city);
     }
 
+    private NearCache cityActivityCache() {
+        return nearCacheManager.getCache(CITY_ACTIVITY_CACHE);
+    }
+
     private Map<Long, Merchant> loadMerchantMap(List<Activity> activities) {
         if (activities.isEmpty()) {
             return Collections.emptyMap();
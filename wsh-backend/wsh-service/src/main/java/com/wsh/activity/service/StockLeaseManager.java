@@ -0,0 +1,356 @@
+package com.wsh.activity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.Activity;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 节点本地库存租约（秒杀活动专用）
+ * 活动 config 中配置 "stock_lease": true 后启用：
+ * 1. 本节点一次从 Redis 全局库存租借一批（"stock_lease_size"，默认 50 件），租借量记入预占 Hash 的本节点租约字段
+ * 2. 下单时在本地 CAS 扣减并暂存令牌，不访问 Redis；暂存令牌由 {@link #flushAll} 定时批量登记到预占 Hash，
+ *    数量从租约字段转入令牌
+ * 3. 登记后确认/释放与普通预占相同，由任意节点按预占 Hash 处理；未登记的令牌在本节点直接归还租约或先登记再确认
+ * 4. 活动结束或节点下线时登记剩余令牌，并把未用完的租约归还 Redis
+ * 库存 Key 重建时按 Hash 扣除全部令牌与各节点租约字段，其他节点持有的租约不会被重复售出；
+ * 节点异常退出时其租约字段保留至 Hash 过期（{@link #TOKEN_RETENTION_DAYS} 天），期间这部分库存不再售出
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLeaseManager {
+
+    private final RedisUtil redisUtil;
+    private final ObjectMapper objectMapper;
+
+    private static final String CONFIG_LEASE_FLAG = "stock_lease";
+    private static final String CONFIG_LEASE_SIZE = "stock_lease_size";
+    private static final int DEFAULT_LEASE_SIZE = 50;
+
+    /** 预占 Hash 中节点租约字段前缀（令牌以 order:/group: 开头，不会冲突） */
+    private static final String LEASE_FIELD_PREFIX = "lease:";
+
+    /** 单次登记的令牌数上限 */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /** 活动结束后预占 Hash 的保留天数（订单超时/取消已在此之前释放令牌） */
+    private static final int TOKEN_RETENTION_DAYS = 7;
+
+    /** 本节点在预占 Hash 中的租约字段 */
+    private final String leaseField = LEASE_FIELD_PREFIX + UUID.randomUUID().toString().replace("-", "");
+
+    /** activityId -> 本地租约 */
+    private final ConcurrentHashMap<Long, StockLease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * 活动是否启用本地库存租约
+     */
+    public boolean isLeaseEnabled(Activity activity) {
+        String config = activity.getConfig();
+        if (config == null || !config.contains(CONFIG_LEASE_FLAG)) {
+            return false;
+        }
+        try {
+            return objectMapper.readTree(config).path(CONFIG_LEASE_FLAG).asBoolean(false);
+        } catch (Exception e) {
+            log.warn("解析活动库存租约配置失败: activityId={}", activity.getActivityId());
+            return false;
+        }
+    }
+
+    /**
+     * 从本地租约预占库存（租约不足时向 Redis 续租），令牌暂存在本节点等待批量登记
+     * 同一令牌重复预占时归还本次扣减，返回 true
+     *
+     * @return 预占成功返回 true，全局库存售罄返回 false
+     */
+    public boolean reserve(Activity activity, String stockKey, String reserveKey, String token, int quantity,
+                           long initStock) {
+        StockLease lease = take(activity, stockKey, reserveKey, quantity, initStock);
+        if (lease == null) {
+            return false;
+        }
+        if (lease.pending.putIfAbsent(token, quantity) != null) {
+            giveBack(lease, quantity);
+            return true;
+        }
+        // 租约已在扣减后被归还：归还时的登记可能已错过该令牌，直接登记（数量仍在本节点租约字段中）
+        if (lease.closed && lease.pending.remove(token, quantity)) {
+            commit(lease, Map.of(token, quantity));
+        }
+        return true;
+    }
+
+    /**
+     * 释放本节点尚未登记的令牌（直接归还本地租约）
+     *
+     * @return 令牌由本节点暂存并已归还返回 true，否则应按预占 Hash 释放
+     */
+    public boolean releasePending(Long activityId, String token) {
+        StockLease lease = leases.get(activityId);
+        if (lease == null) {
+            return false;
+        }
+        lease.flushLock.lock();
+        try {
+            Integer quantity = lease.pending.remove(token);
+            if (quantity == null) {
+                return false;
+            }
+            giveBack(lease, quantity);
+            return true;
+        } finally {
+            lease.flushLock.unlock();
+        }
+    }
+
+    /**
+     * 令牌仍暂存在本节点时立即登记，保证随后按预占 Hash 确认能找到令牌
+     * 正在进行的登记完成后才返回
+     */
+    public void flushPending(Long activityId, String token) {
+        StockLease lease = leases.get(activityId);
+        if (lease == null) {
+            return;
+        }
+        lease.flushLock.lock();
+        try {
+            if (lease.pending.containsKey(token)) {
+                flush(lease);
+            }
+        } finally {
+            lease.flushLock.unlock();
+        }
+    }
+
+    /**
+     * 批量登记全部暂存令牌（由 StockLeaseFlushJob 定时调用）
+     *
+     * @return 登记的令牌数
+     */
+    public int flushAll() {
+        int flushed = 0;
+        for (Map.Entry<Long, StockLease> entry : leases.entrySet()) {
+            try {
+                flushed += flush(entry.getValue());
+            } catch (Exception e) {
+                log.error("登记库存租约令牌失败: activityId={}", entry.getKey(), e);
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * 归还指定活动的本地租约（先登记暂存令牌）
+     */
+    public void returnLease(Long activityId) {
+        StockLease lease = leases.remove(activityId);
+        if (lease == null) {
+            return;
+        }
+        long unused;
+        synchronized (lease) {
+            lease.closed = true;
+            unused = lease.available.getAndSet(0);
+        }
+        try {
+            flush(lease);
+        } finally {
+            if (unused > 0) {
+                redisUtil.stockLeaseReturn(lease.stockKey, lease.reserveKey, leaseField, unused);
+                log.info("库存租约已归还: activityId={}, unused={}", activityId, unused);
+            }
+        }
+    }
+
+    /**
+     * 归还已结束活动的租约
+     *
+     * @return 归还的租约数
+     */
+    public int returnEndedLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ended = new ArrayList<>();
+        leases.forEach((activityId, lease) -> {
+            if (lease.endTime != null && lease.endTime.isBefore(now)) {
+                ended.add(activityId);
+            }
+        });
+        ended.forEach(this::returnLease);
+        return ended.size();
+    }
+
+    /**
+     * 节点下线时归还全部租约
+     */
+    @PreDestroy
+    public void returnAll() {
+        new ArrayList<>(leases.keySet()).forEach(activityId -> {
+            try {
+                returnLease(activityId);
+            } catch (Exception e) {
+                log.error("归还库存租约失败: activityId={}", activityId, e);
+            }
+        });
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 从本地租约扣减，不足时续租
+     *
+     * @return 扣减所用的租约，全局库存售罄返回 null
+     */
+    private StockLease take(Activity activity, String stockKey, String reserveKey, int quantity, long initStock) {
+        while (true) {
+            StockLease lease = leases.computeIfAbsent(activity.getActivityId(),
+                    id -> new StockLease(stockKey, reserveKey, activity.getEndTime(), parseLeaseSize(activity),
+                            tokenExpireAt(activity)));
+            if (lease.tryTake(quantity)) {
+                return lease;
+            }
+
+            synchronized (lease) {
+                if (lease.closed) {
+                    continue; // 租约已归还，重新获取
+                }
+                if (lease.tryTake(quantity)) {
+                    return lease;
+                }
+                Long granted = redisUtil.stockLeaseGrant(stockKey, reserveKey, leaseField,
+                        Math.max(lease.blockSize, quantity), initStock, lease.expireAt);
+                if (granted == null || granted <= 0) {
+                    return null;
+                }
+                lease.available.addAndGet(granted);
+                log.debug("库存租约续租: activityId={}, granted={}", activity.getActivityId(), granted);
+            }
+        }
+    }
+
+    /**
+     * 取出暂存令牌分批登记，失败的批次放回暂存等待下次登记
+     *
+     * @return 登记的令牌数
+     */
+    private int flush(StockLease lease) {
+        lease.flushLock.lock();
+        try {
+            int flushed = 0;
+            while (!lease.pending.isEmpty()) {
+                Map<String, Integer> batch = new LinkedHashMap<>();
+                Iterator<Map.Entry<String, Integer>> it = lease.pending.entrySet().iterator();
+                while (it.hasNext() && batch.size() < FLUSH_BATCH_SIZE) {
+                    Map.Entry<String, Integer> entry = it.next();
+                    batch.put(entry.getKey(), entry.getValue());
+                    it.remove();
+                }
+                try {
+                    commit(lease, batch);
+                } catch (RuntimeException e) {
+                    lease.pending.putAll(batch);
+                    throw e;
+                }
+                flushed += batch.size();
+            }
+            return flushed;
+        } finally {
+            lease.flushLock.unlock();
+        }
+    }
+
+    /**
+     * 登记令牌，已存在的令牌（重复预占）其数量归还本地租约
+     */
+    private void commit(StockLease lease, Map<String, Integer> tokens) {
+        Long moved = redisUtil.stockLeaseCommit(lease.reserveKey, leaseField, tokens, lease.expireAt);
+        long duplicated = tokens.values().stream().mapToLong(Integer::longValue).sum()
+                - (moved != null ? moved : 0L);
+        if (duplicated > 0) {
+            giveBack(lease, duplicated);
+        }
+    }
+
+    /**
+     * 归还本地扣减：租约仍有效时归还本地租约，否则从本节点租约字段归还 Redis 全局库存
+     */
+    private void giveBack(StockLease lease, long quantity) {
+        synchronized (lease) {
+            if (!lease.closed) {
+                lease.available.addAndGet(quantity);
+                return;
+            }
+        }
+        redisUtil.stockLeaseReturn(lease.stockKey, lease.reserveKey, leaseField, quantity);
+    }
+
+    private long tokenExpireAt(Activity activity) {
+        if (activity.getEndTime() == null) {
+            return 0L;
+        }
+        return activity.getEndTime().plusDays(TOKEN_RETENTION_DAYS)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private int parseLeaseSize(Activity activity) {
+        try {
+            int size = objectMapper.readTree(activity.getConfig()).path(CONFIG_LEASE_SIZE).asInt(DEFAULT_LEASE_SIZE);
+            return size > 0 ? size : DEFAULT_LEASE_SIZE;
+        } catch (Exception e) {
+            return DEFAULT_LEASE_SIZE;
+        }
+    }
+
+    /**
+     * 单个活动的本地租约
+     */
+    private static class StockLease {
+        private final String stockKey;
+        private final String reserveKey;
+        private final LocalDateTime endTime;
+        private final int blockSize;
+        private final long expireAt;
+        private final AtomicLong available = new AtomicLong();
+        /** 已扣减但尚未登记到预占 Hash 的令牌 -> 数量 */
+        private final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+        /** 登记与本地结算互斥，保证令牌要么仍在暂存、要么已写入 Redis */
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private volatile boolean closed;
+
+        StockLease(String stockKey, String reserveKey, LocalDateTime endTime, int blockSize, long expireAt) {
+            this.stockKey = stockKey;
+            this.reserveKey = reserveKey;
+            this.endTime = endTime;
+            this.blockSize = blockSize;
+            this.expireAt = expireAt;
+        }
+
+        boolean tryTake(int quantity) {
+            while (true) {
+                long current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.wsh.activity.service;
+
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.Activity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 活动库存预占服务
+ * 下单、拼团、唤醒券发放统一走 预占 -> 确认/释放 流程：
+ * 1. 预占：Lua 原子扣减 Redis 库存，并以令牌记录预占数量
+ * 2. 确认：支付/成团/发券成功后删除令牌，库存保持扣减
+ * 3. 释放：取消/超时/失败时按令牌归还库存，同一令牌只归还一次
+ * 在数据库事务中调用时，确认与释放应通过 *AfterCommit / releaseOnRollback 绑定事务结果，避免回滚后 Redis 与数据库不一致
+ * 库存 Key 不设过期，仅在首次预占时按 stock - sold_count - 未结预占 初始化
+ * 启用本地租约的秒杀活动由 {@link StockLeaseManager} 在节点内扣减，令牌批量登记到预占 Hash 后确认/释放流程一致；
+ * 本节点尚未登记的令牌在确认前先登记、释放时直接归还本地租约
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final RedisUtil redisUtil;
+    private final StockLeaseManager stockLeaseManager;
+
+    private static final String STOCK_KEY_PREFIX = "activity:stock:";
+    private static final String RESERVE_KEY_PREFIX = "activity:stock:reserve:";
+
+    /**
+     * 预占库存
+     *
+     * @return 预占成功（或无限库存）返回 true，库存不足返回 false
+     */
+    public boolean reserve(Activity activity, String token, int quantity) {
+        if (isUnlimited(activity.getStock())) {
+            return true;
+        }
+        int sold = activity.getSoldCount() != null ? activity.getSoldCount() : 0;
+        long initStock = Math.max(activity.getStock() - sold, 0);
+
+        if (stockLeaseManager.isLeaseEnabled(activity)) {
+            return stockLeaseManager.reserve(activity, stockKey(activity.getActivityId()),
+                    reserveKey(activity.getActivityId()), token, quantity, initStock);
+        }
+
+        Long remaining = redisUtil.stockReserve(stockKey(activity.getActivityId()),
+                reserveKey(activity.getActivityId()), token, quantity, initStock);
+        return remaining != null && remaining >= 0;
+    }
+
+    /**
+     * 确认预占（库存正式售出）
+     */
+    public void confirm(Long activityId, String token) {
+        stockLeaseManager.flushPending(activityId, token);
+        redisUtil.stockConfirm(reserveKey(activityId), token);
+    }
+
+    /**
+     * 释放预占（幂等，重复调用不会重复归还）
+     */
+    public void release(Long activityId, String token) {
+        if (stockLeaseManager.releasePending(activityId, token)) {
+            return;
+        }
+        Long released = redisUtil.stockRelease(stockKey(activityId), reserveKey(activityId), token);
+        if (released != null && released > 0) {
+            log.debug("库存预占已释放: activityId={}, token={}, quantity={}", activityId, token, released);
+        }
+    }
+
+    /**
+     * 当前事务提交后确认预占；回滚时令牌保留，由订单后续的回调重试或超时关闭处理
+     * 无事务时立即确认
+     */
+    public void confirmAfterCommit(Long activityId, String token) {
+        confirmAfterCommit(activityId, List.of(token));
+    }
+
+    /**
+     * 当前事务提交后批量确认同一活动的预占（成团时确认全部参与者）
+     */
+    public void confirmAfterCommit(Long activityId, List<String> tokens) {
+        afterCompletion(committed -> {
+            if (committed) {
+                tokens.forEach(token -> confirm(activityId, token));
+            }
+        });
+    }
+
+    /**
+     * 当前事务提交后释放预占；回滚时订单仍为待支付，令牌保留
+     * 无事务时立即释放
+     */
+    public void releaseAfterCommit(Long activityId, String token) {
+        afterCompletion(committed -> {
+            if (committed) {
+                release(activityId, token);
+            }
+        });
+    }
+
+    /**
+     * 当前事务回滚（含提交失败）时释放预占，用于下单、参团等先预占后写库的场景
+     * 无事务时不做处理，由调用方自行释放
+     */
+    public void releaseOnRollback(Long activityId, String token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                release(activityId, token);
+            }
+        });
+    }
+
+    /**
+     * 批量释放预占（按活动分组，每个活动一次 Redis 往返）
+     *
+     * @param tokensByActivity 活动ID -> 令牌列表
+     */
+    public void releaseAll(Map<Long, List<String>> tokensByActivity) {
+        tokensByActivity.forEach((activityId, activityTokens) -> {
+            List<String> tokens = activityTokens.stream()
+                    .filter(token -> !stockLeaseManager.releasePending(activityId, token))
+                    .collect(Collectors.toList());
+            if (tokens.isEmpty()) {
+                return;
+            }
+            Long released = redisUtil.stockReleaseBatch(stockKey(activityId), reserveKey(activityId), tokens);
+            if (released != null && released > 0) {
+                log.debug("库存预占已批量释放: activityId={}, tokens={}, quantity={}", activityId, tokens.size(), released);
+            }
+        });
+    }
+
+    /**
+     * 批量领取库存（系统批量发放使用，Lua 原子操作）
+     * 最多领取 quantity 件，库存不足时领取剩余部分；领取后即视为售出，不记录预占令牌，
+     * 发放失败的部分通过 {@link #giveBack} 归还
+     *
+     * @return 实际领取数量（无限库存返回 quantity）
+     */
+    public int claim(Activity activity, int quantity) {
+        if (isUnlimited(activity.getStock())) {
+            return quantity;
+        }
+        int sold = activity.getSoldCount() != null ? activity.getSoldCount() : 0;
+        long initStock = Math.max(activity.getStock() - sold, 0);
+        Long claimed = redisUtil.stockLease(stockKey(activity.getActivityId()),
+                reserveKey(activity.getActivityId()), quantity, initStock);
+        return claimed != null ? claimed.intValue() : 0;
+    }
+
+    /**
+     * 归还批量领取但未发放的库存
+     */
+    public void giveBack(Activity activity, int quantity) {
+        if (isUnlimited(activity.getStock()) || quantity <= 0) {
+            return;
+        }
+        redisUtil.stockAdjust(stockKey(activity.getActivityId()), quantity);
+    }
+
+    /**
+     * 活动总库存变更时同步 Redis 剩余库存
+     */
+    public void adjustTotalStock(Long activityId, Integer oldStock, Integer newStock) {
+        if (isUnlimited(oldStock) || isUnlimited(newStock)) {
+            // 有限/无限切换时直接失效，下次预占重新初始化
+            evict(activityId);
+            return;
+        }
+        if (!oldStock.equals(newStock)) {
+            redisUtil.stockAdjust(stockKey(activityId), (long) newStock - oldStock);
+        }
+    }
+
+    /**
+     * 失效库存缓存（以数据库为准重新初始化）
+     * 预占令牌 Hash 保留：重新初始化时扣除其中未结的预占与各节点租约，之后释放的令牌照常归还
+     */
+    public void evict(Long activityId) {
+        stockLeaseManager.returnLease(activityId);
+        redisUtil.delete(stockKey(activityId));
+    }
+
+    // ==================== 令牌 ====================
+
+    public static String orderToken(Long orderId) {
+        return "order:" + orderId;
+    }
+
+    public static String groupToken(Long groupOrderId, Long userId) {
+        return "group:" + groupOrderId + ":" + userId;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 注册事务完成回调，无事务时按已提交立即执行
+     */
+    private void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private boolean isUnlimited(Integer stock) {
+        return stock == null || stock < 0;
+    }
+
+    private String stockKey(Long activityId) {
+        return STOCK_KEY_PREFIX + activityId;
+    }
+
+    private String reserveKey(Long activityId) {
+        return RESERVE_KEY_PREFIX + activityId;
+    }
+}
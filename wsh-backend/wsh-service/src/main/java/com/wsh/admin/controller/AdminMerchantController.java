@@ -4,6 +4,8 @@ import com.wsh.admin.dto.*;
 import com.wsh.admin.service.AdminMerchantService;
 import com.wsh.common.core.result.PageResult;
 import com.wsh.common.core.result.R;
+import com.wsh.matching.dto.MemberPhoneFilterStats;
+import com.wsh.matching.service.MemberPhoneFilterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +14,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "平台-商户管理", description = "商户列表、详情、审核、冻结/解冻")
 @RestController
 @RequestMapping("/v1/admin/merchants")
@@ -20,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminMerchantController {
 
     private final AdminMerchantService adminMerchantService;
+    private final MemberPhoneFilterService memberPhoneFilterService;
 
     @Operation(summary = "商户列表", description = "分页查询所有商户，支持关键词搜索和状态筛选")
     @GetMapping
@@ -47,4 +52,17 @@ public class AdminMerchantController {
         adminMerchantService.updateMerchantStatus(request);
         return R.ok();
     }
+
+    @Operation(summary = "会员预过滤器统计", description = "各商户会员手机号预过滤器的内存占用、理论及本节点实测误判率")
+    @GetMapping("/phone-filters")
+    public R<List<MemberPhoneFilterStats>> listPhoneFilters() {
+        return R.ok(memberPhoneFilterService.listStats());
+    }
+
+    @Operation(summary = "重建会员预过滤器", description = "按商户系统最新会员名单重建指定商户的预过滤器")
+    @PostMapping("/{merchantId}/phone-filter/rebuild")
+    public R<MemberPhoneFilterStats> rebuildPhoneFilter(
+            @Parameter(description = "商户ID") @PathVariable Long merchantId) {
+        return R.ok(memberPhoneFilterService.rebuild(merchantId));
+    }
 }
@@ -2,6 +2,7 @@ package com.wsh.admin.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.wsh.activity.service.MerchantGeoIndex;
 import com.wsh.admin.dto.*;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.core.exception.BusinessException;
@@ -31,6 +32,7 @@ public class AdminMerchantService {
     private final OnboardingFeePlanMapper onboardingFeePlanMapper;
     private final AdminUserMapper adminUserMapper;
     private final AdminOperationLogService operationLogService;
+    private final MerchantGeoIndex merchantGeoIndex;
 
     /**
      * 分页查询商户列表
@@ -114,6 +116,7 @@ public class AdminMerchantService {
 
         merchant.setStatus(newStatus);
         merchantMapper.updateById(merchant);
+        merchantGeoIndex.refreshMerchant(merchant.getMerchantId());
 
         // 记录审核日志
         MerchantAuditLog auditLog = new MerchantAuditLog();
@@ -163,6 +166,7 @@ public class AdminMerchantService {
 
         merchant.setStatus(newStatus);
         merchantMapper.updateById(merchant);
+        merchantGeoIndex.refreshMerchant(merchant.getMerchantId());
 
         MerchantAuditLog auditLog = new MerchantAuditLog();
         auditLog.setMerchantId(request.getMerchantId());
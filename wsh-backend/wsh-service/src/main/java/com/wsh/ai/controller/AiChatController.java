@@ -8,8 +8,16 @@ import com.wsh.ai.dto.*;
 import com.wsh.ai.service.AiChatService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
 @RestController
 @RequestMapping("/v1/ai")
 @RequiredArgsConstructor
@@ -17,6 +25,9 @@ public class AiChatController {
 
     private final AiChatService aiChatService;
 
+    /** 流式回复连接超时（毫秒），覆盖 AI 模型读取超时 */
+    private static final long CHAT_STREAM_TIMEOUT_MILLIS = 180_000L;
+
     /**
      * 创建新对话
      */
@@ -69,4 +80,54 @@ public class AiChatController {
         Long userId = SecurityUtil.getUserId();
         return R.ok(aiChatService.sendMessage(userId, conversationId, request));
     }
+
+    /**
+     * 发送消息（流式）
+     * 生成过程中推送 delta 事件（新生成的文本），结束后推送 done 事件（内容同非流式接口）
+     */
+    @PostMapping(value = "/conversations/{id}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter sendMessageStream(
+            @PathVariable("id") Long conversationId,
+            @Valid @RequestBody ChatMessageRequest request) {
+        Long userId = SecurityUtil.getUserId();
+        SseEmitter emitter = new SseEmitter(CHAT_STREAM_TIMEOUT_MILLIS);
+        // 连接超时、出错或已结束后不再生成：尚未开始则不调用模型，生成中则中止读取（已生成部分仍会保存）
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+        emitter.onCompletion(() -> cancelled.set(true));
+        aiChatService.sendMessageStream(userId, conversationId, request, delta -> {
+                    synchronized (emitter) {
+                        try {
+                            emitter.send(SseEmitter.event().name("delta").data(delta));
+                        } catch (IOException | IllegalStateException e) {
+                            // 客户端已断开（IOException）或连接已超时结束（IllegalStateException），中止生成
+                            cancelled.set(true);
+                            throw new CancellationException(e.getMessage());
+                        }
+                    }
+                }, cancelled::get)
+                .whenComplete((response, e) -> {
+                    synchronized (emitter) {
+                        if (cancelled.get()) {
+                            // 连接已结束或客户端已断开，不再推送，仅确保异步请求结束（已结束时为空操作）
+                            emitter.complete();
+                            return;
+                        }
+                        if (e != null) {
+                            log.warn("AI流式回复异常: userId={}, conversationId={}, error={}",
+                                    userId, conversationId, e.getMessage());
+                            emitter.completeWithError(e);
+                            return;
+                        }
+                        try {
+                            emitter.send(SseEmitter.event().name("done").data(response));
+                            emitter.complete();
+                        } catch (Exception ex) {
+                            emitter.completeWithError(ex);
+                        }
+                    }
+                });
+        return emitter;
+    }
 }
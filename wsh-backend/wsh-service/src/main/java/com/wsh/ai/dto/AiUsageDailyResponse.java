@@ -16,4 +16,6 @@ public class AiUsageDailyResponse {
     private Integer totalInputTokens;
     private Integer totalOutputTokens;
     private BigDecimal totalCost;
+    /** 其中对话摘要调用次数 */
+    private Integer summaryCallCount;
 }
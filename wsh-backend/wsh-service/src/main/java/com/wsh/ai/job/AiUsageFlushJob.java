@@ -0,0 +1,55 @@
+package com.wsh.ai.job;
+
+import com.wsh.ai.service.AiUsageAccumulator;
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.redis.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 用量汇总定时任务
+ * 1. 每 2 秒把本节点累加的用量写入 Redis 缓冲区（各节点独立执行，无需分布式锁）
+ * 2. 每 30 秒由一个节点把缓冲区累加到日账单表
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiUsageFlushJob {
+
+    private final AiUsageAccumulator usageAccumulator;
+    private final RedisUtil redisUtil;
+
+    @Scheduled(fixedDelay = 2000)
+    public void drainToBuffer() {
+        try {
+            usageAccumulator.drainToBuffer();
+        } catch (Exception e) {
+            log.error("AI用量写入缓冲区失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void flushToDatabase() {
+        String lockValue = UUID.randomUUID().toString();
+        Boolean locked = redisUtil.tryLock(Constants.LOCK_AI_USAGE_FLUSH, lockValue, 5, TimeUnit.MINUTES);
+        if (Boolean.FALSE.equals(locked)) {
+            return;
+        }
+
+        try {
+            int flushed = usageAccumulator.flushToDatabase();
+            if (flushed > 0) {
+                log.debug("AI用量落库完成: {}组", flushed);
+            }
+        } catch (Exception e) {
+            log.error("AI用量落库失败", e);
+        } finally {
+            redisUtil.releaseLock(Constants.LOCK_AI_USAGE_FLUSH, lockValue);
+        }
+    }
+}
@@ -18,7 +18,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,6 +35,7 @@ public class AiAdminService {
 
     private final AiModelConfigMapper modelConfigMapper;
     private final AiUsageDailyMapper usageDailyMapper;
+    private final AiUsageAccumulator usageAccumulator;
 
     /**
      * 获取AI模型配置列表
@@ -132,65 +140,133 @@ public class AiAdminService {
     }
 
     /**
-     * 获取AI调用日统计
+     * 获取AI调用日统计（含尚未落库的用量）
+     * 尚无日账单行的未落库用量（通常是当天首次调用）排在最前，与日账单行一起分页
      */
     public PageResult<AiUsageDailyResponse> listDailyUsage(LocalDate startDate, LocalDate endDate, PageQueryRequest pageQuery) {
-        Page<AiUsageDaily> page = new Page<>(pageQuery.getPage(), pageQuery.getSize());
-        
+        // 先取未落库用量再查日账单，见 AiUsageAccumulator#getUnflushedUsage
+        List<AiUsageDaily> pendings = usageAccumulator.getUnflushedUsage().stream()
+                .filter(pending -> (startDate == null || !pending.getStatDate().isBefore(startDate))
+                        && (endDate == null || !pending.getStatDate().isAfter(endDate)))
+                .collect(Collectors.toList());
+
+        // 一次查询哪些 (日期, 模型) 已有日账单行，没有的作为新行
+        Set<String> existingKeys = new HashSet<>();
+        if (!pendings.isEmpty()) {
+            usageDailyMapper.selectList(new LambdaQueryWrapper<AiUsageDaily>()
+                            .select(AiUsageDaily::getStatDate, AiUsageDaily::getModelConfigId)
+                            .in(AiUsageDaily::getStatDate, pendings.stream()
+                                    .map(AiUsageDaily::getStatDate).collect(Collectors.toSet()))
+                            .in(AiUsageDaily::getModelConfigId, pendings.stream()
+                                    .map(AiUsageDaily::getModelConfigId).collect(Collectors.toSet())))
+                    .forEach(row -> existingKeys.add(usageKey(row)));
+        }
+        Map<String, AiUsageDaily> newRows = new LinkedHashMap<>();
+        for (AiUsageDaily pending : pendings) {
+            if (!existingKeys.contains(usageKey(pending))) {
+                newRows.merge(usageKey(pending), pending, (a, b) -> {
+                    addUsage(a, b);
+                    return a;
+                });
+            }
+        }
+        List<AiUsageDaily> newRecords = newRows.values().stream()
+                .sorted(Comparator.comparing(AiUsageDaily::getStatDate).reversed())
+                .collect(Collectors.toList());
+
+        // 新行占据前 newCount 个位置，日账单行的偏移相应后移
+        int size = pageQuery.getSize();
+        int offset = pageQuery.getOffset();
+        int newCount = newRecords.size();
+        List<AiUsageDaily> records = new ArrayList<>(
+                newRecords.subList(Math.min(offset, newCount), Math.min(offset + size, newCount)));
+
         LambdaQueryWrapper<AiUsageDaily> wrapper = new LambdaQueryWrapper<AiUsageDaily>()
                 .ge(startDate != null, AiUsageDaily::getStatDate, startDate)
-                .le(endDate != null, AiUsageDaily::getStatDate, endDate)
-                .orderByDesc(AiUsageDaily::getStatDate);
-        
-        IPage<AiUsageDaily> result = usageDailyMapper.selectPage(page, wrapper);
-        
-        List<AiUsageDailyResponse> list = result.getRecords().stream()
+                .le(endDate != null, AiUsageDaily::getStatDate, endDate);
+        long total = usageDailyMapper.selectCount(wrapper) + newCount;
+        if (records.size() < size) {
+            int rowOffset = Math.max(offset - newCount, 0);
+            wrapper.orderByDesc(AiUsageDaily::getStatDate)
+                    .orderByAsc(AiUsageDaily::getModelConfigId)
+                    .last("LIMIT " + (size - records.size()) + (rowOffset > 0 ? " OFFSET " + rowOffset : ""));
+            List<AiUsageDaily> rows = usageDailyMapper.selectList(wrapper);
+            Map<String, AiUsageDaily> byKey = rows.stream()
+                    .collect(Collectors.toMap(this::usageKey, u -> u, (a, b) -> a));
+            for (AiUsageDaily pending : pendings) {
+                AiUsageDaily row = byKey.get(usageKey(pending));
+                if (row != null && !alreadyFlushed(row, pending)) {
+                    addUsage(row, pending);
+                }
+            }
+            records.addAll(rows);
+        }
+
+        List<AiUsageDailyResponse> list = records.stream()
                 .map(this::toUsageDailyResponse)
                 .collect(Collectors.toList());
         
-        return PageResult.of(list, result.getTotal(), result.getCurrent(), result.getSize());
+        return PageResult.of(list, total, pageQuery.getPage(), size);
     }
 
     /**
-     * 获取AI调用汇总统计
+     * 获取AI调用汇总统计（含尚未落库的用量）
      */
     public AiUsageSummaryResponse getUsageSummary() {
         AiUsageSummaryResponse resp = new AiUsageSummaryResponse();
         
         LocalDate today = LocalDate.now();
         LocalDate monthStart = today.withDayOfMonth(1);
-        LocalDate yearStart = today.withDayOfYear(1);
-        
-        // 总统计
+
+        // 先取未落库用量再查日账单，见 AiUsageAccumulator#getUnflushedUsage
+        Collection<AiUsageDaily> pendings = usageAccumulator.getUnflushedUsage();
         List<AiUsageDaily> allUsage = usageDailyMapper.selectList(null);
+        Map<String, AiUsageDaily> byKey = allUsage.stream()
+                .collect(Collectors.toMap(this::usageKey, u -> u, (a, b) -> a));
+
+        List<AiUsageDaily> usages = new ArrayList<>(allUsage);
+        for (AiUsageDaily pending : pendings) {
+            AiUsageDaily row = byKey.get(usageKey(pending));
+            if (row == null || !alreadyFlushed(row, pending)) {
+                usages.add(pending);
+            }
+        }
+
+        // 总计、今日、本月统计在同一次读取的数据上汇总
         int totalCallCount = 0;
         int totalInputTokens = 0;
         int totalOutputTokens = 0;
         BigDecimal totalCost = BigDecimal.ZERO;
-        
-        for (AiUsageDaily usage : allUsage) {
-            totalCallCount += usage.getCallCount() != null ? usage.getCallCount() : 0;
+        int todayCallCount = 0;
+        BigDecimal todayCost = BigDecimal.ZERO;
+        int monthCallCount = 0;
+        BigDecimal monthCost = BigDecimal.ZERO;
+
+        for (AiUsageDaily usage : usages) {
+            int callCount = usage.getCallCount() != null ? usage.getCallCount() : 0;
+            BigDecimal cost = usage.getTotalCost() != null ? usage.getTotalCost() : BigDecimal.ZERO;
+            totalCallCount += callCount;
             totalInputTokens += usage.getTotalInputTokens() != null ? usage.getTotalInputTokens() : 0;
             totalOutputTokens += usage.getTotalOutputTokens() != null ? usage.getTotalOutputTokens() : 0;
-            totalCost = totalCost.add(usage.getTotalCost() != null ? usage.getTotalCost() : BigDecimal.ZERO);
+            totalCost = totalCost.add(cost);
+            if (today.equals(usage.getStatDate())) {
+                todayCallCount += callCount;
+                todayCost = todayCost.add(cost);
+            }
+            if (!usage.getStatDate().isBefore(monthStart) && !usage.getStatDate().isAfter(today)) {
+                monthCallCount += callCount;
+                monthCost = monthCost.add(cost);
+            }
         }
         
         resp.setTotalCallCount(totalCallCount);
         resp.setTotalInputTokens(totalInputTokens);
         resp.setTotalOutputTokens(totalOutputTokens);
         resp.setTotalCost(totalCost);
-        
-        // 今日统计
-        Integer todayCallCount = usageDailyMapper.sumCallCount(today, today);
-        BigDecimal todayCost = usageDailyMapper.sumTotalCost(today, today);
-        resp.setTodayCallCount(todayCallCount != null ? todayCallCount : 0);
-        resp.setTodayCost(todayCost != null ? todayCost : BigDecimal.ZERO);
-        
-        // 本月统计
-        Integer monthCallCount = usageDailyMapper.sumCallCount(monthStart, today);
-        BigDecimal monthCost = usageDailyMapper.sumTotalCost(monthStart, today);
-        resp.setMonthCallCount(monthCallCount != null ? monthCallCount : 0);
-        resp.setMonthCost(monthCost != null ? monthCost : BigDecimal.ZERO);
+        resp.setTodayCallCount(todayCallCount);
+        resp.setTodayCost(todayCost);
+        resp.setMonthCallCount(monthCallCount);
+        resp.setMonthCost(monthCost);
         
         return resp;
     }
@@ -213,6 +289,29 @@ public class AiAdminService {
         return resp;
     }
 
+    private String usageKey(AiUsageDaily usage) {
+        return usage.getStatDate() + ":" + usage.getModelConfigId();
+    }
+
+    /**
+     * 待落库的一组已累加到日账单行（行上记录的批次ID与之相同）
+     */
+    private boolean alreadyFlushed(AiUsageDaily row, AiUsageDaily pending) {
+        return pending.getLastFlushId() != null && pending.getLastFlushId().equals(row.getLastFlushId());
+    }
+
+    private void addUsage(AiUsageDaily target, AiUsageDaily delta) {
+        target.setCallCount((target.getCallCount() != null ? target.getCallCount() : 0) + delta.getCallCount());
+        target.setTotalInputTokens((target.getTotalInputTokens() != null ? target.getTotalInputTokens() : 0)
+                + delta.getTotalInputTokens());
+        target.setTotalOutputTokens((target.getTotalOutputTokens() != null ? target.getTotalOutputTokens() : 0)
+                + delta.getTotalOutputTokens());
+        target.setTotalCost((target.getTotalCost() != null ? target.getTotalCost() : BigDecimal.ZERO)
+                .add(delta.getTotalCost()));
+        target.setSummaryCallCount((target.getSummaryCallCount() != null ? target.getSummaryCallCount() : 0)
+                + delta.getSummaryCallCount());
+    }
+
     private AiUsageDailyResponse toUsageDailyResponse(AiUsageDaily usage) {
         AiUsageDailyResponse resp = new AiUsageDailyResponse();
         BeanUtils.copyProperties(usage, resp);
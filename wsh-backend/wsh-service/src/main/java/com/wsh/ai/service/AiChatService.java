@@ -4,23 +4,37 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.wsh.admin.dto.PageQueryRequest;
+import com.wsh.common.core.exception.BusinessException;
 import com.wsh.common.core.result.PageResult;
 import com.wsh.domain.entity.*;
 import com.wsh.domain.mapper.*;
 import com.wsh.ai.dto.*;
+import com.wsh.equity.dto.EquitySummaryResponse;
 import com.wsh.equity.service.EquitySummaryService;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,9 +45,19 @@ public class AiChatService {
     private final AiConversationMapper conversationMapper;
     private final AiMessageMapper messageMapper;
     private final AiModelConfigMapper modelConfigMapper;
-    private final AiUsageDailyMapper usageDailyMapper;
     private final EquitySummaryService equitySummaryService;
     private final AiModelClient aiModelClient;
+    private final AiContextManager contextManager;
+    private final AiUsageAccumulator usageAccumulator;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 流式对话线程数（每个线程同时服务一个流式回复） */
+    private static final int STREAM_THREADS = 64;
+
+    /** 流式对话排队上限，超出时拒绝 */
+    private static final int STREAM_QUEUE_CAPACITY = 200;
+
+    private final ExecutorService streamExecutor = newStreamExecutor();
 
     /**
      * 创建新对话
@@ -136,104 +160,142 @@ public class AiChatService {
         
         conversation.setStatus(0);
         conversationMapper.updateById(conversation);
+        contextManager.evict(conversationId);
         log.info("用户[{}]删除对话, conversationId={}", userId, conversationId);
     }
 
     /**
      * 发送消息并获取AI回复
+     * 模型调用在事务之外执行：先保存用户消息，模型返回后再保存回复与用量
      */
-    @Transactional
     public ChatMessageResponse sendMessage(Long userId, Long conversationId, ChatMessageRequest request) {
-        // 验证对话存在
-        AiConversation conversation = conversationMapper.selectOne(
-                new LambdaQueryWrapper<AiConversation>()
-                        .eq(AiConversation::getConversationId, conversationId)
-                        .eq(AiConversation::getUserId, userId)
-                        .eq(AiConversation::getStatus, 1)
-        );
-        if (conversation == null) {
-            throw new RuntimeException("对话不存在");
+        ChatContext context = prepareChat(userId, conversationId, request.getContent());
+
+        AiModelClient.ChatResult result = aiModelClient.chat(context.getModel(), context.getSystemPrompt(),
+                context.getHistory(), request.getContent());
+
+        return completeChat(userId, conversationId, request.getContent(), context, result);
+    }
+
+    /**
+     * 发送消息并流式获取AI回复
+     * 对话校验与用户消息保存在调用线程同步完成（失败直接抛出），模型调用在 AI 线程池执行，
+     * 每段生成内容通过 onDelta 回调，生成结束后保存回复与用量
+     *
+     * @param onDelta   每段新生成内容的回调（在 AI 线程池线程执行，抛出异常将中止生成）
+     * @param cancelled 客户端已断开或连接已超时结束时返回 true，尚未开始则不调用模型，生成中则中止读取
+     * @return 完成后返回与 {@link #sendMessage} 相同的回复
+     */
+    public CompletableFuture<ChatMessageResponse> sendMessageStream(Long userId, Long conversationId,
+                                                                    ChatMessageRequest request,
+                                                                    Consumer<String> onDelta,
+                                                                    BooleanSupplier cancelled) {
+        ChatContext context = prepareChat(userId, conversationId, request.getContent());
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                AiModelClient.ChatResult result = aiModelClient.chatStream(context.getModel(),
+                        context.getSystemPrompt(), context.getHistory(), request.getContent(), onDelta, cancelled);
+                return completeChat(userId, conversationId, request.getContent(), context, result);
+            }, streamExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(503, "AI服务繁忙，请稍后再试");
         }
-        
-        // 获取模型配置
-        AiModelConfig model = modelConfigMapper.selectById(conversation.getModelConfigId());
-        if (model == null || model.getStatus() != 1) {
-            model = modelConfigMapper.selectOne(
-                    new LambdaQueryWrapper<AiModelConfig>()
-                            .eq(AiModelConfig::getIsDefault, 1)
-                            .eq(AiModelConfig::getStatus, 1)
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdown();
+    }
+
+    /**
+     * 校验对话、选择模型、保存用户消息（短事务），再组装系统提示词与历史消息
+     */
+    private ChatContext prepareChat(Long userId, Long conversationId, String content) {
+        ChatContext context = transactionTemplate.execute(status -> {
+            // 验证对话存在
+            AiConversation conversation = conversationMapper.selectOne(
+                    new LambdaQueryWrapper<AiConversation>()
+                            .eq(AiConversation::getConversationId, conversationId)
+                            .eq(AiConversation::getUserId, userId)
+                            .eq(AiConversation::getStatus, 1)
             );
-        }
-        if (model == null) {
-            throw new RuntimeException("没有可用的AI模型");
-        }
-        
-        // 保存用户消息
-        AiMessage userMessage = new AiMessage();
-        userMessage.setConversationId(conversationId);
-        userMessage.setUserId(userId);
-        userMessage.setRole("user");
-        userMessage.setContent(request.getContent());
-        userMessage.setInputTokens(0);
-        userMessage.setOutputTokens(0);
-        userMessage.setCost(BigDecimal.ZERO);
-        messageMapper.insert(userMessage);
-        
-        // 获取历史消息构建上下文
-        List<AiMessage> historyMessages = messageMapper.selectList(
-                new LambdaQueryWrapper<AiMessage>()
-                        .eq(AiMessage::getConversationId, conversationId)
-                        .orderByAsc(AiMessage::getCreatedAt)
-                        .last("LIMIT 20")
-        );
-        
-        // 构建系统提示词
-        String systemPrompt = buildSystemPrompt(userId);
-        
-        // 调用AI模型
-        AiModelClient.ChatResult result = aiModelClient.chat(model, systemPrompt, historyMessages, request.getContent());
-        
-        // 计算费用
-        BigDecimal inputCost = model.getInputPrice() != null 
-                ? model.getInputPrice().multiply(BigDecimal.valueOf(result.getInputTokens())).divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-        BigDecimal outputCost = model.getOutputPrice() != null
-                ? model.getOutputPrice().multiply(BigDecimal.valueOf(result.getOutputTokens())).divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-        BigDecimal totalCost = inputCost.add(outputCost);
-        
-        // 保存AI回复
-        AiMessage assistantMessage = new AiMessage();
-        assistantMessage.setConversationId(conversationId);
-        assistantMessage.setUserId(userId);
-        assistantMessage.setRole("assistant");
-        assistantMessage.setContent(result.getContent());
-        assistantMessage.setInputTokens(result.getInputTokens());
-        assistantMessage.setOutputTokens(result.getOutputTokens());
-        assistantMessage.setCost(totalCost);
-        messageMapper.insert(assistantMessage);
-        
-        // 更新对话统计
-        conversation.setMessageCount(conversation.getMessageCount() + 2);
-        conversation.setTotalTokens(conversation.getTotalTokens() + result.getInputTokens() + result.getOutputTokens());
-        conversation.setTotalCost(conversation.getTotalCost().add(totalCost));
-        
-        // 更新对话标题（首条消息）
-        if (conversation.getMessageCount() == 2) {
-            String title = request.getContent();
-            if (title.length() > 30) {
-                title = title.substring(0, 30) + "...";
+            if (conversation == null) {
+                throw new RuntimeException("对话不存在");
+            }
+
+            // 获取模型配置
+            AiModelConfig model = modelConfigMapper.selectById(conversation.getModelConfigId());
+            if (model == null || model.getStatus() != 1) {
+                model = modelConfigMapper.selectOne(
+                        new LambdaQueryWrapper<AiModelConfig>()
+                                .eq(AiModelConfig::getIsDefault, 1)
+                                .eq(AiModelConfig::getStatus, 1)
+                );
             }
-            conversation.setTitle(title);
+            if (model == null) {
+                throw new RuntimeException("没有可用的AI模型");
+            }
+
+            // 保存用户消息
+            AiMessage userMessage = new AiMessage();
+            userMessage.setConversationId(conversationId);
+            userMessage.setUserId(userId);
+            userMessage.setRole("user");
+            userMessage.setContent(content);
+            userMessage.setInputTokens(0);
+            userMessage.setOutputTokens(0);
+            userMessage.setCost(BigDecimal.ZERO);
+            messageMapper.insert(userMessage);
+            return new ChatContext(model, userMessage, null, null);
+        });
+
+        // 按 token 预算从上下文窗口截取历史，附带较早轮次的摘要记忆（不占用事务）
+        AiContextManager.Prompt prompt = contextManager.assemble(context.getModel(), conversationId,
+                context.getUserMessage().getMessageId(), getSystemPrompt(userId), content);
+        context.setSystemPrompt(prompt.getSystemPrompt());
+        context.setHistory(prompt.getHistory());
+        return context;
+    }
+
+    /**
+     * 保存AI回复、更新对话与日统计（短事务），成功的一轮追加到上下文窗口
+     */
+    private ChatMessageResponse completeChat(Long userId, Long conversationId, String content,
+                                             ChatContext context, AiModelClient.ChatResult result) {
+        AiModelConfig model = context.getModel();
+        // 计算费用
+        BigDecimal totalCost = result.cost(model);
+
+        AiMessage assistantMessage = transactionTemplate.execute(status -> {
+            // 保存AI回复
+            AiMessage message = new AiMessage();
+            message.setConversationId(conversationId);
+            message.setUserId(userId);
+            message.setRole("assistant");
+            message.setContent(result.getContent());
+            message.setInputTokens(result.getInputTokens());
+            message.setOutputTokens(result.getOutputTokens());
+            message.setCost(totalCost);
+            messageMapper.insert(message);
+
+            // 原子累加对话统计，首轮对话以首条消息作为标题
+            String title = content.length() > 30 ? content.substring(0, 30) + "..." : content;
+            conversationMapper.addTurn(conversationId, result.getInputTokens() + result.getOutputTokens(),
+                    totalCost, title);
+            return message;
+        });
+
+        // 日统计由累加器定时汇总落库
+        usageAccumulator.record(model.getConfigId(), result.getInputTokens(), result.getOutputTokens(), totalCost);
+
+        // 失败的回复（错误提示或中断的部分内容）不进入后续上下文
+        if (!result.isFailed()) {
+            contextManager.append(conversationId, context.getUserMessage(), assistantMessage);
         }
-        conversationMapper.updateById(conversation);
-        
-        // 更新日统计
-        updateDailyUsage(model.getConfigId(), result.getInputTokens(), result.getOutputTokens(), totalCost);
-        
+
         log.info("用户[{}]发送消息, conversationId={}, inputTokens={}, outputTokens={}, cost={}",
                 userId, conversationId, result.getInputTokens(), result.getOutputTokens(), totalCost);
-        
+
         ChatMessageResponse resp = new ChatMessageResponse();
         resp.setMessageId(assistantMessage.getMessageId());
         resp.setConversationId(conversationId);
@@ -247,10 +309,24 @@ public class AiChatService {
         return resp;
     }
 
+    /**
+     * 获取系统提示词（按用户缓存，权益汇总重新计算时失效）
+     * 权益数据获取失败时使用不含权益概况的提示词，且不缓存
+     */
+    private String getSystemPrompt(Long userId) {
+        try {
+            return contextManager.getSystemPrompt(userId,
+                    () -> buildSystemPrompt(equitySummaryService.getSummary(userId)));
+        } catch (Exception e) {
+            log.warn("获取用户权益数据失败: {}", e.getMessage());
+            return buildSystemPrompt(null);
+        }
+    }
+
     /**
      * 构建系统提示词
      */
-    private String buildSystemPrompt(Long userId) {
+    private String buildSystemPrompt(EquitySummaryResponse summary) {
         StringBuilder sb = new StringBuilder();
         sb.append("你是微生活券吧的智能助手，帮助用户管理会员权益、发现优惠活动。\n\n");
         sb.append("你可以帮助用户：\n");
@@ -259,9 +335,8 @@ public class AiChatService {
         sb.append("3. 查询订单状态\n");
         sb.append("4. 解答平台使用问题\n\n");
         
-        // 获取用户权益数据
-        try {
-            var summary = equitySummaryService.getSummary(userId);
+        // 用户权益数据
+        if (summary != null) {
             sb.append("当前用户权益概况：\n");
             sb.append("- 总积分价值：").append(summary.getTotalPointsValue()).append("元\n");
             sb.append("- 总储值余额：").append(summary.getTotalBalance()).append("元\n");
@@ -269,8 +344,6 @@ public class AiChatService {
             sb.append("- 即将过期积分价值：").append(summary.getExpiringPointsValue()).append("元\n");
             sb.append("- 即将过期券数量：").append(summary.getExpiringVoucherCount()).append("张\n");
             sb.append("- 有权益的商户数：").append(summary.getMerchantCount()).append("家\n\n");
-        } catch (Exception e) {
-            log.warn("获取用户权益数据失败: {}", e.getMessage());
         }
         
         sb.append("请用友好、专业的语气回答用户问题，回答要简洁明了。");
@@ -279,39 +352,29 @@ public class AiChatService {
         return sb.toString();
     }
 
-    /**
-     * 更新日统计
-     */
-    private void updateDailyUsage(Long modelConfigId, int inputTokens, int outputTokens, BigDecimal cost) {
-        LocalDate today = LocalDate.now();
-        
-        AiUsageDaily daily = usageDailyMapper.selectOne(
-                new LambdaQueryWrapper<AiUsageDaily>()
-                        .eq(AiUsageDaily::getStatDate, today)
-                        .eq(AiUsageDaily::getModelConfigId, modelConfigId)
-        );
-        
-        if (daily == null) {
-            daily = new AiUsageDaily();
-            daily.setStatDate(today);
-            daily.setModelConfigId(modelConfigId);
-            daily.setCallCount(1);
-            daily.setTotalInputTokens(inputTokens);
-            daily.setTotalOutputTokens(outputTokens);
-            daily.setTotalCost(cost);
-            usageDailyMapper.insert(daily);
-        } else {
-            daily.setCallCount(daily.getCallCount() + 1);
-            daily.setTotalInputTokens(daily.getTotalInputTokens() + inputTokens);
-            daily.setTotalOutputTokens(daily.getTotalOutputTokens() + outputTokens);
-            daily.setTotalCost(daily.getTotalCost().add(cost));
-            usageDailyMapper.updateById(daily);
-        }
-    }
-
     private ConversationResponse toConversationResponse(AiConversation conversation) {
         ConversationResponse resp = new ConversationResponse();
         BeanUtils.copyProperties(conversation, resp);
         return resp;
     }
+
+    private static ExecutorService newStreamExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ai-stream-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(STREAM_THREADS, STREAM_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(STREAM_QUEUE_CAPACITY), threadFactory);
+    }
+
+    /**
+     * 一次对话调用的上下文
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    private static class ChatContext {
+        private AiModelConfig model;
+        private AiMessage userMessage;
+        private List<AiMessage> history;
+        private String systemPrompt;
+    }
 }
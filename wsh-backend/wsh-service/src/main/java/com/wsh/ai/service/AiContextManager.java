@@ -0,0 +1,395 @@
+package com.wsh.ai.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.redis.cache.NearCache;
+import com.wsh.common.redis.cache.NearCacheManager;
+import com.wsh.common.redis.cache.NearCacheSpec;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.AiMessage;
+import com.wsh.domain.entity.AiModelConfig;
+import com.wsh.domain.mapper.AiConversationMapper;
+import com.wsh.domain.mapper.AiMessageMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * AI 对话上下文管理
+ * 1. 每个对话在 Redis 中维护滚动消息窗口（{@link ConversationContext}），未命中时从 DB 加载最近的消息重建
+ * 2. 组装请求时按上下文窗口扣除回复预留（请求中的 max_tokens）后的预算，从最新消息向前截取历史，超出预算的消息不再发送
+ * 3. 窗口过长或超出预算的消息积累到一定数量后，后台调用模型将其与已有记忆合并为摘要记忆，随系统提示词发送；
+ *    摘要调用的用量计入所属对话与日账单（单独记录摘要调用次数）
+ * 4. 系统提示词按用户二级缓存，权益汇总重新计算时失效
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiContextManager {
+
+    /** 窗口更新锁、摘要租约 Key 前缀 */
+    private static final String CONTEXT_LOCK_PREFIX = "lock:ai:context:";
+    private static final String SUMMARY_LEASE_PREFIX = "lock:ai:context:summary:";
+
+    /** 窗口有效期（小时），过期后从 DB 重建，摘要记忆随之丢弃 */
+    private static final long CONTEXT_TTL_HOURS = 24;
+
+    /** 窗口保留的最大原始消息数，同时是重建时从 DB 加载的条数 */
+    private static final int WINDOW_MAX_MESSAGES = 40;
+
+    /** 窗口超过该条数时摘要较早的消息 */
+    private static final int SUMMARIZE_WINDOW_SIZE = 24;
+
+    /** 摘要后窗口保留的最近消息数 */
+    private static final int KEEP_RECENT_MESSAGES = 12;
+
+    /** 单次摘要的最少消息数 */
+    private static final int SUMMARIZE_MIN_MESSAGES = 8;
+
+    /**
+     * 单次请求的上下文窗口（输入 + 输出，token），取已接入模型中最小的窗口，同时限制历史消息的费用
+     * 模型配置的 maxTokens 是回复上限（请求中的 max_tokens），须从窗口中预留
+     */
+    private static final int CONTEXT_WINDOW_TOKENS = 8192;
+
+    /** 回复预留的上限（token），maxTokens 配置过大时仍保留一半窗口给系统提示词与历史 */
+    private static final int MAX_OUTPUT_RESERVE_TOKENS = CONTEXT_WINDOW_TOKENS / 2;
+
+    /** 每条消息的格式开销（token） */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /** 窗口更新锁有效期（秒） */
+    private static final long CONTEXT_LOCK_SECONDS = 5;
+
+    /** 摘要租约有效期（秒），覆盖一次模型调用 */
+    private static final long SUMMARY_LEASE_SECONDS = 180;
+
+    private static final String MEMORY_HEADER = "\n\n以下是本对话较早内容的摘要，供回答时参考：\n";
+
+    private static final String SUMMARY_PROMPT = "你负责压缩对话记忆。请将已有记忆与新增对话合并为一段简洁的摘要，"
+            + "保留用户的需求、偏好，涉及的商户、权益、订单等关键信息和已经给出的结论，省略寒暄与重复内容，"
+            + "不超过300字，直接输出摘要正文。";
+
+    /** 系统提示词按用户缓存，有效期与权益汇总缓存一致 */
+    private static final NearCacheSpec PROMPT_CACHE = NearCacheSpec.builder()
+            .name("ai-system-prompt")
+            .localTtl(Duration.ofMinutes(1))
+            .remoteTtl(Duration.ofHours(2))
+            .maxSize(10000)
+            .build();
+
+    private final RedisUtil redisUtil;
+    private final NearCacheManager nearCacheManager;
+    private final AiMessageMapper messageMapper;
+    private final AiConversationMapper conversationMapper;
+    private final AiModelClient aiModelClient;
+    private final AiUsageAccumulator usageAccumulator;
+
+    private final ExecutorService summaryExecutor = newSummaryExecutor();
+
+    /**
+     * 组装后的请求上下文
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Prompt {
+
+        /** 系统提示词（含摘要记忆） */
+        private final String systemPrompt;
+
+        /** 预算内的历史消息（不含本轮用户消息） */
+        private final List<AiMessage> history;
+    }
+
+    /**
+     * 读取用户系统提示词，未命中时调用 loader 构建（loader 返回 null 时不缓存）
+     */
+    public String getSystemPrompt(Long userId, Supplier<String> loader) {
+        return promptCache().get(Constants.CACHE_AI_SYSTEM_PROMPT + userId, loader);
+    }
+
+    /**
+     * 用户权益变化时清除系统提示词缓存
+     */
+    public void evictSystemPrompt(Long userId) {
+        promptCache().evict(Constants.CACHE_AI_SYSTEM_PROMPT + userId);
+    }
+
+    /**
+     * 组装本轮请求的系统提示词与历史消息
+     *
+     * @param currentMessageId 本轮已保存的用户消息ID（从 DB 重建窗口时排除）
+     */
+    public Prompt assemble(AiModelConfig model, Long conversationId, Long currentMessageId,
+                           String systemPrompt, String userMessage) {
+        ConversationContext context = loadContext(conversationId, currentMessageId);
+        String fullPrompt = StringUtils.hasText(context.getMemory())
+                ? systemPrompt + MEMORY_HEADER + context.getMemory()
+                : systemPrompt;
+
+        // 从最新消息向前截取预算内的历史
+        List<ConversationContext.Entry> messages = context.getMessages();
+        int budget = contextTokens(model) - estimateTokens(fullPrompt) - estimateTokens(userMessage);
+        int from = messages.size();
+        int used = 0;
+        while (from > 0 && used + messages.get(from - 1).getTokens() <= budget) {
+            used += messages.get(--from).getTokens();
+        }
+        // 历史须以用户消息开头（Claude 要求角色交替）
+        from = alignToUserTurn(messages, from);
+
+        // 超出预算或窗口过长时摘要较早的消息
+        int summarizeCount = Math.max(from, messages.size() > SUMMARIZE_WINDOW_SIZE
+                ? alignToUserTurn(messages, messages.size() - KEEP_RECENT_MESSAGES) : 0);
+        if (summarizeCount >= SUMMARIZE_MIN_MESSAGES) {
+            scheduleSummary(model, conversationId, context, summarizeCount);
+        }
+
+        List<AiMessage> history = messages.subList(from, messages.size()).stream()
+                .map(this::toMessage)
+                .collect(Collectors.toList());
+        return new Prompt(fullPrompt, history);
+    }
+
+    /**
+     * 追加一轮完成的对话（窗口不存在时跳过，下一轮从 DB 重建）
+     */
+    public void append(Long conversationId, AiMessage userMessage, AiMessage assistantMessage) {
+        updateContext(conversationId, context -> {
+            List<ConversationContext.Entry> messages = context.getMessages();
+            messages.add(toEntry(userMessage));
+            messages.add(toEntry(assistantMessage));
+            if (messages.size() > WINDOW_MAX_MESSAGES) {
+                messages.subList(0, messages.size() - WINDOW_MAX_MESSAGES).clear();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 清除对话窗口（删除对话时调用）
+     */
+    public void evict(Long conversationId) {
+        redisUtil.delete(Constants.CACHE_AI_CONTEXT + conversationId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        summaryExecutor.shutdown();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private NearCache promptCache() {
+        return nearCacheManager.getCache(PROMPT_CACHE);
+    }
+
+    /**
+     * 读取窗口，未命中时从 DB 加载最近的消息重建
+     */
+    private ConversationContext loadContext(Long conversationId, Long excludeMessageId) {
+        String key = Constants.CACHE_AI_CONTEXT + conversationId;
+        ConversationContext context = redisUtil.get(key);
+        if (context != null) {
+            return context;
+        }
+
+        List<AiMessage> recent = messageMapper.selectList(
+                new LambdaQueryWrapper<AiMessage>()
+                        .eq(AiMessage::getConversationId, conversationId)
+                        .ne(AiMessage::getMessageId, excludeMessageId)
+                        .orderByDesc(AiMessage::getCreatedAt)
+                        .orderByDesc(AiMessage::getMessageId)
+                        .last("LIMIT " + WINDOW_MAX_MESSAGES)
+        );
+        Collections.reverse(recent);
+
+        context = new ConversationContext();
+        for (AiMessage message : recent) {
+            if (!"system".equals(message.getRole())) {
+                context.getMessages().add(toEntry(message));
+            }
+        }
+        redisUtil.set(key, context, CONTEXT_TTL_HOURS, TimeUnit.HOURS);
+        return context;
+    }
+
+    /**
+     * 加锁读改写窗口；锁被占用时删除窗口（下一轮从 DB 重建），避免并发修改互相覆盖
+     *
+     * @param mutator 修改窗口，返回 false 表示放弃修改
+     */
+    private void updateContext(Long conversationId, Predicate<ConversationContext> mutator) {
+        String key = Constants.CACHE_AI_CONTEXT + conversationId;
+        String lockKey = CONTEXT_LOCK_PREFIX + conversationId;
+        String lockValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(lockKey, lockValue, CONTEXT_LOCK_SECONDS, TimeUnit.SECONDS))) {
+            redisUtil.delete(key);
+            return;
+        }
+        try {
+            ConversationContext context = redisUtil.get(key);
+            if (context != null && mutator.test(context)) {
+                redisUtil.set(key, context, CONTEXT_TTL_HOURS, TimeUnit.HOURS);
+            }
+        } finally {
+            redisUtil.releaseLock(lockKey, lockValue);
+        }
+    }
+
+    /**
+     * 后台摘要窗口开头的 count 条消息（同一对话同时只有一个摘要任务）
+     */
+    private void scheduleSummary(AiModelConfig model, Long conversationId, ConversationContext context, int count) {
+        String leaseKey = SUMMARY_LEASE_PREFIX + conversationId;
+        String leaseValue = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(leaseKey, leaseValue, SUMMARY_LEASE_SECONDS, TimeUnit.SECONDS))) {
+            return;
+        }
+        String memory = context.getMemory();
+        List<ConversationContext.Entry> older = new ArrayList<>(context.getMessages().subList(0, count));
+        try {
+            summaryExecutor.execute(() -> {
+                try {
+                    summarize(model, conversationId, memory, older);
+                } catch (Exception e) {
+                    log.warn("对话摘要失败: conversationId={}, error={}", conversationId, e.getMessage());
+                } finally {
+                    redisUtil.releaseLock(leaseKey, leaseValue);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满，下一轮再摘要
+            redisUtil.releaseLock(leaseKey, leaseValue);
+        }
+    }
+
+    /**
+     * 将已有记忆与较早的消息合并为新的摘要记忆，并从窗口移除这些消息
+     */
+    private void summarize(AiModelConfig model, Long conversationId, String memory,
+                           List<ConversationContext.Entry> older) {
+        StringBuilder transcript = new StringBuilder();
+        if (StringUtils.hasText(memory)) {
+            transcript.append("已有记忆：\n").append(memory).append("\n\n");
+        }
+        transcript.append("新增对话：\n");
+        for (ConversationContext.Entry entry : older) {
+            transcript.append("user".equals(entry.getRole()) ? "用户：" : "助手：")
+                    .append(entry.getContent()).append('\n');
+        }
+
+        AiModelClient.ChatResult result = aiModelClient.chat(model, SUMMARY_PROMPT,
+                Collections.emptyList(), transcript.toString());
+        recordSummaryUsage(model, conversationId, result);
+        if (result.isFailed() || !StringUtils.hasText(result.getContent())) {
+            return;
+        }
+
+        Long lastMessageId = older.get(older.size() - 1).getMessageId();
+        updateContext(conversationId, context -> {
+            // 摘要期间窗口可能已被重建或被其他摘要修改，记忆不一致或消息已不在窗口中时放弃
+            if (!Objects.equals(context.getMemory(), memory)) {
+                return false;
+            }
+            List<ConversationContext.Entry> messages = context.getMessages();
+            for (int i = 0; i < messages.size(); i++) {
+                if (lastMessageId.equals(messages.get(i).getMessageId())) {
+                    messages.subList(0, i + 1).clear();
+                    context.setMemory(result.getContent().trim());
+                    return true;
+                }
+            }
+            return false;
+        });
+        log.info("对话摘要完成: conversationId={}, 摘要消息{}条, inputTokens={}, outputTokens={}",
+                conversationId, older.size(), result.getInputTokens(), result.getOutputTokens());
+    }
+
+    /**
+     * 摘要调用的用量计入对话累计与日账单（失败的调用同样计费）
+     */
+    private void recordSummaryUsage(AiModelConfig model, Long conversationId, AiModelClient.ChatResult result) {
+        BigDecimal cost = result.cost(model);
+        conversationMapper.addSummaryUsage(conversationId, result.getInputTokens() + result.getOutputTokens(), cost);
+        usageAccumulator.recordSummary(model.getConfigId(), result.getInputTokens(), result.getOutputTokens(), cost);
+    }
+
+    /**
+     * 从 index 向后找到第一条用户消息的位置
+     */
+    private int alignToUserTurn(List<ConversationContext.Entry> messages, int index) {
+        while (index < messages.size() && !"user".equals(messages.get(index).getRole())) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 输入部分的预算：上下文窗口扣除回复预留
+     */
+    private int contextTokens(AiModelConfig model) {
+        return CONTEXT_WINDOW_TOKENS - Math.min(AiModelClient.maxOutputTokens(model), MAX_OUTPUT_RESERVE_TOKENS);
+    }
+
+    private ConversationContext.Entry toEntry(AiMessage message) {
+        int tokens = "assistant".equals(message.getRole()) && message.getOutputTokens() != null
+                && message.getOutputTokens() > 0
+                ? message.getOutputTokens()
+                : estimateTokens(message.getContent());
+        return new ConversationContext.Entry(message.getMessageId(), message.getRole(),
+                message.getContent(), tokens + MESSAGE_OVERHEAD_TOKENS);
+    }
+
+    private AiMessage toMessage(ConversationContext.Entry entry) {
+        AiMessage message = new AiMessage();
+        message.setMessageId(entry.getMessageId());
+        message.setRole(entry.getRole());
+        message.setContent(entry.getContent());
+        return message;
+    }
+
+    /**
+     * 估算 token 数：中文等宽字符约 1 token/字，其余字符约 4 字符/token
+     */
+    private static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int wide = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x2E80) {
+                wide++;
+            }
+        }
+        return wide + (text.length() - wide + 3) / 4;
+    }
+
+    private static ExecutorService newSummaryExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ai-context-summary-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(100), threadFactory);
+    }
+}
@@ -6,32 +6,71 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.wsh.domain.entity.AiMessage;
 import com.wsh.domain.entity.AiModelConfig;
+import com.wsh.integration.http.OutboundHttpClients;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * AI模型调用客户端
  * 支持OpenAI、Claude、通义千问、DeepSeek等兼容OpenAI API格式的模型
+ * 支持一次性返回与流式返回（SSE）两种调用方式
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AiModelClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /** 模型未配置 maxTokens 时的输出上限 */
+    private static final int DEFAULT_MAX_OUTPUT_TOKENS = 4096;
+
+    private final OutboundHttpClients httpClients;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 请求中 max_tokens 的取值：模型配置的 maxTokens 是单次回复的输出上限
+     */
+    public static int maxOutputTokens(AiModelConfig model) {
+        return model.getMaxTokens() != null && model.getMaxTokens() > 0
+                ? model.getMaxTokens() : DEFAULT_MAX_OUTPUT_TOKENS;
+    }
+
     @Data
     public static class ChatResult {
         private String content;
         private int inputTokens;
         private int outputTokens;
+        /** 调用失败（content 为错误提示或仅有部分内容） */
+        private boolean failed;
+
+        /**
+         * 按模型单价（元/千token）计算本次调用费用
+         */
+        public BigDecimal cost(AiModelConfig model) {
+            BigDecimal inputCost = model.getInputPrice() != null
+                    ? model.getInputPrice().multiply(BigDecimal.valueOf(inputTokens)).divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+            BigDecimal outputCost = model.getOutputPrice() != null
+                    ? model.getOutputPrice().multiply(BigDecimal.valueOf(outputTokens)).divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+            return inputCost.add(outputCost);
+        }
     }
 
     /**
@@ -41,14 +80,18 @@ public class AiModelClient {
         try {
             String endpoint = getEndpoint(model);
             HttpHeaders headers = buildHeaders(model);
-            String requestBody = buildRequestBody(model, systemPrompt, history, userMessage);
+            String requestBody = buildRequestBody(model, systemPrompt, history, userMessage, false);
             
             log.debug("调用AI模型[{}], endpoint={}", model.getModelName(), endpoint);
             
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.exchange(endpoint, HttpMethod.POST, entity, String.class);
+            String response = httpClients.client(OutboundHttpClients.AI_MODEL).post()
+                    .uri(URI.create(endpoint))
+                    .headers(h -> h.addAll(headers))
+                    .body(requestBody)
+                    .retrieve()
+                    .body(String.class);
             
-            return parseResponse(model.getProviderCode(), response.getBody());
+            return parseResponse(model.getProviderCode(), response);
         } catch (Exception e) {
             log.error("AI模型调用失败: {}", e.getMessage(), e);
             
@@ -57,10 +100,142 @@ public class AiModelClient {
             result.setContent("抱歉，AI服务暂时不可用，请稍后再试。错误信息：" + e.getMessage());
             result.setInputTokens(0);
             result.setOutputTokens(0);
+            result.setFailed(true);
             return result;
         }
     }
 
+    /**
+     * 流式调用AI模型，逐段回调生成的内容，结束后返回完整内容与用量
+     * 失败时与 {@link #chat} 一致：尚未生成内容则以错误提示作为回复（同样回调），已生成部分内容则保留已生成部分
+     *
+     * @param onDelta   每段新生成内容的回调（在调用线程执行，抛出异常将中止读取）
+     * @param cancelled 调用方已放弃（客户端断开、连接超时）时返回 true，开始调用前与每读一行前检查，中止读取
+     */
+    public ChatResult chatStream(AiModelConfig model, String systemPrompt, List<AiMessage> history,
+                                 String userMessage, Consumer<String> onDelta, BooleanSupplier cancelled) {
+        ChatResult result = new ChatResult();
+        StringBuilder content = new StringBuilder();
+        try {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("调用方已取消");
+            }
+            String endpoint = getEndpoint(model);
+            HttpHeaders headers = buildHeaders(model);
+            headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            String requestBody = buildRequestBody(model, systemPrompt, history, userMessage, true);
+
+            log.debug("流式调用AI模型[{}], endpoint={}", model.getModelName(), endpoint);
+
+            httpClients.client(OutboundHttpClients.AI_MODEL).post()
+                    .uri(URI.create(endpoint))
+                    .headers(h -> h.addAll(headers))
+                    .body(requestBody)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            String error = new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                            throw new IllegalStateException("HTTP " + response.getStatusCode().value() + " " + error);
+                        }
+                        try {
+                            readStream(model.getProviderCode(), response.getBody(), result, delta -> {
+                                content.append(delta);
+                                onDelta.accept(delta);
+                            }, cancelled);
+                        } catch (CancellationException e) {
+                            // 关闭响应时会读完剩余响应体（以复用连接），先关闭输入流立即断开，不等模型生成完
+                            response.getBody().close();
+                            throw e;
+                        }
+                        return null;
+                    });
+        } catch (CancellationException e) {
+            // 调用方已放弃，无需回调错误提示，已生成部分照常返回
+            log.info("AI模型流式调用已取消: model={}, 已生成{}字", model.getModelName(), content.length());
+            result.setFailed(true);
+        } catch (Exception e) {
+            log.error("AI模型流式调用失败: {}", e.getMessage(), e);
+            result.setFailed(true);
+            if (content.length() == 0) {
+                String fallback = "抱歉，AI服务暂时不可用，请稍后再试。错误信息：" + e.getMessage();
+                content.append(fallback);
+                try {
+                    onDelta.accept(fallback);
+                } catch (Exception ignored) {
+                    // 客户端已断开
+                }
+            }
+        }
+        result.setContent(content.toString());
+        return result;
+    }
+
+    /**
+     * 逐行解析 SSE 响应：data 行为 JSON 分片，OpenAI 兼容格式以 [DONE] 结束
+     */
+    private void readStream(String providerCode, InputStream body, ChatResult result,
+                            Consumer<String> onDelta, BooleanSupplier cancelled) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("调用方已取消");
+            }
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty()) {
+                continue;
+            }
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+            JsonNode chunk = objectMapper.readTree(data);
+            String delta = "claude".equals(providerCode)
+                    ? parseClaudeChunk(chunk, result)
+                    : parseOpenAiChunk(chunk, result);
+            if (delta != null && !delta.isEmpty()) {
+                onDelta.accept(delta);
+            }
+        }
+    }
+
+    /**
+     * Claude 流式事件：message_start 带输入用量，content_block_delta 带文本，message_delta 带输出用量
+     */
+    private String parseClaudeChunk(JsonNode chunk, ChatResult result) {
+        switch (chunk.path("type").asText("")) {
+            case "message_start" -> result.setInputTokens(
+                    chunk.path("message").path("usage").path("input_tokens").asInt(result.getInputTokens()));
+            case "content_block_delta" -> {
+                return chunk.path("delta").path("text").asText("");
+            }
+            case "message_delta" -> result.setOutputTokens(
+                    chunk.path("usage").path("output_tokens").asInt(result.getOutputTokens()));
+            case "error" -> throw new IllegalStateException(chunk.path("error").path("message").asText("stream error"));
+            default -> {
+                // ping、content_block_start/stop、message_stop 无需处理
+            }
+        }
+        return null;
+    }
+
+    /**
+     * OpenAI 兼容流式分片：choices[0].delta.content 为文本，最后一个分片（choices 为空）带用量
+     */
+    private String parseOpenAiChunk(JsonNode chunk, ChatResult result) {
+        JsonNode usage = chunk.path("usage");
+        if (usage.isObject()) {
+            result.setInputTokens(usage.path("prompt_tokens").asInt(result.getInputTokens()));
+            result.setOutputTokens(usage.path("completion_tokens").asInt(result.getOutputTokens()));
+        }
+        JsonNode choices = chunk.path("choices");
+        if (choices.isArray() && choices.size() > 0) {
+            return choices.get(0).path("delta").path("content").asText("");
+        }
+        return null;
+    }
+
     private String getEndpoint(AiModelConfig model) {
         if (model.getApiEndpoint() != null && !model.getApiEndpoint().isBlank()) {
             return model.getApiEndpoint();
@@ -95,13 +270,21 @@ public class AiModelClient {
         return headers;
     }
 
-    private String buildRequestBody(AiModelConfig model, String systemPrompt, List<AiMessage> history, String userMessage) throws Exception {
+    private String buildRequestBody(AiModelConfig model, String systemPrompt, List<AiMessage> history,
+                                    String userMessage, boolean stream) throws Exception {
         ObjectNode root = objectMapper.createObjectNode();
+        if (stream) {
+            root.put("stream", true);
+            if (!"claude".equals(model.getProviderCode())) {
+                // OpenAI 兼容格式需显式要求在最后一个分片返回用量
+                root.putObject("stream_options").put("include_usage", true);
+            }
+        }
         
         if ("claude".equals(model.getProviderCode())) {
             // Anthropic Claude 格式
             root.put("model", model.getModelName());
-            root.put("max_tokens", model.getMaxTokens() != null ? model.getMaxTokens() : 4096);
+            root.put("max_tokens", maxOutputTokens(model));
             root.put("system", systemPrompt);
             
             ArrayNode messages = root.putArray("messages");
@@ -118,7 +301,7 @@ public class AiModelClient {
         } else {
             // OpenAI 兼容格式 (OpenAI, 通义千问, DeepSeek等)
             root.put("model", model.getModelName());
-            root.put("max_tokens", model.getMaxTokens() != null ? model.getMaxTokens() : 4096);
+            root.put("max_tokens", maxOutputTokens(model));
             if (model.getTemperature() != null) {
                 root.put("temperature", model.getTemperature().doubleValue());
             }
@@ -0,0 +1,280 @@
+package com.wsh.ai.service;
+
+import com.wsh.common.core.util.IdGenerator;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.AiUsageDaily;
+import com.wsh.domain.mapper.AiUsageDailyMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI 调用用量累加器（写后汇总）
+ * 1. 每次调用只在本节点按 (日期, 模型) 累加 LongAdder，不访问 DB
+ * 2. 定时把本地增量写入 Redis Hash 缓冲区（HINCRBY，写入成功才扣减本地计数，节点宕机最多丢失一个周期）
+ * 3. 定时由一个节点把缓冲区改名为待落库 Hash 并分配落库批次ID，按 (日期, 模型) 各执行一次
+ *    INSERT ... ON DUPLICATE KEY UPDATE 累加并在日账单行上记下批次ID，每落库一组删除对应字段；
+ *    上次落库中断时先处理剩余字段，行上已是本批次的组不再重复累加
+ * 4. 管理端统计可读取尚未落库的用量（本节点本地增量 + Redis 缓冲区 + 待落库 Hash），
+ *    待落库 Hash 中的组带上批次ID单独返回，调用方据此跳过已落库但字段尚未删除的组
+ * 对话摘要调用与普通对话一样计入调用次数、token 与费用，另单独累计摘要调用次数
+ * 费用以百万分之一元为单位累加，与 tb_ai_message.cost 精度一致
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiUsageAccumulator {
+
+    /** Redis 缓冲区，字段为 日期:模型ID:指标 */
+    private static final String BUFFER_KEY = "ai:usage:buffer";
+
+    /** 落库中的缓冲区（由 BUFFER_KEY 改名而来） */
+    private static final String FLUSHING_KEY = "ai:usage:flushing";
+
+    /** 待落库 Hash 中保存落库批次ID的字段 */
+    private static final String FLUSH_ID_FIELD = "flushId";
+
+    private static final String METRIC_CALLS = "calls";
+    private static final String METRIC_INPUT_TOKENS = "input";
+    private static final String METRIC_OUTPUT_TOKENS = "output";
+    private static final String METRIC_COST_MICROS = "cost";
+    private static final String METRIC_SUMMARY_CALLS = "summary";
+
+    /** 费用精度（小数位） */
+    private static final int COST_SCALE = 6;
+
+    private final RedisUtil redisUtil;
+    private final AiUsageDailyMapper usageDailyMapper;
+
+    /** 日期:模型ID -> 本地增量 */
+    private final ConcurrentHashMap<String, UsageCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 本地累加一次调用的用量
+     */
+    public void record(Long modelConfigId, int inputTokens, int outputTokens, BigDecimal cost) {
+        counter(modelConfigId).add(inputTokens, outputTokens, cost);
+    }
+
+    /**
+     * 本地累加一次对话摘要调用的用量
+     */
+    public void recordSummary(Long modelConfigId, int inputTokens, int outputTokens, BigDecimal cost) {
+        UsageCounter counter = counter(modelConfigId);
+        counter.add(inputTokens, outputTokens, cost);
+        counter.summaryCalls.increment();
+    }
+
+    /**
+     * 把本地增量写入 Redis 缓冲区（各节点独立执行）
+     *
+     * @return 写入的字段数
+     */
+    public int drainToBuffer() {
+        int written = 0;
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        for (Map.Entry<String, UsageCounter> entry : counters.entrySet()) {
+            String key = entry.getKey();
+            UsageCounter counter = entry.getValue();
+            written += drain(key, METRIC_CALLS, counter.calls);
+            written += drain(key, METRIC_INPUT_TOKENS, counter.inputTokens);
+            written += drain(key, METRIC_OUTPUT_TOKENS, counter.outputTokens);
+            written += drain(key, METRIC_COST_MICROS, counter.costMicros);
+            written += drain(key, METRIC_SUMMARY_CALLS, counter.summaryCalls);
+            // 前天及更早的计数器不会再有新增，清空后移除
+            if (parseDate(key).isBefore(yesterday) && counter.isEmpty()) {
+                counters.remove(key, counter);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 把 Redis 缓冲区累加到日账单表（调用方持有分布式锁，同一时间只有一个节点执行）
+     *
+     * @return 落库的 (日期, 模型) 组数
+     */
+    public int flushToDatabase() {
+        // 上次落库中断时 FLUSHING_KEY 仍存在，先处理剩余字段，缓冲区留到下次
+        redisUtil.renameIfAbsent(BUFFER_KEY, FLUSHING_KEY);
+        Map<Object, Object> entries = new LinkedHashMap<>(redisUtil.hashEntries(FLUSHING_KEY));
+        Object flushIdValue = entries.remove(FLUSH_ID_FIELD);
+        Map<String, Map<String, Long>> groups = groupByUsageKey(entries);
+        if (groups.isEmpty()) {
+            // 只剩批次ID（上次落库在删除 Hash 前中断）时清理，否则下次无法改名
+            redisUtil.delete(FLUSHING_KEY);
+            return 0;
+        }
+        long flushId;
+        if (flushIdValue != null) {
+            flushId = ((Number) flushIdValue).longValue();
+        } else {
+            flushId = IdGenerator.nextId();
+            redisUtil.hashIncrement(FLUSHING_KEY, FLUSH_ID_FIELD, flushId);
+        }
+
+        int flushed = 0;
+        for (Map.Entry<String, Map<String, Long>> group : groups.entrySet()) {
+            AiUsageDaily delta = toUsage(group.getKey(), group.getValue());
+            delta.setDailyId(IdGenerator.nextId());
+            delta.setLastFlushId(flushId);
+            // 行上已是本批次ID说明上次落库后、删除字段前中断，不会重复累加
+            usageDailyMapper.addUsage(delta);
+            redisUtil.hashDelete(FLUSHING_KEY, group.getValue().keySet().stream()
+                    .map(metric -> group.getKey() + ":" + metric)
+                    .toArray());
+            flushed++;
+        }
+        redisUtil.delete(FLUSHING_KEY);
+        return flushed;
+    }
+
+    /**
+     * 尚未落库的用量（本节点本地增量 + Redis 缓冲区 + 待落库 Hash），按 (日期, 模型) 合并
+     * 待落库 Hash 中的组单独返回并带上批次ID（lastFlushId），可能已累加到日账单而字段尚未删除：
+     * 调用方应先取未落库用量再查日账单，查到的行 lastFlushId 相同时跳过该组
+     * 其他节点的本地增量不可见（最多一个写入缓冲区的周期）
+     */
+    public Collection<AiUsageDaily> getUnflushedUsage() {
+        List<AiUsageDaily> usages = new ArrayList<>();
+        Map<Object, Object> flushing = new LinkedHashMap<>(redisUtil.hashEntries(FLUSHING_KEY));
+        Object flushId = flushing.remove(FLUSH_ID_FIELD);
+        groupByUsageKey(flushing).forEach((key, metrics) -> {
+            AiUsageDaily usage = toUsage(key, metrics);
+            if (usage.getCallCount() > 0) {
+                usage.setLastFlushId(flushId != null ? ((Number) flushId).longValue() : null);
+                usages.add(usage);
+            }
+        });
+
+        Map<String, Map<String, Long>> groups = new LinkedHashMap<>();
+        mergeGroups(groups, groupByUsageKey(redisUtil.hashEntries(BUFFER_KEY)));
+        counters.forEach((key, counter) -> {
+            Map<String, Long> metrics = groups.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            metrics.merge(METRIC_CALLS, counter.calls.sum(), Long::sum);
+            metrics.merge(METRIC_INPUT_TOKENS, counter.inputTokens.sum(), Long::sum);
+            metrics.merge(METRIC_OUTPUT_TOKENS, counter.outputTokens.sum(), Long::sum);
+            metrics.merge(METRIC_COST_MICROS, counter.costMicros.sum(), Long::sum);
+            metrics.merge(METRIC_SUMMARY_CALLS, counter.summaryCalls.sum(), Long::sum);
+        });
+
+        groups.forEach((key, metrics) -> {
+            AiUsageDaily usage = toUsage(key, metrics);
+            if (usage.getCallCount() > 0) {
+                usages.add(usage);
+            }
+        });
+        return usages;
+    }
+
+    /**
+     * 节点下线前把本地增量写入缓冲区
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            drainToBuffer();
+        } catch (Exception e) {
+            log.error("AI用量写入缓冲区失败，本地未写入的用量将丢失", e);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private UsageCounter counter(Long modelConfigId) {
+        return counters.computeIfAbsent(usageKey(LocalDate.now(), modelConfigId), k -> new UsageCounter());
+    }
+
+    /**
+     * 写入一个指标的当前增量，成功后从本地扣减（期间新增的计数保留在本地）
+     */
+    private int drain(String usageKey, String metric, LongAdder adder) {
+        long value = adder.sum();
+        if (value == 0) {
+            return 0;
+        }
+        redisUtil.hashIncrement(BUFFER_KEY, usageKey + ":" + metric, value);
+        adder.add(-value);
+        return 1;
+    }
+
+    /**
+     * 把 日期:模型ID:指标 字段按 日期:模型ID 分组
+     */
+    private Map<String, Map<String, Long>> groupByUsageKey(Map<Object, Object> entries) {
+        Map<String, Map<String, Long>> groups = new LinkedHashMap<>();
+        entries.forEach((field, value) -> {
+            String name = field.toString();
+            int split = name.lastIndexOf(':');
+            groups.computeIfAbsent(name.substring(0, split), k -> new LinkedHashMap<>())
+                    .put(name.substring(split + 1), ((Number) value).longValue());
+        });
+        return groups;
+    }
+
+    private void mergeGroups(Map<String, Map<String, Long>> target, Map<String, Map<String, Long>> source) {
+        source.forEach((key, metrics) -> {
+            Map<String, Long> merged = target.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            metrics.forEach((metric, value) -> merged.merge(metric, value, Long::sum));
+        });
+    }
+
+    private AiUsageDaily toUsage(String usageKey, Map<String, Long> metrics) {
+        AiUsageDaily usage = new AiUsageDaily();
+        usage.setStatDate(parseDate(usageKey));
+        usage.setModelConfigId(Long.valueOf(usageKey.substring(usageKey.indexOf(':') + 1)));
+        usage.setCallCount(metrics.getOrDefault(METRIC_CALLS, 0L).intValue());
+        usage.setTotalInputTokens(metrics.getOrDefault(METRIC_INPUT_TOKENS, 0L).intValue());
+        usage.setTotalOutputTokens(metrics.getOrDefault(METRIC_OUTPUT_TOKENS, 0L).intValue());
+        usage.setTotalCost(BigDecimal.valueOf(metrics.getOrDefault(METRIC_COST_MICROS, 0L), COST_SCALE));
+        usage.setSummaryCallCount(metrics.getOrDefault(METRIC_SUMMARY_CALLS, 0L).intValue());
+        return usage;
+    }
+
+    private static String usageKey(LocalDate date, Long modelConfigId) {
+        return date + ":" + modelConfigId;
+    }
+
+    private static LocalDate parseDate(String usageKey) {
+        return LocalDate.parse(usageKey.substring(0, usageKey.indexOf(':')));
+    }
+
+    private static long toMicros(BigDecimal cost) {
+        return cost == null ? 0L : cost.setScale(COST_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * 单个 (日期, 模型) 的本地增量，LongAdder 内部按线程分段累加，高并发下无竞争
+     */
+    private static class UsageCounter {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder costMicros = new LongAdder();
+        private final LongAdder summaryCalls = new LongAdder();
+
+        void add(int inputTokens, int outputTokens, BigDecimal cost) {
+            calls.increment();
+            this.inputTokens.add(inputTokens);
+            this.outputTokens.add(outputTokens);
+            costMicros.add(toMicros(cost));
+        }
+
+        boolean isEmpty() {
+            return calls.sum() == 0 && inputTokens.sum() == 0
+                    && outputTokens.sum() == 0 && costMicros.sum() == 0 && summaryCalls.sum() == 0;
+        }
+    }
+}
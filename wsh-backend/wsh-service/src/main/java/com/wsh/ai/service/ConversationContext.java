@@ -0,0 +1,39 @@
+package com.wsh.ai.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对话上下文窗口（缓存于 Redis）
+ * 由较早轮次的摘要记忆与最近若干条原始消息组成，按时间正序
+ */
+@Data
+@NoArgsConstructor
+public class ConversationContext {
+
+    /** 较早轮次的摘要记忆，尚未摘要时为空 */
+    private String memory;
+
+    /** 最近的原始消息 */
+    private List<Entry> messages = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+
+        private Long messageId;
+
+        /** 角色：user/assistant */
+        private String role;
+
+        private String content;
+
+        /** 估算的 token 数 */
+        private int tokens;
+    }
+}
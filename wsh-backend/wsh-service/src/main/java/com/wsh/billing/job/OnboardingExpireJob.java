@@ -1,5 +1,6 @@
 package com.wsh.billing.job;
 
+import com.wsh.activity.service.MerchantGeoIndex;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.redis.util.RedisUtil;
 import com.wsh.domain.entity.Merchant;
@@ -30,6 +31,7 @@ public class OnboardingExpireJob {
     private final MerchantOnboardingFeeMapper feeMapper;
     private final MerchantMapper merchantMapper;
     private final RedisUtil redisUtil;
+    private final MerchantGeoIndex merchantGeoIndex;
 
     /**
      * 每天凌晨 02:00 执行
@@ -80,6 +82,7 @@ public class OnboardingExpireJob {
                 if (merchant != null && merchant.getStatus() == Constants.MERCHANT_STATUS_ACTIVE) {
                     merchant.setStatus(Constants.MERCHANT_STATUS_FROZEN);
                     merchantMapper.updateById(merchant);
+                    merchantGeoIndex.refreshMerchant(merchant.getMerchantId());
                     frozenCount++;
                     log.info("商户已冻结（入驻费到期）: merchantId={}, validEndDate={}",
                             fee.getMerchantId(), fee.getValidEndDate());
@@ -2,6 +2,7 @@ package com.wsh.billing.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.wsh.activity.service.MerchantGeoIndex;
 import com.wsh.billing.dto.OnboardingFeePayRequest;
 import com.wsh.billing.dto.OnboardingFeePayResponse;
 import com.wsh.billing.dto.OnboardingFeePlanResponse;
@@ -36,6 +37,7 @@ public class OnboardingFeeService {
     private final OnboardingFeePlanMapper planMapper;
     private final MerchantOnboardingFeeMapper feeMapper;
     private final MerchantMapper merchantMapper;
+    private final MerchantGeoIndex merchantGeoIndex;
 
     /**
      * 查询所有启用的入驻费套餐
@@ -142,6 +144,7 @@ public class OnboardingFeeService {
         if (merchant != null && merchant.getStatus() != Constants.MERCHANT_STATUS_ACTIVE) {
             merchant.setStatus(Constants.MERCHANT_STATUS_ACTIVE);
             merchantMapper.updateById(merchant);
+            merchantGeoIndex.refreshMerchant(merchant.getMerchantId());
             log.info("商户已激活: merchantId={}", merchant.getMerchantId());
         }
 
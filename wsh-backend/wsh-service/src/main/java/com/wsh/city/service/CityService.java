@@ -3,7 +3,9 @@ package com.wsh.city.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.wsh.city.dto.CityItem;
 import com.wsh.city.dto.CityListResponse;
-import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.common.redis.cache.NearCache;
+import com.wsh.common.redis.cache.NearCacheManager;
+import com.wsh.common.redis.cache.NearCacheSpec;
 import com.wsh.domain.entity.OpenCity;
 import com.wsh.domain.mapper.OpenCityMapper;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,22 +26,30 @@ import java.util.stream.Collectors;
 public class CityService {
 
     private final OpenCityMapper openCityMapper;
-    private final RedisUtil redisUtil;
+    private final NearCacheManager nearCacheManager;
 
     private static final String CACHE_KEY_CITIES = "wsh:cities:list";
-    private static final long CACHE_TTL = 7 * 24 * 60 * 60; // 7天
+
+    /** 城市列表：全局唯一一份，变更极少，本地缓存10分钟，每天后台刷新一次 */
+    private static final NearCacheSpec CITY_LIST_CACHE = NearCacheSpec.builder()
+            .name("city-list")
+            .localTtl(Duration.ofMinutes(10))
+            .softTtl(Duration.ofDays(1))
+            .remoteTtl(Duration.ofDays(7))
+            .maxSize(1)
+            .build();
 
     /**
      * 获取城市列表
      */
     public CityListResponse getCityList() {
-        // 尝试从缓存获取
-        @SuppressWarnings("unchecked")
-        CityListResponse cached = (CityListResponse) redisUtil.get(CACHE_KEY_CITIES);
-        if (cached != null) {
-            return cached;
-        }
+        return cityListCache().get(CACHE_KEY_CITIES, this::loadCityList);
+    }
 
+    /**
+     * 查询城市列表（缓存未命中时调用）
+     */
+    private CityListResponse loadCityList() {
         // 查询已开放的城市
         List<OpenCity> cities = openCityMapper.selectList(
                 new LambdaQueryWrapper<OpenCity>()
@@ -65,16 +76,11 @@ public class CityService {
                         Collectors.toList()
                 ));
 
-        CityListResponse response = CityListResponse.builder()
+        return CityListResponse.builder()
                 .hotCities(hotCities)
                 .allCities(allCities)
                 .total(cityItems.size())
                 .build();
-
-        // 缓存结果
-        redisUtil.set(CACHE_KEY_CITIES, response, CACHE_TTL, java.util.concurrent.TimeUnit.SECONDS);
-
-        return response;
     }
 
     /**
@@ -151,10 +157,10 @@ public class CityService {
     }
 
     /**
-     * 清除城市缓存
+     * 清除城市缓存（所有节点）
      */
     public void clearCache() {
-        redisUtil.delete(CACHE_KEY_CITIES);
+        cityListCache().evict(CACHE_KEY_CITIES);
     }
 
     /**
@@ -175,6 +181,10 @@ public class CityService {
         return R * c;
     }
 
+    private NearCache cityListCache() {
+        return nearCacheManager.getCache(CITY_LIST_CACHE);
+    }
+
     private CityItem toCityItem(OpenCity city) {
         return CityItem.builder()
                 .cityId(city.getCityId())
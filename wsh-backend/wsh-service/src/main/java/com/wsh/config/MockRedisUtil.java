@@ -1,5 +1,6 @@
 package com.wsh.config;
 
+import com.wsh.common.redis.codec.RedisCodecRegistry;
 import com.wsh.common.redis.util.RedisUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -8,14 +9,15 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
- * ConcurrentHashMap-based mock of RedisUtil for local profile (no Redis server needed).
- * Overrides all methods so the parent's RedisTemplate is never touched.
+ * 基于 ConcurrentHashMap 的 RedisUtil 模拟实现，供 local 环境使用（无需 Redis 服务）
+ * 覆盖全部方法，不会访问父类的 RedisTemplate
  */
 @Slf4j
 @Component
@@ -26,7 +28,7 @@ public class MockRedisUtil extends RedisUtil {
     private final ConcurrentHashMap<String, Object> store = new ConcurrentHashMap<>();
 
     public MockRedisUtil() {
-        super(new RedisTemplate<>());
+        super(new RedisTemplate<>(), new RedisCodecRegistry());
         log.warn("========= MockRedisUtil active: using ConcurrentHashMap instead of Redis =========");
     }
 
@@ -38,7 +40,7 @@ public class MockRedisUtil extends RedisUtil {
     @Override
     public void set(String key, Object value, long timeout, TimeUnit unit) {
         store.put(key, value);
-        // TTL ignored in mock
+        // 模拟实现忽略过期时间
     }
 
     @SuppressWarnings("unchecked")
@@ -61,6 +63,11 @@ public class MockRedisUtil extends RedisUtil {
         return count;
     }
 
+    @Override
+    public Boolean compareAndDelete(String key, Object expected) {
+        return store.remove(key, expected);
+    }
+
     @Override
     public Boolean hasKey(String key) {
         return store.containsKey(key);
@@ -76,6 +83,15 @@ public class MockRedisUtil extends RedisUtil {
         return store.containsKey(key) ? -1L : -2L;
     }
 
+    @Override
+    public Boolean renameIfAbsent(String oldKey, String newKey) {
+        synchronized (store) {
+            if (!store.containsKey(oldKey) || store.containsKey(newKey)) return false;
+            store.put(newKey, store.remove(oldKey));
+            return true;
+        }
+    }
+
     @Override
     public Long increment(String key) {
         return (Long) store.merge(key, 1L, (old, v) -> ((Number) old).longValue() + 1L);
@@ -88,16 +104,225 @@ public class MockRedisUtil extends RedisUtil {
 
     @Override
     public Long stockDecrement(String key, int count) {
+        while (true) {
+            Object current = store.get(key);
+            if (current == null) return -1L;
+            long stock = ((Number) current).longValue();
+            if (stock < count) return -1L;
+            if (store.replace(key, current, stock - count)) {
+                return stock - count;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockReserve(String stockKey, String reserveKey, String token, int count, long initStock) {
+        ConcurrentHashMap<String, Long> reservations = (ConcurrentHashMap<String, Long>)
+                store.computeIfAbsent(reserveKey, k -> new ConcurrentHashMap<String, Long>());
+        initStock(stockKey, reserveKey, initStock);
+        // 先占用令牌，保证同一令牌最多扣减一次
+        if (reservations.putIfAbsent(token, (long) count) != null) {
+            Object current = store.get(stockKey);
+            return current != null ? ((Number) current).longValue() : 0L;
+        }
+        while (true) {
+            Object current = store.get(stockKey);
+            if (current == null) {
+                initStock(stockKey, reserveKey, initStock);
+                continue;
+            }
+            long stock = ((Number) current).longValue();
+            if (stock < count) {
+                reservations.remove(token);
+                return -1L;
+            }
+            if (store.replace(stockKey, current, stock - count)) {
+                return stock - count;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Boolean stockConfirm(String reserveKey, String token) {
+        Object val = store.get(reserveKey);
+        return val instanceof ConcurrentHashMap && ((ConcurrentHashMap<String, Long>) val).remove(token) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockRelease(String stockKey, String reserveKey, String token) {
+        Object val = store.get(reserveKey);
+        if (!(val instanceof ConcurrentHashMap)) return 0L;
+        Long count = ((ConcurrentHashMap<String, Long>) val).remove(token);
+        if (count == null) return 0L;
+        casAdd(stockKey, count);
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockReleaseBatch(String stockKey, String reserveKey, List<String> tokens) {
+        Object val = store.get(reserveKey);
+        if (!(val instanceof ConcurrentHashMap)) return 0L;
+        long total = 0;
+        for (String token : tokens) {
+            Long count = ((ConcurrentHashMap<String, Long>) val).remove(token);
+            if (count != null) total += count;
+        }
+        if (total > 0) casAdd(stockKey, total);
+        return total;
+    }
+
+    @Override
+    public Long stockLease(String stockKey, String reserveKey, int blockSize, long initStock) {
+        initStock(stockKey, reserveKey, initStock);
+        while (true) {
+            Object current = store.get(stockKey);
+            if (current == null) {
+                initStock(stockKey, reserveKey, initStock);
+                continue;
+            }
+            long stock = ((Number) current).longValue();
+            if (stock <= 0) return 0L;
+            long granted = Math.min(stock, blockSize);
+            if (store.replace(stockKey, current, stock - granted)) {
+                return granted;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockLeaseGrant(String stockKey, String reserveKey, String leaseField, int blockSize,
+                                long initStock, long expireAtMillis) {
+        ConcurrentHashMap<String, Long> reservations = (ConcurrentHashMap<String, Long>)
+                store.computeIfAbsent(reserveKey, k -> new ConcurrentHashMap<String, Long>());
+        initStock(stockKey, reserveKey, initStock);
+        while (true) {
+            Object current = store.get(stockKey);
+            if (current == null) {
+                initStock(stockKey, reserveKey, initStock);
+                continue;
+            }
+            long stock = ((Number) current).longValue();
+            if (stock <= 0) return 0L;
+            long granted = Math.min(stock, blockSize);
+            // 先记入租约字段再扣减库存，与 stockReserve 一致，避免并发重建漏扣（模拟实现忽略过期时间）
+            reservations.merge(leaseField, granted, Long::sum);
+            if (store.replace(stockKey, current, stock - granted)) {
+                return granted;
+            }
+            reservations.computeIfPresent(leaseField, (k, v) -> v - granted > 0 ? v - granted : null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockLeaseCommit(String reserveKey, String leaseField, Map<String, Integer> tokens,
+                                 long expireAtMillis) {
+        ConcurrentHashMap<String, Long> reservations = (ConcurrentHashMap<String, Long>)
+                store.computeIfAbsent(reserveKey, k -> new ConcurrentHashMap<String, Long>());
+        long moved = 0;
+        for (Map.Entry<String, Integer> e : tokens.entrySet()) {
+            if (reservations.putIfAbsent(e.getKey(), (long) e.getValue()) == null) {
+                moved += e.getValue();
+            }
+        }
+        long total = moved;
+        if (total > 0) {
+            reservations.computeIfPresent(leaseField, (k, v) -> v - total > 0 ? v - total : null);
+        }
+        return moved;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long stockLeaseReturn(String stockKey, String reserveKey, String leaseField, long count) {
+        Object val = store.get(reserveKey);
+        if (!(val instanceof ConcurrentHashMap)) return 0L;
+        long[] returned = new long[1];
+        ((ConcurrentHashMap<String, Long>) val).computeIfPresent(leaseField, (k, v) -> {
+            returned[0] = Math.min(v, count);
+            return v - returned[0] > 0 ? v - returned[0] : null;
+        });
+        if (returned[0] > 0) casAdd(stockKey, returned[0]);
+        return returned[0];
+    }
+
+    @Override
+    public Long stockAdjust(String stockKey, long delta) {
+        return casAdd(stockKey, delta);
+    }
+
+    /**
+     * 库存 Key 不存在时以 初始库存 - 未结预占总量 初始化
+     */
+    @SuppressWarnings("unchecked")
+    private void initStock(String stockKey, String reserveKey, long initStock) {
+        if (store.containsKey(stockKey)) return;
+        long pending = 0;
+        Object val = store.get(reserveKey);
+        if (val instanceof ConcurrentHashMap) {
+            for (Long count : ((ConcurrentHashMap<String, Long>) val).values()) {
+                pending += count;
+            }
+        }
+        store.putIfAbsent(stockKey, Math.max(initStock - pending, 0));
+    }
+
+    /**
+     * CAS 累加，Key 不存在时不处理
+     */
+    private Long casAdd(String key, long delta) {
+        while (true) {
+            Object current = store.get(key);
+            if (current == null) return null;
+            long updated = ((Number) current).longValue() + delta;
+            if (store.replace(key, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    @Override
+    public Long windowIncrement(String key, long windowMillis) {
+        // 模拟实现忽略窗口过期：调用方按时间片区分窗口 Key
+        return increment(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long hashIncrement(String key, String field, long delta) {
+        synchronized (store) {
+            ConcurrentHashMap<Object, Object> hash = (ConcurrentHashMap<Object, Object>)
+                    store.computeIfAbsent(key, k -> new ConcurrentHashMap<Object, Object>());
+            return (Long) hash.merge(field, delta, (old, v) -> ((Number) old).longValue() + delta);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<Object, Object> hashEntries(String key) {
+        Object val = store.get(key);
+        return val instanceof ConcurrentHashMap ? Map.copyOf((ConcurrentHashMap<Object, Object>) val) : Map.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long hashDelete(String key, Object... fields) {
         synchronized (store) {
             Object val = store.get(key);
-            if (val == null) return -1L;
-            long stock = ((Number) val).longValue();
-            if (stock >= count) {
-                long remaining = stock - count;
-                store.put(key, remaining);
-                return remaining;
+            if (!(val instanceof ConcurrentHashMap)) return 0L;
+            ConcurrentHashMap<Object, Object> hash = (ConcurrentHashMap<Object, Object>) val;
+            long removed = 0;
+            for (Object f : fields) {
+                if (hash.remove(f) != null) removed++;
             }
-            return -1L;
+            // 与 Redis 一致：最后一个字段删除后 Hash 随之删除
+            if (hash.isEmpty()) store.remove(key);
+            return removed;
         }
     }
 
@@ -126,6 +351,47 @@ public class MockRedisUtil extends RedisUtil {
         return val instanceof Set && ((Set<Object>) val).contains(value);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public Boolean zAdd(String key, Object value, double score) {
+        ConcurrentHashMap<Object, Double> zset = (ConcurrentHashMap<Object, Double>)
+                store.computeIfAbsent(key, k -> new ConcurrentHashMap<Object, Double>());
+        return zset.put(value, score) == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long zRemove(String key, Object... values) {
+        Object val = store.get(key);
+        if (!(val instanceof ConcurrentHashMap)) return 0L;
+        long removed = 0;
+        for (Object v : values) {
+            if (((ConcurrentHashMap<Object, Double>) val).remove(v) != null) removed++;
+        }
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Object> zPopByScore(String key, long maxScore, int limit) {
+        Object val = store.get(key);
+        if (!(val instanceof ConcurrentHashMap)) return List.of();
+        ConcurrentHashMap<Object, Double> zset = (ConcurrentHashMap<Object, Double>) val;
+        List<Object> due = zset.entrySet().stream()
+                .filter(e -> e.getValue() <= maxScore)
+                .sorted(Map.Entry.comparingByValue())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        // 并发调用时 remove 只有一个调用方成功，与 Lua 原子出队一致
+        return due.stream().filter(m -> zset.remove(m) != null).collect(Collectors.toList());
+    }
+
+    @Override
+    public void publish(String channel, Object message) {
+        // 模拟模式为单节点，无需通知
+    }
+
     @Override
     public Boolean tryLock(String key, String value, long timeout, TimeUnit unit) {
         return store.putIfAbsent(key, value) == null;
@@ -136,8 +402,13 @@ public class MockRedisUtil extends RedisUtil {
         return store.remove(key, value);
     }
 
+    @Override
+    public Boolean renewLock(String key, String value, long timeout, TimeUnit unit) {
+        return value.equals(store.get(key));
+    }
+
     /**
-     * Set if absent (for distributed lock)
+     * 不存在时写入（用于分布式锁）
      */
     public boolean setIfAbsent(String key, String value, long timeout, TimeUnit unit) {
         return store.putIfAbsent(key, value) == null;
@@ -0,0 +1,31 @@
+package com.wsh.config;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 本地环境微信 access_token 桩接口（wsh.wechat.token-url 指向此处）
+ * 与 stable_token 接口返回格式一致，用于本地验证凭证缓存与刷新，不访问微信
+ */
+@Slf4j
+@Hidden
+@Profile("local")
+@RestController
+public class WechatStubController {
+
+    /** 桩凭证有效期（秒），与微信一致 */
+    private static final long STUB_EXPIRES_IN = 7200;
+
+    @PostMapping("/v1/public/stub/wechat/stable_token")
+    public Map<String, Object> stableToken() {
+        String accessToken = "local_stub_" + UUID.randomUUID().toString().replace("-", "");
+        log.info("桩接口签发 access_token: {}", accessToken);
+        return Map.of("access_token", accessToken, "expires_in", STUB_EXPIRES_IN);
+    }
+}
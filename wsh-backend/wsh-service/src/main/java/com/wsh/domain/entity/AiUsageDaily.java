@@ -35,6 +35,12 @@ public class AiUsageDaily {
     /** 总费用 */
     private BigDecimal totalCost;
 
+    /** 其中对话摘要调用次数（已计入 callCount） */
+    private Integer summaryCallCount;
+
+    /** 最近一次累加到本行的落库批次ID（落库重试与未落库用量去重） */
+    private Long lastFlushId;
+
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
 }
@@ -28,6 +28,8 @@ public class MerchantMemberSnapshot {
     private Integer dormancyLevel;
     private LocalDateTime syncTime;
     private Integer syncStatus;
+    /** 同步分片（user_id 取模），新增时写入 */
+    private Integer syncShard;
 
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
@@ -0,0 +1,25 @@
+package com.wsh.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("tb_merchant_sync_watermark")
+public class MerchantSyncWatermark {
+
+    @TableId(type = IdType.INPUT)
+    private Long merchantId;
+
+    /** 商户系统变更游标（由适配器定义格式） */
+    private String syncCursor;
+
+    private LocalDateTime syncedAt;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -85,6 +85,13 @@ public interface ActivityMapper extends BaseMapper<Activity> {
             "updated_at = CURRENT_TIMESTAMP WHERE activity_id = #{activityId}")
     int incrementSoldCount(@Param("activityId") Long activityId);
 
+    /**
+     * 批量增加已售数量（系统批量发券）
+     */
+    @Update("UPDATE tb_activity SET sold_count = COALESCE(sold_count, 0) + #{count}, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE activity_id = #{activityId}")
+    int addSoldCount(@Param("activityId") Long activityId, @Param("count") int count);
+
     /**
      * 减少已售数量（退款时使用）
      */
@@ -3,7 +3,37 @@ package com.wsh.domain.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wsh.domain.entity.AiConversation;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
 
 @Mapper
 public interface AiConversationMapper extends BaseMapper<AiConversation> {
+
+    /**
+     * 原子累加一轮对话的消息数、token 与费用，首轮对话同时设置标题
+     * title 须第一个赋值：MySQL 按顺序使用已更新的列值，放在最前两种数据库都读到原 message_count
+     */
+    @Update("UPDATE tb_ai_conversation SET " +
+            "title = CASE WHEN COALESCE(message_count, 0) = 0 THEN #{title} ELSE title END, " +
+            "message_count = COALESCE(message_count, 0) + 2, " +
+            "total_tokens = COALESCE(total_tokens, 0) + #{tokens}, " +
+            "total_cost = COALESCE(total_cost, 0) + #{cost}, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE conversation_id = #{conversationId}")
+    int addTurn(@Param("conversationId") Long conversationId,
+                @Param("tokens") int tokens,
+                @Param("cost") BigDecimal cost,
+                @Param("title") String title);
+
+    /**
+     * 原子累加对话摘要调用的 token 与费用（不计消息数）
+     */
+    @Update("UPDATE tb_ai_conversation SET " +
+            "total_tokens = COALESCE(total_tokens, 0) + #{tokens}, " +
+            "total_cost = COALESCE(total_cost, 0) + #{cost} " +
+            "WHERE conversation_id = #{conversationId}")
+    int addSummaryUsage(@Param("conversationId") Long conversationId,
+                        @Param("tokens") int tokens,
+                        @Param("cost") BigDecimal cost);
 }
@@ -2,6 +2,7 @@ package com.wsh.domain.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wsh.domain.entity.AiUsageDaily;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -17,4 +18,26 @@ public interface AiUsageDailyMapper extends BaseMapper<AiUsageDaily> {
 
     @Select("SELECT COALESCE(SUM(total_cost), 0) FROM tb_ai_usage_daily WHERE stat_date >= #{startDate} AND stat_date <= #{endDate}")
     BigDecimal sumTotalCost(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按 (stat_date, model_config_id) 原子累加用量，当天首次写入时插入
+     * 行上 last_flush_id 已是本批次时不再累加（同一批次重试幂等），last_flush_id 须最后赋值
+     */
+    @Insert("INSERT INTO tb_ai_usage_daily (daily_id, stat_date, model_config_id, call_count, " +
+            "total_input_tokens, total_output_tokens, total_cost, summary_call_count, last_flush_id, created_at) " +
+            "VALUES (#{dailyId}, #{statDate}, #{modelConfigId}, #{callCount}, #{totalInputTokens}, " +
+            "#{totalOutputTokens}, #{totalCost}, #{summaryCallCount}, #{lastFlushId}, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "call_count = CASE WHEN last_flush_id = #{lastFlushId} THEN call_count " +
+            "ELSE call_count + #{callCount} END, " +
+            "total_input_tokens = CASE WHEN last_flush_id = #{lastFlushId} THEN total_input_tokens " +
+            "ELSE total_input_tokens + #{totalInputTokens} END, " +
+            "total_output_tokens = CASE WHEN last_flush_id = #{lastFlushId} THEN total_output_tokens " +
+            "ELSE total_output_tokens + #{totalOutputTokens} END, " +
+            "total_cost = CASE WHEN last_flush_id = #{lastFlushId} THEN total_cost " +
+            "ELSE total_cost + #{totalCost} END, " +
+            "summary_call_count = CASE WHEN last_flush_id = #{lastFlushId} THEN summary_call_count " +
+            "ELSE COALESCE(summary_call_count, 0) + #{summaryCallCount} END, " +
+            "last_flush_id = #{lastFlushId}")
+    int addUsage(AiUsageDaily delta);
 }
@@ -1,16 +1,17 @@
 package com.wsh.domain.mapper;
 
-import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wsh.common.mybatis.batch.BatchInsertMapper;
 import com.wsh.domain.entity.EquityReminder;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
-public interface EquityReminderMapper extends BaseMapper<EquityReminder> {
+public interface EquityReminderMapper extends BatchInsertMapper<EquityReminder> {
 
     /**
      * 查询用户的提醒消息列表（按创建时间倒序）
@@ -25,13 +26,21 @@ public interface EquityReminderMapper extends BaseMapper<EquityReminder> {
     List<EquityReminder> selectPending();
 
     /**
-     * 检查是否已存在相同类型的提醒（避免重复）
+     * 按主键键集分页查询待发送的提醒
      */
-    @Select("SELECT COUNT(*) FROM tb_equity_reminder WHERE user_id = #{userId} " +
-            "AND merchant_id = #{merchantId} AND reminder_type = #{reminderType} " +
-            "AND expire_date = #{expireDate}")
-    int countDuplicate(@Param("userId") Long userId,
-                       @Param("merchantId") Long merchantId,
-                       @Param("reminderType") Integer reminderType,
-                       @Param("expireDate") LocalDate expireDate);
+    @Select("SELECT * FROM tb_equity_reminder WHERE remind_status = 0 AND reminder_id > #{afterId} " +
+            "ORDER BY reminder_id LIMIT #{limit}")
+    List<EquityReminder> selectPendingPage(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 批量更新提醒发送状态（仅更新仍为待发送的记录）
+     */
+    @Update("<script>" +
+            "UPDATE tb_equity_reminder SET remind_status = #{status}, remind_time = #{remindTime} " +
+            "WHERE remind_status = 0 AND reminder_id IN " +
+            "<foreach collection='reminderIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int updateRemindStatus(@Param("reminderIds") List<Long> reminderIds,
+                           @Param("status") int status,
+                           @Param("remindTime") LocalDateTime remindTime);
 }
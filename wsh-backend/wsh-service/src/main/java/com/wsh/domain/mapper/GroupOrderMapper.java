@@ -3,7 +3,51 @@ package com.wsh.domain.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wsh.domain.entity.GroupOrder;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface GroupOrderMapper extends BaseMapper<GroupOrder> {
+
+    /**
+     * 按主键分批查询已超时的拼团中记录
+     */
+    @Select("<script>" +
+            "SELECT * FROM tb_group_order WHERE status = 0 AND expire_time &lt; #{now} " +
+            "<if test='afterId != null'>AND group_order_id &gt; #{afterId} </if>" +
+            "ORDER BY group_order_id ASC LIMIT #{limit}" +
+            "</script>")
+    List<GroupOrder> selectExpiredBatch(@Param("now") LocalDateTime now,
+                                        @Param("afterId") Long afterId,
+                                        @Param("limit") int limit);
+
+    /**
+     * 锁定仍为拼团中且已超时的记录，返回锁定的主键（须在事务内调用）
+     * 并发成团/取消/另一次清扫持有行锁时等待其提交，读到的是提交后的最新状态
+     */
+    @Select("<script>" +
+            "SELECT group_order_id FROM tb_group_order " +
+            "WHERE status = 0 AND expire_time &lt; #{now} AND group_order_id IN " +
+            "<foreach collection='groupOrderIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockPendingIds(@Param("groupOrderIds") List<Long> groupOrderIds, @Param("now") LocalDateTime now);
+
+    /**
+     * 批量标记拼团失败（仅处理仍为拼团中且已超时的记录）
+     */
+    @Update("<script>" +
+            "UPDATE tb_group_order SET status = 2, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE status = 0 AND expire_time &lt; #{now} AND group_order_id IN " +
+            "<foreach collection='groupOrderIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int failPendingByIds(@Param("groupOrderIds") List<Long> groupOrderIds, @Param("now") LocalDateTime now);
 }
@@ -3,7 +3,24 @@ package com.wsh.domain.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wsh.domain.entity.MerchantBranch;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface MerchantBranchMapper extends BaseMapper<MerchantBranch> {
+
+    /**
+     * 按经纬度矩形查询正常营业商户的启用门店（走 idx_location）
+     */
+    @Select("SELECT b.branch_id, b.merchant_id, b.branch_name, b.address, b.longitude, b.latitude " +
+            "FROM tb_merchant_branch b " +
+            "INNER JOIN tb_merchant m ON b.merchant_id = m.merchant_id " +
+            "WHERE b.latitude BETWEEN #{minLat} AND #{maxLat} " +
+            "AND b.longitude BETWEEN #{minLng} AND #{maxLng} " +
+            "AND b.status = 1 AND m.status = 1")
+    List<MerchantBranch> selectActiveInBox(@Param("minLat") BigDecimal minLat, @Param("maxLat") BigDecimal maxLat,
+                                           @Param("minLng") BigDecimal minLng, @Param("maxLng") BigDecimal maxLng);
 }
@@ -1,9 +1,9 @@
 package com.wsh.domain.mapper;
 
-import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wsh.common.mybatis.batch.BatchUpsertMapper;
 import com.wsh.domain.entity.MerchantConsumeRecord;
 import org.apache.ibatis.annotations.Mapper;
 
 @Mapper
-public interface MerchantConsumeRecordMapper extends BaseMapper<MerchantConsumeRecord> {
+public interface MerchantConsumeRecordMapper extends BatchUpsertMapper<MerchantConsumeRecord> {
 }
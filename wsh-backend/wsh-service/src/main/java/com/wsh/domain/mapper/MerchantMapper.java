@@ -3,7 +3,21 @@ package com.wsh.domain.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wsh.domain.entity.Merchant;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface MerchantMapper extends BaseMapper<Merchant> {
+
+    /**
+     * 按经纬度矩形查询正常营业的商户（走 idx_location）
+     */
+    @Select("SELECT merchant_id, merchant_name, address, city, longitude, latitude FROM tb_merchant " +
+            "WHERE latitude BETWEEN #{minLat} AND #{maxLat} " +
+            "AND longitude BETWEEN #{minLng} AND #{maxLng} AND status = 1")
+    List<Merchant> selectActiveInBox(@Param("minLat") BigDecimal minLat, @Param("maxLat") BigDecimal maxLat,
+                                     @Param("minLng") BigDecimal minLng, @Param("maxLng") BigDecimal maxLng);
 }
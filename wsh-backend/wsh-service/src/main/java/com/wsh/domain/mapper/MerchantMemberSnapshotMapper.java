@@ -5,8 +5,10 @@ import com.wsh.domain.entity.MerchantMemberSnapshot;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -19,13 +21,18 @@ public interface MerchantMemberSnapshotMapper extends BaseMapper<MerchantMemberS
     List<MerchantMemberSnapshot> selectByUserId(@Param("userId") Long userId);
 
     /**
-     * 查询7天内积分即将过期的快照
+     * 按主键键集分页查询需要权益提醒的快照：积分在 [pointsStart, pointsEnd] 内过期，或储值余额>0 且最近消费早于 consumeBefore
      */
     @Select("SELECT * FROM tb_merchant_member_snapshot WHERE sync_status = 1 " +
-            "AND points_expire_date IS NOT NULL AND points_expire_date BETWEEN #{today} AND #{endDate} " +
-            "AND points_value > 0")
-    List<MerchantMemberSnapshot> selectExpiringPoints(@Param("today") LocalDate today,
-                                                       @Param("endDate") LocalDate endDate);
+            "AND snapshot_id > #{afterId} " +
+            "AND ((points_expire_date BETWEEN #{pointsStart} AND #{pointsEnd} AND points_value > 0) " +
+            "OR (balance > 0 AND last_consume_time < #{consumeBefore})) " +
+            "ORDER BY snapshot_id LIMIT #{limit}")
+    List<MerchantMemberSnapshot> selectReminderPage(@Param("pointsStart") LocalDate pointsStart,
+                                                    @Param("pointsEnd") LocalDate pointsEnd,
+                                                    @Param("consumeBefore") LocalDateTime consumeBefore,
+                                                    @Param("afterId") long afterId,
+                                                    @Param("limit") int limit);
 
     /**
      * 查询指定商户的所有会员快照（用于商户端分析）
@@ -38,4 +45,47 @@ public interface MerchantMemberSnapshotMapper extends BaseMapper<MerchantMemberS
      */
     @Select("SELECT * FROM tb_merchant_member_snapshot WHERE user_id = #{userId} AND merchant_id = #{merchantId}")
     MerchantMemberSnapshot selectByUserAndMerchant(@Param("userId") Long userId, @Param("merchantId") Long merchantId);
+
+    /**
+     * 按商户系统会员ID查询快照（增量同步定位会员）
+     */
+    @Select("SELECT * FROM tb_merchant_member_snapshot WHERE merchant_id = #{merchantId} " +
+            "AND source_member_id = #{sourceMemberId} LIMIT 1")
+    MerchantMemberSnapshot selectBySourceMember(@Param("merchantId") Long merchantId,
+                                                @Param("sourceMemberId") String sourceMemberId);
+
+    /**
+     * 查询指定商户已匹配会员的手机号
+     */
+    @Select("SELECT DISTINCT u.phone FROM tb_merchant_member_snapshot s " +
+            "JOIN tb_user u ON u.user_id = s.user_id " +
+            "WHERE s.merchant_id = #{merchantId} AND u.phone IS NOT NULL")
+    List<String> selectMemberPhones(@Param("merchantId") Long merchantId);
+
+    /**
+     * 按分片键集遍历已同步的会员快照（sync_shard 为 user_id 取模）
+     */
+    @Select("SELECT * FROM tb_merchant_member_snapshot WHERE sync_shard = #{shard} AND snapshot_id > #{afterId} " +
+            "AND sync_status = 1 ORDER BY snapshot_id LIMIT #{limit}")
+    List<MerchantMemberSnapshot> selectSyncPage(@Param("shard") int shard,
+                                                @Param("afterId") long afterId,
+                                                @Param("limit") int limit);
+
+    /**
+     * 分批回填尚未写入分片号的快照（V9 之前的存量数据）
+     *
+     * @return 本批回填的行数
+     */
+    @Update("UPDATE tb_merchant_member_snapshot SET sync_shard = MOD(user_id, #{shardCount}) " +
+            "WHERE sync_shard IS NULL LIMIT #{limit}")
+    int backfillSyncShard(@Param("shardCount") int shardCount, @Param("limit") int limit);
+
+    /**
+     * 按主键键集分页查询沉睡会员快照
+     */
+    @Select("SELECT * FROM tb_merchant_member_snapshot WHERE dormancy_level >= #{minLevel} AND sync_status = 1 " +
+            "AND snapshot_id > #{afterId} ORDER BY snapshot_id LIMIT #{limit}")
+    List<MerchantMemberSnapshot> selectDormantPage(@Param("minLevel") int minLevel,
+                                                   @Param("afterId") long afterId,
+                                                   @Param("limit") int limit);
 }
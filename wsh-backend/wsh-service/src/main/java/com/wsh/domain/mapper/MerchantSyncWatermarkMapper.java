@@ -0,0 +1,9 @@
+package com.wsh.domain.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wsh.domain.entity.MerchantSyncWatermark;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface MerchantSyncWatermarkMapper extends BaseMapper<MerchantSyncWatermark> {
+}
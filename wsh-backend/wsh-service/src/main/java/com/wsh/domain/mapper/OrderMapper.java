@@ -32,10 +32,40 @@ public interface OrderMapper extends BaseMapper<Order> {
     List<Order> selectByMerchantId(@Param("merchantId") Long merchantId);
 
     /**
-     * 查询超时待支付订单（创建超过指定分钟数仍未支付）
+     * 按主键分批查询超时待支付订单（创建超过指定分钟数仍未支付）
      */
-    @Select("SELECT * FROM tb_order WHERE status = 0 AND created_at < #{expireTime}")
-    List<Order> selectExpiredOrders(@Param("expireTime") LocalDateTime expireTime);
+    @Select("<script>" +
+            "SELECT * FROM tb_order WHERE status = 0 AND created_at &lt; #{expireTime} " +
+            "<if test='afterId != null'>AND order_id &gt; #{afterId} </if>" +
+            "ORDER BY order_id ASC LIMIT #{limit}" +
+            "</script>")
+    List<Order> selectExpiredBatch(@Param("expireTime") LocalDateTime expireTime,
+                                   @Param("afterId") Long afterId,
+                                   @Param("limit") int limit);
+
+    /**
+     * 锁定仍为待支付的订单，返回锁定的主键（须在事务内调用）
+     * 并发支付/取消/另一次清扫持有行锁时等待其提交，读到的是提交后的最新状态
+     */
+    @Select("<script>" +
+            "SELECT order_id FROM tb_order WHERE status = 0 AND order_id IN " +
+            "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockPendingIds(@Param("orderIds") List<Long> orderIds);
+
+    /**
+     * 批量关闭超时订单（仅处理仍为待支付状态的订单）
+     */
+    @Update("<script>" +
+            "UPDATE tb_order SET status = 2, updated_at = CURRENT_TIMESTAMP WHERE status = 0 AND order_id IN " +
+            "<foreach collection='orderIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int closePendingByIds(@Param("orderIds") List<Long> orderIds);
 
     /**
      * 更新订单状态
@@ -1,24 +1,32 @@
 package com.wsh.domain.mapper;
 
-import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wsh.common.mybatis.batch.BatchInsertMapper;
 import com.wsh.domain.entity.Voucher;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
-public interface VoucherMapper extends BaseMapper<Voucher> {
+public interface VoucherMapper extends BatchInsertMapper<Voucher> {
 
     /**
-     * 查询即将过期且未使用的券（用于提醒扫描）
+     * 按 (valid_end_time, voucher_id) 键集分页查询即将过期的未使用券（走 idx_expire）
+     * 首页传 afterTime = start、afterId = 0
      */
     @Select("SELECT * FROM tb_voucher WHERE status = 0 " +
-            "AND valid_end_time IS NOT NULL AND valid_end_time BETWEEN #{start} AND #{end}")
-    List<Voucher> selectExpiringVouchers(@Param("start") LocalDateTime start,
-                                          @Param("end") LocalDateTime end);
+            "AND valid_end_time BETWEEN #{start} AND #{end} " +
+            "AND (valid_end_time > #{afterTime} OR (valid_end_time = #{afterTime} AND voucher_id > #{afterId})) " +
+            "ORDER BY valid_end_time, voucher_id LIMIT #{limit}")
+    List<Voucher> selectExpiringPage(@Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end,
+                                     @Param("afterTime") LocalDateTime afterTime,
+                                     @Param("afterId") long afterId,
+                                     @Param("limit") int limit);
 
     /**
      * 查询用户的未使用券列表
@@ -43,4 +51,52 @@ public interface VoucherMapper extends BaseMapper<Voucher> {
      */
     @Select("SELECT * FROM tb_voucher WHERE merchant_id = #{merchantId} ORDER BY created_at DESC")
     List<Voucher> selectByMerchantId(@Param("merchantId") Long merchantId);
+
+    /**
+     * 按状态统计用户券码（未使用但已过有效期的按已过期计，无需等待回写）
+     * 返回 available / used / expired 三个计数
+     */
+    @Select("SELECT " +
+            "COALESCE(SUM(CASE WHEN status = 0 AND (valid_end_time IS NULL OR valid_end_time >= #{now}) THEN 1 ELSE 0 END), 0) AS available, " +
+            "COALESCE(SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END), 0) AS used, " +
+            "COALESCE(SUM(CASE WHEN status = 2 OR (status = 0 AND valid_end_time < #{now}) THEN 1 ELSE 0 END), 0) AS expired " +
+            "FROM tb_voucher WHERE user_id = #{userId}")
+    Map<String, Object> countByUserGroupStatus(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * 按主键分批查询已过有效期但仍为未使用状态的券码ID
+     */
+    @Select("<script>" +
+            "SELECT voucher_id FROM tb_voucher WHERE status = 0 AND valid_end_time &lt; #{now} " +
+            "<if test='afterId != null'>AND voucher_id &gt; #{afterId} </if>" +
+            "ORDER BY voucher_id ASC LIMIT #{limit}" +
+            "</script>")
+    List<Long> selectOverdueIdBatch(@Param("now") LocalDateTime now,
+                                    @Param("afterId") Long afterId,
+                                    @Param("limit") int limit);
+
+    /**
+     * 批量标记为已过期（仅处理仍为未使用状态的券码）
+     */
+    @Update("<script>" +
+            "UPDATE tb_voucher SET status = 2 WHERE status = 0 AND valid_end_time &lt; #{now} AND voucher_id IN " +
+            "<foreach collection='voucherIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int markExpired(@Param("voucherIds") List<Long> voucherIds, @Param("now") LocalDateTime now);
+
+    /**
+     * 查询指定用户中已领取过该活动指定类型券的用户ID
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT user_id FROM tb_voucher WHERE activity_id = #{activityId} " +
+            "AND voucher_type = #{voucherType} AND user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Long> selectIssuedUserIds(@Param("activityId") Long activityId,
+                                   @Param("voucherType") int voucherType,
+                                   @Param("userIds") List<Long> userIds);
 }
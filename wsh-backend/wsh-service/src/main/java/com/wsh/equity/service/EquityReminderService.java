@@ -2,6 +2,7 @@ package com.wsh.equity.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.wsh.common.core.constant.Constants;
+import com.wsh.common.core.util.IdGenerator;
 import com.wsh.domain.entity.*;
 import com.wsh.domain.mapper.*;
 import com.wsh.equity.dto.*;
@@ -9,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,6 +19,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,147 +38,136 @@ public class EquityReminderService {
     private final MerchantMapper merchantMapper;
     private final UserNotificationSettingMapper settingMapper;
     private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 扫描每页行数（同时也是每批写入的上限） */
+    private static final int SCAN_PAGE_SIZE = 500;
 
     // ==================== 提醒扫描（供定时任务调用） ====================
 
     /**
      * 扫描所有用户的即将过期权益并生成提醒记录
      * 检查规则：
-     *   1. 积分即将过期（7天/3天/1天内）
+     *   1. 积分即将过期（7天内）
      *   2. 储值余额长期未使用（30天未消费且余额>0）
-     *   3. 优惠券即将过期（7天/3天/1天内）
+     *   3. 优惠券即将过期（7天内）
+     * 会员快照与券按键集分页读取，每页批量查询通知设置，并以 INSERT IGNORE 批量写入（依赖唯一键去重），每页一个事务
      */
-    @Transactional
     public int scanAndCreateReminders() {
         LocalDate today = LocalDate.now();
         int totalCreated = 0;
 
-        // 1. 扫描积分即将过期
-        totalCreated += scanExpiringPoints(today);
-
-        // 2. 扫描储值长期未使用
-        totalCreated += scanDormantBalance(today);
+        // 1. 扫描积分即将过期 + 储值长期未使用（同一次快照遍历）
+        totalCreated += scanSnapshots(today);
 
-        // 3. 扫描优惠券即将过期
+        // 2. 扫描优惠券即将过期
         totalCreated += scanExpiringVouchers(today);
 
         return totalCreated;
     }
 
     /**
-     * 扫描积分即将过期的会员快照
+     * 按主键分页遍历会员快照，生成积分过期与储值余额提醒
      */
-    private int scanExpiringPoints(LocalDate today) {
+    private int scanSnapshots(LocalDate today) {
+        LocalDate pointsEnd = today.plusDays(7);
+        LocalDateTime consumeBefore = today.minusDays(30).atStartOfDay();
+        int scanned = 0;
         int created = 0;
-        // 检查7天内过期
-        LocalDate endDate = today.plusDays(7);
-        List<MerchantMemberSnapshot> expiring = snapshotMapper.selectExpiringPoints(today, endDate);
+        long afterId = 0L;
 
-        for (MerchantMemberSnapshot snapshot : expiring) {
-            // 查用户通知设置
-            if (!isNotifyEnabled(snapshot.getUserId(), "points")) {
-                continue;
+        while (true) {
+            List<MerchantMemberSnapshot> page = snapshotMapper.selectReminderPage(
+                    today, pointsEnd, consumeBefore, afterId, SCAN_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
             }
+            scanned += page.size();
+            afterId = page.get(page.size() - 1).getSnapshotId();
+
+            Map<Long, UserNotificationSetting> settings = loadSettings(
+                    page.stream().map(MerchantMemberSnapshot::getUserId).collect(Collectors.toSet()));
+            List<EquityReminder> reminders = new ArrayList<>();
+            for (MerchantMemberSnapshot snapshot : page) {
+                UserNotificationSetting setting = settings.get(snapshot.getUserId());
+
+                if (isPointsExpiring(snapshot, today, pointsEnd) && isNotifyEnabled(setting, "points")) {
+                    reminders.add(buildReminder(snapshot.getUserId(), snapshot.getMerchantId(),
+                            Constants.REMINDER_TYPE_POINTS_EXPIRE, "points",
+                            snapshot.getPointsValue(), snapshot.getPointsExpireDate()));
+                }
 
-            // 避免重复提醒
-            if (reminderMapper.countDuplicate(snapshot.getUserId(), snapshot.getMerchantId(),
-                    Constants.REMINDER_TYPE_POINTS_EXPIRE, snapshot.getPointsExpireDate()) > 0) {
-                continue;
+                // 用今天作为 expireDate 标识此次扫描（同一天不重复提醒）
+                if (isBalanceDormant(snapshot, consumeBefore) && isNotifyEnabled(setting, "balance")) {
+                    reminders.add(buildReminder(snapshot.getUserId(), snapshot.getMerchantId(),
+                            Constants.REMINDER_TYPE_BALANCE, "balance", snapshot.getBalance(), today));
+                }
             }
+            created += insertReminders(reminders);
 
-            EquityReminder reminder = new EquityReminder();
-            reminder.setUserId(snapshot.getUserId());
-            reminder.setMerchantId(snapshot.getMerchantId());
-            reminder.setReminderType(Constants.REMINDER_TYPE_POINTS_EXPIRE);
-            reminder.setEquityType("points");
-            reminder.setEquityValue(snapshot.getPointsValue());
-            reminder.setExpireDate(snapshot.getPointsExpireDate());
-            reminder.setRemindStatus(0);
-            reminderMapper.insert(reminder);
-            created++;
+            if (page.size() < SCAN_PAGE_SIZE) {
+                break;
+            }
         }
 
-        log.info("积分过期扫描: 发现{}条即将过期, 创建{}条提醒", expiring.size(), created);
+        log.info("积分过期/储值余额扫描: 扫描{}条会员快照, 创建{}条提醒", scanned, created);
         return created;
     }
 
     /**
-     * 扫描储值余额长期未使用（30天未消费且余额>0）
+     * 按 (过期时间, 券ID) 分页遍历即将过期的券，生成券过期提醒
      */
-    private int scanDormantBalance(LocalDate today) {
+    private int scanExpiringVouchers(LocalDate today) {
+        LocalDateTime start = today.atStartOfDay();
+        LocalDateTime end = today.plusDays(7).atTime(23, 59, 59);
+        int scanned = 0;
         int created = 0;
-        LocalDateTime threshold = today.minusDays(30).atStartOfDay();
-
-        // 查询余额>0 且 30天未消费的快照
-        List<MerchantMemberSnapshot> allSnapshots = snapshotMapper.selectList(
-                new LambdaQueryWrapper<MerchantMemberSnapshot>()
-                        .eq(MerchantMemberSnapshot::getSyncStatus, 1)
-                        .gt(MerchantMemberSnapshot::getBalance, BigDecimal.ZERO)
-                        .isNotNull(MerchantMemberSnapshot::getLastConsumeTime)
-                        .lt(MerchantMemberSnapshot::getLastConsumeTime, threshold));
-
-        for (MerchantMemberSnapshot snapshot : allSnapshots) {
-            if (!isNotifyEnabled(snapshot.getUserId(), "balance")) {
-                continue;
-            }
+        LocalDateTime afterTime = start;
+        long afterId = 0L;
 
-            // 用今天作为 expireDate 标识此次扫描（避免重复）
-            if (reminderMapper.countDuplicate(snapshot.getUserId(), snapshot.getMerchantId(),
-                    Constants.REMINDER_TYPE_BALANCE, today) > 0) {
-                continue;
+        while (true) {
+            List<Voucher> page = voucherMapper.selectExpiringPage(start, end, afterTime, afterId, SCAN_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            scanned += page.size();
+            Voucher last = page.get(page.size() - 1);
+            afterTime = last.getValidEndTime();
+            afterId = last.getVoucherId();
+
+            Map<Long, UserNotificationSetting> settings = loadSettings(
+                    page.stream().map(Voucher::getUserId).collect(Collectors.toSet()));
+            List<EquityReminder> reminders = new ArrayList<>();
+            for (Voucher voucher : page) {
+                if (!isNotifyEnabled(settings.get(voucher.getUserId()), "voucher")) {
+                    continue;
+                }
+                reminders.add(buildReminder(voucher.getUserId(), voucher.getMerchantId(),
+                        Constants.REMINDER_TYPE_VOUCHER_EXPIRE, "voucher",
+                        voucher.getVoucherValue(), voucher.getValidEndTime().toLocalDate()));
             }
+            created += insertReminders(reminders);
 
-            EquityReminder reminder = new EquityReminder();
-            reminder.setUserId(snapshot.getUserId());
-            reminder.setMerchantId(snapshot.getMerchantId());
-            reminder.setReminderType(Constants.REMINDER_TYPE_BALANCE);
-            reminder.setEquityType("balance");
-            reminder.setEquityValue(snapshot.getBalance());
-            reminder.setExpireDate(null);
-            reminder.setRemindStatus(0);
-            reminderMapper.insert(reminder);
-            created++;
+            if (page.size() < SCAN_PAGE_SIZE) {
+                break;
+            }
         }
 
-        log.info("储值余额扫描: 发现{}条长期未使用, 创建{}条提醒", allSnapshots.size(), created);
+        log.info("券过期扫描: 扫描{}张即将过期的券, 创建{}条提醒", scanned, created);
         return created;
     }
 
     /**
-     * 扫描优惠券即将过期
+     * 批量写入一页提醒，已存在的（同用户同商户同类型同日期）跳过
+     *
+     * @return 实际新增条数
      */
-    private int scanExpiringVouchers(LocalDate today) {
-        int created = 0;
-        LocalDateTime start = today.atStartOfDay();
-        LocalDateTime end = today.plusDays(7).atTime(23, 59, 59);
-
-        List<Voucher> expiring = voucherMapper.selectExpiringVouchers(start, end);
-
-        for (Voucher voucher : expiring) {
-            if (!isNotifyEnabled(voucher.getUserId(), "voucher")) {
-                continue;
-            }
-
-            LocalDate expireDate = voucher.getValidEndTime().toLocalDate();
-            if (reminderMapper.countDuplicate(voucher.getUserId(), voucher.getMerchantId(),
-                    Constants.REMINDER_TYPE_VOUCHER_EXPIRE, expireDate) > 0) {
-                continue;
-            }
-
-            EquityReminder reminder = new EquityReminder();
-            reminder.setUserId(voucher.getUserId());
-            reminder.setMerchantId(voucher.getMerchantId());
-            reminder.setReminderType(Constants.REMINDER_TYPE_VOUCHER_EXPIRE);
-            reminder.setEquityType("voucher");
-            reminder.setEquityValue(voucher.getVoucherValue());
-            reminder.setExpireDate(expireDate);
-            reminder.setRemindStatus(0);
-            reminderMapper.insert(reminder);
-            created++;
+    private int insertReminders(List<EquityReminder> reminders) {
+        if (reminders.isEmpty()) {
+            return 0;
         }
-
-        log.info("券过期扫描: 发现{}条即将过期, 创建{}条提醒", expiring.size(), created);
-        return created;
+        Integer inserted = transactionTemplate.execute(status -> reminderMapper.insertIgnoreAll(reminders));
+        return inserted != null ? inserted : 0;
     }
 
     // ==================== 查询接口 ====================
@@ -343,11 +336,20 @@ public class EquityReminderService {
         return setting;
     }
 
-    private boolean isNotifyEnabled(Long userId, String type) {
-        UserNotificationSetting setting = settingMapper.selectOne(
+    /**
+     * 批量查询一页用户的通知设置（未设置的用户不在结果中，按默认开启处理）
+     */
+    private Map<Long, UserNotificationSetting> loadSettings(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return settingMapper.selectList(
                 new LambdaQueryWrapper<UserNotificationSetting>()
-                        .eq(UserNotificationSetting::getUserId, userId));
+                        .in(UserNotificationSetting::getUserId, userIds)).stream()
+                .collect(Collectors.toMap(UserNotificationSetting::getUserId, Function.identity(), (a, b) -> a));
+    }
 
+    private boolean isNotifyEnabled(UserNotificationSetting setting, String type) {
         if (setting == null) {
             return true; // 默认开启
         }
@@ -360,6 +362,33 @@ public class EquityReminderService {
         };
     }
 
+    private boolean isPointsExpiring(MerchantMemberSnapshot snapshot, LocalDate today, LocalDate endDate) {
+        return snapshot.getPointsExpireDate() != null && snapshot.getPointsValue() != null
+                && snapshot.getPointsValue().compareTo(BigDecimal.ZERO) > 0
+                && !snapshot.getPointsExpireDate().isBefore(today)
+                && !snapshot.getPointsExpireDate().isAfter(endDate);
+    }
+
+    private boolean isBalanceDormant(MerchantMemberSnapshot snapshot, LocalDateTime consumeBefore) {
+        return snapshot.getBalance() != null && snapshot.getBalance().compareTo(BigDecimal.ZERO) > 0
+                && snapshot.getLastConsumeTime() != null
+                && snapshot.getLastConsumeTime().isBefore(consumeBefore);
+    }
+
+    private EquityReminder buildReminder(Long userId, Long merchantId, Integer reminderType,
+                                         String equityType, BigDecimal equityValue, LocalDate expireDate) {
+        EquityReminder reminder = new EquityReminder();
+        reminder.setReminderId(IdGenerator.nextId());
+        reminder.setUserId(userId);
+        reminder.setMerchantId(merchantId);
+        reminder.setReminderType(reminderType);
+        reminder.setEquityType(equityType);
+        reminder.setEquityValue(equityValue);
+        reminder.setExpireDate(expireDate);
+        reminder.setRemindStatus(0);
+        return reminder;
+    }
+
     private Map<Long, String> loadMerchantNames(List<Long> merchantIds) {
         if (merchantIds == null || merchantIds.isEmpty()) {
             return Map.of();
@@ -1,8 +1,11 @@
 package com.wsh.equity.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.ai.service.AiContextManager;
 import com.wsh.common.core.constant.Constants;
-import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.common.redis.cache.NearCache;
+import com.wsh.common.redis.cache.NearCacheManager;
+import com.wsh.common.redis.cache.NearCacheSpec;
 import com.wsh.domain.entity.MerchantMemberSnapshot;
 import com.wsh.domain.entity.UserEquitySummary;
 import com.wsh.domain.entity.Voucher;
@@ -16,10 +19,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 权益汇总服务
@@ -34,22 +37,33 @@ public class EquitySummaryService {
     private final MerchantMemberSnapshotMapper snapshotMapper;
     private final UserEquitySummaryMapper summaryMapper;
     private final VoucherMapper voucherMapper;
-    private final RedisUtil redisUtil;
+    private final NearCacheManager nearCacheManager;
+    private final AiContextManager aiContextManager;
 
     /** 缓存有效期：2小时 */
     private static final long CACHE_TTL_HOURS = 2;
 
+    /** 按用户缓存，本地只保留1分钟以限制内存与跨节点不一致窗口；1小时后后台刷新 */
+    private static final NearCacheSpec SUMMARY_CACHE = NearCacheSpec.builder()
+            .name("equity-summary")
+            .localTtl(Duration.ofMinutes(1))
+            .softTtl(Duration.ofHours(1))
+            .remoteTtl(Duration.ofHours(CACHE_TTL_HOURS))
+            .maxSize(10000)
+            .build();
+
     /**
      * 获取用户权益汇总（优先从缓存读取，过期则重新计算）
      */
     public EquitySummaryResponse getSummary(Long userId) {
-        // 1. 尝试从 Redis 缓存读取
-        String cacheKey = Constants.CACHE_USER_EQUITY + userId;
-        EquitySummaryResponse cached = redisUtil.get(cacheKey);
-        if (cached != null) {
-            return cached;
-        }
+        // 1. 依次读取本地缓存、Redis 缓存
+        return summaryCache().get(Constants.CACHE_USER_EQUITY + userId, () -> loadSummary(userId));
+    }
 
+    /**
+     * 从 DB 缓存表加载权益汇总，过期则重新计算（缓存未命中时调用）
+     */
+    private EquitySummaryResponse loadSummary(Long userId) {
         // 2. 查询 DB 缓存表
         UserEquitySummary dbSummary = summaryMapper.selectOne(
                 new LambdaQueryWrapper<UserEquitySummary>()
@@ -62,12 +76,12 @@ public class EquitySummaryService {
 
         if (needRecalculate) {
             dbSummary = recalculate(userId, dbSummary);
+            // AI 助手的系统提示词含权益概况，随之失效
+            aiContextManager.evictSystemPrompt(userId);
         }
 
-        // 3. 构建响应并缓存
-        EquitySummaryResponse response = buildResponse(userId, dbSummary);
-        redisUtil.set(cacheKey, response, CACHE_TTL_HOURS, TimeUnit.HOURS);
-        return response;
+        // 3. 构建响应（由调用方写入缓存）
+        return buildResponse(userId, dbSummary);
     }
 
     /**
@@ -82,15 +96,19 @@ public class EquitySummaryService {
         UserEquitySummary updated = recalculate(userId, existing);
         EquitySummaryResponse response = buildResponse(userId, updated);
 
-        // 刷新 Redis 缓存
-        String cacheKey = Constants.CACHE_USER_EQUITY + userId;
-        redisUtil.set(cacheKey, response, CACHE_TTL_HOURS, TimeUnit.HOURS);
+        // 刷新缓存（其他节点的本地副本随之失效）
+        summaryCache().put(Constants.CACHE_USER_EQUITY + userId, response);
+        aiContextManager.evictSystemPrompt(userId);
 
         return response;
     }
 
     // ==================== 私有方法 ====================
 
+    private NearCache summaryCache() {
+        return nearCacheManager.getCache(SUMMARY_CACHE);
+    }
+
     /**
      * 重新计算权益汇总
      */
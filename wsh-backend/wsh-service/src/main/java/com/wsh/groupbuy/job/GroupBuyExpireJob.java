@@ -1,7 +1,8 @@
 package com.wsh.groupbuy.job;
 
+import com.wsh.common.mybatis.sweep.SweepResult;
 import com.wsh.common.redis.util.RedisUtil;
-import com.wsh.groupbuy.service.GroupBuyService;
+import com.wsh.groupbuy.service.GroupExpirySweeper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -10,24 +11,24 @@ import org.springframework.stereotype.Component;
 import java.util.concurrent.TimeUnit;
 
 /**
- * 拼团超时处理定时任务
- * 每分钟执行一次，处理超时未成团的拼团订单
+ * 拼团超时对账任务
+ * 超时处理由 TimeoutScheduler 在到期时触发，本任务每10分钟分批兜底处理遗漏的超时拼团
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class GroupBuyExpireJob {
 
-    private final GroupBuyService groupBuyService;
+    private final GroupExpirySweeper groupExpirySweeper;
     private final RedisUtil redisUtil;
 
     private static final String LOCK_KEY = "lock:groupbuy:expire";
-    private static final int LOCK_EXPIRE_SECONDS = 120;
+    private static final int LOCK_EXPIRE_SECONDS = 600;
 
     /**
-     * 每分钟执行一次
+     * 每10分钟执行一次
      */
-    @Scheduled(cron = "0 * * * * ?")
+    @Scheduled(cron = "0 */10 * * * ?")
     public void processExpiredGroups() {
         // 获取分布式锁
         boolean locked = Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, "1", LOCK_EXPIRE_SECONDS, TimeUnit.SECONDS));
@@ -37,10 +38,9 @@ public class GroupBuyExpireJob {
         }
 
         try {
-            log.info("开始执行拼团超时处理任务...");
-            int processedCount = groupBuyService.handleExpiredGroups();
-            if (processedCount > 0) {
-                log.info("拼团超时处理任务完成，处理拼团数: {}", processedCount);
+            SweepResult result = groupExpirySweeper.sweep();
+            if (result.getScanned() > 0) {
+                log.info("拼团超时处理任务完成 {}", result);
             }
         } catch (Exception e) {
             log.error("拼团超时处理任务执行失败", e);
@@ -1,6 +1,7 @@
 package com.wsh.groupbuy.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.activity.service.StockReservationService;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.core.exception.BusinessException;
 import com.wsh.common.core.util.IdGenerator;
@@ -10,13 +11,14 @@ import com.wsh.domain.mapper.*;
 import com.wsh.groupbuy.dto.*;
 import com.wsh.integration.wechat.WechatPayService;
 import com.wsh.order.dto.PaymentResponse;
+import com.wsh.timeout.TimeoutScheduler;
+import com.wsh.timeout.TimeoutType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -34,14 +36,14 @@ public class GroupBuyService {
     private final GroupParticipantMapper participantMapper;
     private final GroupBuyConfigMapper configMapper;
     private final ActivityMapper activityMapper;
-    private final MerchantMapper merchantMapper;
     private final OrderMapper orderMapper;
-    private final UserMapper userMapper;
     private final WechatPayService wechatPayService;
     private final RedisUtil redisUtil;
+    private final StockReservationService stockReservationService;
+    private final GroupDetailAssembler groupDetailAssembler;
+    private final TimeoutScheduler timeoutScheduler;
 
     private static final String GROUP_LOCK_PREFIX = "group:lock:";
-    private static final String STOCK_KEY_PREFIX = "activity:stock:";
 
     /**
      * 发起拼团
@@ -70,49 +72,47 @@ public class GroupBuyService {
             throw new BusinessException("您已有进行中的拼团，请勿重复发起");
         }
 
-        // 4. 扣减库存
-        if (!deductStock(activityId, activity.getStock())) {
+        // 4. 预占库存（以拼团ID+用户ID为令牌）
+        Long groupOrderId = IdGenerator.nextId();
+        String stockToken = StockReservationService.groupToken(groupOrderId, userId);
+        if (!stockReservationService.reserve(activity, stockToken, 1)) {
             throw new BusinessException("活动库存不足");
         }
+        // 写库失败或事务提交失败时归还预占
+        stockReservationService.releaseOnRollback(activityId, stockToken);
+
+        // 5. 创建拼团订单
+        GroupOrder groupOrder = new GroupOrder();
+        groupOrder.setGroupOrderId(groupOrderId);
+        groupOrder.setGroupNo(generateGroupNo());
+        groupOrder.setActivityId(activityId);
+        groupOrder.setInitiatorUserId(userId);
+        groupOrder.setRequiredMembers(config.getMinMembers());
+        groupOrder.setCurrentMembers(1);
+        groupOrder.setStatus(GroupOrder.STATUS_PENDING);
+        groupOrder.setExpireTime(LocalDateTime.now().plusHours(config.getExpireHours()));
+        groupOrder.setCreatedAt(LocalDateTime.now());
+        groupOrder.setUpdatedAt(LocalDateTime.now());
 
-        try {
-            // 5. 创建拼团订单
-            GroupOrder groupOrder = new GroupOrder();
-            groupOrder.setGroupOrderId(IdGenerator.nextId());
-            groupOrder.setGroupNo(generateGroupNo());
-            groupOrder.setActivityId(activityId);
-            groupOrder.setInitiatorUserId(userId);
-            groupOrder.setRequiredMembers(config.getMinMembers());
-            groupOrder.setCurrentMembers(1);
-            groupOrder.setStatus(GroupOrder.STATUS_PENDING);
-            groupOrder.setExpireTime(LocalDateTime.now().plusHours(config.getExpireHours()));
-            groupOrder.setCreatedAt(LocalDateTime.now());
-            groupOrder.setUpdatedAt(LocalDateTime.now());
-
-            groupOrderMapper.insert(groupOrder);
-
-            // 6. 添加发起人为参与者
-            GroupParticipant participant = new GroupParticipant();
-            participant.setParticipantId(IdGenerator.nextId());
-            participant.setGroupOrderId(groupOrder.getGroupOrderId());
-            participant.setUserId(userId);
-            participant.setOrderId(null); // 订单在支付后创建
-            participant.setIsInitiator(1);
-            participant.setJoinTime(LocalDateTime.now());
-            participant.setCreatedAt(LocalDateTime.now());
+        groupOrderMapper.insert(groupOrder);
+        timeoutScheduler.schedule(TimeoutType.GROUP, groupOrderId, groupOrder.getExpireTime());
 
-            participantMapper.insert(participant);
+        // 6. 添加发起人为参与者
+        GroupParticipant participant = new GroupParticipant();
+        participant.setParticipantId(IdGenerator.nextId());
+        participant.setGroupOrderId(groupOrder.getGroupOrderId());
+        participant.setUserId(userId);
+        participant.setOrderId(null); // 订单在支付后创建
+        participant.setIsInitiator(1);
+        participant.setJoinTime(LocalDateTime.now());
+        participant.setCreatedAt(LocalDateTime.now());
 
-            log.info("拼团发起成功: groupNo={}, userId={}, activityId={}", groupOrder.getGroupNo(), userId, activityId);
+        participantMapper.insert(participant);
 
-            // 7. 返回详情
-            return getGroupDetail(groupOrder.getGroupOrderId(), userId);
+        log.info("拼团发起成功: groupNo={}, userId={}, activityId={}", groupOrder.getGroupNo(), userId, activityId);
 
-        } catch (Exception e) {
-            // 回滚库存
-            rollbackStock(activityId);
-            throw e;
-        }
+        // 7. 返回详情
+        return getGroupDetail(groupOrder.getGroupOrderId(), userId);
     }
 
     /**
@@ -162,48 +162,50 @@ public class GroupBuyService {
             }
             validateActivity(activity);
 
-            // 6. 扣减库存
-            if (!deductStock(activity.getActivityId(), activity.getStock())) {
+            // 6. 预占库存
+            String stockToken = StockReservationService.groupToken(groupOrderId, userId);
+            if (!stockReservationService.reserve(activity, stockToken, 1)) {
                 throw new BusinessException("活动库存不足");
             }
+            stockReservationService.releaseOnRollback(activity.getActivityId(), stockToken);
 
-            try {
-                // 7. 添加参与者
-                GroupParticipant participant = new GroupParticipant();
-                participant.setParticipantId(IdGenerator.nextId());
-                participant.setGroupOrderId(groupOrderId);
-                participant.setUserId(userId);
-                participant.setOrderId(null);
-                participant.setIsInitiator(0);
-                participant.setJoinTime(LocalDateTime.now());
-                participant.setCreatedAt(LocalDateTime.now());
-
-                participantMapper.insert(participant);
-
-                // 8. 更新拼团人数
-                int newCount = groupOrder.getCurrentMembers() + 1;
-                groupOrder.setCurrentMembers(newCount);
-                groupOrder.setUpdatedAt(LocalDateTime.now());
-
-                // 9. 检查是否成团
-                if (newCount >= groupOrder.getRequiredMembers()) {
-                    groupOrder.setStatus(GroupOrder.STATUS_SUCCESS);
-                    groupOrder.setCompleteTime(LocalDateTime.now());
-                    log.info("拼团成功: groupNo={}", groupOrder.getGroupNo());
-                }
+            // 7. 添加参与者
+            GroupParticipant participant = new GroupParticipant();
+            participant.setParticipantId(IdGenerator.nextId());
+            participant.setGroupOrderId(groupOrderId);
+            participant.setUserId(userId);
+            participant.setOrderId(null);
+            participant.setIsInitiator(0);
+            participant.setJoinTime(LocalDateTime.now());
+            participant.setCreatedAt(LocalDateTime.now());
 
-                groupOrderMapper.updateById(groupOrder);
+            participantMapper.insert(participant);
+
+            // 8. 更新拼团人数
+            int newCount = groupOrder.getCurrentMembers() + 1;
+            groupOrder.setCurrentMembers(newCount);
+            groupOrder.setUpdatedAt(LocalDateTime.now());
 
-                log.info("参与拼团成功: groupNo={}, userId={}, currentMembers={}", 
-                        groupOrder.getGroupNo(), userId, newCount);
+            // 9. 检查是否成团
+            if (newCount >= groupOrder.getRequiredMembers()) {
+                groupOrder.setStatus(GroupOrder.STATUS_SUCCESS);
+                groupOrder.setCompleteTime(LocalDateTime.now());
+                log.info("拼团成功: groupNo={}", groupOrder.getGroupNo());
+            }
 
-                return getGroupDetail(groupOrderId, userId);
+            groupOrderMapper.updateById(groupOrder);
 
-            } catch (Exception e) {
-                rollbackStock(activity.getActivityId());
-                throw e;
+            // 10. 成团后确认全部参与者的库存预占
+            if (groupOrder.getStatus() == GroupOrder.STATUS_SUCCESS) {
+                confirmGroupStock(groupOrder);
+                timeoutScheduler.cancel(TimeoutType.GROUP, groupOrderId);
             }
 
+            log.info("参与拼团成功: groupNo={}, userId={}, currentMembers={}", 
+                    groupOrder.getGroupNo(), userId, newCount);
+
+            return getGroupDetail(groupOrderId, userId);
+
         } finally {
             redisUtil.delete(lockKey);
         }
@@ -217,79 +219,7 @@ public class GroupBuyService {
         if (groupOrder == null) {
             throw new BusinessException("拼团不存在");
         }
-
-        Activity activity = activityMapper.selectById(groupOrder.getActivityId());
-        Merchant merchant = activity != null ? merchantMapper.selectById(activity.getMerchantId()) : null;
-
-        // 获取参与者列表
-        List<GroupParticipant> participants = participantMapper.selectList(
-                new LambdaQueryWrapper<GroupParticipant>()
-                        .eq(GroupParticipant::getGroupOrderId, groupOrderId)
-                        .orderByAsc(GroupParticipant::getJoinTime)
-        );
-
-        // 获取发起人信息
-        User initiator = userMapper.selectById(groupOrder.getInitiatorUserId());
-
-        // 构建参与者列表
-        List<GroupDetailResponse.ParticipantItem> participantItems = participants.stream()
-                .map(p -> {
-                    User user = userMapper.selectById(p.getUserId());
-                    return GroupDetailResponse.ParticipantItem.builder()
-                            .userId(p.getUserId())
-                            .nickname(user != null ? user.getNickname() : "用户" + p.getUserId())
-                            .avatarUrl(user != null ? user.getAvatarUrl() : null)
-                            .isInitiator(p.getIsInitiator() == 1)
-                            .joinTime(p.getJoinTime())
-                            .build();
-                })
-                .collect(Collectors.toList());
-
-        // 检查当前用户是否已参与
-        boolean hasJoined = participants.stream()
-                .anyMatch(p -> p.getUserId().equals(userId));
-
-        // 计算剩余时间
-        long remainingSeconds = 0;
-        if (groupOrder.getStatus() == GroupOrder.STATUS_PENDING && 
-            groupOrder.getExpireTime().isAfter(LocalDateTime.now())) {
-            remainingSeconds = Duration.between(LocalDateTime.now(), groupOrder.getExpireTime()).getSeconds();
-        }
-
-        // 解析价格
-        BigDecimal groupPrice = BigDecimal.ZERO;
-        BigDecimal originalPrice = BigDecimal.ZERO;
-        if (activity != null && activity.getConfig() != null) {
-            groupPrice = extractDecimal(activity.getConfig(), "group_price");
-            originalPrice = extractDecimal(activity.getConfig(), "original_price");
-        }
-
-        return GroupDetailResponse.builder()
-                .groupOrderId(groupOrder.getGroupOrderId())
-                .groupNo(groupOrder.getGroupNo())
-                .activityId(groupOrder.getActivityId())
-                .activityName(activity != null ? activity.getActivityName() : null)
-                .coverImage(activity != null ? activity.getCoverImage() : null)
-                .merchantId(activity != null ? activity.getMerchantId() : null)
-                .merchantName(merchant != null ? merchant.getMerchantName() : null)
-                .groupPrice(groupPrice)
-                .originalPrice(originalPrice)
-                .requiredMembers(groupOrder.getRequiredMembers())
-                .currentMembers(groupOrder.getCurrentMembers())
-                .remainingMembers(groupOrder.getRequiredMembers() - groupOrder.getCurrentMembers())
-                .status(groupOrder.getStatus())
-                .statusName(getStatusName(groupOrder.getStatus()))
-                .expireTime(groupOrder.getExpireTime())
-                .remainingSeconds(remainingSeconds)
-                .completeTime(groupOrder.getCompleteTime())
-                .initiatorUserId(groupOrder.getInitiatorUserId())
-                .initiatorNickname(initiator != null ? initiator.getNickname() : null)
-                .initiatorAvatar(initiator != null ? initiator.getAvatarUrl() : null)
-                .isInitiator(groupOrder.getInitiatorUserId().equals(userId))
-                .hasJoined(hasJoined)
-                .participants(participantItems)
-                .createdAt(groupOrder.getCreatedAt())
-                .build();
+        return groupDetailAssembler.assembleDetails(Collections.singletonList(groupOrder), userId).get(0);
     }
 
     /**
@@ -305,9 +235,7 @@ public class GroupBuyService {
                         .last("LIMIT 10")
         );
 
-        return groups.stream()
-                .map(g -> getGroupDetail(g.getGroupOrderId(), userId))
-                .collect(Collectors.toList());
+        return groupDetailAssembler.assembleDetails(groups, userId);
     }
 
     /**
@@ -348,9 +276,7 @@ public class GroupBuyService {
         List<GroupOrder> pagedGroups = start < total ? allGroups.subList(start, end) : Collections.emptyList();
 
         // 转换响应
-        List<GroupListResponse.GroupItem> items = pagedGroups.stream()
-                .map(g -> convertToGroupItem(g, userId))
-                .collect(Collectors.toList());
+        List<GroupListResponse.GroupItem> items = groupDetailAssembler.assembleItems(pagedGroups, userId);
 
         return GroupListResponse.builder()
                 .groups(items)
@@ -389,7 +315,7 @@ public class GroupBuyService {
         }
 
         // 计算支付金额
-        BigDecimal payAmount = extractDecimal(activity.getConfig(), "group_price");
+        BigDecimal payAmount = GroupDetailAssembler.extractDecimal(activity.getConfig(), "group_price");
         if (payAmount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessException("拼团价格配置错误");
         }
@@ -429,81 +355,76 @@ public class GroupBuyService {
         groupOrder.setStatus(GroupOrder.STATUS_CANCELLED);
         groupOrder.setUpdatedAt(LocalDateTime.now());
         groupOrderMapper.updateById(groupOrder);
+        timeoutScheduler.cancel(TimeoutType.GROUP, groupOrderId);
 
-        // 回滚库存
-        rollbackStock(groupOrder.getActivityId());
+        // 事务提交后释放发起人的库存预占
+        stockReservationService.releaseAfterCommit(groupOrder.getActivityId(),
+                StockReservationService.groupToken(groupOrderId, userId));
 
         log.info("拼团已取消: groupNo={}, userId={}", groupOrder.getGroupNo(), userId);
     }
 
     /**
-     * 处理超时拼团
+     * 处理已标记失败的超时拼团（由 GroupExpirySweeper 在状态更新提交后调用）
+     * 批量释放参与者库存预占，并对开启自动退款的拼团发起退款
      */
-    @Transactional(rollbackFor = Exception.class)
-    public int handleExpiredGroups() {
-        // 查询超时的拼团
-        List<GroupOrder> expiredGroups = groupOrderMapper.selectList(
-                new LambdaQueryWrapper<GroupOrder>()
-                        .eq(GroupOrder::getStatus, GroupOrder.STATUS_PENDING)
-                        .lt(GroupOrder::getExpireTime, LocalDateTime.now())
-        );
-
-        int processedCount = 0;
-        for (GroupOrder groupOrder : expiredGroups) {
-            try {
-                processExpiredGroup(groupOrder);
-                processedCount++;
-            } catch (Exception e) {
-                log.error("处理超时拼团失败: groupNo={}", groupOrder.getGroupNo(), e);
-            }
+    public void settleFailedGroups(List<GroupOrder> failedGroups) {
+        if (failedGroups.isEmpty()) {
+            return;
         }
+        List<Long> groupOrderIds = failedGroups.stream()
+                .map(GroupOrder::getGroupOrderId)
+                .collect(Collectors.toList());
+        Map<Long, GroupOrder> groupMap = failedGroups.stream()
+                .collect(Collectors.toMap(GroupOrder::getGroupOrderId, g -> g));
 
-        return processedCount;
-    }
-
-    /**
-     * 处理单个超时拼团
-     */
-    @Transactional(rollbackFor = Exception.class)
-    public void processExpiredGroup(GroupOrder groupOrder) {
-        // 更新状态为失败
-        groupOrder.setStatus(GroupOrder.STATUS_FAILED);
-        groupOrder.setUpdatedAt(LocalDateTime.now());
-        groupOrderMapper.updateById(groupOrder);
-
-        // 获取拼团配置
-        GroupBuyConfig config = getGroupConfig(groupOrder.getActivityId());
-        boolean autoRefund = config != null && config.getAutoRefund() == 1;
-
-        // 获取所有参与者
         List<GroupParticipant> participants = participantMapper.selectList(
                 new LambdaQueryWrapper<GroupParticipant>()
-                        .eq(GroupParticipant::getGroupOrderId, groupOrder.getGroupOrderId())
+                        .in(GroupParticipant::getGroupOrderId, groupOrderIds)
         );
 
-        // 处理退款
+        // 1. 批量释放库存预占（按活动分组）
+        Map<Long, List<String>> tokensByActivity = new HashMap<>();
         for (GroupParticipant participant : participants) {
-            if (participant.getOrderId() != null && autoRefund) {
+            GroupOrder groupOrder = groupMap.get(participant.getGroupOrderId());
+            tokensByActivity.computeIfAbsent(groupOrder.getActivityId(), k -> new ArrayList<>())
+                    .add(StockReservationService.groupToken(groupOrder.getGroupOrderId(), participant.getUserId()));
+        }
+        stockReservationService.releaseAll(tokensByActivity);
+
+        // 2. 自动退款
+        Set<Long> activityIds = failedGroups.stream().map(GroupOrder::getActivityId).collect(Collectors.toSet());
+        Set<Long> autoRefundActivityIds = configMapper.selectList(
+                        new LambdaQueryWrapper<GroupBuyConfig>()
+                                .in(GroupBuyConfig::getActivityId, activityIds))
+                .stream()
+                .filter(c -> c.getAutoRefund() != null && c.getAutoRefund() == 1)
+                .map(GroupBuyConfig::getActivityId)
+                .collect(Collectors.toSet());
+
+        List<Long> refundOrderIds = participants.stream()
+                .filter(p -> p.getOrderId() != null
+                        && autoRefundActivityIds.contains(groupMap.get(p.getGroupOrderId()).getActivityId()))
+                .map(GroupParticipant::getOrderId)
+                .collect(Collectors.toList());
+        if (!refundOrderIds.isEmpty()) {
+            for (Order order : orderMapper.selectBatchIds(refundOrderIds)) {
+                if (order.getStatus() != Constants.ORDER_STATUS_PAID) {
+                    continue;
+                }
                 try {
-                    // 发起退款
-                    Order order = orderMapper.selectById(participant.getOrderId());
-                    if (order != null && order.getStatus() == Constants.ORDER_STATUS_PAID) {
-                        wechatPayService.refund(order.getOrderNo(), order.getTransactionId(), 
-                                order.getPayAmount(), "拼团失败自动退款");
-                        orderMapper.updateStatus(order.getOrderId(), Constants.ORDER_STATUS_REFUNDED);
-                        log.info("拼团退款成功: orderNo={}, userId={}", order.getOrderNo(), participant.getUserId());
-                    }
+                    wechatPayService.refund(order.getOrderNo(), order.getTransactionId(),
+                            order.getPayAmount(), "拼团失败自动退款");
+                    orderMapper.updateStatus(order.getOrderId(), Constants.ORDER_STATUS_REFUNDED);
+                    log.info("拼团退款成功: orderNo={}, userId={}", order.getOrderNo(), order.getUserId());
                 } catch (Exception e) {
-                    log.error("拼团退款失败: orderId={}", participant.getOrderId(), e);
+                    log.error("拼团退款失败: orderId={}", order.getOrderId(), e);
                 }
             }
-
-            // 回滚库存
-            rollbackStock(groupOrder.getActivityId());
         }
 
-        log.info("超时拼团处理完成: groupNo={}, participantCount={}", 
-                groupOrder.getGroupNo(), participants.size());
+        log.info("超时拼团处理完成: groupCount={}, participantCount={}",
+                failedGroups.size(), participants.size());
     }
 
     // ==================== 私有方法 ====================
@@ -538,33 +459,19 @@ public class GroupBuyService {
         );
     }
 
-    private boolean deductStock(Long activityId, Integer totalStock) {
-        if (totalStock == null || totalStock < 0) {
-            return true; // 无限库存
-        }
-
-        String stockKey = STOCK_KEY_PREFIX + activityId;
-
-        // 确保缓存中有库存值
-        if (redisUtil.get(stockKey) == null) {
-            Activity activity = activityMapper.selectById(activityId);
-            int sold = activity.getSoldCount() != null ? activity.getSoldCount() : 0;
-            int currentStock = totalStock - sold;
-            redisUtil.set(stockKey, currentStock, 3600L, TimeUnit.SECONDS);
-        }
-
-        // 原子扣减
-        Long remaining = redisUtil.stockDecrement(stockKey, 1);
-        return remaining != null && remaining >= 0;
-    }
-
-    private void rollbackStock(Long activityId) {
-        String stockKey = STOCK_KEY_PREFIX + activityId;
-        Object cached = redisUtil.get(stockKey);
-        if (cached != null) {
-            long currentStock = ((Number) cached).longValue();
-            redisUtil.set(stockKey, currentStock + 1, 3600L, TimeUnit.SECONDS);
-        }
+    /**
+     * 成团：全部参与者计入已售数量，事务提交后确认库存预占
+     * 拼团订单支付成功时不再重复计入已售（见 OrderService.handlePaymentSuccess）
+     */
+    private void confirmGroupStock(GroupOrder groupOrder) {
+        List<GroupParticipant> participants = participantMapper.selectList(
+                new LambdaQueryWrapper<GroupParticipant>()
+                        .eq(GroupParticipant::getGroupOrderId, groupOrder.getGroupOrderId())
+        );
+        activityMapper.addSoldCount(groupOrder.getActivityId(), participants.size());
+        stockReservationService.confirmAfterCommit(groupOrder.getActivityId(), participants.stream()
+                .map(p -> StockReservationService.groupToken(groupOrder.getGroupOrderId(), p.getUserId()))
+                .collect(Collectors.toList()));
     }
 
     private String generateGroupNo() {
@@ -598,75 +505,8 @@ public class GroupBuyService {
         order.setUpdatedAt(LocalDateTime.now());
 
         orderMapper.insert(order);
+        timeoutScheduler.schedule(TimeoutType.ORDER, order.getOrderId(),
+                order.getCreatedAt().plusMinutes(Constants.ORDER_TIMEOUT_MINUTES));
         return order;
     }
-
-    private GroupListResponse.GroupItem convertToGroupItem(GroupOrder groupOrder, Long userId) {
-        Activity activity = activityMapper.selectById(groupOrder.getActivityId());
-        Merchant merchant = activity != null ? merchantMapper.selectById(activity.getMerchantId()) : null;
-
-        long remainingSeconds = 0;
-        if (groupOrder.getStatus() == GroupOrder.STATUS_PENDING &&
-            groupOrder.getExpireTime().isAfter(LocalDateTime.now())) {
-            remainingSeconds = Duration.between(LocalDateTime.now(), groupOrder.getExpireTime()).getSeconds();
-        }
-
-        BigDecimal groupPrice = BigDecimal.ZERO;
-        if (activity != null && activity.getConfig() != null) {
-            groupPrice = extractDecimal(activity.getConfig(), "group_price");
-        }
-
-        return GroupListResponse.GroupItem.builder()
-                .groupOrderId(groupOrder.getGroupOrderId())
-                .groupNo(groupOrder.getGroupNo())
-                .activityId(groupOrder.getActivityId())
-                .activityName(activity != null ? activity.getActivityName() : null)
-                .coverImage(activity != null ? activity.getCoverImage() : null)
-                .merchantName(merchant != null ? merchant.getMerchantName() : null)
-                .groupPrice(groupPrice)
-                .requiredMembers(groupOrder.getRequiredMembers())
-                .currentMembers(groupOrder.getCurrentMembers())
-                .status(groupOrder.getStatus())
-                .statusName(getStatusName(groupOrder.getStatus()))
-                .isInitiator(groupOrder.getInitiatorUserId().equals(userId))
-                .expireTime(groupOrder.getExpireTime())
-                .remainingSeconds(remainingSeconds)
-                .createdAt(groupOrder.getCreatedAt())
-                .build();
-    }
-
-    private String getStatusName(Integer status) {
-        if (status == null) return "未知";
-        return switch (status) {
-            case GroupOrder.STATUS_PENDING -> "拼团中";
-            case GroupOrder.STATUS_SUCCESS -> "已成团";
-            case GroupOrder.STATUS_FAILED -> "拼团失败";
-            case GroupOrder.STATUS_CANCELLED -> "已取消";
-            default -> "未知";
-        };
-    }
-
-    private BigDecimal extractDecimal(String json, String key) {
-        if (json == null) return BigDecimal.ZERO;
-        int keyIndex = json.indexOf("\"" + key + "\"");
-        if (keyIndex < 0) {
-            keyIndex = json.indexOf(key);
-        }
-        if (keyIndex < 0) return BigDecimal.ZERO;
-
-        int colonIndex = json.indexOf(":", keyIndex);
-        if (colonIndex < 0) return BigDecimal.ZERO;
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = colonIndex + 1; i < json.length(); i++) {
-            char c = json.charAt(i);
-            if (Character.isDigit(c) || c == '.') {
-                sb.append(c);
-            } else if (sb.length() > 0) {
-                break;
-            }
-        }
-
-        return sb.length() > 0 ? new BigDecimal(sb.toString()) : BigDecimal.ZERO;
-    }
 }
@@ -0,0 +1,242 @@
+package com.wsh.groupbuy.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.domain.entity.*;
+import com.wsh.domain.mapper.ActivityMapper;
+import com.wsh.domain.mapper.GroupParticipantMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.UserMapper;
+import com.wsh.groupbuy.dto.GroupDetailResponse;
+import com.wsh.groupbuy.dto.GroupListResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 拼团详情批量组装器
+ * 一页拼团按实体类型各发一次 IN 查询（参与者、用户、活动、商户），在内存中组装响应，
+ * 避免逐团、逐参与者的单行查询
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupDetailAssembler {
+
+    private final GroupParticipantMapper participantMapper;
+    private final ActivityMapper activityMapper;
+    private final MerchantMapper merchantMapper;
+    private final UserMapper userMapper;
+
+    /**
+     * 批量组装拼团详情，返回顺序与入参一致
+     */
+    public List<GroupDetailResponse> assembleDetails(List<GroupOrder> groups, Long userId) {
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Activity> activityMap = loadActivityMap(groups);
+        Map<Long, Merchant> merchantMap = loadMerchantMap(activityMap.values());
+
+        // 一次查询全部参与者，按拼团分组
+        Set<Long> groupOrderIds = groups.stream()
+                .map(GroupOrder::getGroupOrderId)
+                .collect(Collectors.toSet());
+        Map<Long, List<GroupParticipant>> participantsByGroup = participantMapper.selectList(
+                        new LambdaQueryWrapper<GroupParticipant>()
+                                .in(GroupParticipant::getGroupOrderId, groupOrderIds)
+                                .orderByAsc(GroupParticipant::getJoinTime))
+                .stream()
+                .collect(Collectors.groupingBy(GroupParticipant::getGroupOrderId));
+
+        // 参与者与发起人合并为一次用户查询
+        Set<Long> userIds = new HashSet<>();
+        groups.forEach(g -> userIds.add(g.getInitiatorUserId()));
+        participantsByGroup.values().forEach(list -> list.forEach(p -> userIds.add(p.getUserId())));
+        Map<Long, User> userMap = userMapper.selectBatchIds(userIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        return groups.stream()
+                .map(g -> {
+                    Activity activity = activityMap.get(g.getActivityId());
+                    Merchant merchant = activity != null ? merchantMap.get(activity.getMerchantId()) : null;
+                    List<GroupParticipant> participants =
+                            participantsByGroup.getOrDefault(g.getGroupOrderId(), Collections.emptyList());
+                    return toDetail(g, activity, merchant, participants, userMap, userId);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 批量组装拼团列表项，返回顺序与入参一致
+     */
+    public List<GroupListResponse.GroupItem> assembleItems(List<GroupOrder> groups, Long userId) {
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Activity> activityMap = loadActivityMap(groups);
+        Map<Long, Merchant> merchantMap = loadMerchantMap(activityMap.values());
+
+        return groups.stream()
+                .map(g -> {
+                    Activity activity = activityMap.get(g.getActivityId());
+                    Merchant merchant = activity != null ? merchantMap.get(activity.getMerchantId()) : null;
+                    return toItem(g, activity, merchant, userId);
+                })
+                .collect(Collectors.toList());
+    }
+
+    // ==================== 私有方法 ====================
+
+    private Map<Long, Activity> loadActivityMap(List<GroupOrder> groups) {
+        Set<Long> activityIds = groups.stream()
+                .map(GroupOrder::getActivityId)
+                .collect(Collectors.toSet());
+        return activityMapper.selectBatchIds(activityIds).stream()
+                .collect(Collectors.toMap(Activity::getActivityId, Function.identity()));
+    }
+
+    private Map<Long, Merchant> loadMerchantMap(Collection<Activity> activities) {
+        Set<Long> merchantIds = activities.stream()
+                .map(Activity::getMerchantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (merchantIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return merchantMapper.selectBatchIds(merchantIds).stream()
+                .collect(Collectors.toMap(Merchant::getMerchantId, Function.identity()));
+    }
+
+    private GroupDetailResponse toDetail(GroupOrder groupOrder, Activity activity, Merchant merchant,
+                                         List<GroupParticipant> participants, Map<Long, User> userMap,
+                                         Long userId) {
+        User initiator = userMap.get(groupOrder.getInitiatorUserId());
+
+        List<GroupDetailResponse.ParticipantItem> participantItems = participants.stream()
+                .map(p -> {
+                    User user = userMap.get(p.getUserId());
+                    return GroupDetailResponse.ParticipantItem.builder()
+                            .userId(p.getUserId())
+                            .nickname(user != null ? user.getNickname() : "用户" + p.getUserId())
+                            .avatarUrl(user != null ? user.getAvatarUrl() : null)
+                            .isInitiator(p.getIsInitiator() == 1)
+                            .joinTime(p.getJoinTime())
+                            .build();
+                })
+                .collect(Collectors.toList());
+
+        boolean hasJoined = participants.stream()
+                .anyMatch(p -> p.getUserId().equals(userId));
+
+        BigDecimal groupPrice = BigDecimal.ZERO;
+        BigDecimal originalPrice = BigDecimal.ZERO;
+        if (activity != null && activity.getConfig() != null) {
+            groupPrice = extractDecimal(activity.getConfig(), "group_price");
+            originalPrice = extractDecimal(activity.getConfig(), "original_price");
+        }
+
+        return GroupDetailResponse.builder()
+                .groupOrderId(groupOrder.getGroupOrderId())
+                .groupNo(groupOrder.getGroupNo())
+                .activityId(groupOrder.getActivityId())
+                .activityName(activity != null ? activity.getActivityName() : null)
+                .coverImage(activity != null ? activity.getCoverImage() : null)
+                .merchantId(activity != null ? activity.getMerchantId() : null)
+                .merchantName(merchant != null ? merchant.getMerchantName() : null)
+                .groupPrice(groupPrice)
+                .originalPrice(originalPrice)
+                .requiredMembers(groupOrder.getRequiredMembers())
+                .currentMembers(groupOrder.getCurrentMembers())
+                .remainingMembers(groupOrder.getRequiredMembers() - groupOrder.getCurrentMembers())
+                .status(groupOrder.getStatus())
+                .statusName(getStatusName(groupOrder.getStatus()))
+                .expireTime(groupOrder.getExpireTime())
+                .remainingSeconds(remainingSeconds(groupOrder))
+                .completeTime(groupOrder.getCompleteTime())
+                .initiatorUserId(groupOrder.getInitiatorUserId())
+                .initiatorNickname(initiator != null ? initiator.getNickname() : null)
+                .initiatorAvatar(initiator != null ? initiator.getAvatarUrl() : null)
+                .isInitiator(groupOrder.getInitiatorUserId().equals(userId))
+                .hasJoined(hasJoined)
+                .participants(participantItems)
+                .createdAt(groupOrder.getCreatedAt())
+                .build();
+    }
+
+    private GroupListResponse.GroupItem toItem(GroupOrder groupOrder, Activity activity, Merchant merchant,
+                                               Long userId) {
+        BigDecimal groupPrice = BigDecimal.ZERO;
+        if (activity != null && activity.getConfig() != null) {
+            groupPrice = extractDecimal(activity.getConfig(), "group_price");
+        }
+
+        return GroupListResponse.GroupItem.builder()
+                .groupOrderId(groupOrder.getGroupOrderId())
+                .groupNo(groupOrder.getGroupNo())
+                .activityId(groupOrder.getActivityId())
+                .activityName(activity != null ? activity.getActivityName() : null)
+                .coverImage(activity != null ? activity.getCoverImage() : null)
+                .merchantName(merchant != null ? merchant.getMerchantName() : null)
+                .groupPrice(groupPrice)
+                .requiredMembers(groupOrder.getRequiredMembers())
+                .currentMembers(groupOrder.getCurrentMembers())
+                .status(groupOrder.getStatus())
+                .statusName(getStatusName(groupOrder.getStatus()))
+                .isInitiator(groupOrder.getInitiatorUserId().equals(userId))
+                .expireTime(groupOrder.getExpireTime())
+                .remainingSeconds(remainingSeconds(groupOrder))
+                .createdAt(groupOrder.getCreatedAt())
+                .build();
+    }
+
+    private long remainingSeconds(GroupOrder groupOrder) {
+        LocalDateTime now = LocalDateTime.now();
+        if (groupOrder.getStatus() == GroupOrder.STATUS_PENDING &&
+            groupOrder.getExpireTime().isAfter(now)) {
+            return Duration.between(now, groupOrder.getExpireTime()).getSeconds();
+        }
+        return 0;
+    }
+
+    private String getStatusName(Integer status) {
+        if (status == null) return "未知";
+        return switch (status) {
+            case GroupOrder.STATUS_PENDING -> "拼团中";
+            case GroupOrder.STATUS_SUCCESS -> "已成团";
+            case GroupOrder.STATUS_FAILED -> "拼团失败";
+            case GroupOrder.STATUS_CANCELLED -> "已取消";
+            default -> "未知";
+        };
+    }
+
+    static BigDecimal extractDecimal(String json, String key) {
+        if (json == null) return BigDecimal.ZERO;
+        int keyIndex = json.indexOf("\"" + key + "\"");
+        if (keyIndex < 0) {
+            keyIndex = json.indexOf(key);
+        }
+        if (keyIndex < 0) return BigDecimal.ZERO;
+
+        int colonIndex = json.indexOf(":", keyIndex);
+        if (colonIndex < 0) return BigDecimal.ZERO;
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = colonIndex + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (Character.isDigit(c) || c == '.') {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                break;
+            }
+        }
+
+        return sb.length() > 0 ? new BigDecimal(sb.toString()) : BigDecimal.ZERO;
+    }
+}
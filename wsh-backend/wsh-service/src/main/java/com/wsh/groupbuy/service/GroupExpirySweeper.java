@@ -0,0 +1,72 @@
+package com.wsh.groupbuy.service;
+
+import com.wsh.common.mybatis.sweep.ExpirySweeper;
+import com.wsh.domain.entity.GroupOrder;
+import com.wsh.domain.mapper.GroupOrderMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 超时拼团清扫器
+ * 每批先锁定仍为拼团中的记录，再一次 UPDATE 标记失败，提交后只对本次标记的记录释放库存并处理退款
+ */
+@Component
+public class GroupExpirySweeper extends ExpirySweeper<GroupOrder> {
+
+    private final GroupOrderMapper groupOrderMapper;
+    private final GroupBuyService groupBuyService;
+
+    public GroupExpirySweeper(PlatformTransactionManager transactionManager,
+                              GroupOrderMapper groupOrderMapper,
+                              GroupBuyService groupBuyService) {
+        super(transactionManager);
+        this.groupOrderMapper = groupOrderMapper;
+        this.groupBuyService = groupBuyService;
+    }
+
+    @Override
+    protected String name() {
+        return "group-expire";
+    }
+
+    @Override
+    protected int batchSize() {
+        return 100;
+    }
+
+    @Override
+    protected List<GroupOrder> fetchBatch(LocalDateTime now, Long afterId, int limit) {
+        return groupOrderMapper.selectExpiredBatch(now, afterId, limit);
+    }
+
+    @Override
+    protected Long idOf(GroupOrder groupOrder) {
+        return groupOrder.getGroupOrderId();
+    }
+
+    @Override
+    protected List<GroupOrder> expireBatch(List<GroupOrder> batch, LocalDateTime now) {
+        List<Long> groupOrderIds = batch.stream().map(GroupOrder::getGroupOrderId).collect(Collectors.toList());
+        // 先锁定仍为拼团中的记录：并发成团/取消或另一次清扫改过的记录不会被锁定，也就不会被重复结算
+        Set<Long> lockedIds = new HashSet<>(groupOrderMapper.lockPendingIds(groupOrderIds, now));
+        if (lockedIds.isEmpty()) {
+            return List.of();
+        }
+        groupOrderMapper.failPendingByIds(new ArrayList<>(lockedIds), now);
+        return batch.stream()
+                .filter(g -> lockedIds.contains(g.getGroupOrderId()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void afterCommit(List<GroupOrder> expired) {
+        groupBuyService.settleFailedGroups(expired);
+    }
+}
@@ -0,0 +1,49 @@
+package com.wsh.groupbuy.service;
+
+import com.wsh.domain.entity.GroupOrder;
+import com.wsh.domain.mapper.GroupOrderMapper;
+import com.wsh.timeout.TimeoutHandler;
+import com.wsh.timeout.TimeoutType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 拼团到期处理：复用 GroupExpirySweeper 的条件更新、库存释放与退款
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupTimeoutHandler implements TimeoutHandler {
+
+    private final GroupOrderMapper groupOrderMapper;
+    private final GroupExpirySweeper groupExpirySweeper;
+
+    @Override
+    public TimeoutType type() {
+        return TimeoutType.GROUP;
+    }
+
+    @Override
+    public Map<Long, LocalDateTime> onTimeout(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        List<GroupOrder> due = new ArrayList<>();
+        Map<Long, LocalDateTime> notDue = new HashMap<>();
+        for (GroupOrder groupOrder : groupOrderMapper.selectBatchIds(ids)) {
+            if (groupOrder.getStatus() != GroupOrder.STATUS_PENDING) {
+                continue;
+            }
+            if (groupOrder.getExpireTime().isAfter(now)) {
+                notDue.put(groupOrder.getGroupOrderId(), groupOrder.getExpireTime());
+            } else {
+                due.add(groupOrder);
+            }
+        }
+        groupExpirySweeper.expireNow(due);
+        return notDue;
+    }
+}
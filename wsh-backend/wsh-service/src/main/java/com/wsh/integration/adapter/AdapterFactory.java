@@ -37,7 +37,13 @@ public class AdapterFactory {
             log.warn("商户不存在: merchantId={}, 使用手动适配器", merchantId);
             return getAdapterByType(Constants.SYNC_SOURCE_MANUAL);
         }
+        return getAdapter(merchant);
+    }
 
+    /**
+     * 根据已加载的商户获取对应的数据适配器（批量场景避免逐个查询商户）
+     */
+    public MerchantDataAdapter getAdapter(Merchant merchant) {
         Integer integrationType = merchant.getIntegrationType();
         String type;
         if (integrationType != null && integrationType == 1) {
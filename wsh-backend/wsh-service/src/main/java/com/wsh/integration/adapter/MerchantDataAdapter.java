@@ -4,8 +4,10 @@ import com.wsh.integration.adapter.dto.ActivityDTO;
 import com.wsh.integration.adapter.dto.ConsumeRecordDTO;
 import com.wsh.integration.adapter.dto.MemberDataDTO;
 import com.wsh.integration.adapter.dto.MemberMatchResult;
+import com.wsh.integration.adapter.dto.MerchantChangePage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 商户数据适配器统一接口
@@ -28,6 +30,25 @@ public interface MerchantDataAdapter {
      */
     List<ConsumeRecordDTO> syncConsumeRecords(Long userId, Long merchantId);
 
+    /**
+     * 是否支持增量同步（支持时定时同步按商户拉取变更，不再逐个会员全量同步）
+     */
+    default boolean supportsIncremental() {
+        return false;
+    }
+
+    /**
+     * 增量同步：拉取商户系统自游标之后的会员及消费记录变更
+     * 同一游标重复拉取应返回相同变更（平台按游标断点续传，写入幂等）
+     *
+     * @param merchantId 商户ID
+     * @param cursor     上一页返回的 nextCursor，为空表示从头开始
+     * @return 变更分页，不支持增量同步时返回 null
+     */
+    default MerchantChangePage changesSince(Long merchantId, String cursor) {
+        return null;
+    }
+
     /**
      * 同步商户活动（包含活动的目标会员类型）
      */
@@ -49,4 +70,16 @@ public interface MerchantDataAdapter {
     default boolean notifyVerification(Long merchantId, String voucherCode, java.time.LocalDateTime verifyTime) {
         return true;
     }
+
+    /**
+     * 导出商户全部会员手机号（用于构建会员手机号预过滤器）
+     * 必须导出完整名单，否则未导出的会员会被预过滤器排除而无法匹配
+     *
+     * @param merchantId 商户ID
+     * @param sink       逐个接收手机号
+     * @return false=不支持导出（该商户不建预过滤器，匹配时总是调用适配器）
+     */
+    default boolean exportMemberPhones(Long merchantId, Consumer<String> sink) {
+        return false;
+    }
 }
@@ -0,0 +1,26 @@
+package com.wsh.integration.adapter.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 商户系统的单个会员变更（增量同步）
+ */
+@Data
+@Builder
+public class MemberChangeDTO {
+
+    /** 商户系统内会员ID */
+    private String sourceMemberId;
+
+    /** 会员手机号（按会员ID未找到快照时用于定位平台用户，可为空） */
+    private String phone;
+
+    /** 变更后的会员数据，为空表示会员数据未变 */
+    private MemberDataDTO memberData;
+
+    /** 新增的消费记录 */
+    private List<ConsumeRecordDTO> consumeRecords;
+}
@@ -0,0 +1,23 @@
+package com.wsh.integration.adapter.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 商户系统增量变更分页结果
+ */
+@Data
+@Builder
+public class MerchantChangePage {
+
+    /** 本页会员变更 */
+    private List<MemberChangeDTO> changes;
+
+    /** 下一页游标，本页处理完成后作为商户水位保存 */
+    private String nextCursor;
+
+    /** 是否还有更多变更 */
+    private boolean hasMore;
+}
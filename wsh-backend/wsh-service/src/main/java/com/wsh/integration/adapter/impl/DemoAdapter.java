@@ -8,8 +8,10 @@ import com.wsh.domain.mapper.UserMapper;
 import com.wsh.integration.adapter.MerchantDataAdapter;
 import com.wsh.integration.adapter.dto.ActivityDTO;
 import com.wsh.integration.adapter.dto.ConsumeRecordDTO;
+import com.wsh.integration.adapter.dto.MemberChangeDTO;
 import com.wsh.integration.adapter.dto.MemberDataDTO;
 import com.wsh.integration.adapter.dto.MemberMatchResult;
+import com.wsh.integration.adapter.dto.MerchantChangePage;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Demo 模式适配器（本地开发 / 演示环境使用）
@@ -40,6 +43,12 @@ public class DemoAdapter implements MerchantDataAdapter {
             "13800138001", "13800138002", "13800138003"
     );
 
+    /** 增量同步游标前缀，游标为已读取的变更条数 */
+    private static final String CHANGE_CURSOR_PREFIX = "demo:";
+
+    /** 增量同步每页变更数 */
+    private static final int CHANGE_PAGE_SIZE = 2;
+
     @Override
     public MemberMatchResult matchMemberByPhone(String phone, Long merchantId) {
         log.info("Demo模式: 匹配商户{}会员, phone={}", merchantId, phone);
@@ -178,6 +187,44 @@ public class DemoAdapter implements MerchantDataAdapter {
         return records;
     }
 
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    /**
+     * 模拟变更日志：每个测试手机号各产生一条会员变更（含消费记录），按顺序分页读取
+     */
+    @Override
+    public MerchantChangePage changesSince(Long merchantId, String cursor) {
+        int offset = 0;
+        if (cursor != null && cursor.startsWith(CHANGE_CURSOR_PREFIX)) {
+            offset = Math.min(Integer.parseInt(cursor.substring(CHANGE_CURSOR_PREFIX.length())), DEMO_PHONES.size());
+        }
+        int end = Math.min(offset + CHANGE_PAGE_SIZE, DEMO_PHONES.size());
+        log.info("Demo模式: 拉取商户{}增量变更, cursor={}, 条数={}", merchantId, cursor, end - offset);
+
+        List<MemberChangeDTO> changes = new ArrayList<>();
+        for (String phone : DEMO_PHONES.subList(offset, end)) {
+            MemberMatchResult result = matchMemberByPhone(phone, merchantId);
+            User user = userMapper.selectOne(
+                    new LambdaQueryWrapper<User>().eq(User::getPhone, phone));
+            changes.add(MemberChangeDTO.builder()
+                    .sourceMemberId(result.getSourceMemberId())
+                    .phone(phone)
+                    .memberData(result.getMemberData())
+                    .consumeRecords(user != null
+                            ? syncConsumeRecords(user.getUserId(), merchantId)
+                            : Collections.emptyList())
+                    .build());
+        }
+        return MerchantChangePage.builder()
+                .changes(changes)
+                .nextCursor(CHANGE_CURSOR_PREFIX + end)
+                .hasMore(end < DEMO_PHONES.size())
+                .build();
+    }
+
     @Override
     public List<ActivityDTO> syncActivities(Long merchantId) {
         log.info("Demo模式: 同步商户{}活动列表", merchantId);
@@ -220,6 +267,12 @@ public class DemoAdapter implements MerchantDataAdapter {
         return activities;
     }
 
+    @Override
+    public boolean exportMemberPhones(Long merchantId, Consumer<String> sink) {
+        DEMO_PHONES.forEach(sink);
+        return true;
+    }
+
     @Override
     public String getType() {
         return Constants.SYNC_SOURCE_DEMO;
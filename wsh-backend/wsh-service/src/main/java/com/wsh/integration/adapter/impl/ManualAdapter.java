@@ -6,11 +6,13 @@ import com.wsh.integration.adapter.dto.ActivityDTO;
 import com.wsh.integration.adapter.dto.ConsumeRecordDTO;
 import com.wsh.integration.adapter.dto.MemberDataDTO;
 import com.wsh.integration.adapter.dto.MemberMatchResult;
+import com.wsh.integration.adapter.dto.MerchantChangePage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 手动模式适配器
@@ -42,12 +44,33 @@ public class ManualAdapter implements MerchantDataAdapter {
         return Collections.emptyList();
     }
 
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    @Override
+    public MerchantChangePage changesSince(Long merchantId, String cursor) {
+        // 手动模式数据由商户后台录入，商户系统侧没有变更，水位保持不变
+        return MerchantChangePage.builder()
+                .changes(Collections.emptyList())
+                .nextCursor(cursor)
+                .hasMore(false)
+                .build();
+    }
+
     @Override
     public List<ActivityDTO> syncActivities(Long merchantId) {
         log.debug("手动模式: 商户{}暂不支持自动同步活动, 活动需手动创建", merchantId);
         return Collections.emptyList();
     }
 
+    @Override
+    public boolean exportMemberPhones(Long merchantId, Consumer<String> sink) {
+        // 手动模式不支持自动匹配，会员名单为空，匹配时可直接跳过
+        return true;
+    }
+
     @Override
     public String getType() {
         return Constants.SYNC_SOURCE_MANUAL;
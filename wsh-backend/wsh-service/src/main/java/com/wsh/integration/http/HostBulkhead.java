@@ -0,0 +1,76 @@
+package com.wsh.integration.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个目标主机的并发名额（限制到该主机的同时在途请求数，即连接数上限）
+ * 指标：在途请求数、饱和度（在途 / 上限）、等待名额耗时、等待超时被拒绝次数
+ */
+class HostBulkhead {
+
+    private final String host;
+    private final int limit;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final Timer acquireTimer;
+    private final Counter rejectedCounter;
+
+    HostBulkhead(String host, int limit, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.host = host;
+        this.limit = limit;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(limit);
+        this.acquireTimer = Timer.builder("wsh.http.client.acquire")
+                .description("等待目标主机并发名额的耗时")
+                .tag("host", host)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("wsh.http.client.rejected")
+                .description("等待并发名额超时被拒绝的请求数")
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder("wsh.http.client.in_flight", this, HostBulkhead::inFlight)
+                .description("到目标主机的在途请求数")
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder("wsh.http.client.saturation", this, bulkhead -> bulkhead.inFlight() / bulkhead.limit)
+                .description("目标主机并发名额使用率")
+                .tag("host", host)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取名额，等待超时抛出 IOException
+     */
+    void acquire() throws IOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待出站连接被中断: host=" + host);
+        }
+        acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new IOException("出站连接已满: host=" + host + ", limit=" + limit);
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    private double inFlight() {
+        return limit - permits.availablePermits();
+    }
+}
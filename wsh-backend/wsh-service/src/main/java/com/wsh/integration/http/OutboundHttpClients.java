@@ -0,0 +1,77 @@
+package com.wsh.integration.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 出站 HTTP 客户端（微信、AI 模型等外部调用统一使用）
+ * 1. 所有调用方共用一个 JDK HttpClient：连接保持复用（keep-alive），HTTPS 下协商 HTTP/2
+ * 2. 每个目标主机限制最大并发请求数（JDK 连接池本身不限连接数，由并发名额封顶），名额已满时限时等待
+ * 3. 建连与读取超时可配置，读取超时可按调用方覆盖
+ * 4. 连接失败与幂等请求的临时失败按指数退避重试，按调用方与主机输出延迟直方图、并发饱和度等指标
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboundHttpClients {
+
+    /** 调用方：微信服务端接口 */
+    public static final String WECHAT = "wechat";
+
+    /** 调用方：AI 模型接口 */
+    public static final String AI_MODEL = "ai-model";
+
+    private final OutboundHttpProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /** 调用方名称 -> RestClient */
+    private final Map<String, RestClient> clients = new ConcurrentHashMap<>();
+
+    /** 目标主机 -> 并发名额（跨调用方共享） */
+    private final Map<String, HostBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        log.info("出站 HTTP 客户端已初始化: connectTimeout={}, readTimeout={}, maxConcurrentPerHost={}",
+                properties.getConnectTimeout(), properties.getReadTimeout(), properties.getMaxConcurrentPerHost());
+    }
+
+    /**
+     * 获取指定调用方的 RestClient（按名称缓存，区分读取超时与指标）
+     */
+    public RestClient client(String destination) {
+        return clients.computeIfAbsent(destination, this::createClient);
+    }
+
+    private RestClient createClient(String destination) {
+        Duration readTimeout = properties.getReadTimeouts().getOrDefault(destination, properties.getReadTimeout());
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return RestClient.builder()
+                .requestFactory(requestFactory)
+                .requestInterceptor(new OutboundHttpInterceptor(destination, properties, meterRegistry, this::bulkhead))
+                .build();
+    }
+
+    private HostBulkhead bulkhead(String host) {
+        return bulkheads.computeIfAbsent(host, h -> new HostBulkhead(h, properties.getMaxConcurrentPerHost(),
+                properties.getAcquireTimeout(), meterRegistry));
+    }
+}
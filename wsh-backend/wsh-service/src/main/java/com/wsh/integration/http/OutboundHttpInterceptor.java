@@ -0,0 +1,127 @@
+package com.wsh.integration.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 出站请求拦截器：主机并发名额 + 重试 + 指标
+ * 重试策略：
+ *   1. 连接失败（请求未发出）任何方法都重试
+ *   2. 读超时、连接中断及 502/503/504 仅对幂等方法重试（POST 可能已被对方处理，如重复下发消息）
+ * 指标：wsh.http.client.requests（按调用方/主机/方法/结果，含延迟直方图）、wsh.http.client.retries
+ * 必须是 RestClient 上唯一的拦截器：重试时再次调用 execution 直接发出请求
+ */
+@Slf4j
+class OutboundHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(502, 503, 504);
+
+    private final String destination;
+    private final OutboundHttpProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Function<String, HostBulkhead> bulkheads;
+
+    OutboundHttpInterceptor(String destination, OutboundHttpProperties properties,
+                            MeterRegistry meterRegistry, Function<String, HostBulkhead> bulkheads) {
+        this.destination = destination;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        String host = request.getURI().getHost();
+        HostBulkhead bulkhead = bulkheads.apply(host);
+        bulkhead.acquire();
+        try {
+            return new PermitReleasingResponse(executeWithRetry(request, body, execution, host), bulkhead);
+        } catch (IOException | RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    private ClientHttpResponse executeWithRetry(HttpRequest request, byte[] body,
+                                                ClientHttpRequestExecution execution, String host) throws IOException {
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.getMethod());
+        for (int attempt = 0; ; attempt++) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                int status = response.getStatusCode().value();
+                sample.stop(requestTimer(request, host, String.valueOf(status)));
+                if (idempotent && attempt < properties.getMaxRetries() && RETRYABLE_STATUS.contains(status)) {
+                    response.close();
+                    backoff(attempt, host, "HTTP " + status);
+                    continue;
+                }
+                return response;
+            } catch (IOException e) {
+                sample.stop(requestTimer(request, host, "IO_ERROR"));
+                if (attempt >= properties.getMaxRetries() || !(idempotent || isConnectFailure(e))) {
+                    throw e;
+                }
+                backoff(attempt, host, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private void backoff(int attempt, String host, String reason) throws IOException {
+        Counter.builder("wsh.http.client.retries")
+                .tag("destination", destination)
+                .tag("host", host)
+                .register(meterRegistry)
+                .increment();
+        long waitMillis = properties.getRetryBackoff().toMillis() << attempt;
+        log.warn("出站请求重试: destination={}, host={}, 第{}次, 原因={}, 等待{}ms",
+                destination, host, attempt + 1, reason, waitMillis);
+        try {
+            Thread.sleep(waitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("出站请求重试等待被中断: host=" + host);
+        }
+    }
+
+    private Timer requestTimer(HttpRequest request, String host, String outcome) {
+        return Timer.builder("wsh.http.client.requests")
+                .description("出站 HTTP 请求耗时（至收到响应头）")
+                .tag("destination", destination)
+                .tag("host", host)
+                .tag("method", request.getMethod().name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 连接阶段失败（请求尚未发出），重试不会造成重复处理
+     */
+    private static boolean isConnectFailure(IOException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wsh.integration.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 出站 HTTP 调用配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wsh.http")
+public class OutboundHttpProperties {
+
+    /** 建立连接超时 */
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    /** 默认读取超时 */
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /** 按调用方覆盖读取超时（调用方名称 -> 超时），如 AI 模型生成较慢 */
+    private Map<String, Duration> readTimeouts = new HashMap<>();
+
+    /** 每个目标主机的最大并发请求数（即最大连接数） */
+    private int maxConcurrentPerHost = 64;
+
+    /** 并发已满时等待空闲名额的最长时间 */
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+
+    /** 失败后最多重试次数 */
+    private int maxRetries = 2;
+
+    /** 首次重试等待，之后每次翻倍 */
+    private Duration retryBackoff = Duration.ofMillis(200);
+}
@@ -1,14 +1,16 @@
 package com.wsh.integration.wechat;
 
-import cn.hutool.http.HttpUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.wsh.common.core.exception.BusinessException;
+import com.wsh.integration.http.OutboundHttpClients;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.HashMap;
+import java.net.URI;
 import java.util.Map;
 
 /**
@@ -22,7 +24,18 @@ public class WechatApiClient {
     private static final String CODE2SESSION_URL = "https://api.weixin.qq.com/sns/jscode2session";
     private static final String GET_PHONE_URL = "https://api.weixin.qq.com/wxa/business/getuserphonenumber";
 
+    /** 系统繁忙 */
+    public static final int ERRCODE_SYSTEM_BUSY = -1;
+    /** access_token 无效 */
+    public static final int ERRCODE_TOKEN_INVALID = 40001;
+    /** access_token 已过期 */
+    public static final int ERRCODE_TOKEN_EXPIRED = 42001;
+    /** 接口分钟调用频率超限 */
+    public static final int ERRCODE_MINUTE_QUOTA = 45011;
+
     private final WechatProperties wechatProperties;
+    private final WechatCredentialManager credentialManager;
+    private final OutboundHttpClients httpClients;
 
     /**
      * 调用 code2Session 接口，用 wx.login() 获得的 code 换取 openid + session_key
@@ -31,13 +44,19 @@ public class WechatApiClient {
      * @return JSONObject 包含 openid, session_key, unionid(可选), errcode, errmsg
      */
     public JSONObject code2Session(String code) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("appid", wechatProperties.getAppId());
-        params.put("secret", wechatProperties.getAppSecret());
-        params.put("js_code", code);
-        params.put("grant_type", "authorization_code");
-
-        String response = HttpUtil.get(CODE2SESSION_URL, params);
+        URI uri = UriComponentsBuilder.fromHttpUrl(CODE2SESSION_URL)
+                .queryParam("appid", wechatProperties.getAppId())
+                .queryParam("secret", wechatProperties.getAppSecret())
+                .queryParam("js_code", code)
+                .queryParam("grant_type", "authorization_code")
+                .build()
+                .encode()
+                .toUri();
+
+        String response = httpClients.client(OutboundHttpClients.WECHAT).get()
+                .uri(uri)
+                .retrieve()
+                .body(String.class);
         log.debug("code2Session response: {}", response);
 
         JSONObject json = JSONUtil.parseObj(response);
@@ -63,13 +82,16 @@ public class WechatApiClient {
         JSONObject body = new JSONObject();
         body.set("code", phoneCode);
 
-        String response = HttpUtil.post(url, body.toString());
+        String response = post(url, body);
         log.debug("getPhoneNumber response: {}", response);
 
         JSONObject json = JSONUtil.parseObj(response);
         int errCode = json.getInt("errcode", 0);
         if (errCode != 0) {
             log.error("getPhoneNumber failed: errcode={}, errmsg={}", errCode, json.getStr("errmsg"));
+            if (isTokenError(errCode)) {
+                invalidateAccessToken(accessToken);
+            }
             throw new BusinessException(400, "获取手机号失败：" + json.getStr("errmsg"));
         }
 
@@ -78,32 +100,22 @@ public class WechatApiClient {
     }
 
     /**
-     * 获取接口调用凭证 access_token（稳定版）
-     * 实际生产中应使用 Redis 缓存，避免频繁调用
+     * 获取接口调用凭证 access_token
+     * 集群共用缓存，到期前提前刷新，正常情况下不会请求微信
      */
     public String getAccessToken() {
-        String url = "https://api.weixin.qq.com/cgi-bin/stable_token";
-
-        JSONObject body = new JSONObject();
-        body.set("grant_type", "client_credential");
-        body.set("appid", wechatProperties.getAppId());
-        body.set("secret", wechatProperties.getAppSecret());
-
-        String response = HttpUtil.post(url, body.toString());
-        log.debug("getAccessToken response: {}", response);
-
-        JSONObject json = JSONUtil.parseObj(response);
-        int errCode = json.getInt("errcode", 0);
-        if (errCode != 0) {
-            log.error("getAccessToken failed: errcode={}, errmsg={}", errCode, json.getStr("errmsg"));
-            throw new BusinessException(500, "获取access_token失败");
-        }
+        return credentialManager.get(accessTokenName(), this::fetchAccessToken);
+    }
 
-        return json.getStr("access_token");
+    /**
+     * 微信返回 access_token 失效时清除缓存，下次获取时重新请求
+     */
+    public void invalidateAccessToken(String accessToken) {
+        credentialManager.invalidate(accessTokenName(), accessToken);
     }
 
     /**
-     * 发送订阅消息
+     * 发送订阅消息（access_token 失效时重新获取并重试一次）
      * 文档：https://developers.weixin.qq.com/miniprogram/dev/OpenApiDoc/mp-message-management/subscribe-message/sendMessage.html
      *
      * @param toOpenid   接收者 openid
@@ -113,7 +125,21 @@ public class WechatApiClient {
      * @return 是否发送成功
      */
     public boolean sendSubscribeMessage(String toOpenid, String templateId, String page, Map<String, Object> data) {
-        String accessToken = getAccessToken();
+        int errCode = sendSubscribeMessage(getAccessToken(), toOpenid, templateId, page, data);
+        if (isTokenError(errCode)) {
+            // 凭证已被清除，重新获取后重试一次
+            errCode = sendSubscribeMessage(getAccessToken(), toOpenid, templateId, page, data);
+        }
+        return errCode == 0;
+    }
+
+    /**
+     * 使用调用方已获取的 access_token 发送订阅消息，凭证失效时清除缓存由调用方决定是否重试
+     *
+     * @return 微信返回的 errcode，0 表示成功
+     */
+    public int sendSubscribeMessage(String accessToken, String toOpenid, String templateId,
+                                    String page, Map<String, Object> data) {
         String url = "https://api.weixin.qq.com/cgi-bin/message/subscribe/send?access_token=" + accessToken;
 
         JSONObject body = new JSONObject();
@@ -125,15 +151,66 @@ public class WechatApiClient {
         body.set("data", data);
         body.set("miniprogram_state", "formal"); // 正式版
 
-        String response = HttpUtil.post(url, body.toString());
+        String response = post(url, body);
         log.debug("sendSubscribeMessage response: {}", response);
 
         JSONObject json = JSONUtil.parseObj(response);
         int errCode = json.getInt("errcode", 0);
         if (errCode != 0) {
             log.warn("sendSubscribeMessage failed: errcode={}, errmsg={}", errCode, json.getStr("errmsg"));
-            return false;
+            if (isTokenError(errCode)) {
+                invalidateAccessToken(accessToken);
+            }
         }
-        return true;
+        return errCode;
+    }
+
+    /**
+     * 调用 stable_token 接口获取 access_token（普通模式，有效期内重复调用返回同一凭证）
+     */
+    private WechatCredential fetchAccessToken() {
+        JSONObject body = new JSONObject();
+        body.set("grant_type", "client_credential");
+        body.set("appid", wechatProperties.getAppId());
+        body.set("secret", wechatProperties.getAppSecret());
+
+        String response = post(wechatProperties.getTokenUrl(), body);
+        log.debug("getAccessToken response: {}", response);
+
+        JSONObject json = JSONUtil.parseObj(response);
+        int errCode = json.getInt("errcode", 0);
+        if (errCode != 0) {
+            log.error("getAccessToken failed: errcode={}, errmsg={}", errCode, json.getStr("errmsg"));
+            throw new BusinessException(500, "获取access_token失败");
+        }
+
+        return WechatCredential.of(json.getStr("access_token"), json.getLong("expires_in", 7200L));
+    }
+
+    private String post(String url, JSONObject body) {
+        return httpClients.client(OutboundHttpClients.WECHAT).post()
+                .uri(URI.create(url))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.toString())
+                .retrieve()
+                .body(String.class);
+    }
+
+    private String accessTokenName() {
+        return "access_token:" + wechatProperties.getAppId();
+    }
+
+    /**
+     * access_token 无效或已过期，需重新获取后重试
+     */
+    public static boolean isTokenError(int errCode) {
+        return errCode == ERRCODE_TOKEN_INVALID || errCode == ERRCODE_TOKEN_EXPIRED;
+    }
+
+    /**
+     * 可稍后重试的临时错误（系统繁忙、分钟频率超限）
+     */
+    public static boolean isTransientError(int errCode) {
+        return errCode == ERRCODE_SYSTEM_BUSY || errCode == ERRCODE_MINUTE_QUOTA;
     }
 }
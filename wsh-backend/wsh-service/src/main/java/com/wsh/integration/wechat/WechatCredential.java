@@ -0,0 +1,37 @@
+package com.wsh.integration.wechat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微信凭证（接口调用凭证 access_token、支付平台证书等）及其过期时间
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WechatCredential {
+
+    /** 凭证内容 */
+    private String value;
+
+    /** 过期时间（epoch 毫秒） */
+    private long expiresAt;
+
+    /**
+     * @param value      凭证内容
+     * @param ttlSeconds 有效期（秒），如 access_token 接口返回的 expires_in
+     */
+    public static WechatCredential of(String value, long ttlSeconds) {
+        return new WechatCredential(value, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * 在 now 之后 marginMillis 毫秒内是否过期（marginMillis = 0 即当前是否已过期）
+     */
+    public boolean expiresWithin(long now, long marginMillis) {
+        return expiresAt - now <= marginMillis;
+    }
+}
@@ -0,0 +1,162 @@
+package com.wsh.integration.wechat;
+
+import com.wsh.common.redis.util.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 微信凭证缓存管理
+ * 1. 凭证按名称缓存在本地与 Redis，集群共用同一份，避免每次调用都请求微信
+ * 2. 到期前 5 分钟内提前刷新：本节点只有一个线程刷新，集群内由持有刷新租约的节点刷新，其余继续使用旧凭证
+ * 3. 凭证已过期且未抢到租约时，等待持有租约的节点写入新凭证，超时后自行获取
+ * 4. 微信返回凭证失效的 errcode 时由调用方 {@link #invalidate} 清除，下次使用时重新获取
+ * 凭证的获取方式由调用方传入，access_token 之外的凭证（如支付平台证书）同样适用
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WechatCredentialManager {
+
+    private static final String CACHE_PREFIX = "wechat:credential:";
+    private static final String LEASE_PREFIX = "lock:wechat:credential:";
+
+    /** 到期前提前刷新的时间窗口（毫秒） */
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** 刷新租约有效期（秒） */
+    private static final long LEASE_SECONDS = 10;
+
+    /** 等待其他节点刷新的最长时间与轮询间隔（毫秒） */
+    private static final long WAIT_REFRESH_MILLIS = 3000;
+    private static final long WAIT_INTERVAL_MILLIS = 100;
+
+    private final RedisUtil redisUtil;
+
+    /** 凭证名称 -> 本地缓存 */
+    private final Map<String, WechatCredential> localCache = new ConcurrentHashMap<>();
+
+    /** 凭证名称 -> 本节点刷新锁 */
+    private final Map<String, ReentrantLock> refreshLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 获取凭证，缓存缺失或即将过期时通过 loader 获取
+     *
+     * @param name   凭证名称（同一名称集群内共用）
+     * @param loader 向微信获取新凭证
+     * @return 凭证内容
+     */
+    public String get(String name, Supplier<WechatCredential> loader) {
+        long now = System.currentTimeMillis();
+        WechatCredential current = localCache.get(name);
+        if (current != null && !current.expiresWithin(now, REFRESH_AHEAD_MILLIS)) {
+            return current.getValue();
+        }
+
+        ReentrantLock lock = refreshLocks.computeIfAbsent(name, k -> new ReentrantLock());
+        if (current != null && !current.expiresWithin(now, 0)) {
+            // 仍然有效：只由一个线程刷新，其余线程继续使用当前凭证
+            if (!lock.tryLock()) {
+                return current.getValue();
+            }
+        } else {
+            lock.lock();
+        }
+        try {
+            return refresh(name, loader).getValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清除已失效的凭证（仅当缓存中仍是该值时清除，避免误删其他线程刚刷新的凭证）
+     */
+    public void invalidate(String name, String staleValue) {
+        localCache.computeIfPresent(name, (k, cached) -> staleValue.equals(cached.getValue()) ? null : cached);
+        WechatCredential shared = redisUtil.get(CACHE_PREFIX + name);
+        // 比较并删除：读取后其他节点刚写入的新凭证不会被删除
+        if (shared != null && staleValue.equals(shared.getValue())
+                && Boolean.TRUE.equals(redisUtil.compareAndDelete(CACHE_PREFIX + name, shared))) {
+            log.info("微信凭证已失效并清除: name={}", name);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private WechatCredential refresh(String name, Supplier<WechatCredential> loader) {
+        long now = System.currentTimeMillis();
+        WechatCredential local = localCache.get(name);
+        if (local != null && !local.expiresWithin(now, REFRESH_AHEAD_MILLIS)) {
+            return local;
+        }
+        WechatCredential shared = loadShared(name, now);
+        if (shared != null) {
+            return shared;
+        }
+
+        String leaseKey = LEASE_PREFIX + name;
+        String leaseValue = UUID.randomUUID().toString();
+        if (Boolean.TRUE.equals(redisUtil.tryLock(leaseKey, leaseValue, LEASE_SECONDS, TimeUnit.SECONDS))) {
+            try {
+                // 抢到租约前其他节点可能刚刷新完成
+                shared = loadShared(name, System.currentTimeMillis());
+                return shared != null ? shared : store(name, loader.get());
+            } finally {
+                redisUtil.releaseLock(leaseKey, leaseValue);
+            }
+        }
+
+        // 其他节点正在刷新：旧凭证仍有效则继续使用，否则等待新凭证写入
+        WechatCredential stale = redisUtil.get(CACHE_PREFIX + name);
+        if (stale != null && !stale.expiresWithin(now, 0)) {
+            localCache.put(name, stale);
+            return stale;
+        }
+        long deadline = now + WAIT_REFRESH_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(WAIT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            WechatCredential refreshed = redisUtil.get(CACHE_PREFIX + name);
+            if (refreshed != null && !refreshed.expiresWithin(System.currentTimeMillis(), 0)) {
+                localCache.put(name, refreshed);
+                return refreshed;
+            }
+        }
+        log.warn("等待微信凭证刷新超时，直接获取: name={}", name);
+        return store(name, loader.get());
+    }
+
+    /**
+     * 读取 Redis 中未进入提前刷新窗口的凭证
+     */
+    private WechatCredential loadShared(String name, long now) {
+        WechatCredential shared = redisUtil.get(CACHE_PREFIX + name);
+        if (shared == null || shared.expiresWithin(now, REFRESH_AHEAD_MILLIS)) {
+            return null;
+        }
+        localCache.put(name, shared);
+        return shared;
+    }
+
+    private WechatCredential store(String name, WechatCredential credential) {
+        long ttlMillis = credential.getExpiresAt() - System.currentTimeMillis();
+        if (ttlMillis > 0) {
+            redisUtil.set(CACHE_PREFIX + name, credential, ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        localCache.put(name, credential);
+        log.info("微信凭证已刷新: name={}, 有效期={}s", name, TimeUnit.MILLISECONDS.toSeconds(ttlMillis));
+        return credential;
+    }
+}
@@ -18,6 +18,9 @@ public class WechatProperties {
     /** 小程序 AppSecret */
     private String appSecret;
 
+    /** access_token 获取地址（稳定版接口，本地环境指向桩接口） */
+    private String tokenUrl = "https://api.weixin.qq.com/cgi-bin/stable_token";
+
     /** 微信支付商户号 */
     private String mchId;
 
@@ -1,5 +1,6 @@
 package com.wsh.matching.controller;
 
+import com.wsh.common.core.exception.BusinessException;
 import com.wsh.common.core.result.R;
 import com.wsh.common.security.util.SecurityUtil;
 import com.wsh.domain.entity.Activity;
@@ -17,12 +18,18 @@ import com.wsh.matching.service.MemberMatchingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
 
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Tag(name = "03-会员匹配")
 @RestController
 @RequestMapping("/v1/matching")
@@ -35,6 +42,9 @@ public class MatchingController {
     private final MerchantMapper merchantMapper;
     private final UserMapper userMapper;
 
+    /** 流式匹配连接超时（毫秒），覆盖最慢的适配器超时 */
+    private static final long MATCH_STREAM_TIMEOUT_MILLIS = 30_000L;
+
     @Operation(summary = "触发会员匹配", description = "用当前用户手机号去所有商户系统匹配会员身份")
     @PostMapping("/trigger")
     public R<MemberMatchResponse> triggerMatching() {
@@ -57,6 +67,50 @@ public class MatchingController {
                 .build());
     }
 
+    @Operation(summary = "触发会员匹配（流式）",
+            description = "每个商户完成即推送 merchant 事件，全部完成后推送 done 事件（内容同 /trigger）")
+    @PostMapping(value = "/trigger/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter triggerMatchingStream() {
+        Long userId = SecurityUtil.getUserId();
+        User user = userMapper.selectById(userId);
+        if (user == null || user.getPhone() == null) {
+            throw new BusinessException(400, "请先授权手机号");
+        }
+
+        SseEmitter emitter = new SseEmitter(MATCH_STREAM_TIMEOUT_MILLIS);
+        memberMatchingService.matchAllMerchantsAsync(userId, user.getPhone(), outcome -> {
+                    // SseEmitter 发送非线程安全，各商户结果在不同线程回调
+                    synchronized (emitter) {
+                        try {
+                            emitter.send(SseEmitter.event().name("merchant").data(outcome));
+                        } catch (IOException e) {
+                            // 客户端断开不影响匹配继续执行
+                            log.debug("会员匹配推送失败: userId={}, error={}", userId, e.getMessage());
+                        }
+                    }
+                })
+                .whenComplete((matchedIds, e) -> {
+                    synchronized (emitter) {
+                        if (e != null) {
+                            emitter.completeWithError(e);
+                            return;
+                        }
+                        try {
+                            List<Activity> activities = activityMatchingService.matchActivitiesForUser(userId);
+                            emitter.send(SseEmitter.event().name("done").data(MemberMatchResponse.builder()
+                                    .matchedCount(matchedIds.size())
+                                    .matchedMerchantIds(matchedIds)
+                                    .activityCount(activities.size())
+                                    .build()));
+                            emitter.complete();
+                        } catch (Exception ex) {
+                            emitter.completeWithError(ex);
+                        }
+                    }
+                });
+        return emitter;
+    }
+
     @Operation(summary = "我的会员列表", description = "获取当前用户在所有商户的会员快照")
     @GetMapping("/members")
     public R<List<MerchantMemberResponse>> myMembers() {
@@ -0,0 +1,47 @@
+package com.wsh.matching.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "商户会员手机号预过滤器统计")
+public class MemberPhoneFilterStats {
+
+    @Schema(description = "商户ID")
+    private Long merchantId;
+
+    @Schema(description = "商户名称")
+    private String merchantName;
+
+    @Schema(description = "是否已构建（未构建时匹配总是调用商户系统）")
+    private Boolean built;
+
+    @Schema(description = "会员数")
+    private Integer memberCount;
+
+    @Schema(description = "位数组大小（bit）")
+    private Long bitCount;
+
+    @Schema(description = "哈希函数个数")
+    private Integer hashCount;
+
+    @Schema(description = "内存占用（字节）")
+    private Long memoryBytes;
+
+    @Schema(description = "理论误判率")
+    private Double expectedFpp;
+
+    @Schema(description = "本节点：预过滤放行后调用商户系统次数")
+    private Long probeCount;
+
+    @Schema(description = "本节点：放行但未匹配（误判）次数")
+    private Long falsePositiveCount;
+
+    @Schema(description = "本节点：预过滤拦截次数")
+    private Long skippedCount;
+
+    @Schema(description = "本节点：实测误判率 = 误判 / (误判 + 拦截)")
+    private Double observedFpp;
+}
@@ -0,0 +1,33 @@
+package com.wsh.matching.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "单个商户会员匹配结果")
+public class MerchantMatchOutcome {
+
+    public static final String STATUS_MATCHED = "MATCHED";
+    public static final String STATUS_NOT_MATCHED = "NOT_MATCHED";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+    public static final String STATUS_BUSY = "BUSY";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Schema(description = "商户ID")
+    private Long merchantId;
+
+    @Schema(description = "商户名称")
+    private String merchantName;
+
+    @Schema(description = "匹配状态：MATCHED/NOT_MATCHED/TIMEOUT/BUSY/FAILED")
+    private String status;
+
+    @Schema(description = "耗时（毫秒）")
+    private Long elapsedMillis;
+
+    public boolean isMatched() {
+        return STATUS_MATCHED.equals(status);
+    }
+}
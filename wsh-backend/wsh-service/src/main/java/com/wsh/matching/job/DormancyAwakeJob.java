@@ -1,6 +1,7 @@
 package com.wsh.matching.job;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.activity.service.StockReservationService;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.core.util.IdGenerator;
 import com.wsh.common.redis.util.RedisUtil;
@@ -10,21 +11,27 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 沉睡会员唤醒定时任务
  * 每天凌晨04:00执行：
- * 1. 扫描所有沉睡会员（dormancyLevel >= 1）
- * 2. 查找商户针对沉睡会员的唤醒活动
- * 3. 为符合条件的沉睡会员发放唤醒券
- * 4. 生成唤醒提醒记录
+ * 1. 一次性加载所有进行中的唤醒活动，建立 商户 -> 唤醒活动 映射
+ * 2. 按主键键集分页扫描沉睡会员（dormancyLevel >= 1）
+ * 3. 每页按活动分组，批量查询已发过唤醒券的用户并排除
+ * 4. 按本页待发数量原子批量领取库存，批量写入唤醒券与提醒记录（每个活动一个短事务）
  */
 @Slf4j
 @Component
@@ -35,11 +42,18 @@ public class DormancyAwakeJob {
     private final ActivityMapper activityMapper;
     private final VoucherMapper voucherMapper;
     private final EquityReminderMapper reminderMapper;
-    private final UserMapper userMapper;
     private final RedisUtil redisUtil;
+    private final StockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
 
     private static final String LOCK_KEY = "lock:dormancy_awake";
 
+    /** 沉睡唤醒券类型 */
+    private static final int VOUCHER_TYPE_AWAKE = 4;
+
+    /** 每页扫描的快照数 */
+    private static final int PAGE_SIZE = 500;
+
     /**
      * 每天凌晨04:00执行
      */
@@ -56,72 +70,54 @@ public class DormancyAwakeJob {
         try {
             log.info("DormancyAwakeJob: 开始沉睡会员唤醒扫描");
 
-            // 查询所有沉睡会员（dormancyLevel >= 1）
-            List<MerchantMemberSnapshot> dormantMembers = snapshotMapper.selectList(
-                new LambdaQueryWrapper<MerchantMemberSnapshot>()
-                    .ge(MerchantMemberSnapshot::getDormancyLevel, Constants.DORMANCY_LIGHT)
-                    .eq(MerchantMemberSnapshot::getSyncStatus, 1)
-            );
-
-            if (dormantMembers.isEmpty()) {
-                log.info("DormancyAwakeJob: 无沉睡会员");
+            Map<Long, Activity> awakeActivities = loadAwakeActivities();
+            if (awakeActivities.isEmpty()) {
+                log.info("DormancyAwakeJob: 无进行中的唤醒活动");
                 return;
             }
 
-            log.info("DormancyAwakeJob: 发现{}个沉睡会员", dormantMembers.size());
-
+            // 本次运行中库存已领完的活动
+            Set<Long> soldOut = new HashSet<>();
+            int scannedCount = 0;
             int awakeVoucherCount = 0;
-            int reminderCount = 0;
-
-            for (MerchantMemberSnapshot snapshot : dormantMembers) {
-                try {
-                    // 检查商户是否有针对沉睡会员的唤醒活动
-                    List<Activity> awakeActivities = activityMapper.selectList(
-                        new LambdaQueryWrapper<Activity>()
-                            .eq(Activity::getMerchantId, snapshot.getMerchantId())
-                            .eq(Activity::getTargetMemberType, Constants.TARGET_MEMBER_DORMANT)
-                            .eq(Activity::getStatus, Constants.ACTIVITY_STATUS_ACTIVE)
-                            .lt(Activity::getStartTime, LocalDateTime.now())
-                            .gt(Activity::getEndTime, LocalDateTime.now())
-                    );
-
-                    if (awakeActivities.isEmpty()) {
-                        continue;
-                    }
-
-                    // 选择第一个可用的唤醒活动
-                    Activity activity = awakeActivities.get(0);
+            long afterId = 0L;
 
-                    // 检查是否已发过该活动的唤醒券（避免重复发放）
-                    Voucher existingVoucher = voucherMapper.selectOne(
-                        new LambdaQueryWrapper<Voucher>()
-                            .eq(Voucher::getUserId, snapshot.getUserId())
-                            .eq(Voucher::getActivityId, activity.getActivityId())
-                            .eq(Voucher::getVoucherType, 4) // 4-沉睡唤醒券
-                    );
-
-                    if (existingVoucher != null) {
-                        continue; // 已发过，跳过
+            while (true) {
+                List<MerchantMemberSnapshot> page = snapshotMapper.selectDormantPage(
+                        Constants.DORMANCY_LIGHT, afterId, PAGE_SIZE);
+                if (page.isEmpty()) {
+                    break;
+                }
+                scannedCount += page.size();
+                afterId = page.get(page.size() - 1).getSnapshotId();
+
+                // 每个商户只有一个唤醒活动，按商户分组即按活动分组
+                Map<Long, List<MerchantMemberSnapshot>> byMerchant = page.stream()
+                        .filter(snapshot -> awakeActivities.containsKey(snapshot.getMerchantId()))
+                        .collect(Collectors.groupingBy(MerchantMemberSnapshot::getMerchantId,
+                                LinkedHashMap::new, Collectors.toList()));
+
+                for (Map.Entry<Long, List<MerchantMemberSnapshot>> entry : byMerchant.entrySet()) {
+                    Activity activity = awakeActivities.get(entry.getKey());
+                    if (soldOut.contains(activity.getActivityId())) {
+                        continue;
                     }
-
-                    // 发放唤醒券
-                    boolean issued = issueAwakeVoucher(snapshot, activity);
-                    if (issued) {
-                        awakeVoucherCount++;
+                    try {
+                        int issued = issueAwakeVouchers(activity, entry.getValue(), soldOut);
+                        awakeVoucherCount += issued;
+                    } catch (Exception e) {
+                        log.error("唤醒券批量发放异常: activityId={}, 会员数={}",
+                                activity.getActivityId(), entry.getValue().size(), e);
                     }
+                }
 
-                    // 生成唤醒提醒
-                    createAwakeReminder(snapshot, activity);
-                    reminderCount++;
-
-                } catch (Exception e) {
-                    log.error("处理沉睡会员唤醒异常: userId={}, merchantId={}",
-                        snapshot.getUserId(), snapshot.getMerchantId(), e);
+                if (page.size() < PAGE_SIZE) {
+                    break;
                 }
             }
 
-            log.info("DormancyAwakeJob: 执行完成，发放唤醒券{}张，生成提醒{}条",
-                awakeVoucherCount, reminderCount);
+            log.info("DormancyAwakeJob: 执行完成，扫描沉睡会员{}个，发放唤醒券{}张，生成提醒{}条",
+                scannedCount, awakeVoucherCount, awakeVoucherCount);
 
         } catch (Exception e) {
             log.error("DormancyAwakeJob: 执行异常", e);
@@ -131,19 +127,82 @@ public class DormancyAwakeJob {
     }
 
     /**
-     * 发放唤醒券
+     * 加载进行中的唤醒活动，每个商户取一个（按活动ID最小）
      */
-    @Transactional(rollbackFor = Exception.class)
-    public boolean issueAwakeVoucher(MerchantMemberSnapshot snapshot, Activity activity) {
-        // 检查库存
-        if (activity.getStock() != null && activity.getStock() > 0) {
-            if (activity.getSoldCount() >= activity.getStock()) {
-                log.warn("唤醒活动库存不足: activityId={}", activity.getActivityId());
-                return false;
-            }
+    private Map<Long, Activity> loadAwakeActivities() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Activity> activities = activityMapper.selectList(
+            new LambdaQueryWrapper<Activity>()
+                .eq(Activity::getTargetMemberType, Constants.TARGET_MEMBER_DORMANT)
+                .eq(Activity::getStatus, Constants.ACTIVITY_STATUS_ACTIVE)
+                .lt(Activity::getStartTime, now)
+                .gt(Activity::getEndTime, now)
+                .orderByAsc(Activity::getActivityId)
+        );
+        Map<Long, Activity> byMerchant = new LinkedHashMap<>();
+        for (Activity activity : activities) {
+            byMerchant.putIfAbsent(activity.getMerchantId(), activity);
+        }
+        return byMerchant;
+    }
+
+    /**
+     * 为同一活动的一批沉睡会员发放唤醒券
+     * 排除已发过的用户后按人数原子领取库存，领取到多少发多少；写入失败时归还领取的库存
+     *
+     * @return 实际发放数量
+     */
+    private int issueAwakeVouchers(Activity activity, List<MerchantMemberSnapshot> snapshots, Set<Long> soldOut) {
+        List<Long> userIds = snapshots.stream()
+                .map(MerchantMemberSnapshot::getUserId)
+                .collect(Collectors.toList());
+        Set<Long> issuedUserIds = new HashSet<>(
+                voucherMapper.selectIssuedUserIds(activity.getActivityId(), VOUCHER_TYPE_AWAKE, userIds));
+        List<MerchantMemberSnapshot> candidates = snapshots.stream()
+                .filter(snapshot -> !issuedUserIds.contains(snapshot.getUserId()))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        int claimed = stockReservationService.claim(activity, candidates.size());
+        if (claimed < candidates.size()) {
+            log.warn("唤醒活动库存不足: activityId={}, 待发={}, 领取={}",
+                activity.getActivityId(), candidates.size(), claimed);
+            soldOut.add(activity.getActivityId());
+        }
+        if (claimed <= 0) {
+            return 0;
         }
 
-        // 创建唤醒券
+        List<MerchantMemberSnapshot> recipients = candidates.subList(0, claimed);
+        BigDecimal value = getActivityValue(activity);
+        LocalDateTime now = LocalDateTime.now();
+        List<Voucher> vouchers = new ArrayList<>(claimed);
+        List<EquityReminder> reminders = new ArrayList<>(claimed);
+        for (MerchantMemberSnapshot snapshot : recipients) {
+            vouchers.add(buildAwakeVoucher(snapshot, activity, value, now));
+            reminders.add(buildAwakeReminder(snapshot, value));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                voucherMapper.insertAll(vouchers);
+                reminderMapper.insertAll(reminders);
+                activityMapper.addSoldCount(activity.getActivityId(), claimed);
+            });
+        } catch (RuntimeException e) {
+            stockReservationService.giveBack(activity, claimed);
+            throw e;
+        }
+
+        log.info("沉睡唤醒券批量发放成功: activityId={}, merchantId={}, 数量={}",
+            activity.getActivityId(), activity.getMerchantId(), claimed);
+        return claimed;
+    }
+
+    private Voucher buildAwakeVoucher(MerchantMemberSnapshot snapshot, Activity activity,
+                                      BigDecimal value, LocalDateTime now) {
         Voucher voucher = new Voucher();
         voucher.setVoucherId(IdGenerator.nextId());
         voucher.setVoucherCode(IdGenerator.nextVoucherCode());
@@ -151,36 +210,24 @@ public class DormancyAwakeJob {
         voucher.setUserId(snapshot.getUserId());
         voucher.setMerchantId(snapshot.getMerchantId());
         voucher.setActivityId(activity.getActivityId());
-        voucher.setVoucherType(4); // 4-沉睡唤醒券
-        voucher.setVoucherValue(getActivityValue(activity));
+        voucher.setVoucherType(VOUCHER_TYPE_AWAKE);
+        voucher.setVoucherValue(value);
         voucher.setStatus(Constants.VOUCHER_STATUS_UNUSED);
-        voucher.setValidStartTime(LocalDateTime.now());
+        voucher.setValidStartTime(now);
         voucher.setValidEndTime(activity.getEndTime());
-        voucherMapper.insert(voucher);
-
-        // 更新活动已售数量
-        activity.setSoldCount(activity.getSoldCount() + 1);
-        activityMapper.updateById(activity);
-
-        log.info("沉睡唤醒券发放成功: userId={}, merchantId={}, voucherCode={}",
-            snapshot.getUserId(), snapshot.getMerchantId(), voucher.getVoucherCode());
-
-        return true;
+        return voucher;
     }
 
-    /**
-     * 创建唤醒提醒记录
-     */
-    private void createAwakeReminder(MerchantMemberSnapshot snapshot, Activity activity) {
+    private EquityReminder buildAwakeReminder(MerchantMemberSnapshot snapshot, BigDecimal value) {
         EquityReminder reminder = new EquityReminder();
         reminder.setReminderId(IdGenerator.nextId());
         reminder.setUserId(snapshot.getUserId());
         reminder.setMerchantId(snapshot.getMerchantId());
         reminder.setReminderType(Constants.REMINDER_TYPE_DORMANCY_AWAKE);
         reminder.setEquityType("awake_voucher");
-        reminder.setEquityValue(getActivityValue(activity));
+        reminder.setEquityValue(value);
         reminder.setRemindStatus(0); // 0-待发送
-        reminderMapper.insert(reminder);
+        return reminder;
     }
 
     /**
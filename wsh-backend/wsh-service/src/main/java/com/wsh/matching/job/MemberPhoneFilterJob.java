@@ -0,0 +1,46 @@
+package com.wsh.matching.job;
+
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.matching.service.MemberPhoneFilterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会员手机号预过滤器重建任务
+ * 每日凌晨 04:30（会员数据同步之后），按商户系统最新会员名单重建所有商户的预过滤器
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberPhoneFilterJob {
+
+    private final MemberPhoneFilterService memberPhoneFilterService;
+    private final RedisUtil redisUtil;
+
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void rebuildFilters() {
+        String lockValue = UUID.randomUUID().toString();
+        Boolean locked = redisUtil.tryLock(Constants.LOCK_MEMBER_FILTER_REBUILD, lockValue, 30, TimeUnit.MINUTES);
+
+        if (Boolean.FALSE.equals(locked)) {
+            log.info("会员预过滤器重建任务已在其他实例执行，跳过");
+            return;
+        }
+
+        try {
+            log.info("===== 会员预过滤器重建开始 =====");
+            memberPhoneFilterService.rebuildAll();
+            log.info("===== 会员预过滤器重建完成 =====");
+        } catch (Exception e) {
+            log.error("会员预过滤器重建异常: {}", e.getMessage(), e);
+        } finally {
+            redisUtil.releaseLock(Constants.LOCK_MEMBER_FILTER_REBUILD, lockValue);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.wsh.matching.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.activity.service.StockReservationService;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.domain.entity.Activity;
 import com.wsh.domain.entity.MerchantMemberSnapshot;
@@ -30,6 +31,7 @@ public class ActivityMatchingService {
     private final MerchantMemberSnapshotMapper snapshotMapper;
     private final ActivityMapper activityMapper;
     private final AdapterFactory adapterFactory;
+    private final StockReservationService stockReservationService;
 
     /**
      * 为用户匹配可参与的活动
@@ -124,9 +126,12 @@ public class ActivityMatchingService {
 
         if (existing != null) {
             // 更新
+            Integer oldStock = existing.getStock();
             fillActivityFromDTO(existing, dto);
             existing.setSyncTime(LocalDateTime.now());
             activityMapper.updateById(existing);
+            // 外部系统库存为准，按总库存变化量调整 Redis 剩余库存（不重建，避免在途预占被重复计入）
+            stockReservationService.adjustTotalStock(existing.getActivityId(), oldStock, existing.getStock());
         } else {
             // 新建
             Activity activity = new Activity();
@@ -5,69 +5,146 @@ import com.wsh.common.core.constant.Constants;
 import com.wsh.domain.entity.Merchant;
 import com.wsh.domain.entity.MerchantConsumeRecord;
 import com.wsh.domain.entity.MerchantMemberSnapshot;
+import com.wsh.domain.entity.User;
 import com.wsh.domain.mapper.MerchantConsumeRecordMapper;
 import com.wsh.domain.mapper.MerchantMapper;
 import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import com.wsh.domain.mapper.UserMapper;
 import com.wsh.integration.adapter.AdapterFactory;
 import com.wsh.integration.adapter.MerchantDataAdapter;
 import com.wsh.integration.adapter.dto.ConsumeRecordDTO;
 import com.wsh.integration.adapter.dto.MemberDataDTO;
 import com.wsh.integration.adapter.dto.MemberMatchResult;
+import com.wsh.matching.dto.MerchantMatchOutcome;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 会员匹配服务
  * 核心功能：用手机号去所有已对接商户系统匹配会员身份，
  * 匹配成功后拉取会员数据写入 tb_merchant_member_snapshot
+ * 并发匹配：
+ * 1. 各商户的适配器调用在有界线程池中并发执行，按适配器类型设置超时，超时即中断调用并释放线程
+ * 2. 每个商户系统同时只允许有限个调用（舱壁），满时跳过该商户，避免慢商户拖垮线程池
+ * 3. 外部调用不在事务内，拿到结果后按商户开启短事务写入
+ * 4. 每个商户完成即回调，调用方可流式返回部分结果
+ * 5. 先经会员手机号预过滤器排除一定不是会员的商户
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MemberMatchingService {
 
+    /** 适配器调用超时（毫秒），未配置的类型使用默认值 */
+    private static final Map<String, Long> ADAPTER_TIMEOUT_MILLIS = Map.of(
+            Constants.SYNC_SOURCE_API, 5000L,
+            Constants.SYNC_SOURCE_RPA, 8000L,
+            Constants.SYNC_SOURCE_DEMO, 2000L,
+            Constants.SYNC_SOURCE_MANUAL, 1000L);
+    private static final long DEFAULT_ADAPTER_TIMEOUT_MILLIS = 5000L;
+
+    /** 单个商户系统的最大并发调用数 */
+    private static final int MAX_CONCURRENT_PER_MERCHANT = 8;
+
     private final MerchantMapper merchantMapper;
     private final MerchantMemberSnapshotMapper snapshotMapper;
     private final MerchantConsumeRecordMapper consumeRecordMapper;
     private final AdapterFactory adapterFactory;
+    private final MemberPhoneFilterService memberPhoneFilterService;
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    /** 匹配线程池，队列满时拒绝（该商户记为 BUSY），不阻塞调用线程 */
+    private final ExecutorService matchExecutor = newMatchExecutor();
+
+    /** 商户ID -> 并发调用许可 */
+    private final Map<Long, Semaphore> merchantBulkheads = new ConcurrentHashMap<>();
 
     /**
      * 对指定用户执行全量会员匹配
-     * 遍历所有正常状态的商户，用手机号匹配会员
+     * 并发匹配所有正常状态的商户，等待全部完成（或超时）后返回
      *
      * @param userId 平台用户ID
      * @param phone  用户手机号
      * @return 匹配成功的商户ID列表
      */
-    @Transactional
     public List<Long> matchAllMerchants(Long userId, String phone) {
+        return matchAllMerchantsAsync(userId, phone, outcome -> { }).join();
+    }
+
+    /**
+     * 异步执行全量会员匹配
+     *
+     * @param listener 每个商户完成时回调（在匹配线程中执行，需线程安全）
+     * @return 全部商户完成后返回匹配成功的商户ID列表
+     */
+    public CompletableFuture<List<Long>> matchAllMerchantsAsync(Long userId, String phone,
+                                                                Consumer<MerchantMatchOutcome> listener) {
         // 查询所有正常状态的商户
         List<Merchant> merchants = merchantMapper.selectList(
                 new LambdaQueryWrapper<Merchant>()
                         .eq(Merchant::getStatus, Constants.MERCHANT_STATUS_ACTIVE));
-
-        List<Long> matchedMerchantIds = new ArrayList<>();
-
-        for (Merchant merchant : merchants) {
-            try {
-                boolean matched = matchSingleMerchant(userId, phone, merchant);
-                if (matched) {
-                    matchedMerchantIds.add(merchant.getMerchantId());
-                }
-            } catch (Exception e) {
-                log.error("匹配商户{}时异常: {}", merchant.getMerchantId(), e.getMessage(), e);
-            }
+        // 会员手机号预过滤：一定不是会员的商户不调用商户系统（过滤器构建后注册的用户不过滤）
+        User user = userMapper.selectById(userId);
+        LocalDateTime registeredAt = user != null ? user.getCreatedAt() : null;
+        List<Merchant> candidates = merchants.stream()
+                .filter(merchant -> memberPhoneFilterService.mightBeMember(merchant.getMerchantId(), phone, registeredAt))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            log.info("用户{}会员匹配完成: 共{}家商户, 预过滤后无候选商户", userId, merchants.size());
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
 
-        log.info("用户{}会员匹配完成: 共{}家商户, 匹配成功{}家",
-                userId, merchants.size(), matchedMerchantIds.size());
-        return matchedMerchantIds;
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<MerchantMatchOutcome>> futures = candidates.stream()
+                .map(merchant -> matchAsync(userId, phone, merchant)
+                        .thenApply(outcome -> {
+                            notifyListener(listener, outcome);
+                            return outcome;
+                        }))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<MerchantMatchOutcome> outcomes = futures.stream()
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toList());
+                    List<Long> matchedMerchantIds = outcomes.stream()
+                            .filter(MerchantMatchOutcome::isMatched)
+                            .map(MerchantMatchOutcome::getMerchantId)
+                            .collect(Collectors.toList());
+                    Map<String, Long> statusCount = outcomes.stream()
+                            .collect(Collectors.groupingBy(MerchantMatchOutcome::getStatus, Collectors.counting()));
+                    log.info("用户{}会员匹配完成: 共{}家商户, 预过滤后{}家, 匹配成功{}家, 状态分布{}, 耗时{}ms",
+                            userId, merchants.size(), candidates.size(), matchedMerchantIds.size(), statusCount,
+                            System.currentTimeMillis() - start);
+                    return matchedMerchantIds;
+                });
     }
 
     /**
@@ -76,26 +153,13 @@ public class MemberMatchingService {
      * @return 是否匹配成功
      */
     public boolean matchSingleMerchant(Long userId, String phone, Merchant merchant) {
-        MerchantDataAdapter adapter = adapterFactory.getAdapter(merchant.getMerchantId());
-        MemberMatchResult result = adapter.matchMemberByPhone(phone, merchant.getMerchantId());
-
-        if (!result.isMatched()) {
-            return false;
-        }
-
-        // 匹配成功，保存/更新会员快照
-        saveMemberSnapshot(userId, merchant.getMerchantId(), result);
-
-        // 同步消费记录
-        syncConsumeRecords(userId, merchant.getMerchantId(), adapter);
-
-        return true;
+        return matchAsync(userId, phone, merchant).join().isMatched();
     }
 
     /**
      * 同步指定用户在指定商户的最新数据
+     * 适配器调用在事务外，写入使用短事务
      */
-    @Transactional
     public void syncMemberData(Long userId, Long merchantId) {
         MerchantDataAdapter adapter = adapterFactory.getAdapter(merchantId);
         MemberDataDTO data = adapter.syncMemberData(userId, merchantId);
@@ -105,12 +169,139 @@ public class MemberMatchingService {
             return;
         }
 
-        updateSnapshot(userId, merchantId, data);
-        syncConsumeRecords(userId, merchantId, adapter);
+        List<ConsumeRecordDTO> records = adapter.syncConsumeRecords(userId, merchantId);
+        applyMemberData(userId, merchantId, data, records);
+    }
+
+    /**
+     * 在短事务内写入已从商户系统获取的会员数据与消费记录（全量与增量同步共用）
+     *
+     * @param data    会员数据，为空表示不更新快照
+     * @param records 消费记录，按 sourceOrderNo 去重
+     */
+    public void applyMemberData(Long userId, Long merchantId, MemberDataDTO data, List<ConsumeRecordDTO> records) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (data != null) {
+                updateSnapshot(userId, merchantId, data);
+            }
+            saveConsumeRecords(userId, merchantId, records);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matchExecutor.shutdown();
     }
 
     // ==================== 私有方法 ====================
 
+    /**
+     * 单个商户异步匹配：线程池中调用适配器（受舱壁与超时约束），成功后短事务写入
+     * 返回的 future 总是正常完成，失败原因体现在结果状态中
+     */
+    private CompletableFuture<MerchantMatchOutcome> matchAsync(Long userId, String phone, Merchant merchant) {
+        long start = System.currentTimeMillis();
+        MerchantDataAdapter adapter;
+        CompletableFuture<FetchedMember> fetch = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            adapter = adapterFactory.getAdapter(merchant);
+            task = matchExecutor.submit(() -> {
+                try {
+                    fetch.complete(fetchMember(userId, phone, merchant, adapter));
+                } catch (Throwable e) {
+                    fetch.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(outcome(merchant, MerchantMatchOutcome.STATUS_BUSY, start));
+        } catch (Exception e) {
+            log.error("匹配商户{}时异常: {}", merchant.getMerchantId(), e.getMessage(), e);
+            return CompletableFuture.completedFuture(outcome(merchant, MerchantMatchOutcome.STATUS_FAILED, start));
+        }
+
+        long timeoutMillis = ADAPTER_TIMEOUT_MILLIS.getOrDefault(adapter.getType(), DEFAULT_ADAPTER_TIMEOUT_MILLIS);
+        // 超时后中断仍在执行（或尚在排队）的适配器调用，释放匹配线程，不让慢商户长期占满线程池
+        fetch.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((fetched, e) -> {
+                    if (e != null) {
+                        task.cancel(true);
+                    }
+                });
+        return fetch
+                .thenApply(fetched -> {
+                    if (fetched == null) {
+                        return outcome(merchant, MerchantMatchOutcome.STATUS_BUSY, start);
+                    }
+                    memberPhoneFilterService.recordProbe(merchant.getMerchantId(), phone, fetched.getResult().isMatched());
+                    if (!fetched.getResult().isMatched()) {
+                        return outcome(merchant, MerchantMatchOutcome.STATUS_NOT_MATCHED, start);
+                    }
+                    transactionTemplate.executeWithoutResult(status -> {
+                        saveMemberSnapshot(userId, merchant.getMerchantId(), fetched.getResult());
+                        saveConsumeRecords(userId, merchant.getMerchantId(), fetched.getRecords());
+                    });
+                    return outcome(merchant, MerchantMatchOutcome.STATUS_MATCHED, start);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("匹配商户{}超时: adapter={}, timeout={}ms",
+                                merchant.getMerchantId(), adapter.getType(), timeoutMillis);
+                        return outcome(merchant, MerchantMatchOutcome.STATUS_TIMEOUT, start);
+                    }
+                    log.error("匹配商户{}时异常: {}", merchant.getMerchantId(), cause.getMessage(), cause);
+                    return outcome(merchant, MerchantMatchOutcome.STATUS_FAILED, start);
+                });
+    }
+
+    /**
+     * 调用商户系统查询会员及消费记录（不在事务内）
+     *
+     * @return 商户并发调用已满时返回 null
+     */
+    private FetchedMember fetchMember(Long userId, String phone, Merchant merchant, MerchantDataAdapter adapter) {
+        Semaphore bulkhead = merchantBulkheads.computeIfAbsent(merchant.getMerchantId(),
+                id -> new Semaphore(MAX_CONCURRENT_PER_MERCHANT));
+        if (!bulkhead.tryAcquire()) {
+            log.warn("商户{}并发调用已满，跳过本次匹配", merchant.getMerchantId());
+            return null;
+        }
+        try {
+            MemberMatchResult result = adapter.matchMemberByPhone(phone, merchant.getMerchantId());
+            List<ConsumeRecordDTO> records = result.isMatched()
+                    ? adapter.syncConsumeRecords(userId, merchant.getMerchantId())
+                    : Collections.emptyList();
+            return new FetchedMember(result, records);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void notifyListener(Consumer<MerchantMatchOutcome> listener, MerchantMatchOutcome outcome) {
+        try {
+            listener.accept(outcome);
+        } catch (Exception e) {
+            log.warn("会员匹配结果回调异常: merchantId={}, error={}", outcome.getMerchantId(), e.getMessage());
+        }
+    }
+
+    private MerchantMatchOutcome outcome(Merchant merchant, String status, long startMillis) {
+        return MerchantMatchOutcome.builder()
+                .merchantId(merchant.getMerchantId())
+                .merchantName(merchant.getMerchantName())
+                .status(status)
+                .elapsedMillis(System.currentTimeMillis() - startMillis)
+                .build();
+    }
+
+    private static ExecutorService newMatchExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("member-match-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(32, 32, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(2000), threadFactory);
+    }
+
     private void saveMemberSnapshot(Long userId, Long merchantId, MemberMatchResult result) {
         MemberDataDTO data = result.getMemberData();
 
@@ -140,6 +331,7 @@ public class MemberMatchingService {
             }
             snapshot.setSyncTime(LocalDateTime.now());
             snapshot.setSyncStatus(1);
+            snapshot.setSyncShard(MemberSyncService.shardOf(userId));
             snapshotMapper.insert(snapshot);
         }
     }
@@ -170,37 +362,47 @@ public class MemberMatchingService {
         snapshot.setDormancyLevel(data.getDormancyLevel() != null ? data.getDormancyLevel() : 0);
     }
 
-    private void syncConsumeRecords(Long userId, Long merchantId, MerchantDataAdapter adapter) {
-        List<ConsumeRecordDTO> records = adapter.syncConsumeRecords(userId, merchantId);
+    /**
+     * 批量幂等写入消费记录（按商户 + 商户订单号唯一，重复同步时更新开票状态等字段）
+     */
+    private void saveConsumeRecords(Long userId, Long merchantId, List<ConsumeRecordDTO> records) {
         if (records == null || records.isEmpty()) {
             return;
         }
 
+        LocalDateTime now = LocalDateTime.now();
+        // 同一批内按 sourceOrderNo 去重（后出现的为准），无订单号的记录无法去重，逐条写入
+        Map<String, MerchantConsumeRecord> byOrderNo = new LinkedHashMap<>();
+        List<MerchantConsumeRecord> entities = new ArrayList<>(records.size());
         for (ConsumeRecordDTO dto : records) {
-            // 按 sourceOrderNo 去重
-            if (dto.getSourceOrderNo() != null) {
-                Long count = consumeRecordMapper.selectCount(
-                        new LambdaQueryWrapper<MerchantConsumeRecord>()
-                                .eq(MerchantConsumeRecord::getUserId, userId)
-                                .eq(MerchantConsumeRecord::getMerchantId, merchantId)
-                                .eq(MerchantConsumeRecord::getSourceOrderNo, dto.getSourceOrderNo()));
-                if (count > 0) {
-                    continue;
-                }
-            }
-
             MerchantConsumeRecord record = new MerchantConsumeRecord();
             record.setUserId(userId);
             record.setMerchantId(merchantId);
             record.setBranchId(dto.getBranchId());
             record.setConsumeTime(dto.getConsumeTime());
             record.setConsumeAmount(dto.getConsumeAmount());
-            record.setInvoiceStatus(dto.getInvoiceStatus());
+            record.setInvoiceStatus(dto.getInvoiceStatus() != null ? dto.getInvoiceStatus() : 0);
             record.setInvoiceNo(dto.getInvoiceNo());
             record.setInvoiceUrl(dto.getInvoiceUrl());
             record.setSourceOrderNo(dto.getSourceOrderNo());
-            record.setSyncTime(LocalDateTime.now());
-            consumeRecordMapper.insert(record);
+            record.setSyncTime(now);
+            if (dto.getSourceOrderNo() != null) {
+                byOrderNo.put(dto.getSourceOrderNo(), record);
+            } else {
+                entities.add(record);
+            }
         }
+        entities.addAll(byOrderNo.values());
+        consumeRecordMapper.upsertAll(entities);
+    }
+
+    /**
+     * 商户系统查询结果（事务外获取，事务内写入）
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class FetchedMember {
+        private final MemberMatchResult result;
+        private final List<ConsumeRecordDTO> records;
     }
 }
@@ -0,0 +1,277 @@
+package com.wsh.matching.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.core.exception.BusinessException;
+import com.wsh.common.core.util.BloomFilter;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import com.wsh.integration.adapter.AdapterFactory;
+import com.wsh.integration.adapter.MerchantDataAdapter;
+import com.wsh.matching.dto.MemberPhoneFilterStats;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商户会员手机号预过滤器
+ * 1. 每个商户一个布隆过滤器，由商户系统导出的会员名单 + 平台已匹配会员构建，存入 Redis
+ * 2. 会员匹配前先查过滤器，判定不是会员的商户不再调用商户系统
+ * 3. 适配器不支持导出会员名单的商户不建过滤器，匹配时总是调用（宁可多查，不可漏匹配）
+ * 4. 各节点本地缓存过滤器，定时重建后最迟在本地缓存过期时生效
+ * 两次重建之间新入会的会员：
+ * 1. 支持增量同步的商户，同步拉到的会员手机号即时追加到过滤器（其他节点最迟在本地缓存过期时生效）
+ * 2. 过滤器构建之后才注册的平台用户不经过滤器，总是调用商户系统
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberPhoneFilterService {
+
+    /** 目标误判率 */
+    private static final double TARGET_FPP = 0.01;
+
+    /** Redis 中过滤器的有效期（小时），重建任务中断时过期后自动回退为全量调用 */
+    private static final long FILTER_TTL_HOURS = 48;
+
+    private final MerchantMapper merchantMapper;
+    private final MerchantMemberSnapshotMapper snapshotMapper;
+    private final AdapterFactory adapterFactory;
+    private final RedisUtil redisUtil;
+
+    /** 商户ID -> 过滤器（Optional.empty 表示未构建，同样缓存以免每次访问 Redis） */
+    private final Cache<Long, Optional<PhoneFilter>> localFilters = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    /** 商户ID -> 本节点命中统计 */
+    private final Map<Long, ProbeCounter> probeCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 用户是否可能是商户会员
+     *
+     * @param registeredAt 用户注册时间，晚于过滤器构建时间时不经过滤器（可能是构建后新入会的会员）
+     * @return false=一定不是会员；未构建过滤器或用户在构建后注册时返回 true
+     */
+    public boolean mightBeMember(Long merchantId, String phone, LocalDateTime registeredAt) {
+        Optional<PhoneFilter> filter = getFilter(merchantId);
+        if (filter.isEmpty()) {
+            return true;
+        }
+        if (registeredAt != null && registeredAt.isAfter(filter.get().builtAt)) {
+            return true;
+        }
+        boolean mightContain = filter.get().filter.mightContain(phone);
+        if (!mightContain) {
+            counter(merchantId).skipped.increment();
+        }
+        return mightContain;
+    }
+
+    /**
+     * 记录预过滤放行后商户系统的实际匹配结果（用于统计实测误判率）
+     * 仅统计过滤器判定可能是会员的手机号，构建后注册而直接放行的用户不计入
+     */
+    public void recordProbe(Long merchantId, String phone, boolean matched) {
+        Optional<PhoneFilter> filter = getFilter(merchantId);
+        if (filter.isEmpty() || !filter.get().filter.mightContain(phone)) {
+            return;
+        }
+        ProbeCounter counter = counter(merchantId);
+        counter.probes.increment();
+        if (!matched) {
+            counter.falsePositives.increment();
+        }
+    }
+
+    /**
+     * 向已构建的过滤器追加会员手机号（增量同步拉到的新会员），未构建时不处理
+     * 增量同步按商户持有分片租约，同一商户不会并发追加
+     */
+    public void addMembers(Long merchantId, Collection<String> phones) {
+        if (phones.isEmpty()) {
+            return;
+        }
+        String key = Constants.CACHE_MEMBER_PHONE_FILTER + merchantId;
+        BloomFilter filter = redisUtil.get(key);
+        if (filter == null) {
+            return;
+        }
+        phones.forEach(filter::put);
+        Long ttl = redisUtil.getExpire(key);
+        redisUtil.set(key, filter, ttl != null && ttl > 0 ? ttl : TimeUnit.HOURS.toSeconds(FILTER_TTL_HOURS),
+                TimeUnit.SECONDS);
+        localFilters.put(merchantId, Optional.of(new PhoneFilter(filter, loadBuiltAt(merchantId))));
+        log.debug("商户{}会员预过滤器已追加: 手机号数={}", merchantId, phones.size());
+    }
+
+    /**
+     * 重建所有正常状态商户的过滤器
+     *
+     * @return 成功构建的商户数
+     */
+    public int rebuildAll() {
+        List<Merchant> merchants = merchantMapper.selectList(
+                new LambdaQueryWrapper<Merchant>()
+                        .eq(Merchant::getStatus, Constants.MERCHANT_STATUS_ACTIVE));
+        int built = 0;
+        for (Merchant merchant : merchants) {
+            try {
+                if (rebuild(merchant) != null) {
+                    built++;
+                }
+            } catch (Exception e) {
+                log.error("商户{}会员预过滤器重建失败: {}", merchant.getMerchantId(), e.getMessage(), e);
+            }
+        }
+        log.info("会员预过滤器重建完成: 商户数={}, 已构建={}", merchants.size(), built);
+        return built;
+    }
+
+    /**
+     * 重建指定商户的过滤器
+     */
+    public MemberPhoneFilterStats rebuild(Long merchantId) {
+        Merchant merchant = merchantMapper.selectById(merchantId);
+        if (merchant == null) {
+            throw new BusinessException("商户不存在");
+        }
+        MemberPhoneFilterStats stats = rebuild(merchant);
+        return stats != null ? stats : buildStats(merchant, null);
+    }
+
+    /**
+     * 查询所有正常状态商户的过滤器统计
+     */
+    public List<MemberPhoneFilterStats> listStats() {
+        List<Merchant> merchants = merchantMapper.selectList(
+                new LambdaQueryWrapper<Merchant>()
+                        .eq(Merchant::getStatus, Constants.MERCHANT_STATUS_ACTIVE));
+        List<MemberPhoneFilterStats> result = new ArrayList<>(merchants.size());
+        for (Merchant merchant : merchants) {
+            result.add(buildStats(merchant, getFilter(merchant.getMerchantId()).map(f -> f.filter).orElse(null)));
+        }
+        return result;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 从商户系统导出会员名单构建过滤器，不支持导出时删除旧过滤器
+     *
+     * @return 统计信息，未构建时返回 null
+     */
+    private MemberPhoneFilterStats rebuild(Merchant merchant) {
+        Long merchantId = merchant.getMerchantId();
+        String key = Constants.CACHE_MEMBER_PHONE_FILTER + merchantId;
+        MerchantDataAdapter adapter = adapterFactory.getAdapter(merchant);
+
+        Set<String> phones = new HashSet<>();
+        LocalDateTime builtAt = LocalDateTime.now();
+        if (!adapter.exportMemberPhones(merchantId, phones::add)) {
+            redisUtil.delete(key);
+            redisUtil.delete(Constants.CACHE_MEMBER_PHONE_FILTER_BUILT + merchantId);
+            localFilters.put(merchantId, Optional.empty());
+            return null;
+        }
+        // 平台已匹配的会员一并写入，避免商户导出不完整导致已匹配会员被排除
+        phones.addAll(snapshotMapper.selectMemberPhones(merchantId));
+
+        BloomFilter filter = BloomFilter.create(phones.size(), TARGET_FPP);
+        phones.forEach(filter::put);
+        // 构建时间取导出开始时刻：导出期间注册的用户同样不经过滤器
+        redisUtil.set(Constants.CACHE_MEMBER_PHONE_FILTER_BUILT + merchantId, builtAt.toString(),
+                FILTER_TTL_HOURS, TimeUnit.HOURS);
+        redisUtil.set(key, filter, FILTER_TTL_HOURS, TimeUnit.HOURS);
+        localFilters.put(merchantId, Optional.of(new PhoneFilter(filter, builtAt)));
+        probeCounters.remove(merchantId);
+
+        log.info("商户{}会员预过滤器已重建: 会员数={}, 内存={}B, 理论误判率={}",
+                merchantId, filter.insertions(), filter.memoryBytes(), String.format("%.4f", filter.expectedFpp()));
+        return buildStats(merchant, filter);
+    }
+
+    private Optional<PhoneFilter> getFilter(Long merchantId) {
+        Optional<PhoneFilter> filter = localFilters.getIfPresent(merchantId);
+        if (filter == null) {
+            BloomFilter remote = redisUtil.get(Constants.CACHE_MEMBER_PHONE_FILTER + merchantId);
+            filter = Optional.ofNullable(remote).map(f -> new PhoneFilter(f, loadBuiltAt(merchantId)));
+            localFilters.put(merchantId, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * 读取过滤器构建时间，缺失时（旧版本构建的过滤器）按过滤器最长有效期推算，宁可多放行
+     */
+    private LocalDateTime loadBuiltAt(Long merchantId) {
+        String builtAt = redisUtil.get(Constants.CACHE_MEMBER_PHONE_FILTER_BUILT + merchantId);
+        return builtAt != null ? LocalDateTime.parse(builtAt) : LocalDateTime.now().minusHours(FILTER_TTL_HOURS);
+    }
+
+    private ProbeCounter counter(Long merchantId) {
+        return probeCounters.computeIfAbsent(merchantId, id -> new ProbeCounter());
+    }
+
+    private MemberPhoneFilterStats buildStats(Merchant merchant, BloomFilter filter) {
+        MemberPhoneFilterStats.MemberPhoneFilterStatsBuilder builder = MemberPhoneFilterStats.builder()
+                .merchantId(merchant.getMerchantId())
+                .merchantName(merchant.getMerchantName())
+                .built(filter != null);
+        if (filter == null) {
+            return builder.build();
+        }
+
+        ProbeCounter counter = probeCounters.getOrDefault(merchant.getMerchantId(), new ProbeCounter());
+        long falsePositives = counter.falsePositives.sum();
+        long skipped = counter.skipped.sum();
+        return builder
+                .memberCount(filter.insertions())
+                .bitCount(filter.bitCount())
+                .hashCount(filter.hashCount())
+                .memoryBytes(filter.memoryBytes())
+                .expectedFpp(filter.expectedFpp())
+                .probeCount(counter.probes.sum())
+                .falsePositiveCount(falsePositives)
+                .skippedCount(skipped)
+                .observedFpp(falsePositives + skipped > 0 ? (double) falsePositives / (falsePositives + skipped) : null)
+                .build();
+    }
+
+    /**
+     * 过滤器及其构建时间
+     */
+    @AllArgsConstructor
+    private static class PhoneFilter {
+        private final BloomFilter filter;
+        private final LocalDateTime builtAt;
+    }
+
+    /**
+     * 本节点命中计数
+     */
+    private static class ProbeCounter {
+        private final LongAdder probes = new LongAdder();
+        private final LongAdder falsePositives = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+    }
+}
@@ -0,0 +1,443 @@
+package com.wsh.matching.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.entity.MerchantMemberSnapshot;
+import com.wsh.domain.entity.MerchantSyncWatermark;
+import com.wsh.domain.entity.User;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import com.wsh.domain.mapper.MerchantSyncWatermarkMapper;
+import com.wsh.domain.mapper.UserMapper;
+import com.wsh.integration.adapter.AdapterFactory;
+import com.wsh.integration.adapter.MerchantDataAdapter;
+import com.wsh.integration.adapter.dto.MemberChangeDTO;
+import com.wsh.integration.adapter.dto.MerchantChangePage;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 会员数据分片同步
+ * 1. 快照按 user_id 取模分为 {@link #SHARD_COUNT} 个分片（sync_shard 列，新增快照时写入，存量由每轮开始前回填），
+ *    分片内按 snapshot_id 键集分页
+ * 2. 各节点通过 Redis 租约领取分片，处理过程中按固定间隔续期，节点宕机后租约过期由其他节点接手
+ * 3. 每页处理完成后在 Redis 记录分片游标，接手的节点从游标继续，已完成的分片记入完成集合
+ * 4. 同一轮同步的运行ID存于 Redis，全部分片完成前不会开启新一轮，中断的同步由恢复任务继续
+ * 5. 对同一商户系统的调用按全集群每秒上限限流
+ * 增量模式：支持增量同步的商户按商户水位拉取变更（成本与变更量成正比），
+ * 分片同步时跳过这些商户的快照，仅对不支持增量的商户逐个会员全量同步
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberSyncService {
+
+    /** 分片数，与 V9 迁移中 sync_shard 的取模基数一致 */
+    public static final int SHARD_COUNT = 64;
+
+    /** 每页快照数 */
+    private static final int PAGE_SIZE = 200;
+
+    /** 本节点并行处理的分片数 */
+    private static final int NODE_PARALLELISM = 4;
+
+    /** 分片租约有效期（分钟） */
+    private static final long SHARD_LEASE_MINUTES = 5;
+
+    /**
+     * 分片租约续期间隔（毫秒），远小于租约有效期
+     * 单页耗时取决于商户限流与外部调用，不能假设一页能在租约期内处理完，因此逐条处理前按间隔续期
+     */
+    private static final long SHARD_LEASE_RENEW_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /** 存量快照分片号每批回填行数 */
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    /** 运行ID有效期（小时），超时未完成的同步不再继续 */
+    private static final long RUN_TTL_HOURS = 23;
+
+    /** 游标与完成集合保留时间（小时） */
+    private static final long PROGRESS_TTL_HOURS = 48;
+
+    /** 单个商户系统每秒最大调用次数（全集群） */
+    private static final int MERCHANT_CALLS_PER_SECOND = 20;
+
+    private static final String RUN_KEY = "member:sync:run";
+    private static final String CURSOR_PREFIX = "member:sync:cursor:";
+    private static final String DONE_PREFIX = "member:sync:done:";
+    private static final String RATE_PREFIX = "member:sync:rate:";
+    private static final String SHARD_LEASE_PREFIX = Constants.LOCK_MEMBER_SYNC + ":shard:";
+    private static final String MERCHANT_LEASE_PREFIX = Constants.LOCK_MEMBER_SYNC + ":merchant:";
+
+    private static final DateTimeFormatter RUN_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private final MerchantMemberSnapshotMapper snapshotMapper;
+    private final MerchantMapper merchantMapper;
+    private final MerchantSyncWatermarkMapper watermarkMapper;
+    private final UserMapper userMapper;
+    private final AdapterFactory adapterFactory;
+    private final MemberMatchingService memberMatchingService;
+    private final MemberPhoneFilterService memberPhoneFilterService;
+    private final RedisUtil redisUtil;
+
+    /** 是否启用增量同步模式 */
+    @Value("${wsh.member-sync.incremental:true}")
+    private boolean incrementalEnabled;
+
+    private final ExecutorService shardExecutor = newShardExecutor();
+
+    /** 本节点是否正在处理（定时开启与恢复任务不重复进入） */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 开启新一轮同步；上一轮未完成时继续上一轮
+     * 增量模式下先按商户拉取变更，再分片同步不支持增量的商户
+     */
+    public void startRun() {
+        if (incrementalEnabled) {
+            syncIncremental();
+        }
+        backfillShards();
+        String runId = LocalDateTime.now().format(RUN_ID_FORMAT);
+        if (Boolean.TRUE.equals(redisUtil.tryLock(RUN_KEY, runId, RUN_TTL_HOURS, TimeUnit.HOURS))) {
+            log.info("会员同步开启新一轮: runId={}", runId);
+        } else {
+            runId = redisUtil.get(RUN_KEY);
+            log.info("上一轮会员同步未完成，继续执行: runId={}", runId);
+        }
+        if (runId != null) {
+            processRun(runId);
+        }
+    }
+
+    /**
+     * 继续未完成的同步（处理宕机节点遗留或尚未领取的分片）
+     */
+    public void resumeRun() {
+        String runId = redisUtil.get(RUN_KEY);
+        if (runId != null) {
+            processRun(runId);
+        }
+    }
+
+    /**
+     * 快照所属分片
+     */
+    public static int shardOf(Long userId) {
+        return (int) Math.floorMod(userId, (long) SHARD_COUNT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shardExecutor.shutdownNow();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 回填尚未写入分片号的快照，全部回填后每轮只需一次索引查询
+     */
+    private void backfillShards() {
+        int total = 0;
+        int updated;
+        do {
+            updated = snapshotMapper.backfillSyncShard(SHARD_COUNT, BACKFILL_BATCH_SIZE);
+            total += updated;
+        } while (updated >= BACKFILL_BATCH_SIZE);
+        if (total > 0) {
+            log.info("会员快照分片号回填完成: count={}", total);
+        }
+    }
+
+    /**
+     * 本节点并行领取并处理所有未完成的分片，全部分片完成后结束本轮
+     */
+    private void processRun(String runId) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            String doneKey = DONE_PREFIX + runId;
+            Set<Long> skipMerchantIds = incrementalEnabled ? incrementalMerchantIds() : Collections.emptySet();
+            // 随机起点，减少多节点同时争抢相同分片
+            int offset = ThreadLocalRandom.current().nextInt(SHARD_COUNT);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(SHARD_COUNT);
+            for (int i = 0; i < SHARD_COUNT; i++) {
+                int shard = (offset + i) % SHARD_COUNT;
+                futures.add(CompletableFuture.runAsync(() -> leaseAndProcess(runId, shard, skipMerchantIds), shardExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            int done = redisUtil.setMembers(doneKey).size();
+            if (done >= SHARD_COUNT && Boolean.TRUE.equals(redisUtil.releaseLock(RUN_KEY, runId))) {
+                log.info("会员同步本轮完成: runId={}", runId);
+            } else {
+                log.info("会员同步进度: runId={}, 已完成分片={}/{}", runId, done, SHARD_COUNT);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void leaseAndProcess(String runId, int shard, Set<Long> skipMerchantIds) {
+        String doneKey = DONE_PREFIX + runId;
+        if (Boolean.TRUE.equals(redisUtil.setIsMember(doneKey, shard))) {
+            return;
+        }
+        String leaseKey = SHARD_LEASE_PREFIX + shard;
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisUtil.tryLock(leaseKey, token, SHARD_LEASE_MINUTES, TimeUnit.MINUTES))) {
+            return;
+        }
+        try {
+            // 领取租约后再次确认，避免与刚完成该分片的节点重复处理
+            if (Boolean.TRUE.equals(redisUtil.setIsMember(doneKey, shard))) {
+                return;
+            }
+            if (processShard(runId, shard, skipMerchantIds, leaseKey, token)) {
+                redisUtil.setAdd(doneKey, shard);
+                redisUtil.expire(doneKey, PROGRESS_TTL_HOURS, TimeUnit.HOURS);
+            }
+        } catch (Exception e) {
+            log.error("会员同步分片{}处理异常: {}", shard, e.getMessage(), e);
+        } finally {
+            redisUtil.releaseLock(leaseKey, token);
+        }
+    }
+
+    /**
+     * 从游标处继续遍历分片
+     *
+     * @param skipMerchantIds 已由增量同步覆盖的商户
+     * @return 分片是否已遍历完成（租约丢失或节点关闭时返回 false）
+     */
+    private boolean processShard(String runId, int shard, Set<Long> skipMerchantIds, String leaseKey, String token) {
+        String cursorKey = CURSOR_PREFIX + runId + ":" + shard;
+        Number saved = redisUtil.get(cursorKey);
+        long afterId = saved != null ? saved.longValue() : 0L;
+        int successCount = 0;
+        int failCount = 0;
+        long renewedAt = System.currentTimeMillis();
+
+        while (true) {
+            List<MerchantMemberSnapshot> page = snapshotMapper.selectSyncPage(shard, afterId, PAGE_SIZE);
+            for (MerchantMemberSnapshot snapshot : page) {
+                if (skipMerchantIds.contains(snapshot.getMerchantId())) {
+                    continue;
+                }
+                if (System.currentTimeMillis() - renewedAt >= SHARD_LEASE_RENEW_MILLIS) {
+                    // 租约丢失时游标仍停在本页之前，接手的节点重放本页（同步幂等）
+                    if (!renewShardLease(shard, leaseKey, token, afterId)) {
+                        return false;
+                    }
+                    renewedAt = System.currentTimeMillis();
+                }
+                if (!acquireMerchantPermit(snapshot.getMerchantId())) {
+                    return false;
+                }
+                try {
+                    memberMatchingService.syncMemberData(snapshot.getUserId(), snapshot.getMerchantId());
+                    successCount++;
+                } catch (Exception e) {
+                    failCount++;
+                    log.warn("同步用户{}在商户{}的数据失败: {}",
+                            snapshot.getUserId(), snapshot.getMerchantId(), e.getMessage());
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                log.info("会员同步分片{}完成: 成功={}, 失败={}", shard, successCount, failCount);
+                return true;
+            }
+
+            afterId = page.get(page.size() - 1).getSnapshotId();
+            redisUtil.set(cursorKey, afterId, PROGRESS_TTL_HOURS, TimeUnit.HOURS);
+            if (!renewShardLease(shard, leaseKey, token, afterId)) {
+                return false;
+            }
+            renewedAt = System.currentTimeMillis();
+        }
+    }
+
+    private boolean renewShardLease(int shard, String leaseKey, String token, long afterId) {
+        if (Boolean.TRUE.equals(redisUtil.renewLock(leaseKey, token, SHARD_LEASE_MINUTES, TimeUnit.MINUTES))) {
+            return true;
+        }
+        log.warn("会员同步分片{}租约已丢失，停止处理: 游标={}", shard, afterId);
+        return false;
+    }
+
+    /**
+     * 增量同步所有支持增量的商户（按商户领取租约，多节点分担）
+     */
+    private void syncIncremental() {
+        for (Merchant merchant : selectActiveMerchants()) {
+            MerchantDataAdapter adapter = adapterFactory.getAdapter(merchant);
+            if (!adapter.supportsIncremental()) {
+                continue;
+            }
+            String leaseKey = MERCHANT_LEASE_PREFIX + merchant.getMerchantId();
+            String token = UUID.randomUUID().toString();
+            if (!Boolean.TRUE.equals(redisUtil.tryLock(leaseKey, token, SHARD_LEASE_MINUTES, TimeUnit.MINUTES))) {
+                continue;
+            }
+            try {
+                syncMerchantChanges(merchant.getMerchantId(), adapter, leaseKey, token);
+            } catch (Exception e) {
+                log.error("商户{}增量同步异常: {}", merchant.getMerchantId(), e.getMessage(), e);
+            } finally {
+                redisUtil.releaseLock(leaseKey, token);
+            }
+        }
+    }
+
+    /**
+     * 从商户水位开始逐页拉取变更并写入，每页写入完成后推进水位
+     * 写入失败时水位不推进，下次从同一游标重放（快照更新与消费记录写入均幂等）
+     */
+    private void syncMerchantChanges(Long merchantId, MerchantDataAdapter adapter, String leaseKey, String token) {
+        MerchantSyncWatermark watermark = watermarkMapper.selectById(merchantId);
+        String cursor = watermark != null ? watermark.getSyncCursor() : null;
+        int appliedCount = 0;
+        int unmatchedCount = 0;
+
+        while (true) {
+            if (!acquireMerchantPermit(merchantId)) {
+                return;
+            }
+            MerchantChangePage page = adapter.changesSince(merchantId, cursor);
+            if (page == null) {
+                log.warn("商户{}适配器未返回增量变更: adapter={}", merchantId, adapter.getType());
+                return;
+            }
+            List<String> phones = new ArrayList<>();
+            if (page.getChanges() != null) {
+                for (MemberChangeDTO change : page.getChanges()) {
+                    if (change.getPhone() != null) {
+                        phones.add(change.getPhone());
+                    }
+                    Long userId = resolveUserId(merchantId, change);
+                    if (userId == null) {
+                        // 平台尚未匹配的会员，由用户触发匹配时写入
+                        unmatchedCount++;
+                        continue;
+                    }
+                    memberMatchingService.applyMemberData(userId, merchantId,
+                            change.getMemberData(), change.getConsumeRecords());
+                    appliedCount++;
+                }
+            }
+
+            // 新入会的会员即时追加到预过滤器，不必等每日重建
+            memberPhoneFilterService.addMembers(merchantId, phones);
+
+            cursor = page.getNextCursor();
+            saveWatermark(merchantId, cursor);
+            if (!page.isHasMore()) {
+                break;
+            }
+            if (!Boolean.TRUE.equals(redisUtil.renewLock(leaseKey, token, SHARD_LEASE_MINUTES, TimeUnit.MINUTES))) {
+                log.warn("商户{}增量同步租约已丢失，停止处理: cursor={}", merchantId, cursor);
+                return;
+            }
+        }
+        log.info("商户{}增量同步完成: 写入={}, 未匹配会员={}, cursor={}", merchantId, appliedCount, unmatchedCount, cursor);
+    }
+
+    /**
+     * 定位变更对应的平台用户：先按商户系统会员ID，再按手机号
+     */
+    private Long resolveUserId(Long merchantId, MemberChangeDTO change) {
+        if (change.getSourceMemberId() != null) {
+            MerchantMemberSnapshot snapshot = snapshotMapper.selectBySourceMember(merchantId, change.getSourceMemberId());
+            if (snapshot != null) {
+                return snapshot.getUserId();
+            }
+        }
+        if (change.getPhone() != null) {
+            User user = userMapper.selectOne(
+                    new LambdaQueryWrapper<User>().eq(User::getPhone, change.getPhone()));
+            if (user != null && snapshotMapper.selectByUserAndMerchant(user.getUserId(), merchantId) != null) {
+                return user.getUserId();
+            }
+        }
+        return null;
+    }
+
+    private void saveWatermark(Long merchantId, String cursor) {
+        MerchantSyncWatermark watermark = new MerchantSyncWatermark();
+        watermark.setMerchantId(merchantId);
+        watermark.setSyncCursor(cursor);
+        watermark.setSyncedAt(LocalDateTime.now());
+        if (watermarkMapper.updateById(watermark) == 0) {
+            watermarkMapper.insert(watermark);
+        }
+    }
+
+    /**
+     * 支持增量同步的正常状态商户
+     */
+    private Set<Long> incrementalMerchantIds() {
+        Set<Long> merchantIds = new HashSet<>();
+        for (Merchant merchant : selectActiveMerchants()) {
+            if (adapterFactory.getAdapter(merchant).supportsIncremental()) {
+                merchantIds.add(merchant.getMerchantId());
+            }
+        }
+        return merchantIds;
+    }
+
+    private List<Merchant> selectActiveMerchants() {
+        return merchantMapper.selectList(
+                new LambdaQueryWrapper<Merchant>()
+                        .eq(Merchant::getStatus, Constants.MERCHANT_STATUS_ACTIVE));
+    }
+
+    /**
+     * 获取商户调用许可（全集群每秒固定窗口），超出时等待至下一秒
+     *
+     * @return false=线程被中断
+     */
+    private boolean acquireMerchantPermit(Long merchantId) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            String key = RATE_PREFIX + merchantId + ":" + (now / 1000);
+            Long count = redisUtil.windowIncrement(key, 1000);
+            if (count == null || count <= MERCHANT_CALLS_PER_SECOND) {
+                return true;
+            }
+            try {
+                Thread.sleep(1000 - now % 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private static ExecutorService newShardExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("member-sync-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(NODE_PARALLELISM, threadFactory);
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsh.activity.service.StockReservationService;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.core.exception.BusinessException;
 import com.wsh.common.security.util.SecurityUtil;
@@ -46,6 +47,7 @@ public class MerchantActivityService {
     private final VerificationRecordMapper verificationRecordMapper;
     private final ServiceFeeRecordMapper serviceFeeRecordMapper;
     private final ObjectMapper objectMapper;
+    private final StockReservationService stockReservationService;
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
@@ -112,6 +114,7 @@ public class MerchantActivityService {
         activity.setActivityType(request.getActivityType());
         activity.setCoverImage(request.getCoverUrl());
         activity.setActivityDesc(request.getDescription());
+        Integer oldStock = activity.getStock();
         activity.setStock(request.getStock());
         activity.setIsPublic(Boolean.TRUE.equals(request.getIsPublic()) ? 1 : 0);
 
@@ -132,6 +135,7 @@ public class MerchantActivityService {
         activity.setConfig(buildConfigJson(request));
 
         activityMapper.updateById(activity);
+        stockReservationService.adjustTotalStock(activityId, oldStock, activity.getStock());
         log.info("商户更新活动: merchantId={}, activityId={}", merchantId, activityId);
 
         // 团购活动更新拼团配置
@@ -0,0 +1,191 @@
+package com.wsh.notification.service;
+
+import com.wsh.common.core.util.TokenBucket;
+import com.wsh.domain.entity.EquityReminder;
+import com.wsh.domain.entity.User;
+import com.wsh.domain.mapper.EquityReminderMapper;
+import com.wsh.domain.mapper.UserMapper;
+import com.wsh.integration.wechat.WechatApiClient;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 提醒批量发送服务
+ * 1. 按主键键集分页读取待发送提醒，每页批量查询用户 openid
+ * 2. 有界线程池并发发送微信订阅消息，令牌桶限制每秒发送量不超过微信下发配额
+ * 3. 系统繁忙、频率超限、网络异常等临时失败按指数退避重试；access_token 取自共享缓存，失效时重新获取
+ * 4. 每页发送完成后按结果批量更新提醒状态（1已发送 2发送失败）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReminderDispatchService {
+
+    /** 每页读取的提醒数 */
+    private static final int PAGE_SIZE = 500;
+
+    /** 并发发送线程数 */
+    private static final int SEND_CONCURRENCY = 16;
+
+    /** 单条提醒最多尝试次数 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** 首次重试等待（毫秒），之后每次翻倍 */
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    private final EquityReminderMapper reminderMapper;
+    private final UserMapper userMapper;
+    private final WechatSubscribeService wechatSubscribeService;
+    private final WechatApiClient wechatApiClient;
+
+    /** 每秒发送上限 */
+    @Value("${wsh.reminder-send.rate-per-second:50}")
+    private int ratePerSecond;
+
+    private final ExecutorService sendExecutor = newSendExecutor();
+
+    /**
+     * 发送所有待发送的提醒
+     *
+     * @param heartbeat 每页处理完成后回调（调用方用于续期任务锁）
+     */
+    public void dispatchPending(Runnable heartbeat) {
+        TokenBucket limiter = new TokenBucket(ratePerSecond, ratePerSecond);
+        int total = 0;
+        int success = 0;
+        int noOpenid = 0;
+        long afterId = 0L;
+
+        while (true) {
+            List<EquityReminder> page = reminderMapper.selectPendingPage(afterId, PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            total += page.size();
+            afterId = page.get(page.size() - 1).getReminderId();
+
+            Map<Long, String> openids = loadOpenids(page);
+            List<Long> failedIds = new ArrayList<>();
+            List<EquityReminder> sending = new ArrayList<>(page.size());
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(page.size());
+            for (EquityReminder reminder : page) {
+                String openid = openids.get(reminder.getUserId());
+                if (openid == null) {
+                    failedIds.add(reminder.getReminderId());
+                    noOpenid++;
+                    continue;
+                }
+                sending.add(reminder);
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> send(reminder, openid, limiter), sendExecutor));
+            }
+
+            List<Long> sentIds = new ArrayList<>(sending.size());
+            for (int i = 0; i < sending.size(); i++) {
+                if (Boolean.TRUE.equals(futures.get(i).join())) {
+                    sentIds.add(sending.get(i).getReminderId());
+                } else {
+                    failedIds.add(sending.get(i).getReminderId());
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (!sentIds.isEmpty()) {
+                reminderMapper.updateRemindStatus(sentIds, 1, now);
+            }
+            if (!failedIds.isEmpty()) {
+                reminderMapper.updateRemindStatus(failedIds, 2, now);
+            }
+            success += sentIds.size();
+            heartbeat.run();
+
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        if (total == 0) {
+            log.info("ReminderDispatch: 无待发送的提醒记录");
+            return;
+        }
+        log.info("ReminderDispatch 统计: 总数={}, 微信成功={}, 微信失败={}（其中无openid {}）",
+                total, success, total - success, noOpenid);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 发送单条提醒，临时失败时退避重试
+     *
+     * @return 是否发送成功
+     */
+    private boolean send(EquityReminder reminder, String openid, TokenBucket limiter) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                limiter.acquire();
+                String accessToken = wechatApiClient.getAccessToken();
+                int errCode = wechatSubscribeService.sendEquityExpireReminder(accessToken, openid, reminder);
+                if (errCode == 0) {
+                    return true;
+                }
+                // access_token 失效时客户端已清除缓存，重试时重新获取
+                if (!WechatApiClient.isTokenError(errCode) && !WechatApiClient.isTransientError(errCode)) {
+                    // 用户拒收、模板错误等不可重试的失败
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                log.warn("发送订阅消息异常: reminderId={}, 第{}次, {}", reminder.getReminderId(), attempt, e.getMessage());
+            }
+
+            if (attempt >= MAX_ATTEMPTS) {
+                return false;
+            }
+            try {
+                Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private Map<Long, String> loadOpenids(List<EquityReminder> page) {
+        List<Long> userIds = page.stream()
+                .map(EquityReminder::getUserId)
+                .distinct()
+                .collect(Collectors.toList());
+        return userMapper.selectBatchIds(userIds).stream()
+                .filter(user -> user.getOpenid() != null)
+                .collect(Collectors.toMap(User::getUserId, User::getOpenid));
+    }
+
+    private static ExecutorService newSendExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("reminder-send-");
+        threadFactory.setDaemon(true);
+        // 队列可容纳一整页，提交不会被拒绝
+        return new ThreadPoolExecutor(SEND_CONCURRENCY, SEND_CONCURRENCY, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(PAGE_SIZE), threadFactory);
+    }
+}
@@ -31,6 +31,8 @@ public class WechatSubscribeService {
     // 订阅消息模板ID（需在微信小程序后台配置）
     private static final String TPL_EQUITY_EXPIRE = "your_template_id_here";
 
+    private static final String PAGE_EQUITY_EXPIRING = "/subPackages/consumer/equity/expiring";
+
     /**
      * 发送权益过期提醒订阅消息
      *
@@ -53,7 +55,7 @@ public class WechatSubscribeService {
             boolean success = wechatApiClient.sendSubscribeMessage(
                     user.getOpenid(),
                     TPL_EQUITY_EXPIRE,
-                    "/subPackages/consumer/equity/expiring",
+                    PAGE_EQUITY_EXPIRING,
                     data
             );
 
@@ -78,6 +80,19 @@ public class WechatSubscribeService {
         }
     }
 
+    /**
+     * 使用已获取的 access_token 发送权益过期提醒（供批量发送调用，不更新提醒状态）
+     *
+     * @param accessToken 接口调用凭证
+     * @param openid      接收者 openid
+     * @param reminder    提醒记录
+     * @return 微信返回的 errcode，0 表示成功
+     */
+    public int sendEquityExpireReminder(String accessToken, String openid, EquityReminder reminder) {
+        return wechatApiClient.sendSubscribeMessage(accessToken, openid, TPL_EQUITY_EXPIRE,
+                PAGE_EQUITY_EXPIRING, buildEquityExpireData(reminder));
+    }
+
     /**
      * 构建权益过期提醒消息数据
      */
@@ -38,15 +38,16 @@ public class OrderController {
         return R.ok(orderService.requestPayment(orderId, userId, openid));
     }
 
-    @Operation(summary = "我的订单列表", description = "查询当前用户的订单列表")
+    @Operation(summary = "我的订单列表", description = "查询当前用户的订单列表，优先使用游标翻页")
     @GetMapping("/orders")
     public R<OrderListResponse> getOrders(
             @Parameter(description = "状态筛选：0待支付 1已支付 2已关闭 3已退款") 
             @RequestParam(required = false) Integer status,
-            @Parameter(description = "页码") @RequestParam(defaultValue = "1") Integer page,
+            @Parameter(description = "翻页游标（取上一页返回的nextCursor）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "页码（未传游标时生效）") @RequestParam(defaultValue = "1") Integer page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") Integer pageSize) {
         Long userId = SecurityUtil.getUserId();
-        return R.ok(orderService.getUserOrders(userId, status, page, pageSize));
+        return R.ok(orderService.getUserOrders(userId, status, cursor, page, pageSize));
     }
 
     @Operation(summary = "订单详情", description = "查询订单详细信息")
@@ -70,9 +71,11 @@ public class OrderController {
     @GetMapping("/vouchers")
     public R<VoucherListResponse> getVouchers(
             @Parameter(description = "状态筛选：0未使用 1已使用 2已过期") 
-            @RequestParam(required = false) Integer status) {
+            @RequestParam(required = false) Integer status,
+            @Parameter(description = "翻页游标（取上一页返回的nextCursor）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小（默认20；游标与每页大小均不传时返回全部）") @RequestParam(required = false) Integer pageSize) {
         Long userId = SecurityUtil.getUserId();
-        return R.ok(orderService.getUserVouchers(userId, status));
+        return R.ok(orderService.getUserVouchers(userId, status, cursor, pageSize));
     }
 
     @Operation(summary = "券码详情", description = "查询券码详细信息（含二维码数据）")
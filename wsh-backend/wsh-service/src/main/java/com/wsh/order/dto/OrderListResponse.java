@@ -17,7 +17,7 @@ public class OrderListResponse {
     @Schema(description = "订单列表")
     private List<OrderResponse> orders;
 
-    @Schema(description = "总数")
+    @Schema(description = "总数（仅首页返回）")
     private Integer total;
 
     @Schema(description = "当前页")
@@ -25,4 +25,10 @@ public class OrderListResponse {
 
     @Schema(description = "每页大小")
     private Integer pageSize;
+
+    @Schema(description = "下一页游标，为空表示没有更多")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多")
+    private Boolean hasMore;
 }
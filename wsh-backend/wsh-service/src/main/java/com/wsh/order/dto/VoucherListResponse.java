@@ -31,6 +31,12 @@ public class VoucherListResponse {
     @Schema(description = "已过期数量")
     private Integer expiredCount;
 
+    @Schema(description = "下一页游标，为空表示没有更多")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多")
+    private Boolean hasMore;
+
     @Data
     @Builder
     @Schema(description = "券码项")
@@ -1,8 +1,8 @@
 package com.wsh.order.job;
 
-import com.wsh.common.core.constant.Constants;
+import com.wsh.common.mybatis.sweep.SweepResult;
 import com.wsh.common.redis.util.RedisUtil;
-import com.wsh.order.service.OrderService;
+import com.wsh.order.service.OrderExpirySweeper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,24 +11,24 @@ import org.springframework.stereotype.Component;
 import java.util.concurrent.TimeUnit;
 
 /**
- * 订单超时关闭定时任务
- * 每5分钟执行一次，关闭超时未支付的订单
+ * 订单超时对账任务
+ * 超时关闭由 TimeoutScheduler 在到期时触发，本任务每30分钟分批兜底关闭遗漏的超时订单
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OrderTimeoutJob {
 
-    private final OrderService orderService;
+    private final OrderExpirySweeper orderExpirySweeper;
     private final RedisUtil redisUtil;
 
     private static final String LOCK_KEY = "lock:order:timeout";
     private static final int LOCK_EXPIRE_SECONDS = 300;
 
     /**
-     * 每5分钟执行一次
+     * 每30分钟执行一次
      */
-    @Scheduled(cron = "0 */5 * * * ?")
+    @Scheduled(cron = "0 */30 * * * ?")
     public void closeExpiredOrders() {
         // 获取分布式锁
         boolean locked = Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, "1", LOCK_EXPIRE_SECONDS, TimeUnit.SECONDS));
@@ -39,8 +39,8 @@ public class OrderTimeoutJob {
 
         try {
             log.info("开始执行订单超时关闭任务...");
-            int closedCount = orderService.closeExpiredOrders();
-            log.info("订单超时关闭任务完成，关闭订单数: {}", closedCount);
+            SweepResult result = orderExpirySweeper.sweep();
+            log.info("订单超时关闭任务完成 {}", result);
         } catch (Exception e) {
             log.error("订单超时关闭任务执行失败", e);
         } finally {
@@ -0,0 +1,47 @@
+package com.wsh.order.job;
+
+import com.wsh.common.mybatis.sweep.SweepResult;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.order.service.VoucherExpirySweeper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 券码过期回写定时任务
+ * 每10分钟执行一次，将已过有效期的未使用券码标记为已过期（查询接口已在读取时实时判定）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VoucherExpireJob {
+
+    private final VoucherExpirySweeper voucherExpirySweeper;
+    private final RedisUtil redisUtil;
+
+    private static final String LOCK_KEY = "lock:voucher:expire";
+    private static final int LOCK_EXPIRE_SECONDS = 600;
+
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void expireOverdueVouchers() {
+        boolean locked = Boolean.TRUE.equals(redisUtil.tryLock(LOCK_KEY, "1", LOCK_EXPIRE_SECONDS, TimeUnit.SECONDS));
+        if (!locked) {
+            log.debug("券码过期任务正在执行中，跳过本次");
+            return;
+        }
+
+        try {
+            SweepResult result = voucherExpirySweeper.sweep();
+            if (result.getScanned() > 0) {
+                log.info("券码过期回写完成 {}", result);
+            }
+        } catch (Exception e) {
+            log.error("券码过期回写任务执行失败", e);
+        } finally {
+            redisUtil.releaseLock(LOCK_KEY, "1");
+        }
+    }
+}
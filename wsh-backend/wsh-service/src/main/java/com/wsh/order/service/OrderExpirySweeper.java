@@ -0,0 +1,78 @@
+package com.wsh.order.service;
+
+import com.wsh.activity.service.StockReservationService;
+import com.wsh.common.core.constant.Constants;
+import com.wsh.common.mybatis.sweep.ExpirySweeper;
+import com.wsh.domain.entity.Order;
+import com.wsh.domain.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 超时待支付订单清扫器
+ * 每批先锁定仍为待支付的订单，再一次 UPDATE 关闭，提交后只对本次关闭的订单按活动批量释放库存预占
+ */
+@Slf4j
+@Component
+public class OrderExpirySweeper extends ExpirySweeper<Order> {
+
+    private final OrderMapper orderMapper;
+    private final StockReservationService stockReservationService;
+
+    public OrderExpirySweeper(PlatformTransactionManager transactionManager,
+                              OrderMapper orderMapper,
+                              StockReservationService stockReservationService) {
+        super(transactionManager);
+        this.orderMapper = orderMapper;
+        this.stockReservationService = stockReservationService;
+    }
+
+    @Override
+    protected String name() {
+        return "order-timeout";
+    }
+
+    @Override
+    protected List<Order> fetchBatch(LocalDateTime now, Long afterId, int limit) {
+        LocalDateTime expireTime = now.minusMinutes(Constants.ORDER_TIMEOUT_MINUTES);
+        return orderMapper.selectExpiredBatch(expireTime, afterId, limit);
+    }
+
+    @Override
+    protected Long idOf(Order order) {
+        return order.getOrderId();
+    }
+
+    @Override
+    protected List<Order> expireBatch(List<Order> batch, LocalDateTime now) {
+        List<Long> orderIds = batch.stream().map(Order::getOrderId).collect(Collectors.toList());
+        // 先锁定仍为待支付的订单：并发支付/取消或另一次清扫改过的订单不会被锁定，也就不会被重复释放
+        Set<Long> lockedIds = new HashSet<>(orderMapper.lockPendingIds(orderIds));
+        if (lockedIds.isEmpty()) {
+            return List.of();
+        }
+        orderMapper.closePendingByIds(new ArrayList<>(lockedIds));
+        return batch.stream()
+                .filter(o -> lockedIds.contains(o.getOrderId()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void afterCommit(List<Order> expired) {
+        Map<Long, List<String>> tokensByActivity = expired.stream()
+                .collect(Collectors.groupingBy(Order::getActivityId,
+                        Collectors.mapping(o -> StockReservationService.orderToken(o.getOrderId()),
+                                Collectors.toList())));
+        stockReservationService.releaseAll(tokensByActivity);
+        log.debug("超时订单已关闭: count={}", expired.size());
+    }
+}
@@ -1,14 +1,17 @@
 package com.wsh.order.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wsh.activity.service.StockReservationService;
 import com.wsh.common.core.constant.Constants;
 import com.wsh.common.core.exception.BusinessException;
 import com.wsh.common.core.util.IdGenerator;
-import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.common.core.util.KeysetCursor;
 import com.wsh.domain.entity.*;
 import com.wsh.domain.mapper.*;
 import com.wsh.integration.wechat.WechatPayService;
 import com.wsh.order.dto.*;
+import com.wsh.timeout.TimeoutScheduler;
+import com.wsh.timeout.TimeoutType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,6 +22,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 订单服务
@@ -35,9 +39,11 @@ public class OrderService {
     private final ProfitSharingMapper profitSharingMapper;
     private final MerchantMemberSnapshotMapper snapshotMapper;
     private final WechatPayService wechatPayService;
-    private final RedisUtil redisUtil;
+    private final StockReservationService stockReservationService;
+    private final TimeoutScheduler timeoutScheduler;
 
-    private static final String STOCK_KEY_PREFIX = "activity:stock:";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
 
     /**
      * 创建订单
@@ -50,50 +56,52 @@ public class OrderService {
             throw new BusinessException("活动不存在");
         }
         
-        // 2. 校验活动状态
+        // 2. 校验活动状态（拼团活动的库存按参团令牌预占，须走拼团流程下单）
         validateActivity(activity);
+        if (activity.getActivityType() != null && activity.getActivityType() == Constants.ACTIVITY_TYPE_GROUP) {
+            throw new BusinessException("拼团活动请通过拼团下单");
+        }
         
         // 3. 校验会员资格（专属活动）
         validateMemberQualification(activity, userId);
         
-        // 4. 扣减库存（原子操作）
+        // 4. 预占库存（原子操作，以订单ID为令牌）
         int quantity = request.getQuantity() != null ? request.getQuantity() : 1;
-        if (!deductStock(activity.getActivityId(), activity.getStock(), quantity)) {
+        Long orderId = IdGenerator.nextId();
+        String stockToken = StockReservationService.orderToken(orderId);
+        if (!stockReservationService.reserve(activity, stockToken, quantity)) {
             throw new BusinessException("活动库存不足");
         }
-        
-        try {
-            // 5. 计算金额
-            BigDecimal orderAmount = calculateOrderAmount(activity, quantity);
-            BigDecimal payAmount = orderAmount; // 暂不支持优惠券抵扣
-            
-            // 6. 创建订单
-            Order order = new Order();
-            order.setOrderId(IdGenerator.nextId());
-            order.setOrderNo(generateOrderNo());
-            order.setUserId(userId);
-            order.setMerchantId(activity.getMerchantId());
-            order.setActivityId(activity.getActivityId());
-            order.setOrderType(activity.getActivityType());
-            order.setOrderAmount(orderAmount);
-            order.setPayAmount(payAmount);
-            order.setStatus(Constants.ORDER_STATUS_PENDING);
-            order.setIsDormancyAwake(activity.getTargetMemberType() == Constants.TARGET_MEMBER_DORMANT ? 1 : 0);
-            order.setCreatedAt(LocalDateTime.now());
-            order.setUpdatedAt(LocalDateTime.now());
-            
-            orderMapper.insert(order);
-            log.info("订单创建成功: orderNo={}, userId={}, activityId={}", order.getOrderNo(), userId, activity.getActivityId());
-            
-            // 7. 构建响应
-            Merchant merchant = merchantMapper.selectById(activity.getMerchantId());
-            return buildOrderResponse(order, activity, merchant, null);
-            
-        } catch (Exception e) {
-            // 回滚库存
-            rollbackStock(activity.getActivityId(), quantity);
-            throw e;
-        }
+        // 写库失败或事务提交失败时归还预占
+        stockReservationService.releaseOnRollback(activity.getActivityId(), stockToken);
+        
+        // 5. 计算金额
+        BigDecimal orderAmount = calculateOrderAmount(activity, quantity);
+        BigDecimal payAmount = orderAmount; // 暂不支持优惠券抵扣
+        
+        // 6. 创建订单
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setOrderNo(generateOrderNo());
+        order.setUserId(userId);
+        order.setMerchantId(activity.getMerchantId());
+        order.setActivityId(activity.getActivityId());
+        order.setOrderType(activity.getActivityType());
+        order.setOrderAmount(orderAmount);
+        order.setPayAmount(payAmount);
+        order.setStatus(Constants.ORDER_STATUS_PENDING);
+        order.setIsDormancyAwake(activity.getTargetMemberType() == Constants.TARGET_MEMBER_DORMANT ? 1 : 0);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(LocalDateTime.now());
+        
+        orderMapper.insert(order);
+        timeoutScheduler.schedule(TimeoutType.ORDER, orderId,
+                order.getCreatedAt().plusMinutes(Constants.ORDER_TIMEOUT_MINUTES));
+        log.info("订单创建成功: orderNo={}, userId={}, activityId={}", order.getOrderNo(), userId, activity.getActivityId());
+        
+        // 7. 构建响应
+        Merchant merchant = merchantMapper.selectById(activity.getMerchantId());
+        return buildOrderResponse(order, activity, merchant, null);
     }
 
     /**
@@ -114,6 +122,8 @@ public class OrderService {
         // 检查是否超时
         if (isOrderExpired(order)) {
             closeOrder(order.getOrderId());
+            timeoutScheduler.cancel(TimeoutType.ORDER, order.getOrderId());
+            stockReservationService.release(order.getActivityId(), StockReservationService.orderToken(order.getOrderId()));
             throw new BusinessException("订单已超时关闭");
         }
         
@@ -146,6 +156,7 @@ public class OrderService {
             log.warn("订单状态更新失败（可能已处理）: orderNo={}", orderNo);
             return;
         }
+        timeoutScheduler.cancel(TimeoutType.ORDER, order.getOrderId());
         
         // 2. 生成券码
         Voucher voucher = generateVoucher(order);
@@ -154,39 +165,65 @@ public class OrderService {
         // 3. 创建分账记录（待核销时分账）
         createProfitSharingRecord(order, voucher);
         
-        // 4. 更新活动已售数量
-        activityMapper.incrementSoldCount(order.getActivityId());
+        // 4. 更新活动已售数量，事务提交后确认库存预占（拼团订单的库存在成团时确认并计入已售）
+        if (order.getOrderType() == null || order.getOrderType() != Constants.ACTIVITY_TYPE_GROUP) {
+            activityMapper.incrementSoldCount(order.getActivityId());
+            stockReservationService.confirmAfterCommit(order.getActivityId(),
+                    StockReservationService.orderToken(order.getOrderId()));
+        }
         
         log.info("支付成功处理完成: orderNo={}, voucherCode={}", orderNo, voucher.getVoucherCode());
     }
 
     /**
      * 查询用户订单列表
+     * 按 (created_at, order_id) 键集分页，索引 idx_order_user_created 覆盖排序；未传游标时兼容页码翻页
      */
-    public OrderListResponse getUserOrders(Long userId, Integer status, Integer page, Integer pageSize) {
+    public OrderListResponse getUserOrders(Long userId, Integer status, String cursor, Integer page, Integer pageSize) {
+        int size = normalizePageSize(pageSize);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
         LambdaQueryWrapper<Order> wrapper = new LambdaQueryWrapper<Order>()
                 .eq(Order::getUserId, userId)
                 .eq(status != null, Order::getStatus, status)
-                .orderByDesc(Order::getCreatedAt);
-        
-        List<Order> allOrders = orderMapper.selectList(wrapper);
-        int total = allOrders.size();
-        
-        // 分页
-        int start = (page - 1) * pageSize;
-        int end = Math.min(start + pageSize, total);
-        List<Order> pagedOrders = start < total ? allOrders.subList(start, end) : Collections.emptyList();
-        
-        // 加载关联数据
-        List<OrderResponse> responses = pagedOrders.stream()
-                .map(this::enrichOrderResponse)
-                .collect(Collectors.toList());
-        
+                .and(after != null, w -> w.lt(Order::getCreatedAt, after.getCreatedAt())
+                        .or(o -> o.eq(Order::getCreatedAt, after.getCreatedAt())
+                                .lt(Order::getOrderId, after.getId())))
+                .orderByDesc(Order::getCreatedAt)
+                .orderByDesc(Order::getOrderId);
+
+        int offset = after == null && page != null && page > 1 ? (page - 1) * size : 0;
+        wrapper.last("LIMIT " + (size + 1) + (offset > 0 ? " OFFSET " + offset : ""));
+        List<Order> orders = orderMapper.selectList(wrapper);
+
+        // 多取一条判断是否还有下一页
+        boolean hasMore = orders.size() > size;
+        if (hasMore) {
+            orders = orders.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getOrderId()).encode();
+        }
+
+        // 总数只在首页统计，后续翻页不重复 COUNT
+        Integer total = null;
+        if (after == null && offset == 0) {
+            total = hasMore
+                    ? Math.toIntExact(orderMapper.selectCount(new LambdaQueryWrapper<Order>()
+                            .eq(Order::getUserId, userId)
+                            .eq(status != null, Order::getStatus, status)))
+                    : orders.size();
+        }
+
         return OrderListResponse.builder()
-                .orders(responses)
+                .orders(enrichOrderResponses(orders))
                 .total(total)
-                .page(page)
-                .pageSize(pageSize)
+                .page(after == null ? page : null)
+                .pageSize(size)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
                 .build();
     }
 
@@ -201,7 +238,7 @@ public class OrderService {
         if (!order.getUserId().equals(userId)) {
             throw new BusinessException("无权查看此订单");
         }
-        return enrichOrderResponse(order);
+        return enrichOrderResponses(Collections.singletonList(order)).get(0);
     }
 
     /**
@@ -221,54 +258,75 @@ public class OrderService {
         }
         
         closeOrder(order.getOrderId());
+        timeoutScheduler.cancel(TimeoutType.ORDER, order.getOrderId());
         
-        // 回滚库存
-        rollbackStock(order.getActivityId(), 1);
+        // 事务提交后释放库存预占
+        stockReservationService.releaseAfterCommit(order.getActivityId(),
+                StockReservationService.orderToken(order.getOrderId()));
         
         log.info("订单取消成功: orderId={}, userId={}", orderId, userId);
     }
 
     /**
      * 查询用户券包
+     * 按 (created_at, voucher_id) 键集分页；过期状态在读取时按有效期计算，回写由 VoucherExpirySweeper 完成
+     * 游标与每页大小均未传时（不支持翻页的旧版客户端）返回全部券码
      */
-    public VoucherListResponse getUserVouchers(Long userId, Integer status) {
+    public VoucherListResponse getUserVouchers(Long userId, Integer status, String cursor, Integer pageSize) {
+        boolean paged = cursor != null || pageSize != null;
+        int size = normalizePageSize(pageSize);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDateTime now = LocalDateTime.now();
+
         LambdaQueryWrapper<Voucher> wrapper = new LambdaQueryWrapper<Voucher>()
                 .eq(Voucher::getUserId, userId)
-                .eq(status != null, Voucher::getStatus, status)
-                .orderByDesc(Voucher::getCreatedAt);
-        
+                .and(after != null, w -> w.lt(Voucher::getCreatedAt, after.getCreatedAt())
+                        .or(o -> o.eq(Voucher::getCreatedAt, after.getCreatedAt())
+                                .lt(Voucher::getVoucherId, after.getId())))
+                .orderByDesc(Voucher::getCreatedAt)
+                .orderByDesc(Voucher::getVoucherId)
+                .last(paged, "LIMIT " + (size + 1));
+        applyVoucherStatusFilter(wrapper, status, now);
         List<Voucher> vouchers = voucherMapper.selectList(wrapper);
-        
-        // 统计各状态数量
-        int available = 0, used = 0, expired = 0;
-        for (Voucher v : vouchers) {
-            if (v.getStatus() == Constants.VOUCHER_STATUS_UNUSED) {
-                // 检查是否已过期
-                if (v.getValidEndTime() != null && v.getValidEndTime().isBefore(LocalDateTime.now())) {
-                    v.setStatus(Constants.VOUCHER_STATUS_EXPIRED);
-                    voucherMapper.updateById(v);
-                    expired++;
-                } else {
-                    available++;
-                }
-            } else if (v.getStatus() == Constants.VOUCHER_STATUS_USED) {
-                used++;
-            } else if (v.getStatus() == Constants.VOUCHER_STATUS_EXPIRED) {
-                expired++;
-            }
+
+        boolean hasMore = paged && vouchers.size() > size;
+        if (hasMore) {
+            vouchers = vouchers.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Voucher last = vouchers.get(vouchers.size() - 1);
+            nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getVoucherId()).encode();
+        }
+
+        // 统计各状态数量（单条聚合查询）
+        Map<String, Object> counts = voucherMapper.countByUserGroupStatus(userId, now);
+        int available = countValue(counts, "available");
+        int used = countValue(counts, "used");
+        int expired = countValue(counts, "expired");
+        int total;
+        if (status == null) {
+            total = available + used + expired;
+        } else if (status == Constants.VOUCHER_STATUS_UNUSED) {
+            total = available;
+        } else if (status == Constants.VOUCHER_STATUS_USED) {
+            total = used;
+        } else if (status == Constants.VOUCHER_STATUS_EXPIRED) {
+            total = expired;
+        } else {
+            total = Math.toIntExact(voucherMapper.selectCount(new LambdaQueryWrapper<Voucher>()
+                    .eq(Voucher::getUserId, userId)
+                    .eq(Voucher::getStatus, status)));
         }
-        
-        // 转换响应
-        List<VoucherListResponse.VoucherItem> items = vouchers.stream()
-                .map(this::convertVoucherItem)
-                .collect(Collectors.toList());
-        
+
         return VoucherListResponse.builder()
-                .vouchers(items)
-                .total(vouchers.size())
+                .vouchers(convertVoucherItems(vouchers, now))
+                .total(total)
                 .availableCount(available)
                 .usedCount(used)
                 .expiredCount(expired)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
                 .build();
     }
 
@@ -283,30 +341,7 @@ public class OrderService {
         if (!voucher.getUserId().equals(userId)) {
             throw new BusinessException("无权查看此券码");
         }
-        return convertVoucherItem(voucher);
-    }
-
-    /**
-     * 关闭超时订单
-     */
-    @Transactional(rollbackFor = Exception.class)
-    public int closeExpiredOrders() {
-        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(Constants.ORDER_TIMEOUT_MINUTES);
-        List<Order> expiredOrders = orderMapper.selectExpiredOrders(expireTime);
-        
-        int closedCount = 0;
-        for (Order order : expiredOrders) {
-            try {
-                closeOrder(order.getOrderId());
-                rollbackStock(order.getActivityId(), 1);
-                closedCount++;
-                log.info("超时订单已关闭: orderNo={}", order.getOrderNo());
-            } catch (Exception e) {
-                log.error("关闭超时订单失败: orderNo={}", order.getOrderNo(), e);
-            }
-        }
-        
-        return closedCount;
+        return convertVoucherItems(Collections.singletonList(voucher), LocalDateTime.now()).get(0);
     }
 
     // ==================== 私有方法 ====================
@@ -347,35 +382,6 @@ public class OrderService {
         }
     }
 
-    private boolean deductStock(Long activityId, Integer totalStock, int quantity) {
-        if (totalStock == null || totalStock < 0) {
-            return true; // 无限库存
-        }
-        
-        String stockKey = STOCK_KEY_PREFIX + activityId;
-        
-        // 确保缓存中有库存值
-        if (redisUtil.get(stockKey) == null) {
-            Activity activity = activityMapper.selectById(activityId);
-            int sold = activity.getSoldCount() != null ? activity.getSoldCount() : 0;
-            int currentStock = totalStock - sold;
-            redisUtil.set(stockKey, currentStock, 3600L, java.util.concurrent.TimeUnit.SECONDS);
-        }
-        
-        // 原子扣减（Lua 脚本，防超卖）
-        Long remaining = redisUtil.stockDecrement(stockKey, quantity);
-        return remaining != null && remaining >= 0;
-    }
-
-    private void rollbackStock(Long activityId, int quantity) {
-        String stockKey = STOCK_KEY_PREFIX + activityId;
-        Object cached = redisUtil.get(stockKey);
-        if (cached != null) {
-            long currentStock = ((Number) cached).longValue();
-            redisUtil.set(stockKey, currentStock + quantity, 3600L, java.util.concurrent.TimeUnit.SECONDS);
-        }
-    }
-
     private BigDecimal calculateOrderAmount(Activity activity, int quantity) {
         String config = activity.getConfig();
         if (config == null || config.isBlank()) {
@@ -520,16 +526,78 @@ public class OrderService {
                 .isBefore(LocalDateTime.now());
     }
 
-    private OrderResponse enrichOrderResponse(Order order) {
-        Activity activity = activityMapper.selectById(order.getActivityId());
-        Merchant merchant = merchantMapper.selectById(order.getMerchantId());
-        
-        Voucher voucher = null;
-        if (order.getStatus() == Constants.ORDER_STATUS_PAID) {
-            voucher = voucherMapper.selectByOrderId(order.getOrderId());
+    /**
+     * 批量加载订单关联的活动、商户、券码（各一次 IN 查询）
+     */
+    private List<OrderResponse> enrichOrderResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Collections.emptyList();
         }
-        
-        return buildOrderResponse(order, activity, merchant, voucher);
+        Map<Long, Activity> activityMap = loadActivities(orders.stream().map(Order::getActivityId));
+        Map<Long, Merchant> merchantMap = loadMerchants(orders.stream().map(Order::getMerchantId));
+
+        List<Long> paidOrderIds = orders.stream()
+                .filter(o -> o.getStatus() == Constants.ORDER_STATUS_PAID)
+                .map(Order::getOrderId)
+                .collect(Collectors.toList());
+        Map<Long, Voucher> voucherMap = paidOrderIds.isEmpty() ? Collections.emptyMap()
+                : voucherMapper.selectList(new LambdaQueryWrapper<Voucher>().in(Voucher::getOrderId, paidOrderIds))
+                        .stream()
+                        .collect(Collectors.toMap(Voucher::getOrderId, v -> v, (a, b) -> a));
+
+        return orders.stream()
+                .map(o -> buildOrderResponse(o, activityMap.get(o.getActivityId()),
+                        merchantMap.get(o.getMerchantId()), voucherMap.get(o.getOrderId())))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Activity> loadActivities(Stream<Long> ids) {
+        Set<Long> idSet = ids.filter(Objects::nonNull).collect(Collectors.toSet());
+        if (idSet.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return activityMapper.selectBatchIds(idSet).stream()
+                .collect(Collectors.toMap(Activity::getActivityId, a -> a));
+    }
+
+    private Map<Long, Merchant> loadMerchants(Stream<Long> ids) {
+        Set<Long> idSet = ids.filter(Objects::nonNull).collect(Collectors.toSet());
+        if (idSet.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return merchantMapper.selectBatchIds(idSet).stream()
+                .collect(Collectors.toMap(Merchant::getMerchantId, m -> m));
+    }
+
+    private int normalizePageSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 券码状态筛选：未使用/已过期按有效期实时判定
+     */
+    private void applyVoucherStatusFilter(LambdaQueryWrapper<Voucher> wrapper, Integer status, LocalDateTime now) {
+        if (status == null) {
+            return;
+        }
+        if (status == Constants.VOUCHER_STATUS_UNUSED) {
+            wrapper.eq(Voucher::getStatus, Constants.VOUCHER_STATUS_UNUSED)
+                    .and(w -> w.isNull(Voucher::getValidEndTime).or().ge(Voucher::getValidEndTime, now));
+        } else if (status == Constants.VOUCHER_STATUS_EXPIRED) {
+            wrapper.and(w -> w.eq(Voucher::getStatus, Constants.VOUCHER_STATUS_EXPIRED)
+                    .or(o -> o.eq(Voucher::getStatus, Constants.VOUCHER_STATUS_UNUSED)
+                            .lt(Voucher::getValidEndTime, now)));
+        } else {
+            wrapper.eq(Voucher::getStatus, status);
+        }
+    }
+
+    private int countValue(Map<String, Object> counts, String key) {
+        Object value = counts != null ? counts.get(key) : null;
+        return value instanceof Number ? ((Number) value).intValue() : 0;
     }
 
     private OrderResponse buildOrderResponse(Order order, Activity activity, Merchant merchant, Voucher voucher) {
@@ -569,11 +637,20 @@ public class OrderService {
         return builder.build();
     }
 
-    private VoucherListResponse.VoucherItem convertVoucherItem(Voucher voucher) {
-        Activity activity = activityMapper.selectById(voucher.getActivityId());
-        Merchant merchant = merchantMapper.selectById(voucher.getMerchantId());
-        
-        LocalDateTime now = LocalDateTime.now();
+    private List<VoucherListResponse.VoucherItem> convertVoucherItems(List<Voucher> vouchers, LocalDateTime now) {
+        if (vouchers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Activity> activityMap = loadActivities(vouchers.stream().map(Voucher::getActivityId));
+        Map<Long, Merchant> merchantMap = loadMerchants(vouchers.stream().map(Voucher::getMerchantId));
+        return vouchers.stream()
+                .map(v -> convertVoucherItem(v, activityMap.get(v.getActivityId()),
+                        merchantMap.get(v.getMerchantId()), now))
+                .collect(Collectors.toList());
+    }
+
+    private VoucherListResponse.VoucherItem convertVoucherItem(Voucher voucher, Activity activity,
+                                                               Merchant merchant, LocalDateTime now) {
         boolean expiringSoon = voucher.getValidEndTime() != null 
                 && voucher.getValidEndTime().isAfter(now)
                 && voucher.getValidEndTime().isBefore(now.plusDays(7));
@@ -582,6 +659,13 @@ public class OrderService {
         if (voucher.getValidEndTime() != null && voucher.getValidEndTime().isAfter(now)) {
             remainingDays = (int) ChronoUnit.DAYS.between(now, voucher.getValidEndTime());
         }
+
+        // 读取时判定过期，不在查询中回写
+        Integer status = voucher.getStatus();
+        if (status != null && status == Constants.VOUCHER_STATUS_UNUSED
+                && voucher.getValidEndTime() != null && voucher.getValidEndTime().isBefore(now)) {
+            status = Constants.VOUCHER_STATUS_EXPIRED;
+        }
         
         return VoucherListResponse.VoucherItem.builder()
                 .voucherId(voucher.getVoucherId())
@@ -595,8 +679,8 @@ public class OrderService {
                 .voucherType(voucher.getVoucherType())
                 .voucherTypeName(getVoucherTypeName(voucher.getVoucherType()))
                 .voucherValue(voucher.getVoucherValue())
-                .status(voucher.getStatus())
-                .statusName(getVoucherStatusName(voucher.getStatus()))
+                .status(status)
+                .statusName(getVoucherStatusName(status))
                 .validStartTime(voucher.getValidStartTime())
                 .validEndTime(voucher.getValidEndTime())
                 .usedTime(voucher.getUsedTime())
@@ -0,0 +1,51 @@
+package com.wsh.order.service;
+
+import com.wsh.common.core.constant.Constants;
+import com.wsh.domain.entity.Order;
+import com.wsh.domain.mapper.OrderMapper;
+import com.wsh.timeout.TimeoutHandler;
+import com.wsh.timeout.TimeoutType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待支付订单到期处理：复用 OrderExpirySweeper 的条件关闭与库存释放
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderTimeoutHandler implements TimeoutHandler {
+
+    private final OrderMapper orderMapper;
+    private final OrderExpirySweeper orderExpirySweeper;
+
+    @Override
+    public TimeoutType type() {
+        return TimeoutType.ORDER;
+    }
+
+    @Override
+    public Map<Long, LocalDateTime> onTimeout(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> due = new ArrayList<>();
+        Map<Long, LocalDateTime> notDue = new HashMap<>();
+        for (Order order : orderMapper.selectBatchIds(ids)) {
+            if (order.getStatus() != Constants.ORDER_STATUS_PENDING) {
+                continue;
+            }
+            LocalDateTime deadline = order.getCreatedAt().plusMinutes(Constants.ORDER_TIMEOUT_MINUTES);
+            if (deadline.isAfter(now)) {
+                notDue.put(order.getOrderId(), deadline);
+            } else {
+                due.add(order);
+            }
+        }
+        orderExpirySweeper.expireNow(due);
+        return notDue;
+    }
+}
@@ -0,0 +1,51 @@
+package com.wsh.order.service;
+
+import com.wsh.common.mybatis.sweep.ExpirySweeper;
+import com.wsh.domain.mapper.VoucherMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 过期券码清扫器
+ * 将已过有效期的未使用券码回写为已过期（查询接口已在读取时实时判定）
+ */
+@Component
+public class VoucherExpirySweeper extends ExpirySweeper<Long> {
+
+    private final VoucherMapper voucherMapper;
+
+    public VoucherExpirySweeper(PlatformTransactionManager transactionManager, VoucherMapper voucherMapper) {
+        super(transactionManager);
+        this.voucherMapper = voucherMapper;
+    }
+
+    @Override
+    protected String name() {
+        return "voucher-expire";
+    }
+
+    @Override
+    protected int batchSize() {
+        return 500;
+    }
+
+    @Override
+    protected List<Long> fetchBatch(LocalDateTime now, Long afterId, int limit) {
+        return voucherMapper.selectOverdueIdBatch(now, afterId, limit);
+    }
+
+    @Override
+    protected Long idOf(Long voucherId) {
+        return voucherId;
+    }
+
+    @Override
+    protected List<Long> expireBatch(List<Long> batch, LocalDateTime now) {
+        int updated = voucherMapper.markExpired(batch, now);
+        // 券码过期无提交后处理，返回列表仅用于统计命中数量
+        return batch.subList(0, updated);
+    }
+}
@@ -0,0 +1,23 @@
+package com.wsh.timeout;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 超时到期处理器
+ * 实现方需自行校验记录状态与到期时间（条件更新保证重复触发无副作用），
+ * 返回尚未到期的记录ID，由调度器重新入队
+ */
+public interface TimeoutHandler {
+
+    TimeoutType type();
+
+    /**
+     * 处理到期记录
+     *
+     * @param ids 已出队的记录ID
+     * @return 尚未到期、需要重新入队的记录（ID -> 到期时间）
+     */
+    Map<Long, LocalDateTime> onTimeout(List<Long> ids);
+}
@@ -0,0 +1,203 @@
+package com.wsh.timeout;
+
+import com.wsh.common.redis.util.RedisUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 延时超时调度器
+ * 1. 创建订单/拼团时按到期时间写入 Redis 有序集合（score = 到期毫秒时间戳），作为跨节点的持久延时队列
+ * 2. 近期到期的任务同时挂到本节点时间轮，到点后以 ZREM 抢占，抢到的节点负责处理
+ * 3. 每个节点每5秒原子出队已到期成员，兜底本节点重启、时间轮溢出和远期任务
+ * 4. 进程崩溃等导致出队后未处理的记录，由低频对账任务（OrderTimeoutJob / GroupBuyExpireJob）兜底
+ */
+@Slf4j
+@Component
+public class TimeoutScheduler {
+
+    /** 本地时间轮只承接该时长内到期的任务 */
+    private static final long LOCAL_HORIZON_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /** 本地时间轮最大挂起任务数，超出后只依赖 Redis 轮询 */
+    private static final int MAX_LOCAL_PENDING = 100_000;
+
+    private static final int POLL_BATCH_SIZE = 200;
+
+    private final RedisUtil redisUtil;
+    private final ObjectProvider<TimeoutHandler> handlerProvider;
+    private final HashedWheelTimer wheelTimer;
+    private final ExecutorService dispatchExecutor;
+    private final Map<String, Timeout> localTimeouts = new ConcurrentHashMap<>();
+    private volatile Map<TimeoutType, TimeoutHandler> handlers;
+
+    public TimeoutScheduler(RedisUtil redisUtil, ObjectProvider<TimeoutHandler> handlerProvider) {
+        this.redisUtil = redisUtil;
+        // 处理器依赖业务服务，延迟获取以避免循环依赖
+        this.handlerProvider = handlerProvider;
+        this.wheelTimer = new HashedWheelTimer(new DefaultThreadFactory("timeout-wheel", true),
+                100, TimeUnit.MILLISECONDS, 512, false, MAX_LOCAL_PENDING);
+        // 队列满时直接丢弃，成员仍在 Redis 中，由轮询兜底
+        this.dispatchExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(10_000), new DefaultThreadFactory("timeout-dispatch", true),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * 登记到期任务（重复登记以最后一次的到期时间为准）
+     * 登记失败不影响业务，由对账任务兜底
+     */
+    public void schedule(TimeoutType type, Long id, LocalDateTime deadline) {
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        try {
+            redisUtil.zAdd(type.getQueueKey(), String.valueOf(id), deadlineMillis);
+        } catch (Exception e) {
+            log.warn("延时任务登记失败: type={}, id={}, error={}", type, id, e.getMessage());
+            return;
+        }
+        long delay = deadlineMillis - System.currentTimeMillis();
+        if (delay <= LOCAL_HORIZON_MILLIS) {
+            scheduleLocal(type, id, Math.max(delay, 0));
+        }
+    }
+
+    /**
+     * 取消到期任务（支付成功、主动取消、成团等）
+     */
+    public void cancel(TimeoutType type, Long id) {
+        Timeout timeout = localTimeouts.remove(localKey(type, id));
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        try {
+            redisUtil.zRemove(type.getQueueKey(), String.valueOf(id));
+        } catch (Exception e) {
+            // 到期后处理器按状态条件更新，残留成员无副作用
+            log.warn("延时任务取消失败: type={}, id={}, error={}", type, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 轮询 Redis 延时队列中已到期的成员
+     */
+    @Scheduled(fixedDelay = 5000, initialDelay = 10000)
+    public void pollDue() {
+        for (TimeoutType type : TimeoutType.values()) {
+            try {
+                while (true) {
+                    List<Object> items = redisUtil.zPopByScore(type.getQueueKey(),
+                            System.currentTimeMillis(), POLL_BATCH_SIZE);
+                    if (items.isEmpty()) {
+                        break;
+                    }
+                    List<Long> ids = items.stream()
+                            .map(item -> Long.valueOf(item.toString()))
+                            .collect(Collectors.toList());
+                    ids.forEach(id -> cancelLocal(type, id));
+                    dispatch(type, ids);
+                    if (items.size() < POLL_BATCH_SIZE) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("延时队列轮询失败: type={}", type, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未触发的本地任务仍在 Redis 中，由其他节点轮询处理
+        wheelTimer.stop();
+        dispatchExecutor.shutdown();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void scheduleLocal(TimeoutType type, Long id, long delayMillis) {
+        String key = localKey(type, id);
+        try {
+            Timeout timeout = wheelTimer.newTimeout(t -> {
+                localTimeouts.remove(key, t);
+                dispatchExecutor.execute(() -> fireLocal(type, id));
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            Timeout previous = localTimeouts.put(key, timeout);
+            if (previous != null) {
+                previous.cancel();
+            }
+            if (timeout.isExpired()) {
+                localTimeouts.remove(key, timeout);
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("本地时间轮已满，改由 Redis 轮询: type={}, id={}", type, id);
+        }
+    }
+
+    private void cancelLocal(TimeoutType type, Long id) {
+        Timeout timeout = localTimeouts.remove(localKey(type, id));
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 本地时间轮到点：ZREM 成功才处理，保证多节点只处理一次
+     */
+    private void fireLocal(TimeoutType type, Long id) {
+        try {
+            Long removed = redisUtil.zRemove(type.getQueueKey(), String.valueOf(id));
+            if (removed != null && removed > 0) {
+                dispatch(type, Collections.singletonList(id));
+            }
+        } catch (Exception e) {
+            log.error("延时任务触发失败: type={}, id={}", type, id, e);
+        }
+    }
+
+    private void dispatch(TimeoutType type, List<Long> ids) {
+        TimeoutHandler handler = handlers().get(type);
+        if (handler == null) {
+            log.warn("未注册超时处理器: type={}", type);
+            return;
+        }
+        Map<Long, LocalDateTime> notDue = handler.onTimeout(ids);
+        if (notDue != null) {
+            notDue.forEach((id, deadline) -> schedule(type, id, deadline));
+        }
+    }
+
+    private Map<TimeoutType, TimeoutHandler> handlers() {
+        Map<TimeoutType, TimeoutHandler> result = handlers;
+        if (result == null) {
+            result = new EnumMap<>(TimeoutType.class);
+            for (TimeoutHandler handler : handlerProvider) {
+                result.put(handler.type(), handler);
+            }
+            handlers = result;
+        }
+        return result;
+    }
+
+    private String localKey(TimeoutType type, Long id) {
+        return type.name() + ":" + id;
+    }
+}
@@ -0,0 +1,20 @@
+package com.wsh.timeout;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 延时超时类型（每种类型对应一个 Redis 延时队列）
+ */
+@Getter
+@AllArgsConstructor
+public enum TimeoutType {
+
+    /** 待支付订单超时关闭 */
+    ORDER("delay:timeout:order"),
+
+    /** 拼团超时失败 */
+    GROUP("delay:timeout:group");
+
+    private final String queueKey;
+}
@@ -0,0 +1,15 @@
+-- ============================================================
+-- V10: 商户增量同步水位
+-- ============================================================
+
+-- 每个商户一行，记录增量同步已处理到的商户系统游标
+CREATE TABLE tb_merchant_sync_watermark (
+    merchant_id       BIGINT PRIMARY KEY,
+    sync_cursor       VARCHAR(255) COMMENT '商户系统变更游标（由适配器定义格式）',
+    synced_at         DATETIME COMMENT '最近一次增量同步时间',
+    created_at        DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at        DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商户增量同步水位';
+
+-- 增量变更按商户系统会员ID定位快照
+CREATE INDEX idx_snapshot_source_member ON tb_merchant_member_snapshot(merchant_id, source_member_id);
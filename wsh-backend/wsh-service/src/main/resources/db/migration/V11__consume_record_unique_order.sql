@@ -0,0 +1,14 @@
+-- ============================================================
+-- V11: 消费记录按商户订单号唯一
+-- ============================================================
+
+-- 清理重复同步的消费记录（同一商户同一订单号保留最早写入的一条）
+DELETE r1 FROM tb_merchant_consume_record r1
+    JOIN tb_merchant_consume_record r2
+      ON r1.merchant_id = r2.merchant_id
+     AND r1.source_order_no = r2.source_order_no
+     AND r1.record_id > r2.record_id;
+
+-- 批量同步使用 INSERT ... ON DUPLICATE KEY UPDATE 幂等写入（source_order_no 为空的记录不受约束）
+ALTER TABLE tb_merchant_consume_record
+    ADD UNIQUE INDEX uk_consume_merchant_order(merchant_id, source_order_no);
@@ -0,0 +1,16 @@
+-- ============================================================
+-- V12: 权益提醒去重唯一键
+-- ============================================================
+
+-- 清理重复的提醒记录（同一用户同一商户同一类型同一日期保留最早写入的一条）
+DELETE r1 FROM tb_equity_reminder r1
+    JOIN tb_equity_reminder r2
+      ON r1.user_id = r2.user_id
+     AND r1.merchant_id = r2.merchant_id
+     AND r1.reminder_type = r2.reminder_type
+     AND r1.expire_date = r2.expire_date
+     AND r1.reminder_id > r2.reminder_id;
+
+-- 权益扫描使用批量 INSERT IGNORE 去重（expire_date 为空的提醒，如沉睡唤醒，不受约束）
+ALTER TABLE tb_equity_reminder
+    ADD UNIQUE INDEX uk_reminder_equity(user_id, merchant_id, reminder_type, expire_date);
@@ -0,0 +1,7 @@
+-- ============================================================
+-- V13: AI 日账单区分对话摘要调用
+-- ============================================================
+
+-- 对话摘要（上下文压缩）的模型调用计入 call_count 与 token/费用，另记其中的摘要调用次数
+ALTER TABLE tb_ai_usage_daily
+    ADD COLUMN summary_call_count INT DEFAULT 0 COMMENT '其中对话摘要调用次数';
@@ -0,0 +1,7 @@
+-- ============================================================
+-- V14: AI 日账单记录落库批次
+-- ============================================================
+
+-- 用量落库时记下批次ID：同一批次重试不重复累加，管理端统计据此跳过已落库但 Redis 字段尚未删除的用量
+ALTER TABLE tb_ai_usage_daily
+    ADD COLUMN last_flush_id BIGINT DEFAULT NULL COMMENT '最近一次累加的落库批次ID';
@@ -0,0 +1,12 @@
+-- ============================================================
+-- V7: 订单/券码列表键集分页索引
+-- ============================================================
+
+-- 我的订单：WHERE user_id = ? ORDER BY created_at DESC, order_id DESC
+CREATE INDEX idx_order_user_created ON tb_order(user_id, created_at, order_id);
+
+-- 我的券包：WHERE user_id = ? ORDER BY created_at DESC, voucher_id DESC
+CREATE INDEX idx_voucher_user_created ON tb_voucher(user_id, created_at, voucher_id);
+
+-- 新索引以 user_id 为前缀，原单列索引不再需要
+DROP INDEX idx_user ON tb_order;
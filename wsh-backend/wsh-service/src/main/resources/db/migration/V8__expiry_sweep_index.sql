@@ -0,0 +1,6 @@
+-- ============================================================
+-- V8: 超时清扫索引
+-- ============================================================
+
+-- 超时订单清扫：WHERE status = 0 AND created_at < ? AND order_id > ? ORDER BY order_id
+CREATE INDEX idx_order_status_created ON tb_order(status, created_at);
@@ -0,0 +1,14 @@
+-- ============================================================
+-- V9: 会员同步分片
+-- ============================================================
+
+-- 按 user_id 取模的分片号，分片数与 MemberSyncService.SHARD_COUNT 一致
+-- 普通可空列，新增快照时由应用写入，存量数据由同步任务分批回填
+-- （STORED 生成列会重建整张快照表，普通可空列可即时添加）
+ALTER TABLE tb_merchant_member_snapshot
+    ADD COLUMN sync_shard SMALLINT NULL COMMENT '同步分片（user_id % 64）', ALGORITHM=INSTANT;
+
+-- 分片内按 snapshot_id 键集遍历：WHERE sync_shard = ? AND snapshot_id > ? ORDER BY snapshot_id
+-- 回填：WHERE sync_shard IS NULL
+ALTER TABLE tb_merchant_member_snapshot
+    ADD INDEX idx_snapshot_shard(sync_shard, snapshot_id), ALGORITHM=INPLACE, LOCK=NONE;
@@ -55,6 +55,7 @@ CREATE TABLE IF NOT EXISTS tb_merchant (
     created_at           TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at           TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+CREATE INDEX IF NOT EXISTS idx_merchant_location ON tb_merchant(latitude, longitude);
 
 CREATE TABLE IF NOT EXISTS tb_merchant_branch (
     branch_id    BIGINT PRIMARY KEY,
@@ -66,6 +67,8 @@ CREATE TABLE IF NOT EXISTS tb_merchant_branch (
     status       TINYINT DEFAULT 1,
     created_at   TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+CREATE INDEX IF NOT EXISTS idx_branch_merchant ON tb_merchant_branch(merchant_id);
+CREATE INDEX IF NOT EXISTS idx_branch_location ON tb_merchant_branch(latitude, longitude);
 
 CREATE TABLE IF NOT EXISTS tb_merchant_employee (
     employee_id  BIGINT PRIMARY KEY,
@@ -95,10 +98,21 @@ CREATE TABLE IF NOT EXISTS tb_merchant_member_snapshot (
     dormancy_level        TINYINT DEFAULT 0,
     sync_time             TIMESTAMP,
     sync_status           TINYINT,
+    sync_shard            SMALLINT,
     created_at            TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at            TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 CREATE UNIQUE INDEX IF NOT EXISTS idx_snapshot_user_merchant ON tb_merchant_member_snapshot(user_id, merchant_id);
+CREATE INDEX IF NOT EXISTS idx_snapshot_shard ON tb_merchant_member_snapshot(sync_shard, snapshot_id);
+CREATE INDEX IF NOT EXISTS idx_snapshot_source_member ON tb_merchant_member_snapshot(merchant_id, source_member_id);
+
+CREATE TABLE IF NOT EXISTS tb_merchant_sync_watermark (
+    merchant_id       BIGINT PRIMARY KEY,
+    sync_cursor       VARCHAR(255),
+    synced_at         TIMESTAMP,
+    created_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
 
 CREATE TABLE IF NOT EXISTS tb_merchant_consume_record (
     record_id        BIGINT PRIMARY KEY,
@@ -114,6 +128,8 @@ CREATE TABLE IF NOT EXISTS tb_merchant_consume_record (
     sync_time        TIMESTAMP,
     created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+CREATE UNIQUE INDEX IF NOT EXISTS uk_consume_merchant_order ON tb_merchant_consume_record(merchant_id, source_order_no);
+
 
 CREATE TABLE IF NOT EXISTS tb_user_equity_summary (
     summary_id            BIGINT PRIMARY KEY,
@@ -164,6 +180,8 @@ CREATE TABLE IF NOT EXISTS tb_equity_reminder (
     created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE UNIQUE INDEX IF NOT EXISTS uk_reminder_equity ON tb_equity_reminder(user_id, merchant_id, reminder_type, expire_date);
+
 CREATE TABLE IF NOT EXISTS tb_order (
     order_id        BIGINT PRIMARY KEY,
     order_no        VARCHAR(32) NOT NULL UNIQUE,
@@ -181,6 +199,8 @@ CREATE TABLE IF NOT EXISTS tb_order (
     created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+CREATE INDEX IF NOT EXISTS idx_order_user_created ON tb_order(user_id, created_at, order_id);
+CREATE INDEX IF NOT EXISTS idx_order_status_created ON tb_order(status, created_at);
 
 CREATE TABLE IF NOT EXISTS tb_voucher (
     voucher_id       BIGINT PRIMARY KEY,
@@ -199,6 +219,8 @@ CREATE TABLE IF NOT EXISTS tb_voucher (
     used_employee_id BIGINT,
     created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+CREATE INDEX IF NOT EXISTS idx_voucher_user_created ON tb_voucher(user_id, created_at, voucher_id);
+CREATE INDEX IF NOT EXISTS idx_voucher_expire ON tb_voucher(valid_end_time, status);
 
 CREATE TABLE IF NOT EXISTS tb_profit_sharing (
     sharing_id      BIGINT PRIMARY KEY,
@@ -510,6 +532,8 @@ CREATE TABLE IF NOT EXISTS tb_ai_usage_daily (
     total_input_tokens  INT DEFAULT 0,
     total_output_tokens INT DEFAULT 0,
     total_cost       DECIMAL(12,4) DEFAULT 0,
+    summary_call_count INT DEFAULT 0,
+    last_flush_id    BIGINT,
     created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 CREATE UNIQUE INDEX IF NOT EXISTS idx_ai_usage_date_model ON tb_ai_usage_daily(stat_date, model_config_id);
@@ -0,0 +1,242 @@
+package com.wsh.activity.service;
+
+import com.wsh.common.core.util.GeoHash;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.mapper.MerchantBranchMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 商户空间索引与全量扫描结果一致，重点覆盖网格边界与区域分片边界上的商户
+ * 区域分片按库表范围查询（含边界）加载，边界上的商户会被相邻分片同时查出，只能归属编码所在的一个分片
+ */
+class MerchantGeoIndexTest {
+
+    /** 3位 GeoHash 区域边界（1.40625° 的整数倍），同时也是网格边界 */
+    private static final double REGION_EDGE_LAT = 22.5;
+    private static final double REGION_EDGE_LNG = 113.90625;
+
+    /** 区域内部的5位网格边界（0.0439453125° 的16倍，可用6位小数精确表示） */
+    private static final double CELL_EDGE_LAT = REGION_EDGE_LAT + 0.703125;
+    private static final double CELL_EDGE_LNG = REGION_EDGE_LNG + 0.703125;
+
+    private static final double MICRO = 0.000001;
+
+    private final List<Merchant> merchants = new ArrayList<>();
+
+    private final MerchantMapper merchantMapper = mock(MerchantMapper.class);
+
+    @Test
+    void regionCornerFoundExactlyOnce() {
+        addAround(REGION_EDGE_LAT, REGION_EDGE_LNG);
+
+        MerchantGeoIndex index = index();
+
+        assertMatchesFullScan(index, REGION_EDGE_LAT, REGION_EDGE_LNG, 500);
+        assertMatchesFullScan(index, REGION_EDGE_LAT + 0.003, REGION_EDGE_LNG - 0.003, 800);
+        assertMatchesFullScan(index, REGION_EDGE_LAT - 0.004, REGION_EDGE_LNG + 0.002, 800);
+    }
+
+    @Test
+    void refreshOfCornerMerchantReloadsOnlyItsOwnRegion() {
+        addAround(REGION_EDGE_LAT, REGION_EDGE_LNG);
+        Merchant corner = merchants.get(4);
+        MerchantGeoIndex index = index();
+        // 四个相邻分片都会查出角点商户
+        index.withinRadius(REGION_EDGE_LAT, REGION_EDGE_LNG, 500);
+        when(merchantMapper.selectById(corner.getMerchantId())).thenReturn(corner);
+        clearInvocations(merchantMapper);
+
+        index.refreshMerchant(corner.getMerchantId());
+        assertMatchesFullScan(index, REGION_EDGE_LAT, REGION_EDGE_LNG, 500);
+
+        verify(merchantMapper, times(1)).selectActiveInBox(any(), any(), any(), any());
+    }
+
+    @Test
+    void regionEdgeFoundExactlyOnce() {
+        addAround(REGION_EDGE_LAT, 113.95);
+        addAround(22.55, REGION_EDGE_LNG);
+
+        MerchantGeoIndex index = index();
+
+        assertMatchesFullScan(index, REGION_EDGE_LAT, 113.95, 300);
+        assertMatchesFullScan(index, 22.55, REGION_EDGE_LNG, 300);
+        assertMatchesFullScan(index, 22.52, 113.93, 5000);
+    }
+
+    @Test
+    void cellEdgeFoundExactlyOnce() {
+        addAround(CELL_EDGE_LAT, CELL_EDGE_LNG);
+        addAround(CELL_EDGE_LAT, 114.2);
+        addAround(23.0, CELL_EDGE_LNG);
+
+        MerchantGeoIndex index = index();
+
+        assertMatchesFullScan(index, CELL_EDGE_LAT, CELL_EDGE_LNG, 500);
+        assertMatchesFullScan(index, CELL_EDGE_LAT + 0.002, 114.2, 400);
+        assertMatchesFullScan(index, 23.0, CELL_EDGE_LNG - 0.002, 400);
+    }
+
+    @Test
+    void randomQueriesMatchFullScan() {
+        Random random = new Random(20261018L);
+        for (int i = 0; i < 3000; i++) {
+            // 跨越 22.5° 与 113.90625° 区域边界，部分商户吸附到网格边界上
+            double lat = 22.0 + random.nextDouble() * 1.6;
+            double lng = 113.2 + random.nextDouble() * 1.6;
+            if (i % 10 == 0) {
+                lat = snap(lat);
+            }
+            if (i % 10 == 5) {
+                lng = snap(lng);
+            }
+            add(lat, lng);
+        }
+        MerchantGeoIndex index = index();
+
+        for (int i = 0; i < 200; i++) {
+            double lat = 22.0 + random.nextDouble() * 1.6;
+            double lng = 113.2 + random.nextDouble() * 1.6;
+            int radius = 500 + random.nextInt(20000);
+            assertMatchesFullScan(index, lat, lng, radius);
+            assertNearestMatchesFullScan(index, lat, lng, 10, radius);
+        }
+    }
+
+    @Test
+    void largeRadiusAtHighLatitudeUsesCoarserCover() {
+        Random random = new Random(70L);
+        for (int i = 0; i < 2000; i++) {
+            add(69.2 + random.nextDouble() * 1.6, 18.5 + random.nextDouble() * 3.0);
+        }
+        MerchantGeoIndex index = index();
+
+        // 高纬度经度方向网格变窄，50km 半径按5位网格需要上千个，降为4位网格覆盖
+        GeoHash.BoundingBox box = GeoHash.boundingBox(70.0, 20.0, MerchantGeoIndex.MAX_RADIUS_METERS);
+        assertThat(GeoHash.cellCount(box, 5)).isGreaterThan(1024);
+        assertThat(GeoHash.coverBoundingBox(box, 5, 3, 1024)).hasSizeLessThanOrEqualTo(1024)
+                .allMatch(cell -> cell.length() == 4);
+
+        assertMatchesFullScan(index, 70.0, 20.0, MerchantGeoIndex.MAX_RADIUS_METERS);
+        assertMatchesFullScan(index, 69.8, 19.5, 30000);
+    }
+
+    @Test
+    void radiusBeyondLimitIsCapped() {
+        Random random = new Random(50L);
+        for (int i = 0; i < 1000; i++) {
+            add(22.0 + random.nextDouble() * 1.6, 113.2 + random.nextDouble() * 1.6);
+        }
+        MerchantGeoIndex index = index();
+
+        List<Long> expected = fullScan(22.8, 114.0, MerchantGeoIndex.MAX_RADIUS_METERS).stream()
+                .map(Merchant::getMerchantId)
+                .sorted()
+                .toList();
+        List<Long> actual = index.withinRadius(22.8, 114.0, Integer.MAX_VALUE).stream()
+                .map(hit -> hit.getPoint().getMerchantId())
+                .sorted()
+                .toList();
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private MerchantGeoIndex index() {
+        MerchantBranchMapper branchMapper = mock(MerchantBranchMapper.class);
+        // 模拟 idx_location 范围查询：上下界均包含
+        when(merchantMapper.selectActiveInBox(any(), any(), any(), any())).thenAnswer(invocation -> {
+            BigDecimal minLat = invocation.getArgument(0);
+            BigDecimal maxLat = invocation.getArgument(1);
+            BigDecimal minLng = invocation.getArgument(2);
+            BigDecimal maxLng = invocation.getArgument(3);
+            return merchants.stream()
+                    .filter(m -> m.getLatitude().compareTo(minLat) >= 0 && m.getLatitude().compareTo(maxLat) <= 0
+                            && m.getLongitude().compareTo(minLng) >= 0 && m.getLongitude().compareTo(maxLng) <= 0)
+                    .toList();
+        });
+        return new MerchantGeoIndex(merchantMapper, branchMapper);
+    }
+
+    private void assertMatchesFullScan(MerchantGeoIndex index, double lat, double lng, int radius) {
+        List<Long> expected = fullScan(lat, lng, radius).stream()
+                .map(Merchant::getMerchantId)
+                .sorted()
+                .toList();
+        List<Long> actual = index.withinRadius(lat, lng, radius).stream()
+                .map(hit -> hit.getPoint().getMerchantId())
+                .sorted()
+                .toList();
+        assertThat(actual).as("lat=%s lng=%s radius=%s", lat, lng, radius).isEqualTo(expected);
+    }
+
+    private void assertNearestMatchesFullScan(MerchantGeoIndex index, double lat, double lng, int k, int radius) {
+        List<Integer> expected = fullScan(lat, lng, radius).stream()
+                .map(m -> (int) distance(lat, lng, m))
+                .limit(k)
+                .toList();
+        List<Integer> actual = index.nearestMerchants(lat, lng, k, radius).stream()
+                .map(MerchantGeoIndex.GeoHit::getDistanceMeters)
+                .toList();
+        assertThat(actual).as("lat=%s lng=%s k=%s", lat, lng, k).isEqualTo(expected);
+    }
+
+    /**
+     * 原实现：逐个商户计算距离
+     */
+    private List<Merchant> fullScan(double lat, double lng, int radius) {
+        return merchants.stream()
+                .filter(m -> distance(lat, lng, m) <= radius)
+                .sorted(Comparator.comparingDouble(m -> distance(lat, lng, m)))
+                .toList();
+    }
+
+    private static double distance(double lat, double lng, Merchant merchant) {
+        return GeoHash.distanceMeters(lat, lng, merchant.getLatitude().doubleValue(),
+                merchant.getLongitude().doubleValue());
+    }
+
+    /**
+     * 在边界点及其两侧各放置商户
+     */
+    private void addAround(double lat, double lng) {
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                add(lat + dLat * MICRO, lng + dLng * MICRO);
+            }
+        }
+    }
+
+    private void add(double lat, double lng) {
+        Merchant merchant = new Merchant();
+        merchant.setMerchantId((long) merchants.size() + 1);
+        merchant.setMerchantName("商户" + merchant.getMerchantId());
+        // 与库表 DECIMAL(10,6) 一致
+        merchant.setLatitude(BigDecimal.valueOf(lat).setScale(6, RoundingMode.HALF_UP));
+        merchant.setLongitude(BigDecimal.valueOf(lng).setScale(6, RoundingMode.HALF_UP));
+        merchants.add(merchant);
+    }
+
+    /**
+     * 吸附到最近的、可用6位小数精确表示的网格边界
+     */
+    private static double snap(double degree) {
+        return Math.round(degree / 0.703125) * 0.703125;
+    }
+}
@@ -0,0 +1,207 @@
+package com.wsh.activity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsh.config.MockRedisUtil;
+import com.wsh.domain.entity.Activity;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 库存租约跨节点确认/释放：两个节点共享同一 Redis（MockRedisUtil），各自持有租约
+ * 令牌先暂存在预占节点，flushAll 登记后其他节点才能结算
+ */
+class StockLeaseManagerTest {
+
+    private static final long ACTIVITY_ID = 1L;
+    private static final String STOCK_KEY = "activity:stock:" + ACTIVITY_ID;
+    private static final String RESERVE_KEY = "activity:stock:reserve:" + ACTIVITY_ID;
+
+    private final MockRedisUtil redis = new MockRedisUtil();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final StockLeaseManager leasesA = new StockLeaseManager(redis, objectMapper);
+    private final StockLeaseManager leasesB = new StockLeaseManager(redis, objectMapper);
+    private final StockReservationService nodeA = new StockReservationService(redis, leasesA);
+    private final StockReservationService nodeB = new StockReservationService(redis, leasesB);
+
+    private final Activity activity = leaseActivity(100, 10);
+
+    @Test
+    void reserveStaysLocalUntilFlush() {
+        assertThat(nodeA.reserve(activity, "order:1", 3)).isTrue();
+        assertThat(nodeA.reserve(activity, "order:2", 2)).isTrue();
+
+        // 仅续租一次，令牌尚未写入 Redis
+        assertThat(remaining()).isEqualTo(90L);
+        assertThat(redis.hashEntries(RESERVE_KEY)).containsOnlyKeys(leaseFields());
+
+        assertThat(leasesA.flushAll()).isEqualTo(2);
+        assertThat(redis.hashEntries(RESERVE_KEY)).containsKeys("order:1", "order:2");
+        assertThat(pendingTotal()).isEqualTo(10L);
+    }
+
+    @Test
+    void releaseOnOtherNodeReturnsStock() {
+        assertThat(nodeA.reserve(activity, "order:1", 3)).isTrue();
+        assertThat(remaining()).isEqualTo(90L);
+        leasesA.flushAll();
+
+        nodeB.release(ACTIVITY_ID, "order:1");
+        assertThat(remaining()).isEqualTo(93L);
+
+        leasesA.returnAll();
+        assertThat(remaining()).isEqualTo(100L);
+        assertThat(pendingTotal()).isZero();
+    }
+
+    @Test
+    void releaseOfUnflushedTokenReturnsToLocalLease() {
+        nodeA.reserve(activity, "order:1", 3);
+
+        nodeA.release(ACTIVITY_ID, "order:1");
+        leasesA.flushAll();
+        assertThat(redis.hashEntries(RESERVE_KEY)).doesNotContainKey("order:1");
+
+        leasesA.returnAll();
+        assertThat(remaining()).isEqualTo(100L);
+    }
+
+    @Test
+    void confirmOfUnflushedTokenFlushesFirst() {
+        nodeA.reserve(activity, "order:1", 3);
+
+        nodeA.confirm(ACTIVITY_ID, "order:1");
+        nodeB.release(ACTIVITY_ID, "order:1");
+        leasesA.returnAll();
+
+        assertThat(remaining()).isEqualTo(97L);
+        assertThat(pendingTotal()).isZero();
+    }
+
+    @Test
+    void confirmOnOtherNodeKeepsStockSold() {
+        nodeA.reserve(activity, "order:1", 3);
+        leasesA.flushAll();
+
+        nodeB.confirm(ACTIVITY_ID, "order:1");
+        nodeB.release(ACTIVITY_ID, "order:1");
+        leasesA.returnAll();
+
+        assertThat(remaining()).isEqualTo(97L);
+    }
+
+    @Test
+    void batchReleaseOnOtherNodeReturnsStock() {
+        nodeA.reserve(activity, "order:1", 3);
+        nodeA.reserve(activity, "order:2", 2);
+        leasesA.flushAll();
+
+        nodeB.releaseAll(Map.of(ACTIVITY_ID, List.of("order:1", "order:2", "order:3")));
+        leasesA.returnAll();
+
+        assertThat(remaining()).isEqualTo(100L);
+    }
+
+    @Test
+    void duplicateReserveTakesStockOnce() {
+        assertThat(nodeA.reserve(activity, "order:1", 3)).isTrue();
+        assertThat(nodeA.reserve(activity, "order:1", 3)).isTrue();
+        leasesA.flushAll();
+        assertThat(nodeB.reserve(activity, "order:1", 3)).isTrue();
+        leasesB.flushAll();
+
+        nodeB.release(ACTIVITY_ID, "order:1");
+        nodeB.release(ACTIVITY_ID, "order:1");
+        leasesA.returnAll();
+        leasesB.returnAll();
+
+        assertThat(remaining()).isEqualTo(100L);
+        assertThat(pendingTotal()).isZero();
+    }
+
+    @Test
+    void rebuiltStockExcludesPendingReservations() {
+        nodeA.reserve(activity, "order:1", 3);
+        leasesA.flushAll();
+        nodeA.evict(ACTIVITY_ID);
+
+        // 重新初始化为 100 - 3，节点 B 再租借 10 件
+        nodeB.reserve(activity, "order:2", 2);
+        assertThat(remaining()).isEqualTo(87L);
+
+        nodeA.release(ACTIVITY_ID, "order:1");
+        leasesB.flushAll();
+        nodeA.release(ACTIVITY_ID, "order:2");
+        leasesB.returnAll();
+
+        assertThat(remaining()).isEqualTo(100L);
+    }
+
+    @Test
+    void rebuildExcludesOtherNodesLeases() {
+        nodeA.reserve(activity, "order:1", 3);
+        nodeB.reserve(activity, "order:2", 2);
+        assertThat(remaining()).isEqualTo(80L);
+
+        // 节点 B 失效库存 Key：重建为 100 - 节点 A 租约 10 - order:2，节点 B 再租借 10 件
+        nodeB.evict(ACTIVITY_ID);
+        nodeB.reserve(activity, "order:3", 1);
+        assertThat(remaining()).isEqualTo(78L);
+
+        // 全部卖完也不超过总库存
+        int sold = 6;
+        for (int i = 4; nodeB.reserve(activity, "order:" + i, 1); i++) {
+            sold++;
+        }
+        int soldA = 0;
+        for (int i = 1000; nodeA.reserve(activity, "order:" + i, 1); i++) {
+            soldA++;
+        }
+        assertThat(sold + soldA).isEqualTo(100);
+    }
+
+    @Test
+    void soldOutWhenGlobalStockExhausted() {
+        Activity small = leaseActivity(5, 10);
+
+        assertThat(nodeA.reserve(small, "order:1", 4)).isTrue();
+        assertThat(nodeB.reserve(small, "order:2", 2)).isFalse();
+        assertThat(nodeA.reserve(small, "order:3", 1)).isTrue();
+        assertThat(nodeA.reserve(small, "order:4", 1)).isFalse();
+    }
+
+    private Long remaining() {
+        return redis.get(STOCK_KEY);
+    }
+
+    /**
+     * 预占 Hash 中令牌与节点租约的合计
+     */
+    private long pendingTotal() {
+        return redis.hashEntries(RESERVE_KEY).values().stream()
+                .mapToLong(v -> ((Number) v).longValue())
+                .sum();
+    }
+
+    private String[] leaseFields() {
+        return redis.hashEntries(RESERVE_KEY).keySet().stream()
+                .map(String::valueOf)
+                .filter(f -> f.startsWith("lease:"))
+                .toArray(String[]::new);
+    }
+
+    private static Activity leaseActivity(int stock, int leaseSize) {
+        Activity activity = new Activity();
+        activity.setActivityId(ACTIVITY_ID);
+        activity.setStock(stock);
+        activity.setSoldCount(0);
+        activity.setEndTime(LocalDateTime.now().plusDays(1));
+        activity.setConfig("{\"stock_lease\":true,\"stock_lease_size\":" + leaseSize + "}");
+        return activity;
+    }
+}
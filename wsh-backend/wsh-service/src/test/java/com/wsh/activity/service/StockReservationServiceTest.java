@@ -0,0 +1,119 @@
+package com.wsh.activity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsh.config.MockRedisUtil;
+import com.wsh.domain.entity.Activity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 预占确认/释放与事务结果绑定：手动驱动事务同步回调，模拟提交与回滚
+ */
+class StockReservationServiceTest {
+
+    private static final long ACTIVITY_ID = 2L;
+    private static final String STOCK_KEY = "activity:stock:" + ACTIVITY_ID;
+    private static final String RESERVE_KEY = "activity:stock:reserve:" + ACTIVITY_ID;
+
+    private final MockRedisUtil redis = new MockRedisUtil();
+    private final StockReservationService service =
+            new StockReservationService(redis, new StockLeaseManager(redis, new ObjectMapper()));
+
+    private final Activity activity = activity(100);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void releaseOnRollbackReturnsStockWhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.reserve(activity, "order:1", 2);
+        service.releaseOnRollback(ACTIVITY_ID, "order:1");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(remaining()).isEqualTo(100L);
+        assertThat(redis.hashEntries(RESERVE_KEY)).isEmpty();
+    }
+
+    @Test
+    void releaseOnRollbackKeepsReservationWhenCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.reserve(activity, "order:1", 2);
+        service.releaseOnRollback(ACTIVITY_ID, "order:1");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(remaining()).isEqualTo(98L);
+        assertThat(redis.hashEntries(RESERVE_KEY)).containsKey("order:1");
+    }
+
+    @Test
+    void confirmAfterCommitWaitsForCommit() {
+        service.reserve(activity, "order:1", 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.confirmAfterCommit(ACTIVITY_ID, "order:1");
+        assertThat(redis.hashEntries(RESERVE_KEY)).containsKey("order:1");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(redis.hashEntries(RESERVE_KEY)).isEmpty();
+        assertThat(remaining()).isEqualTo(98L);
+    }
+
+    @Test
+    void confirmAfterCommitKeepsReservationOnRollback() {
+        service.reserve(activity, "order:1", 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.confirmAfterCommit(ACTIVITY_ID, "order:1");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // 订单仍为待支付，令牌保留给回调重试或超时关闭
+        assertThat(redis.hashEntries(RESERVE_KEY)).containsKey("order:1");
+    }
+
+    @Test
+    void releaseAfterCommitIgnoresRollback() {
+        service.reserve(activity, "order:1", 2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.releaseAfterCommit(ACTIVITY_ID, "order:1");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(remaining()).isEqualTo(98L);
+
+        service.releaseAfterCommit(ACTIVITY_ID, "order:1");
+        assertThat(remaining()).isEqualTo(100L);
+    }
+
+    private void complete(int status) {
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private long remaining() {
+        return ((Number) redis.get(STOCK_KEY)).longValue();
+    }
+
+    private static Activity activity(int stock) {
+        Activity activity = new Activity();
+        activity.setActivityId(ACTIVITY_ID);
+        activity.setStock(stock);
+        activity.setSoldCount(0);
+        activity.setStartTime(LocalDateTime.now().minusHours(1));
+        return activity;
+    }
+}
@@ -0,0 +1,102 @@
+package com.wsh.ai.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.wsh.domain.entity.AiModelConfig;
+import com.wsh.integration.http.OutboundHttpClients;
+import com.wsh.integration.http.OutboundHttpProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式调用取消：调用方放弃后不再发起请求，生成中则停止读取，已生成部分照常返回
+ * 本地 HttpServer 模拟 OpenAI 兼容的 SSE 接口，每 100ms 推送一个分片，共约 5 秒
+ */
+class AiModelClientStreamTest {
+
+    private static final String CHUNK = "data: {\"choices\":[{\"delta\":{\"content\":\"x\"}}]}\n\n";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private AiModelClient client;
+    private AiModelConfig model;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int i = 0; i < 50; i++) {
+                    body.write(CHUNK.getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                    Thread.sleep(100);
+                }
+                body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | InterruptedException e) {
+                // 客户端已关闭连接
+            }
+        });
+        server.start();
+
+        OutboundHttpClients httpClients = new OutboundHttpClients(new OutboundHttpProperties(), new SimpleMeterRegistry());
+        httpClients.init();
+        client = new AiModelClient(httpClients);
+
+        model = new AiModelConfig();
+        model.setModelName("test-model");
+        model.setProviderCode("openai");
+        model.setApiKey("test-key");
+        model.setApiEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/chat");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void cancelledBeforeStartSkipsModelCall() {
+        List<String> deltas = new CopyOnWriteArrayList<>();
+
+        AiModelClient.ChatResult result = client.chatStream(model, "system", List.of(), "hi", deltas::add, () -> true);
+
+        assertThat(result.isFailed()).isTrue();
+        assertThat(result.getContent()).isEmpty();
+        assertThat(deltas).isEmpty();
+        assertThat(requests).hasValue(0);
+    }
+
+    @Test
+    void cancelledMidStreamStopsReading() {
+        List<String> deltas = new CopyOnWriteArrayList<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        long start = System.nanoTime();
+        AiModelClient.ChatResult result = client.chatStream(model, "system", List.of(), "hi", delta -> {
+            deltas.add(delta);
+            // 连接超时回调在推送第一段后触发
+            cancelled.set(true);
+        }, cancelled::get);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(result.isFailed()).isTrue();
+        assertThat(result.getContent()).isEqualTo("x");
+        assertThat(deltas).containsExactly("x");
+    }
+}
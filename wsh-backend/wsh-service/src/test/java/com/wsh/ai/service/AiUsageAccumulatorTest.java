@@ -0,0 +1,59 @@
+package com.wsh.ai.service;
+
+import com.wsh.config.MockRedisUtil;
+import com.wsh.domain.entity.AiUsageDaily;
+import com.wsh.domain.mapper.AiUsageDailyMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * AI 用量累加：本地增量 -> Redis 缓冲区 -> 日账单，摘要调用单独计数
+ */
+class AiUsageAccumulatorTest {
+
+    private static final long MODEL_ID = 3L;
+
+    private final MockRedisUtil redis = new MockRedisUtil();
+    private final AiUsageDailyMapper usageDailyMapper = mock(AiUsageDailyMapper.class);
+    private final AiUsageAccumulator accumulator = new AiUsageAccumulator(redis, usageDailyMapper);
+
+    @Test
+    void summaryCallsCountedSeparately() {
+        accumulator.record(MODEL_ID, 100, 50, new BigDecimal("0.001"));
+        accumulator.recordSummary(MODEL_ID, 400, 80, new BigDecimal("0.002"));
+
+        Collection<AiUsageDaily> pending = accumulator.getUnflushedUsage();
+
+        assertThat(pending).singleElement().satisfies(usage -> {
+            assertThat(usage.getCallCount()).isEqualTo(2);
+            assertThat(usage.getSummaryCallCount()).isEqualTo(1);
+            assertThat(usage.getTotalInputTokens()).isEqualTo(500);
+            assertThat(usage.getTotalOutputTokens()).isEqualTo(130);
+            assertThat(usage.getTotalCost()).isEqualByComparingTo("0.003");
+        });
+    }
+
+    @Test
+    void summaryCallsFlushedToDailyUsage() {
+        accumulator.recordSummary(MODEL_ID, 400, 80, new BigDecimal("0.002"));
+
+        accumulator.drainToBuffer();
+        assertThat(accumulator.flushToDatabase()).isEqualTo(1);
+
+        ArgumentCaptor<AiUsageDaily> delta = ArgumentCaptor.forClass(AiUsageDaily.class);
+        verify(usageDailyMapper).addUsage(delta.capture());
+        assertThat(delta.getValue().getStatDate()).isEqualTo(LocalDate.now());
+        assertThat(delta.getValue().getModelConfigId()).isEqualTo(MODEL_ID);
+        assertThat(delta.getValue().getCallCount()).isEqualTo(1);
+        assertThat(delta.getValue().getSummaryCallCount()).isEqualTo(1);
+        assertThat(accumulator.getUnflushedUsage()).isEmpty();
+    }
+}
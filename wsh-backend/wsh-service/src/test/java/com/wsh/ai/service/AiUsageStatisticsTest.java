@@ -0,0 +1,172 @@
+package com.wsh.ai.service;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.wsh.admin.dto.PageQueryRequest;
+import com.wsh.ai.dto.AiUsageDailyResponse;
+import com.wsh.common.core.result.PageResult;
+import com.wsh.common.mybatis.config.MybatisPlusConfig;
+import com.wsh.common.mybatis.handler.AutoFillHandler;
+import com.wsh.config.MockRedisUtil;
+import com.wsh.domain.entity.AiUsageDaily;
+import com.wsh.domain.mapper.AiModelConfigMapper;
+import com.wsh.domain.mapper.AiUsageDailyMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 管理端 AI 用量统计合并未落库用量：已落库但 Redis 字段未删除的组不重复计入，落库重试幂等，分页不超过每页条数
+ * 使用 local 环境的 H2（MySQL 模式）与 schema-local.sql
+ */
+@SpringBootTest(classes = AiUsageStatisticsTest.TestConfig.class, properties = {
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema-local.sql",
+        "spring.sql.init.encoding=UTF-8"
+})
+@ActiveProfiles("local")
+@Transactional
+class AiUsageStatisticsTest {
+
+    private static final long MODEL_ID = 9_100_000_000L;
+    private static final BigDecimal COST = new BigDecimal("0.001");
+
+    @Autowired
+    private AiUsageDailyMapper usageDailyMapper;
+    @Autowired
+    private AiModelConfigMapper modelConfigMapper;
+
+    private FailingRedis redis;
+    private AiUsageAccumulator accumulator;
+    private AiAdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FailingRedis();
+        accumulator = new AiUsageAccumulator(redis, usageDailyMapper);
+        adminService = new AiAdminService(modelConfigMapper, usageDailyMapper, accumulator);
+    }
+
+    @Test
+    void groupWrittenBeforeFieldsDeletedCountedOnce() {
+        accumulator.record(MODEL_ID, 100, 50, COST);
+        accumulator.drainToBuffer();
+        // 累加到日账单后、删除 Redis 字段前中断
+        redis.failHashDelete = true;
+        assertThatThrownBy(accumulator::flushToDatabase).isInstanceOf(IllegalStateException.class);
+
+        assertThat(adminService.getUsageSummary().getTodayCallCount()).isEqualTo(1);
+        assertThat(adminService.listDailyUsage(null, null, page(1, 10)).getRecords())
+                .singleElement()
+                .extracting(AiUsageDailyResponse::getCallCount)
+                .isEqualTo(1);
+
+        // 重试同一批次不重复累加
+        redis.failHashDelete = false;
+        assertThat(accumulator.flushToDatabase()).isEqualTo(1);
+        assertThat(usageDailyMapper.selectList(null))
+                .singleElement()
+                .extracting(AiUsageDaily::getCallCount)
+                .isEqualTo(1);
+        assertThat(accumulator.getUnflushedUsage()).isEmpty();
+    }
+
+    @Test
+    void laterBatchAccumulatesOnSameRow() {
+        accumulator.record(MODEL_ID, 100, 50, COST);
+        accumulator.drainToBuffer();
+        accumulator.flushToDatabase();
+        accumulator.record(MODEL_ID, 100, 50, COST);
+        accumulator.drainToBuffer();
+        accumulator.flushToDatabase();
+
+        assertThat(usageDailyMapper.selectList(null))
+                .singleElement()
+                .extracting(AiUsageDaily::getCallCount)
+                .isEqualTo(2);
+        assertThat(adminService.getUsageSummary().getTotalCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    void pendingRowsShareThePageSize() {
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= 3; i++) {
+            insertRow(today.minusDays(i), MODEL_ID);
+        }
+        // 两个模型当天尚无日账单行，一个模型已有行
+        accumulator.record(MODEL_ID + 1, 10, 10, COST);
+        accumulator.record(MODEL_ID + 2, 10, 10, COST);
+        insertRow(today, MODEL_ID);
+        accumulator.record(MODEL_ID, 10, 10, COST);
+
+        PageResult<AiUsageDailyResponse> first = adminService.listDailyUsage(null, null, page(1, 2));
+        PageResult<AiUsageDailyResponse> second = adminService.listDailyUsage(null, null, page(2, 2));
+        PageResult<AiUsageDailyResponse> third = adminService.listDailyUsage(null, null, page(3, 2));
+
+        assertThat(first.getTotal()).isEqualTo(6);
+        assertThat(first.getRecords()).extracting(AiUsageDailyResponse::getModelConfigId)
+                .containsExactlyInAnyOrder(MODEL_ID + 1, MODEL_ID + 2);
+        assertThat(second.getRecords()).extracting(AiUsageDailyResponse::getStatDate)
+                .containsExactly(today, today.minusDays(1));
+        assertThat(second.getRecords().get(0).getCallCount()).isEqualTo(2);
+        assertThat(third.getRecords()).extracting(AiUsageDailyResponse::getStatDate)
+                .containsExactly(today.minusDays(2), today.minusDays(3));
+    }
+
+    private void insertRow(LocalDate statDate, long modelConfigId) {
+        AiUsageDaily row = new AiUsageDaily();
+        row.setStatDate(statDate);
+        row.setModelConfigId(modelConfigId);
+        row.setCallCount(1);
+        row.setTotalInputTokens(10);
+        row.setTotalOutputTokens(10);
+        row.setTotalCost(COST);
+        row.setSummaryCallCount(0);
+        usageDailyMapper.insert(row);
+    }
+
+    private static PageQueryRequest page(int page, int size) {
+        PageQueryRequest request = new PageQueryRequest();
+        request.setPage(page);
+        request.setSize(size);
+        return request;
+    }
+
+    /**
+     * 可模拟删除 Hash 字段失败（节点在落库后宕机）
+     */
+    static class FailingRedis extends MockRedisUtil {
+        boolean failHashDelete;
+
+        @Override
+        public Long hashDelete(String key, Object... fields) {
+            if (failHashDelete) {
+                throw new IllegalStateException("redis unavailable");
+            }
+            return super.hashDelete(key, fields);
+        }
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            SqlInitializationAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.wsh.domain.mapper")
+    @Import({MybatisPlusConfig.class, AutoFillHandler.class})
+    static class TestConfig {
+    }
+}
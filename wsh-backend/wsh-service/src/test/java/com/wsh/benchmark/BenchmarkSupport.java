@@ -0,0 +1,35 @@
+package com.wsh.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * JMH 基准测试运行入口
+ * 基准类以 Benchmark 结尾，不在 mvn test 默认范围内，需单独执行：
+ * mvn -pl wsh-service -am test -Dtest=XxxBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * 结果输出到控制台与 target/jmh-XxxBenchmark.json
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    public static void run(Class<?> benchmarkClass) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(benchmarkClass.getName() + "\\.")
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + benchmarkClass.getSimpleName() + ".json")
+                .build();
+        new Runner(options).run();
+    }
+}
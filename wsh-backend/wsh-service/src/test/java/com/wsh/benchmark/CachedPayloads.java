@@ -0,0 +1,100 @@
+package com.wsh.benchmark;
+
+import com.wsh.activity.dto.ActivityDetailResponse;
+import com.wsh.activity.dto.PublicActivityResponse;
+import com.wsh.common.core.util.BloomFilter;
+import com.wsh.common.redis.cache.CacheEntry;
+import com.wsh.equity.dto.EquitySummaryResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 与线上写入 Redis 的结构一致的缓存值（二级缓存的值包装在 CacheEntry 中，手机号预过滤器直接写入）
+ */
+public final class CachedPayloads {
+
+    private CachedPayloads() {
+    }
+
+    /**
+     * 同城活动广场（activity:public:），每种类型 activitiesPerType 个活动
+     */
+    public static CacheEntry publicActivities(int activitiesPerType) {
+        PublicActivityResponse response = PublicActivityResponse.builder()
+                .city("深圳")
+                .voucherActivities(activities(1, activitiesPerType))
+                .depositActivities(activities(2, activitiesPerType))
+                .pointsActivities(activities(3, activitiesPerType))
+                .groupActivities(activities(4, activitiesPerType))
+                .typeCount(PublicActivityResponse.ActivityTypeCount.builder()
+                        .voucher(activitiesPerType).deposit(activitiesPerType)
+                        .points(activitiesPerType).group(activitiesPerType)
+                        .total(activitiesPerType * 4)
+                        .build())
+                .build();
+        return new CacheEntry(response, System.currentTimeMillis());
+    }
+
+    /**
+     * 用户权益汇总（equity:summary:）
+     */
+    public static CacheEntry equitySummary() {
+        EquitySummaryResponse response = EquitySummaryResponse.builder()
+                .userId(1790000000000000001L)
+                .totalPointsValue(new BigDecimal("128.50"))
+                .totalBalance(new BigDecimal("356.00"))
+                .totalVoucherValue(new BigDecimal("80.00"))
+                .totalAssetValue(new BigDecimal("564.50"))
+                .expiringPointsValue(new BigDecimal("12.30"))
+                .expiringVoucherCount(2)
+                .merchantCount(7)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+        return new CacheEntry(response, System.currentTimeMillis());
+    }
+
+    /**
+     * 会员手机号预过滤器（member:phone-filter:）
+     */
+    public static BloomFilter phoneFilter(int members) {
+        BloomFilter filter = BloomFilter.create(members, 0.01);
+        for (int i = 0; i < members; i++) {
+            filter.put(String.valueOf(13800000000L + i * 7L));
+        }
+        return filter;
+    }
+
+    private static List<ActivityDetailResponse> activities(int type, int count) {
+        List<ActivityDetailResponse> list = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            long id = 1790000000000000000L + type * 1000L + i;
+            list.add(ActivityDetailResponse.builder()
+                    .activityId(id)
+                    .merchantId(1780000000000000000L + i)
+                    .merchantName("示例商户" + i)
+                    .merchantLogo("https://cdn.example.com/merchant/" + i + "/logo.png")
+                    .activityType(type)
+                    .activityTypeName("代金券")
+                    .activityName("满100减20 周末特惠 " + i)
+                    .activityDesc("仅限堂食，每人限购2张，节假日通用，不与其他优惠同享")
+                    .coverImage("https://cdn.example.com/activity/" + id + "/cover.jpg")
+                    .startTime(now.minusDays(3))
+                    .endTime(now.plusDays(27))
+                    .config("{\"price\":80,\"faceValue\":100,\"limitPerUser\":2}")
+                    .stock(500)
+                    .soldCount(123)
+                    .targetMemberType(0)
+                    .isPublic(1)
+                    .isExclusive(false)
+                    .status(1)
+                    .hasStock(true)
+                    .createdAt(now.minusDays(5))
+                    .build());
+        }
+        return list;
+    }
+}
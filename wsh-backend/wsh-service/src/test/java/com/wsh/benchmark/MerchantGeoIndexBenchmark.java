@@ -0,0 +1,143 @@
+package com.wsh.benchmark;
+
+import com.wsh.activity.service.MerchantGeoIndex;
+import com.wsh.common.core.util.GeoHash;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.mapper.MerchantBranchMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 附近商户查询基准：GeoHash 网格索引 与 原全量扫描（逐个商户计算 Haversine 距离）
+ * 商户均匀分布在约 66km x 82km 的城市范围内，查询半径为附近活动默认的 5km
+ * 全量扫描只计算内存部分，不含原实现每次请求全表查询商户的数据库开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MerchantGeoIndexBenchmark {
+
+    private static final double MIN_LAT = 22.4;
+    private static final double MIN_LNG = 113.7;
+    private static final double SPAN_LAT = 0.6;
+    private static final double SPAN_LNG = 0.8;
+    private static final int RADIUS_METERS = 5000;
+    private static final int NEAREST_K = 20;
+    private static final int NEAREST_MAX_RADIUS_METERS = 20000;
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"10000", "100000"})
+    public int merchantCount;
+
+    private List<Merchant> merchants;
+    private MerchantGeoIndex index;
+    private double[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        merchants = new ArrayList<>(merchantCount);
+        for (int i = 0; i < merchantCount; i++) {
+            Merchant merchant = new Merchant();
+            merchant.setMerchantId((long) i + 1);
+            merchant.setMerchantName("商户" + i);
+            merchant.setLatitude(BigDecimal.valueOf(MIN_LAT + random.nextDouble() * SPAN_LAT)
+                    .setScale(6, RoundingMode.HALF_UP));
+            merchant.setLongitude(BigDecimal.valueOf(MIN_LNG + random.nextDouble() * SPAN_LNG)
+                    .setScale(6, RoundingMode.HALF_UP));
+            merchants.add(merchant);
+        }
+        queries = new double[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = new double[]{MIN_LAT + random.nextDouble() * SPAN_LAT, MIN_LNG + random.nextDouble() * SPAN_LNG};
+        }
+
+        MerchantMapper merchantMapper = mock(MerchantMapper.class);
+        when(merchantMapper.selectActiveInBox(any(), any(), any(), any())).thenAnswer(invocation -> {
+            BigDecimal minLat = invocation.getArgument(0);
+            BigDecimal maxLat = invocation.getArgument(1);
+            BigDecimal minLng = invocation.getArgument(2);
+            BigDecimal maxLng = invocation.getArgument(3);
+            return merchants.stream()
+                    .filter(m -> m.getLatitude().compareTo(minLat) >= 0 && m.getLatitude().compareTo(maxLat) <= 0
+                            && m.getLongitude().compareTo(minLng) >= 0 && m.getLongitude().compareTo(maxLng) <= 0)
+                    .toList();
+        });
+        index = new MerchantGeoIndex(merchantMapper, mock(MerchantBranchMapper.class));
+        // 预先加载覆盖整个城市的分片，基准只测查询
+        index.withinRadius(MIN_LAT + SPAN_LAT / 2, MIN_LNG + SPAN_LNG / 2, MerchantGeoIndex.MAX_RADIUS_METERS);
+    }
+
+    @Benchmark
+    public int indexWithinRadius() {
+        double[] q = nextQuery();
+        return index.withinRadius(q[0], q[1], RADIUS_METERS).size();
+    }
+
+    @Benchmark
+    public int fullScanWithinRadius() {
+        double[] q = nextQuery();
+        return fullScan(q[0], q[1], RADIUS_METERS).size();
+    }
+
+    @Benchmark
+    public int indexNearestMerchants() {
+        double[] q = nextQuery();
+        return index.nearestMerchants(q[0], q[1], NEAREST_K, NEAREST_MAX_RADIUS_METERS).size();
+    }
+
+    @Benchmark
+    public int fullScanNearestMerchants() {
+        double[] q = nextQuery();
+        List<Merchant> hits = fullScan(q[0], q[1], NEAREST_MAX_RADIUS_METERS);
+        return Math.min(hits.size(), NEAREST_K);
+    }
+
+    @Test
+    void run() throws Exception {
+        BenchmarkSupport.run(MerchantGeoIndexBenchmark.class);
+    }
+
+    /**
+     * 原实现：逐个商户计算距离，筛选后按距离排序
+     */
+    private List<Merchant> fullScan(double lat, double lng, int radius) {
+        List<Merchant> hits = new ArrayList<>();
+        for (Merchant m : merchants) {
+            if (GeoHash.distanceMeters(lat, lng, m.getLatitude().doubleValue(), m.getLongitude().doubleValue()) <= radius) {
+                hits.add(m);
+            }
+        }
+        hits.sort(Comparator.comparingDouble(m -> GeoHash.distanceMeters(lat, lng,
+                m.getLatitude().doubleValue(), m.getLongitude().doubleValue())));
+        return hits;
+    }
+
+    private double[] nextQuery() {
+        double[] q = queries[next];
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return q;
+    }
+}
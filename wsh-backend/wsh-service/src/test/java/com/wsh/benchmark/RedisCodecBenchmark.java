@@ -0,0 +1,80 @@
+package com.wsh.benchmark;
+
+import com.wsh.common.redis.codec.CodecRedisSerializer;
+import com.wsh.common.redis.codec.CodecValue;
+import com.wsh.common.redis.codec.RedisCodecRegistry;
+import com.wsh.common.redis.codec.SmileValueCodec;
+import com.wsh.common.redis.config.RedisConfig;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值编解码基准：现有 GenericJackson2Json 与 Smile（CodecRedisSerializer）
+ * 载荷为线上开启 Smile 的三类 Key 的真实 DTO：活动广场、权益汇总、手机号预过滤器
+ * 载荷字节数见 {@link RedisCodecPayloadTest}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedisCodecBenchmark {
+
+    @Param({"activity:public:", "equity:summary:", "member:phone-filter:"})
+    public String keyPrefix;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private CodecRedisSerializer codecSerializer;
+    private CodecValue smileValue;
+    private Object value;
+    private byte[] jsonBytes;
+    private byte[] smileBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = RedisConfig.jsonSerializer();
+        codecSerializer = new CodecRedisSerializer(json, new RedisCodecRegistry());
+        value = switch (keyPrefix) {
+            case "activity:public:" -> CachedPayloads.publicActivities(10);
+            case "equity:summary:" -> CachedPayloads.equitySummary();
+            default -> CachedPayloads.phoneFilter(10_000);
+        };
+        smileValue = new CodecValue(new SmileValueCodec(), value);
+        jsonBytes = json.serialize(value);
+        smileBytes = codecSerializer.serialize(smileValue);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serializeSmile() {
+        return codecSerializer.serialize(smileValue);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object deserializeSmile() {
+        return codecSerializer.deserialize(smileBytes);
+    }
+
+    @Test
+    void run() throws Exception {
+        BenchmarkSupport.run(RedisCodecBenchmark.class);
+    }
+}
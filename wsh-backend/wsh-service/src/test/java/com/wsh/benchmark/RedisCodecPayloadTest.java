@@ -0,0 +1,82 @@
+package com.wsh.benchmark;
+
+import com.wsh.common.core.util.BloomFilter;
+import com.wsh.common.redis.cache.CacheEntry;
+import com.wsh.common.redis.codec.CodecRedisSerializer;
+import com.wsh.common.redis.codec.CodecValue;
+import com.wsh.common.redis.codec.RedisCodecRegistry;
+import com.wsh.common.redis.codec.SmileValueCodec;
+import com.wsh.common.redis.config.RedisConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smile 编码与现有 JSON 编码的载荷对比（随 mvn test 执行）
+ * 校验往返一致且 Smile 载荷更小，断言失败时输出两种编码的字节数
+ */
+class RedisCodecPayloadTest {
+
+    private final GenericJackson2JsonRedisSerializer json = RedisConfig.jsonSerializer();
+
+    private final CodecRedisSerializer codecSerializer = new CodecRedisSerializer(json, new RedisCodecRegistry());
+
+    private final SmileValueCodec smile = new SmileValueCodec();
+
+    @Test
+    void publicActivitiesRoundTripAndShrink() {
+        CacheEntry entry = CachedPayloads.publicActivities(10);
+
+        CacheEntry fromJson = (CacheEntry) json.deserialize(json.serialize(entry));
+        CacheEntry fromSmile = (CacheEntry) codecSerializer.deserialize(smileBytes(entry));
+
+        assertThat(fromJson.getValue()).isEqualTo(entry.getValue());
+        assertThat(fromSmile.getValue()).isEqualTo(entry.getValue());
+        assertThat(fromSmile.getSoftExpireAt()).isEqualTo(entry.getSoftExpireAt());
+        assertSmaller("activity:public:", entry);
+    }
+
+    @Test
+    void equitySummaryRoundTripAndShrink() {
+        CacheEntry entry = CachedPayloads.equitySummary();
+
+        CacheEntry fromSmile = (CacheEntry) codecSerializer.deserialize(smileBytes(entry));
+
+        assertThat(fromSmile.getValue()).isEqualTo(entry.getValue());
+        assertSmaller("equity:summary:", entry);
+    }
+
+    @Test
+    void phoneFilterRoundTripAndShrink() {
+        BloomFilter filter = CachedPayloads.phoneFilter(10_000);
+
+        BloomFilter fromSmile = (BloomFilter) codecSerializer.deserialize(smileBytes(filter));
+
+        for (int i = 0; i < 10_000; i += 97) {
+            assertThat(fromSmile.mightContain(String.valueOf(13800000000L + i * 7L))).isTrue();
+        }
+        assertSmaller("member:phone-filter:", filter);
+    }
+
+    @Test
+    void jsonValueStillReadableByCodecSerializer() {
+        CacheEntry entry = CachedPayloads.equitySummary();
+
+        CacheEntry decoded = (CacheEntry) codecSerializer.deserialize(json.serialize(entry));
+
+        assertThat(decoded.getValue()).isEqualTo(entry.getValue());
+    }
+
+    private byte[] smileBytes(Object value) {
+        return codecSerializer.serialize(new CodecValue(smile, value));
+    }
+
+    private void assertSmaller(String keyPrefix, Object value) {
+        int jsonSize = json.serialize(value).length;
+        int smileSize = smileBytes(value).length;
+        assertThat(smileSize)
+                .as("%s Smile %d B vs JSON %d B", keyPrefix, smileSize, jsonSize)
+                .isLessThan(jsonSize);
+    }
+}
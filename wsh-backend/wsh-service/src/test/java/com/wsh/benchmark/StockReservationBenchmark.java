@@ -0,0 +1,118 @@
+package com.wsh.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wsh.activity.service.StockLeaseManager;
+import com.wsh.activity.service.StockReservationService;
+import com.wsh.common.redis.codec.RedisCodecRegistry;
+import com.wsh.common.redis.config.RedisConfig;
+import com.wsh.common.redis.util.RedisUtil;
+import com.wsh.domain.entity.Activity;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 秒杀库存预占压测：本地租约 与 逐笔 Redis 预占（STOCK_RESERVE）
+ * 16 个线程对同一活动并发预占，租约模式下与线上一致每 100 毫秒批量登记暂存令牌
+ * 需要真实 Redis（默认 127.0.0.1:6379，库 15，压测前后清理活动 Key）：
+ * mvn -pl wsh-service -am test -Dtest=StockReservationBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ *     -Dbenchmark.redis.host=127.0.0.1 -Dbenchmark.redis.port=6379
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class StockReservationBenchmark {
+
+    private static final long ACTIVITY_ID = 9_000_000_000_000_000_001L;
+    private static final int REDIS_DATABASE = 15;
+
+    @Param({"redis", "lease"})
+    public String mode;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisUtil redisUtil;
+    private StockLeaseManager leaseManager;
+    private StockReservationService reservationService;
+    private Activity activity;
+    private ScheduledExecutorService flusher;
+    private final AtomicLong tokenSeq = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                System.getProperty("benchmark.redis.host", "127.0.0.1"),
+                Integer.getInteger("benchmark.redis.port", 6379));
+        config.setDatabase(REDIS_DATABASE);
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+
+        RedisCodecRegistry codecRegistry = new RedisCodecRegistry();
+        redisUtil = new RedisUtil(new RedisConfig().redisTemplate(connectionFactory, codecRegistry), codecRegistry);
+        leaseManager = new StockLeaseManager(redisUtil, new ObjectMapper());
+        reservationService = new StockReservationService(redisUtil, leaseManager);
+
+        activity = new Activity();
+        activity.setActivityId(ACTIVITY_ID);
+        activity.setStock(1_000_000_000);
+        activity.setSoldCount(0);
+        activity.setEndTime(LocalDateTime.now().plusDays(1));
+        activity.setConfig("lease".equals(mode) ? "{\"stock_lease\":true,\"stock_lease_size\":200}" : "{}");
+
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(leaseManager::flushAll, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearIteration() {
+        leaseManager.returnAll();
+        redisUtil.delete(List.of("activity:stock:" + ACTIVITY_ID, "activity:stock:reserve:" + ACTIVITY_ID));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdownNow();
+        connectionFactory.destroy();
+    }
+
+    /**
+     * 仅预占（下单高峰的关键路径）
+     */
+    @Benchmark
+    public boolean reserve() {
+        return reservationService.reserve(activity, "order:" + tokenSeq.incrementAndGet(), 1);
+    }
+
+    /**
+     * 预占后立即释放（取消/超时路径；租约模式下未登记的令牌直接归还本地租约）
+     */
+    @Benchmark
+    public void reserveAndRelease() {
+        String token = "order:" + tokenSeq.incrementAndGet();
+        reservationService.reserve(activity, token, 1);
+        reservationService.release(ACTIVITY_ID, token);
+    }
+
+    @Test
+    void run() throws Exception {
+        BenchmarkSupport.run(StockReservationBenchmark.class);
+    }
+}
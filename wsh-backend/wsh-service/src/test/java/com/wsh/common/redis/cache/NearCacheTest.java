@@ -0,0 +1,159 @@
+package com.wsh.common.redis.cache;
+
+import com.wsh.config.MockRedisUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 二级缓存并发加载：本节点单飞、跨节点重建租约、等待租约超时后自行加载、软过期后台刷新
+ * 两个 NearCacheManager 共享同一 Redis（MockRedisUtil）模拟两个节点
+ */
+class NearCacheTest {
+
+    private static final String KEY = "test:near:1";
+
+    private final MockRedisUtil redis = new MockRedisUtil();
+    private final NearCacheManager nodeA = new NearCacheManager(redis);
+    private final NearCacheManager nodeB = new NearCacheManager(redis);
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        NearCache cache = nodeA.getCache(spec(null));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return cache.get(KEY, slowLoader(loads, "v1", 100));
+            }));
+        }
+        start.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void peerNodeWaitsForLeaseHolder() throws Exception {
+        NearCache cacheA = nodeA.getCache(spec(null));
+        NearCache cacheB = nodeB.getCache(spec(null));
+        AtomicInteger loadsA = new AtomicInteger();
+        AtomicInteger loadsB = new AtomicInteger();
+
+        Future<String> a = callers.submit(() -> cacheA.get(KEY, slowLoader(loadsA, "fromA", 200)));
+        awaitLease();
+        String b = cacheB.get(KEY, slowLoader(loadsB, "fromB", 0));
+
+        assertThat(a.get(5, TimeUnit.SECONDS)).isEqualTo("fromA");
+        assertThat(b).isEqualTo("fromA");
+        assertThat(loadsA).hasValue(1);
+        assertThat(loadsB).hasValue(0);
+    }
+
+    @Test
+    void loadsItselfWhenLeaseHolderNeverWrites() {
+        NearCache cache = nodeA.getCache(spec(null));
+        AtomicInteger loads = new AtomicInteger();
+        // 持有租约的节点已宕机，租约直到过期前都不会释放
+        redis.tryLock(leaseKey(), "crashed-node", 10, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        String value = cache.get(KEY, slowLoader(loads, "v1", 0));
+
+        assertThat(value).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(500));
+    }
+
+    @Test
+    void staleEntryServedWhileRefreshing() throws Exception {
+        NearCache cache = nodeA.getCache(spec(Duration.ofMillis(300)));
+        AtomicInteger loads = new AtomicInteger();
+        cache.put(KEY, "v1");
+        Thread.sleep(400);
+
+        // 软过期后立即返回旧值，后台刷新完成后返回新值
+        assertThat(cache.<String>get(KEY, slowLoader(loads, "v2", 200))).isEqualTo("v1");
+        assertThat(cache.<String>get(KEY, slowLoader(loads, "v3", 0))).isEqualTo("v1");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"v2".equals(cache.get(KEY, slowLoader(loads, "v4", 0))) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cache.<String>get(KEY, slowLoader(loads, "v5", 0))).isEqualTo("v2");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void entriesLiveUnderVersionedKey() {
+        NearCache cache = nodeA.getCache(spec(null));
+        // 升级前的节点按原 Key 写入的业务值
+        redis.set(KEY, "legacy");
+
+        cache.put(KEY, "v1");
+
+        assertThat(redis.<Object>get(NearCache.KEY_VERSION + KEY)).isInstanceOf(CacheEntry.class);
+        assertThat(redis.hasKey(KEY)).isFalse();
+        assertThat(nodeB.getCache(spec(null)).<String>get(KEY, () -> "unused")).isEqualTo("v1");
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private static NearCacheSpec spec(Duration softTtl) {
+        return NearCacheSpec.builder()
+                .name("test")
+                .localTtl(Duration.ofMinutes(1))
+                .remoteTtl(Duration.ofMinutes(10))
+                .softTtl(softTtl)
+                .build();
+    }
+
+    private static String leaseKey() {
+        return "lease:" + NearCache.KEY_VERSION + KEY;
+    }
+
+    private void awaitLease() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!redis.hasKey(leaseKey()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(redis.hasKey(leaseKey())).isTrue();
+    }
+
+    private static Supplier<String> slowLoader(AtomicInteger loads, String value, long millis) {
+        return () -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.wsh.groupbuy.service;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.wsh.common.mybatis.config.MybatisPlusConfig;
+import com.wsh.common.mybatis.handler.AutoFillHandler;
+import com.wsh.domain.entity.Activity;
+import com.wsh.domain.entity.GroupOrder;
+import com.wsh.domain.entity.GroupParticipant;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.entity.User;
+import com.wsh.domain.mapper.ActivityMapper;
+import com.wsh.domain.mapper.GroupOrderMapper;
+import com.wsh.domain.mapper.GroupParticipantMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.UserMapper;
+import com.wsh.groupbuy.dto.GroupDetailResponse;
+import com.wsh.groupbuy.dto.GroupListResponse;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 拼团详情批量组装的 SQL 条数：一页拼团的查询条数固定，不随拼团数、参与者数增长
+ * 使用 local 环境的 H2（MySQL 模式）与 schema-local.sql，只加载 MyBatis-Plus 与相关 Mapper
+ */
+@SpringBootTest(classes = GroupDetailAssemblerTest.TestConfig.class, properties = {
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema-local.sql",
+        "spring.sql.init.encoding=UTF-8"
+})
+@ActiveProfiles("local")
+@Transactional
+class GroupDetailAssemblerTest {
+
+    private static final long USER_ID = 8_100_000_000L;
+
+    @Autowired
+    private GroupDetailAssembler assembler;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private GroupOrderMapper groupOrderMapper;
+    @Autowired
+    private GroupParticipantMapper participantMapper;
+    @Autowired
+    private ActivityMapper activityMapper;
+    @Autowired
+    private MerchantMapper merchantMapper;
+    @Autowired
+    private UserMapper userMapper;
+
+    private final List<GroupOrder> groups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 2 个商户、3 个活动、10 个拼团，每团 3 名参与者（团长 + 2 名成员）
+        for (int m = 0; m < 2; m++) {
+            Merchant merchant = new Merchant();
+            merchant.setMerchantId(8_200_000_000L + m);
+            merchant.setMerchantCode("GDA_TEST_" + m);
+            merchant.setMerchantName("拼团测试商户" + m);
+            merchant.setStatus(1);
+            merchantMapper.insert(merchant);
+        }
+        for (int a = 0; a < 3; a++) {
+            Activity activity = new Activity();
+            activity.setActivityId(8_300_000_000L + a);
+            activity.setMerchantId(8_200_000_000L + a % 2);
+            activity.setActivityType(4);
+            activity.setActivityName("拼团测试活动" + a);
+            activity.setConfig("{\"group_price\":59.9,\"original_price\":99}");
+            activity.setStatus(1);
+            activityMapper.insert(activity);
+        }
+        for (int g = 0; g < 10; g++) {
+            long initiatorId = USER_ID + g * 10L;
+            GroupOrder group = new GroupOrder();
+            group.setGroupOrderId(8_400_000_000L + g);
+            group.setGroupNo("GDATEST" + g);
+            group.setActivityId(8_300_000_000L + g % 3);
+            group.setInitiatorUserId(initiatorId);
+            group.setRequiredMembers(5);
+            group.setCurrentMembers(3);
+            group.setStatus(GroupOrder.STATUS_PENDING);
+            group.setExpireTime(LocalDateTime.now().plusHours(12));
+            groupOrderMapper.insert(group);
+            groups.add(group);
+
+            for (int p = 0; p < 3; p++) {
+                long userId = initiatorId + p;
+                User user = new User();
+                user.setUserId(userId);
+                user.setOpenid("gda_test_" + userId);
+                user.setNickname("团员" + userId);
+                user.setStatus(1);
+                userMapper.insert(user);
+
+                GroupParticipant participant = new GroupParticipant();
+                participant.setParticipantId(8_500_000_000L + g * 10L + p);
+                participant.setGroupOrderId(group.getGroupOrderId());
+                participant.setUserId(userId);
+                participant.setIsInitiator(p == 0 ? 1 : 0);
+                participant.setJoinTime(LocalDateTime.now().minusMinutes(10 - p));
+                participantMapper.insert(participant);
+            }
+        }
+        statementCounter.reset();
+    }
+
+    @Test
+    void detailsPageIssuesOneQueryPerEntityType() {
+        List<GroupDetailResponse> details = assembler.assembleDetails(groups, USER_ID);
+
+        // 活动、商户、参与者、用户各一次
+        assertThat(statementCounter.count()).isEqualTo(4);
+        assertThat(details).hasSize(10);
+        assertThat(details).extracting(GroupDetailResponse::getGroupOrderId)
+                .containsExactlyElementsOf(groups.stream().map(GroupOrder::getGroupOrderId).toList());
+        GroupDetailResponse first = details.get(0);
+        assertThat(first.getParticipants()).hasSize(3);
+        assertThat(first.getInitiatorNickname()).isEqualTo("团员" + USER_ID);
+        assertThat(first.getMerchantName()).isEqualTo("拼团测试商户0");
+        assertThat(first.getHasJoined()).isTrue();
+    }
+
+    @Test
+    void detailsQueryCountDoesNotGrowWithPageSize() {
+        assembler.assembleDetails(groups.subList(0, 1), USER_ID);
+        int single = statementCounter.count();
+        statementCounter.reset();
+
+        assembler.assembleDetails(groups, USER_ID);
+
+        assertThat(statementCounter.count()).isEqualTo(single);
+    }
+
+    @Test
+    void itemsPageIssuesActivityAndMerchantQueriesOnly() {
+        List<GroupListResponse.GroupItem> items = assembler.assembleItems(groups, USER_ID);
+
+        assertThat(statementCounter.count()).isEqualTo(2);
+        assertThat(items).hasSize(10);
+        assertThat(items.get(0).getIsInitiator()).isTrue();
+    }
+
+    /**
+     * 统计实际预编译的 SQL 条数
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare",
+            args = {Connection.class, Integer.class}))
+    static class StatementCounter implements Interceptor {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            count.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        int count() {
+            return count.get();
+        }
+
+        void reset() {
+            count.set(0);
+        }
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            SqlInitializationAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.wsh.domain.mapper")
+    @Import({MybatisPlusConfig.class, AutoFillHandler.class, GroupDetailAssembler.class})
+    static class TestConfig {
+
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.wsh.groupbuy.service;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.wsh.common.mybatis.config.MybatisPlusConfig;
+import com.wsh.common.mybatis.handler.AutoFillHandler;
+import com.wsh.domain.entity.GroupOrder;
+import com.wsh.domain.mapper.GroupOrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 超时拼团清扫只结算本次标记失败的记录：已被其他路径（延迟队列、另一次清扫、成团）改过的拼团不再重复结算
+ * 使用 local 环境的 H2（MySQL 模式）与 schema-local.sql
+ */
+@SpringBootTest(classes = GroupExpirySweeperTest.TestConfig.class, properties = {
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema-local.sql",
+        "spring.sql.init.encoding=UTF-8"
+})
+@ActiveProfiles("local")
+@Transactional
+class GroupExpirySweeperTest {
+
+    @Autowired
+    private GroupExpirySweeper sweeper;
+    @Autowired
+    private GroupOrderMapper groupOrderMapper;
+    @MockBean
+    private GroupBuyService groupBuyService;
+
+    private GroupOrder expired;
+
+    @BeforeEach
+    void setUp() {
+        expired = new GroupOrder();
+        expired.setGroupOrderId(8_600_000_000L);
+        expired.setGroupNo("GESTEST0");
+        expired.setActivityId(8_300_000_000L);
+        expired.setInitiatorUserId(8_100_000_000L);
+        expired.setRequiredMembers(3);
+        expired.setCurrentMembers(1);
+        expired.setStatus(GroupOrder.STATUS_PENDING);
+        expired.setExpireTime(LocalDateTime.now().minusMinutes(1));
+        groupOrderMapper.insert(expired);
+    }
+
+    @Test
+    void failsAndSettlesPendingGroup() {
+        assertThat(sweeper.expireNow(List.of(expired))).isEqualTo(1);
+
+        verify(groupBuyService).settleFailedGroups(List.of(expired));
+        assertThat(groupOrderMapper.selectById(expired.getGroupOrderId()).getStatus())
+                .isEqualTo(GroupOrder.STATUS_FAILED);
+    }
+
+    @Test
+    void alreadyFailedGroupIsNotSettledAgain() {
+        sweeper.expireNow(List.of(expired));
+
+        // 延迟队列与定时清扫先后处理同一拼团，第二次拿到的是过期前的快照
+        assertThat(sweeper.expireNow(List.of(expired))).isZero();
+
+        verify(groupBuyService).settleFailedGroups(anyList());
+    }
+
+    @Test
+    void groupChangedConcurrentlyIsSkipped() {
+        GroupOrder succeeded = new GroupOrder();
+        succeeded.setGroupOrderId(expired.getGroupOrderId());
+        succeeded.setStatus(GroupOrder.STATUS_SUCCESS);
+        groupOrderMapper.updateById(succeeded);
+
+        assertThat(sweeper.expireNow(List.of(expired))).isZero();
+
+        verify(groupBuyService, never()).settleFailedGroups(anyList());
+        assertThat(groupOrderMapper.selectById(expired.getGroupOrderId()).getStatus())
+                .isEqualTo(GroupOrder.STATUS_SUCCESS);
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            SqlInitializationAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.wsh.domain.mapper")
+    @Import({MybatisPlusConfig.class, AutoFillHandler.class, GroupExpirySweeper.class})
+    static class TestConfig {
+    }
+}
@@ -0,0 +1,75 @@
+package com.wsh.matching.service;
+
+import com.wsh.common.core.constant.Constants;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.mapper.MerchantConsumeRecordMapper;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import com.wsh.domain.mapper.UserMapper;
+import com.wsh.integration.adapter.AdapterFactory;
+import com.wsh.integration.adapter.MerchantDataAdapter;
+import com.wsh.integration.adapter.dto.MemberMatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 适配器调用超时：结果记为 TIMEOUT，同时中断仍在阻塞的调用，匹配线程被释放
+ */
+class MemberMatchingServiceTest {
+
+    private static final long MERCHANT_ID = 7L;
+    private static final String PHONE = "13800000001";
+
+    private final AdapterFactory adapterFactory = mock(AdapterFactory.class);
+    private final MerchantDataAdapter adapter = mock(MerchantDataAdapter.class);
+
+    private MemberMatchingService service;
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() {
+        merchant = new Merchant();
+        merchant.setMerchantId(MERCHANT_ID);
+        when(adapterFactory.getAdapter(merchant)).thenReturn(adapter);
+        // 手工导入类型超时最短（1 秒）
+        when(adapter.getType()).thenReturn(Constants.SYNC_SOURCE_MANUAL);
+
+        service = new MemberMatchingService(mock(MerchantMapper.class), mock(MerchantMemberSnapshotMapper.class),
+                mock(MerchantConsumeRecordMapper.class), adapterFactory, mock(MemberPhoneFilterService.class),
+                mock(UserMapper.class), mock(TransactionTemplate.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void timedOutAdapterCallIsInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(adapter.matchMemberByPhone(anyString(), anyLong())).thenAnswer(inv -> {
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return MemberMatchResult.builder().matched(false).build();
+        });
+
+        assertThat(service.matchSingleMerchant(1L, PHONE, merchant)).isFalse();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
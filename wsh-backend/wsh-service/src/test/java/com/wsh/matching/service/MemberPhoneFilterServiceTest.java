@@ -0,0 +1,87 @@
+package com.wsh.matching.service;
+
+import com.wsh.config.MockRedisUtil;
+import com.wsh.domain.entity.Merchant;
+import com.wsh.domain.mapper.MerchantMapper;
+import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import com.wsh.integration.adapter.AdapterFactory;
+import com.wsh.integration.adapter.MerchantDataAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 两次重建之间新入会会员不被预过滤器排除：增量同步追加手机号、构建后注册的用户直接放行
+ */
+class MemberPhoneFilterServiceTest {
+
+    private static final long MERCHANT_ID = 7L;
+    private static final String MEMBER_PHONE = "13800000001";
+    private static final String NEW_MEMBER_PHONE = "13900000002";
+
+    private final MerchantMapper merchantMapper = mock(MerchantMapper.class);
+    private final MerchantMemberSnapshotMapper snapshotMapper = mock(MerchantMemberSnapshotMapper.class);
+    private final AdapterFactory adapterFactory = mock(AdapterFactory.class);
+    private final MerchantDataAdapter adapter = mock(MerchantDataAdapter.class);
+    private final MockRedisUtil redis = new MockRedisUtil();
+
+    private MemberPhoneFilterService service;
+    private LocalDateTime builtBefore;
+
+    @BeforeEach
+    void buildFilter() {
+        Merchant merchant = new Merchant();
+        merchant.setMerchantId(MERCHANT_ID);
+        when(merchantMapper.selectById(MERCHANT_ID)).thenReturn(merchant);
+        when(adapterFactory.getAdapter(merchant)).thenReturn(adapter);
+        when(snapshotMapper.selectMemberPhones(MERCHANT_ID)).thenReturn(List.of());
+        when(adapter.exportMemberPhones(eq(MERCHANT_ID), any())).thenAnswer(inv -> {
+            Consumer<String> sink = inv.getArgument(1);
+            sink.accept(MEMBER_PHONE);
+            return true;
+        });
+
+        service = new MemberPhoneFilterService(merchantMapper, snapshotMapper, adapterFactory, redis);
+        builtBefore = LocalDateTime.now().minusDays(30);
+        service.rebuild(MERCHANT_ID);
+    }
+
+    @Test
+    void newMemberExcludedUntilAdded() {
+        assertThat(service.mightBeMember(MERCHANT_ID, MEMBER_PHONE, builtBefore)).isTrue();
+        assertThat(service.mightBeMember(MERCHANT_ID, NEW_MEMBER_PHONE, builtBefore)).isFalse();
+
+        service.addMembers(MERCHANT_ID, List.of(NEW_MEMBER_PHONE));
+
+        assertThat(service.mightBeMember(MERCHANT_ID, NEW_MEMBER_PHONE, builtBefore)).isTrue();
+    }
+
+    @Test
+    void addedMembersVisibleToOtherNodes() {
+        service.addMembers(MERCHANT_ID, List.of(NEW_MEMBER_PHONE));
+
+        MemberPhoneFilterService otherNode =
+                new MemberPhoneFilterService(merchantMapper, snapshotMapper, adapterFactory, redis);
+        assertThat(otherNode.mightBeMember(MERCHANT_ID, NEW_MEMBER_PHONE, builtBefore)).isTrue();
+        assertThat(otherNode.mightBeMember(MERCHANT_ID, "13700000003", builtBefore)).isFalse();
+    }
+
+    @Test
+    void userRegisteredAfterBuildBypassesFilter() {
+        assertThat(service.mightBeMember(MERCHANT_ID, NEW_MEMBER_PHONE, LocalDateTime.now().plusSeconds(1))).isTrue();
+
+        MemberPhoneFilterService otherNode =
+                new MemberPhoneFilterService(merchantMapper, snapshotMapper, adapterFactory, redis);
+        assertThat(otherNode.mightBeMember(MERCHANT_ID, NEW_MEMBER_PHONE, LocalDateTime.now().plusSeconds(1)))
+                .isTrue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.wsh.matching.service;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.wsh.common.mybatis.config.MybatisPlusConfig;
+import com.wsh.common.mybatis.handler.AutoFillHandler;
+import com.wsh.domain.entity.MerchantMemberSnapshot;
+import com.wsh.domain.mapper.MerchantMemberSnapshotMapper;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 会员快照分片号：新增时写入，V9 之前的存量快照分批回填后可按分片遍历
+ * 使用 local 环境的 H2（MySQL 模式）与 schema-local.sql
+ */
+@SpringBootTest(classes = MemberSyncShardTest.TestConfig.class, properties = {
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema-local.sql",
+        "spring.sql.init.encoding=UTF-8"
+})
+@ActiveProfiles("local")
+@Transactional
+class MemberSyncShardTest {
+
+    private static final long USER_ID = 8_700_000_000L;
+    private static final long MERCHANT_ID = 8_800_000_000L;
+
+    @Autowired
+    private MerchantMemberSnapshotMapper snapshotMapper;
+
+    @Test
+    void legacySnapshotsBackfilledInBatches() {
+        for (int i = 0; i < 5; i++) {
+            insert(USER_ID + i, null);
+        }
+        int shard = MemberSyncService.shardOf(USER_ID);
+        assertThat(snapshotMapper.selectSyncPage(shard, 0L, 10)).isEmpty();
+
+        int total = 0;
+        int updated;
+        do {
+            updated = snapshotMapper.backfillSyncShard(MemberSyncService.SHARD_COUNT, 2);
+            assertThat(updated).isLessThanOrEqualTo(2);
+            total += updated;
+        } while (updated == 2);
+
+        assertThat(total).isEqualTo(5);
+        assertThat(snapshotMapper.selectSyncPage(shard, 0L, 10))
+                .extracting(MerchantMemberSnapshot::getUserId)
+                .containsExactly(USER_ID);
+    }
+
+    @Test
+    void shardMatchesSqlModulo() {
+        insert(USER_ID, MemberSyncService.shardOf(USER_ID));
+        insert(USER_ID + 1, null);
+        snapshotMapper.backfillSyncShard(MemberSyncService.SHARD_COUNT, 10);
+
+        assertThat(snapshotMapper.selectSyncPage(MemberSyncService.shardOf(USER_ID + 1), 0L, 10))
+                .extracting(MerchantMemberSnapshot::getUserId)
+                .containsExactly(USER_ID + 1);
+    }
+
+    private void insert(long userId, Integer syncShard) {
+        MerchantMemberSnapshot snapshot = new MerchantMemberSnapshot();
+        snapshot.setUserId(userId);
+        snapshot.setMerchantId(MERCHANT_ID);
+        snapshot.setSyncTime(LocalDateTime.now());
+        snapshot.setSyncStatus(1);
+        snapshot.setSyncShard(syncShard);
+        snapshotMapper.insert(snapshot);
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            SqlInitializationAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.wsh.domain.mapper")
+    @Import({MybatisPlusConfig.class, AutoFillHandler.class})
+    static class TestConfig {
+    }
+}
@@ -31,13 +31,17 @@ export interface VoucherListResponse {
   availableCount: number
   usedCount: number
   expiredCount: number
+  /** 下一页游标，无更多数据时为空 */
+  nextCursor?: string
+  hasMore: boolean
 }
 
 /**
  * 获取券包列表
+ * 不传 cursor 与 pageSize 时返回全部券码；分页加载时传入上一页返回的 nextCursor
  */
-export function getVouchers(status?: number): Promise<VoucherListResponse> {
-  return get<VoucherListResponse>('/v1/vouchers', { status })
+export function getVouchers(status?: number, cursor?: string, pageSize?: number): Promise<VoucherListResponse> {
+  return get<VoucherListResponse>('/v1/vouchers', { status, cursor, pageSize })
 }
 
 /**